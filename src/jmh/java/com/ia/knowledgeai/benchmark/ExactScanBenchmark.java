@@ -0,0 +1,129 @@
+package com.ia.knowledgeai.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Cost of the exact scan behind {@code vector-store.exact-search}: the top K of a scope of {@code rows} normalized
+ * vectors packed in one array, by dot product computed with plain loops or with the Java Vector API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "--add-modules", "jdk.incubator.vector" })
+public class ExactScanBenchmark {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private static final int DIMENSIONS = 768;
+
+	private static final int QUERIES = 50;
+
+	private static final int K = 10;
+
+	@Param({ "1000", "5000" })
+	private int rows;
+
+	@Param({ "SCALAR", "SIMD" })
+	private String scoring;
+
+	private float[] vectors;
+
+	private float[][] queries;
+
+	private int query;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		vectors = new float[rows * DIMENSIONS];
+		for (int row = 0; row < rows; row++) {
+			System.arraycopy(normalized(random), 0, vectors, row * DIMENSIONS, DIMENSIONS);
+		}
+		queries = new float[QUERIES][];
+		for (int q = 0; q < QUERIES; q++) {
+			queries[q] = normalized(random);
+		}
+	}
+
+	@Benchmark
+	public int[] scan() {
+		query = (query + 1) % QUERIES;
+		float[] q = queries[query];
+		boolean simd = scoring.equals("SIMD");
+		int[] best = new int[K];
+		float[] bestDistances = new float[K];
+		int found = 0;
+		for (int row = 0; row < rows; row++) {
+			int offset = row * DIMENSIONS;
+			float distance = 1 - (simd ? simdDot(q, offset) : scalarDot(q, offset));
+			if (found == K && distance >= bestDistances[K - 1]) {
+				continue;
+			}
+			int position = found < K ? found++ : K - 1;
+			while (position > 0 && bestDistances[position - 1] > distance) {
+				best[position] = best[position - 1];
+				bestDistances[position] = bestDistances[position - 1];
+				position--;
+			}
+			best[position] = row;
+			bestDistances[position] = distance;
+		}
+		return best;
+	}
+
+	private float scalarDot(float[] q, int offset) {
+		float sum = 0;
+		for (int i = 0; i < DIMENSIONS; i++) {
+			sum += q[i] * vectors[offset + i];
+		}
+		return sum;
+	}
+
+	private float simdDot(float[] q, int offset) {
+		FloatVector sum = FloatVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(DIMENSIONS);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			sum = FloatVector.fromArray(SPECIES, q, i).fma(FloatVector.fromArray(SPECIES, vectors, offset + i), sum);
+		}
+		float result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < DIMENSIONS; i++) {
+			result += q[i] * vectors[offset + i];
+		}
+		return result;
+	}
+
+	private static float[] normalized(SplittableRandom random) {
+		float[] vector = new float[DIMENSIONS];
+		double norm = 0;
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] = (float) (random.nextDouble() * 2 - 1);
+			norm += vector[i] * vector[i];
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] *= scale;
+		}
+		return vector;
+	}
+}
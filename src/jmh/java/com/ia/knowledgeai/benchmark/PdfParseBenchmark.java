@@ -0,0 +1,126 @@
+package com.ia.knowledgeai.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ia.knowledgeai.domain.support.ParseLimits;
+import com.ia.knowledgeai.domain.support.PdfPageParser;
+import com.ia.knowledgeai.domain.support.TikaDocumentParser;
+import com.ia.knowledgeai.domain.support.TikaParsers;
+
+/**
+ * Parse time of a 500-page PDF against the number of workers extracting page ranges. A parallelism of 1 disables
+ * the page-parallel path, so that row is plain Tika.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PdfParseBenchmark {
+
+	private static final int PAGES = 500;
+
+	private static final int LINES_PER_PAGE = 40;
+
+	private static final String[] WORDS = { "the", "vector", "store", "returns", "documents", "ranked", "by",
+			"similarity", "ingestion", "splits", "each", "upload", "into", "chunks", "embedding", "model", "query" };
+
+	@Param({ "1", "2", "4", "8" })
+	private int parallelism;
+
+	private byte[] pdf;
+
+	private PdfPageParser pdfPageParser;
+
+	private TikaDocumentParser parser;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		pdf = generate();
+		pdfPageParser = new PdfPageParser(parallelism, 16, 32);
+		parser = new TikaDocumentParser(TikaParsers.restrictedTo(List.of("application/pdf")), pdfPageParser,
+				ParseLimits.NONE);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pdfPageParser.close();
+	}
+
+	@Benchmark
+	public long parse() {
+		CountingWriter sink = new CountingWriter();
+		parser.parse(new ByteArrayInputStream(pdf), "manual.pdf", "application/pdf", sink);
+		return sink.characters;
+	}
+
+	private static byte[] generate() throws IOException {
+		SplittableRandom random = new SplittableRandom(42);
+		try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			for (int page = 0; page < PAGES; page++) {
+				PDPage pdPage = new PDPage();
+				document.addPage(pdPage);
+				try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 10);
+					content.setLeading(14);
+					content.newLineAtOffset(50, 740);
+					for (int line = 0; line < LINES_PER_PAGE; line++) {
+						StringBuilder text = new StringBuilder();
+						for (int word = 0; word < 12; word++) {
+							text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+						}
+						content.showText(text.toString().trim());
+						content.newLine();
+					}
+					content.endText();
+				}
+			}
+			document.save(out);
+			return out.toByteArray();
+		}
+	}
+
+	private static final class CountingWriter extends Writer {
+
+		private long characters;
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			characters += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
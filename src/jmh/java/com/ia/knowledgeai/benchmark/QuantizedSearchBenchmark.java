@@ -0,0 +1,225 @@
+package com.ia.knowledgeai.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost and recall of the two-phase search behind {@code vector-store.quantization}, reproduced in memory: candidates
+ * are ranked by the quantized vectors (half precision, or one sign bit per dimension compared by Hamming distance) and
+ * the best {@code rescoreFactor * K} are re-scored with the float32 vectors. The vectors are clustered like real
+ * embeddings rather than uniform noise, and the recall@K against the exact search is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QuantizedSearchBenchmark {
+
+	private static final int VECTORS = 20_000;
+
+	private static final int DIMENSIONS = 768;
+
+	private static final int CLUSTERS = 64;
+
+	private static final int QUERIES = 50;
+
+	private static final int K = 10;
+
+	@Param({ "NONE", "HALFVEC", "BINARY" })
+	private String quantization;
+
+	@Param({ "4", "10" })
+	private int rescoreFactor;
+
+	private float[][] vectors;
+
+	private short[][] halfVectors;
+
+	private long[][] bits;
+
+	private float[][] queries;
+
+	private int query;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		float[][] centroids = new float[CLUSTERS][];
+		for (int c = 0; c < CLUSTERS; c++) {
+			centroids[c] = gaussian(random, null, 1f);
+		}
+		vectors = new float[VECTORS][];
+		halfVectors = new short[VECTORS][];
+		bits = new long[VECTORS][];
+		for (int i = 0; i < VECTORS; i++) {
+			vectors[i] = gaussian(random, centroids[random.nextInt(CLUSTERS)], 0.6f);
+			halfVectors[i] = toHalf(vectors[i]);
+			bits[i] = toBits(vectors[i]);
+		}
+		queries = new float[QUERIES][];
+		for (int q = 0; q < QUERIES; q++) {
+			queries[q] = gaussian(random, centroids[random.nextInt(CLUSTERS)], 0.6f);
+		}
+		double recall = 0;
+		for (float[] q : queries) {
+			recall += overlap(exact(q), search(q)) / (double) K;
+		}
+		System.out.printf("%n%s rescoreFactor=%d recall@%d=%.3f%n", quantization, rescoreFactor, K,
+				recall / QUERIES);
+	}
+
+	@Benchmark
+	public int[] search() {
+		query = (query + 1) % QUERIES;
+		return search(queries[query]);
+	}
+
+	private int[] search(float[] q) {
+		return switch (quantization) {
+			case "HALFVEC" -> rescore(q, topByHalf(q, K * rescoreFactor));
+			case "BINARY" -> rescore(q, topByBits(q, K * rescoreFactor));
+			default -> exact(q);
+		};
+	}
+
+	private int[] exact(float[] q) {
+		double[] distances = new double[VECTORS];
+		for (int i = 0; i < VECTORS; i++) {
+			distances[i] = cosineDistance(q, vectors[i]);
+		}
+		return top(distances, K);
+	}
+
+	private int[] topByHalf(float[] q, int n) {
+		double[] distances = new double[VECTORS];
+		short[] half = toHalf(q);
+		for (int i = 0; i < VECTORS; i++) {
+			distances[i] = halfCosineDistance(half, halfVectors[i]);
+		}
+		return top(distances, n);
+	}
+
+	private int[] topByBits(float[] q, int n) {
+		double[] distances = new double[VECTORS];
+		long[] queryBits = toBits(q);
+		for (int i = 0; i < VECTORS; i++) {
+			int hamming = 0;
+			for (int w = 0; w < queryBits.length; w++) {
+				hamming += Long.bitCount(queryBits[w] ^ bits[i][w]);
+			}
+			distances[i] = hamming;
+		}
+		return top(distances, n);
+	}
+
+	private int[] rescore(float[] q, int[] candidates) {
+		double[] distances = new double[candidates.length];
+		for (int i = 0; i < candidates.length; i++) {
+			distances[i] = cosineDistance(q, vectors[candidates[i]]);
+		}
+		int[] best = top(distances, K);
+		for (int i = 0; i < best.length; i++) {
+			best[i] = candidates[best[i]];
+		}
+		return best;
+	}
+
+	private static int[] top(double[] distances, int n) {
+		Integer[] order = new Integer[distances.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+		int[] top = new int[Math.min(n, order.length)];
+		for (int i = 0; i < top.length; i++) {
+			top[i] = order[i];
+		}
+		return top;
+	}
+
+	private static int overlap(int[] expected, int[] actual) {
+		int found = 0;
+		for (int id : actual) {
+			for (int e : expected) {
+				if (id == e) {
+					found++;
+					break;
+				}
+			}
+		}
+		return found;
+	}
+
+	private static double cosineDistance(float[] a, float[] b) {
+		double dot = 0;
+		double normA = 0;
+		double normB = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return 1 - dot / Math.sqrt(normA * normB);
+	}
+
+	private static double halfCosineDistance(short[] a, short[] b) {
+		double dot = 0;
+		double normA = 0;
+		double normB = 0;
+		for (int i = 0; i < a.length; i++) {
+			float x = Float.float16ToFloat(a[i]);
+			float y = Float.float16ToFloat(b[i]);
+			dot += x * y;
+			normA += x * x;
+			normB += y * y;
+		}
+		return 1 - dot / Math.sqrt(normA * normB);
+	}
+
+	private static short[] toHalf(float[] vector) {
+		short[] half = new short[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			half[i] = Float.floatToFloat16(vector[i]);
+		}
+		return half;
+	}
+
+	/**
+	 * Sign bits, as {@code binary_quantize} does: 1 for positive components.
+	 */
+	private static long[] toBits(float[] vector) {
+		long[] words = new long[(vector.length + Long.SIZE - 1) / Long.SIZE];
+		for (int i = 0; i < vector.length; i++) {
+			if (vector[i] > 0) {
+				words[i / Long.SIZE] |= 1L << (i % Long.SIZE);
+			}
+		}
+		return words;
+	}
+
+	private static float[] gaussian(SplittableRandom random, float[] center, float scale) {
+		float[] vector = new float[DIMENSIONS];
+		for (int i = 0; i < DIMENSIONS; i++) {
+			double u = 1 - random.nextDouble();
+			double gaussian = Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+			vector[i] = (center != null ? center[i] : 0) + (float) (gaussian * scale);
+		}
+		return vector;
+	}
+}
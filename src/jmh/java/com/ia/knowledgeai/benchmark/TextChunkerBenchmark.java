@@ -0,0 +1,105 @@
+package com.ia.knowledgeai.benchmark;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import com.ia.knowledgeai.domain.support.ChunkWriter;
+import com.ia.knowledgeai.domain.support.TextChunker;
+
+/**
+ * Chunking throughput and allocation on 1MB and 20MB texts with the production chunk settings (256 tokens, 32
+ * overlap).
+ * <p>
+ * {@code tokenTextSplitter} is the previous {@code TextChunker.chunk}: a new {@link TokenTextSplitter} per call over a
+ * Spring AI {@link Document} wrapping the whole text, here with an unbounded chunk count. {@code iterator} and
+ * {@code writer} are the lazy and the streaming paths of the current {@link TextChunker}. Run with {@code -prof gc}
+ * for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TextChunkerBenchmark {
+
+	private static final int CHUNK_SIZE = 256;
+
+	private static final int CHUNK_OVERLAP = 32;
+
+	private static final String[] WORDS = { "the", "vector", "store", "returns", "documents", "ranked", "by",
+			"similarity", "ingestion", "splits", "each", "upload", "into", "chunks", "embedding", "model", "query",
+			"answer", "context", "retrieval", "configuration", "PostgreSQL", "index", "latency", "throughput" };
+
+	@Param({ "1048576", "20971520" })
+	private int textChars;
+
+	private String text;
+
+	private TextChunker textChunker;
+
+	@Setup
+	public void setUp() {
+		text = generate(textChars);
+		textChunker = new TextChunker();
+	}
+
+	@Benchmark
+	public void tokenTextSplitter(Blackhole blackhole) {
+		TokenTextSplitter splitter = new TokenTextSplitter(CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE, Integer.MAX_VALUE,
+				false);
+		List<String> chunks = splitter.split(new Document(text)).stream().map(Document::getText).toList();
+		blackhole.consume(chunks);
+	}
+
+	@Benchmark
+	public void iterator(Blackhole blackhole) {
+		Iterator<String> chunks = textChunker.iterator(text, CHUNK_SIZE, CHUNK_OVERLAP);
+		while (chunks.hasNext()) {
+			blackhole.consume(chunks.next());
+		}
+	}
+
+	@Benchmark
+	public void writer(Blackhole blackhole) throws IOException {
+		try (ChunkWriter writer = textChunker.writer(CHUNK_SIZE, CHUNK_OVERLAP, blackhole::consume)) {
+			writer.write(text);
+		}
+	}
+
+	private static String generate(int chars) {
+		SplittableRandom random = new SplittableRandom(42);
+		StringBuilder builder = new StringBuilder(chars + 32);
+		int sentenceWords = 0;
+		while (builder.length() < chars) {
+			builder.append(WORDS[random.nextInt(WORDS.length)]);
+			if (++sentenceWords >= 8 + random.nextInt(16)) {
+				builder.append(random.nextInt(6) == 0 ? ".\n" : ". ");
+				sentenceWords = 0;
+			}
+			else {
+				builder.append(' ');
+			}
+		}
+		builder.setLength(chars);
+		return builder.toString();
+	}
+}
@@ -0,0 +1,164 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pgvector.PGvector;
+
+/**
+ * Search latency (p50/p99 of the sampled times) and recall@k of pgvector and {@link HnswIndex} over the same corpus:
+ * the rows of the vector store table of the database at {@code jdbcUrl}, by default the one of
+ * {@code application.yml}. Queries are corpus vectors with Gaussian noise added, and the recall against an exact scan
+ * with cosine distance, the default distance of the vector store, is printed once per trial. pgvector latency
+ * includes the round-trip, which is what the in-memory index saves.
+ * <p>
+ * Lives next to {@link HnswIndex} because the index is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VectorSearchBenchmark {
+
+	private static final int QUERIES = 200;
+
+	@Param({ "PGVECTOR", "IN_MEMORY" })
+	private String engine;
+
+	@Param("jdbc:postgresql://localhost:5432/knowledge")
+	private String jdbcUrl;
+
+	@Param("dev")
+	private String user;
+
+	@Param("dev")
+	private String password;
+
+	@Param("10")
+	private int k;
+
+	@Param("40")
+	private int efSearch;
+
+	@Param("16")
+	private int hnswM;
+
+	@Param("64")
+	private int hnswEfConstruction;
+
+	private Connection connection;
+
+	private PreparedStatement statement;
+
+	private List<String> ids;
+
+	private HnswIndex index;
+
+	private float[][] queries;
+
+	private int query;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection(jdbcUrl, user, password);
+		ids = new ArrayList<>();
+		List<float[]> corpus = new ArrayList<>();
+		try (Statement select = connection.createStatement();
+				ResultSet rows = select
+					.executeQuery("SELECT id, embedding FROM " + JdbcEmbeddingRepository.VECTOR_TABLE)) {
+			while (rows.next()) {
+				ids.add(rows.getString("id"));
+				corpus.add(new PGvector(rows.getString("embedding")).toArray());
+			}
+		}
+		if (corpus.isEmpty()) {
+			throw new IllegalStateException("The vector store table is empty, nothing to benchmark");
+		}
+
+		long buildStart = System.nanoTime();
+		index = new HnswIndex(corpus.get(0).length, HnswIndex.Metric.COSINE, hnswM, hnswEfConstruction);
+		corpus.forEach(index::add);
+		long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+		try (Statement set = connection.createStatement()) {
+			set.execute("SET hnsw.ef_search = " + efSearch);
+		}
+		statement = connection.prepareStatement("SELECT id FROM " + JdbcEmbeddingRepository.VECTOR_TABLE
+				+ " ORDER BY embedding <=> ? LIMIT ?");
+
+		Random random = new Random(1);
+		queries = new float[QUERIES][];
+		long found = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = withNoise(corpus.get(random.nextInt(corpus.size())), random);
+			Set<String> expected = new HashSet<>();
+			index.exact(queries[i], k, null).forEach(neighbor -> expected.add(ids.get(neighbor.node())));
+			found += search(queries[i]).stream().filter(expected::contains).count();
+		}
+		System.out.printf("%n%s: %d vectors of %d dimensions, graph built in %d ms, recall@%d=%.3f%n", engine,
+				corpus.size(), corpus.get(0).length, buildMillis, k, (double) found / ((long) QUERIES * k));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Benchmark
+	public List<String> search() throws SQLException {
+		query = (query + 1) % QUERIES;
+		return search(queries[query]);
+	}
+
+	private List<String> search(float[] vector) throws SQLException {
+		if (engine.equals("IN_MEMORY")) {
+			return index.search(vector, k, efSearch, null, Integer.MAX_VALUE)
+				.stream()
+				.map(neighbor -> ids.get(neighbor.node()))
+				.toList();
+		}
+		statement.setObject(1, new PGvector(vector));
+		statement.setInt(2, k);
+		List<String> found = new ArrayList<>(k);
+		try (ResultSet rows = statement.executeQuery()) {
+			while (rows.next()) {
+				found.add(rows.getString(1));
+			}
+		}
+		return found;
+	}
+
+	private static float[] withNoise(float[] vector, Random random) {
+		float[] noisy = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			noisy[i] = vector[i] + (float) (random.nextGaussian() * 0.01);
+		}
+		return noisy;
+	}
+}
@@ -0,0 +1,42 @@
+package com.ia.knowledgeai.config;
+
+import org.apache.tika.parser.Parser;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ia.knowledgeai.domain.support.ParseLimits;
+import com.ia.knowledgeai.domain.support.PdfPageParser;
+import com.ia.knowledgeai.domain.support.TikaParsers;
+
+@Configuration
+public class DocumentParserConfig {
+
+	@Bean(destroyMethod = "close")
+	public PdfPageParser pdfPageParser(IngestProperties ingestProperties) {
+		IngestProperties.Pdf pdf = ingestProperties.getPdf();
+		// Forked parsing keeps every parse out of the service JVM, including large PDFs.
+		int parallelism = isForked(ingestProperties) ? 1 : pdf.getParallelism();
+		return new PdfPageParser(parallelism, pdf.getPagesPerTask(), pdf.getMinPages());
+	}
+
+	@Bean
+	public Parser tikaParser(IngestProperties ingestProperties) {
+		Parser parser = TikaParsers.restrictedTo(ingestProperties.getAllowedContentTypes());
+		if (!isForked(ingestProperties)) {
+			return parser;
+		}
+		IngestProperties.ParserSettings settings = ingestProperties.getParser();
+		return TikaParsers.forked(parser, settings.getForkPoolSize(), settings.getForkMaxHeap(),
+				settings.getTimeout());
+	}
+
+	@Bean
+	public ParseLimits parseLimits(IngestProperties ingestProperties) {
+		IngestProperties.ParserSettings settings = ingestProperties.getParser();
+		return new ParseLimits(settings.getTimeout(), settings.getMaxOutputChars());
+	}
+
+	private static boolean isForked(IngestProperties ingestProperties) {
+		return ingestProperties.getParser().getIsolation() == IngestProperties.Isolation.FORKED;
+	}
+}
@@ -1,10 +1,35 @@
 package com.ia.knowledgeai.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "ingest")
 public class IngestProperties {
 
+	/**
+	 * How parsed text is cut into chunks: fixed token windows over the flattened text, or whole paragraphs packed
+	 * from the document structure.
+	 */
+	public enum Chunking {
+		TOKENS, STRUCTURE
+	}
+
+	/**
+	 * Where documents are parsed: in the service JVM, or in a pool of child JVMs that can be killed without harm.
+	 */
+	public enum Isolation {
+		IN_PROCESS, FORKED
+	}
+
+	/**
+	 * What happens to a chunk that nearly duplicates a chunk of another document: nothing, kept without a vector of
+	 * its own, indexed with a copy of the other chunk's vector, or embedded and ranked below it.
+	 */
+	public enum DuplicatePolicy {
+		OFF, SKIP, LINK, DOWN_WEIGHT
+	}
+
 	private int chunkSize = 800;
 
 	private int chunkOverlap = 200;
@@ -17,6 +42,28 @@ public class IngestProperties {
 			"application/pdf",
 			"application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 
+	private Duration staleIngestAfter = Duration.ofHours(1);
+
+	private Duration staleIngestSweepInterval = Duration.ofMinutes(10);
+
+	private Chunking chunking = Chunking.TOKENS;
+
+	private final Async async = new Async();
+
+	private final EmbeddingSettings embedding = new EmbeddingSettings();
+
+	private final Bulk bulk = new Bulk();
+
+	private final Watch watch = new Watch();
+
+	private final Pdf pdf = new Pdf();
+
+	private final ParserSettings parser = new ParserSettings();
+
+	private final Spill spill = new Spill();
+
+	private final NearDuplicates nearDuplicates = new NearDuplicates();
+
 	public int getChunkSize() {
 		return chunkSize;
 	}
@@ -59,4 +106,458 @@ public class IngestProperties {
 		}
 		this.allowedContentTypes = allowedContentTypes;
 	}
+
+	public Duration getStaleIngestAfter() {
+		return staleIngestAfter;
+	}
+
+	public void setStaleIngestAfter(Duration staleIngestAfter) {
+		this.staleIngestAfter = staleIngestAfter;
+	}
+
+	/**
+	 * Time between two sweeps for ingests abandoned by a crashed instance; the first one runs at startup.
+	 */
+	public Duration getStaleIngestSweepInterval() {
+		return staleIngestSweepInterval;
+	}
+
+	public void setStaleIngestSweepInterval(Duration staleIngestSweepInterval) {
+		this.staleIngestSweepInterval = staleIngestSweepInterval;
+	}
+
+	public Chunking getChunking() {
+		return chunking;
+	}
+
+	public void setChunking(Chunking chunking) {
+		this.chunking = chunking;
+	}
+
+	public Async getAsync() {
+		return async;
+	}
+
+	public EmbeddingSettings getEmbedding() {
+		return embedding;
+	}
+
+	public Bulk getBulk() {
+		return bulk;
+	}
+
+	public Watch getWatch() {
+		return watch;
+	}
+
+	public Pdf getPdf() {
+		return pdf;
+	}
+
+	public ParserSettings getParser() {
+		return parser;
+	}
+
+	public Spill getSpill() {
+		return spill;
+	}
+
+	public NearDuplicates getNearDuplicates() {
+		return nearDuplicates;
+	}
+
+	/**
+	 * Sizing of the staged asynchronous pipeline; each stage has its own workers and a bounded hand-off queue.
+	 */
+	public static class Async {
+
+		private int parseWorkers = 2;
+
+		private int embedWorkers = 2;
+
+		private int storeWorkers = 1;
+
+		private int queueCapacity = 256;
+
+		private int stageBatchSize = 32;
+
+		private int maxQueuedJobs = 100;
+
+		private Duration jobRetention = Duration.ofHours(1);
+
+		public int getParseWorkers() {
+			return parseWorkers;
+		}
+
+		public void setParseWorkers(int parseWorkers) {
+			this.parseWorkers = parseWorkers;
+		}
+
+		public int getEmbedWorkers() {
+			return embedWorkers;
+		}
+
+		public void setEmbedWorkers(int embedWorkers) {
+			this.embedWorkers = embedWorkers;
+		}
+
+		public int getStoreWorkers() {
+			return storeWorkers;
+		}
+
+		public void setStoreWorkers(int storeWorkers) {
+			this.storeWorkers = storeWorkers;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public int getStageBatchSize() {
+			return stageBatchSize;
+		}
+
+		public void setStageBatchSize(int stageBatchSize) {
+			this.stageBatchSize = stageBatchSize;
+		}
+
+		public int getMaxQueuedJobs() {
+			return maxQueuedJobs;
+		}
+
+		public void setMaxQueuedJobs(int maxQueuedJobs) {
+			this.maxQueuedJobs = maxQueuedJobs;
+		}
+
+		public Duration getJobRetention() {
+			return jobRetention;
+		}
+
+		public void setJobRetention(Duration jobRetention) {
+			this.jobRetention = jobRetention;
+		}
+	}
+
+	/**
+	 * Batching of embedding requests: a batch is closed when it reaches either limit, and at most
+	 * {@code maxConcurrency} batches are in flight against the embedding backend at once. Vectors are cached per
+	 * {@code model} and chunk hash, so changing the embedding model never reuses stale vectors.
+	 */
+	public static class EmbeddingSettings {
+
+		private String model = "default";
+
+		private boolean cacheEnabled = true;
+
+		private int batchSize = 16;
+
+		private int maxBatchTokens = 8192;
+
+		private int maxConcurrency = 4;
+
+		public String getModel() {
+			return model;
+		}
+
+		public void setModel(String model) {
+			this.model = model;
+		}
+
+		public boolean isCacheEnabled() {
+			return cacheEnabled;
+		}
+
+		public void setCacheEnabled(boolean cacheEnabled) {
+			this.cacheEnabled = cacheEnabled;
+		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public int getMaxBatchTokens() {
+			return maxBatchTokens;
+		}
+
+		public void setMaxBatchTokens(int maxBatchTokens) {
+			this.maxBatchTokens = maxBatchTokens;
+		}
+
+		public int getMaxConcurrency() {
+			return maxConcurrency;
+		}
+
+		public void setMaxConcurrency(int maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+	}
+
+	/**
+	 * Bulk ingestion: files of one request are ingested by a shared pool of {@code workers} threads.
+	 */
+	public static class Bulk {
+
+		private int workers = 4;
+
+		private int maxArchiveEntries = 10000;
+
+		private Duration streamTimeout = Duration.ofHours(2);
+
+		public int getWorkers() {
+			return workers;
+		}
+
+		public void setWorkers(int workers) {
+			this.workers = workers;
+		}
+
+		public int getMaxArchiveEntries() {
+			return maxArchiveEntries;
+		}
+
+		public void setMaxArchiveEntries(int maxArchiveEntries) {
+			this.maxArchiveEntries = maxArchiveEntries;
+		}
+
+		/**
+		 * How long the NDJSON response of a bulk run may stream, applied as {@code spring.mvc.async.request-timeout}
+		 * in place of the servlet container default (30 seconds on Tomcat).
+		 */
+		public Duration getStreamTimeout() {
+			return streamTimeout;
+		}
+
+		public void setStreamTimeout(Duration streamTimeout) {
+			this.streamTimeout = streamTimeout;
+		}
+	}
+
+	/**
+	 * Filesystem connector: keeps the documents of the watched directories in sync with their files. A file is only
+	 * synced once no event has been seen for it during {@code settleTime}, so files still being copied are not
+	 * ingested half-written.
+	 */
+	public static class Watch {
+
+		private boolean enabled;
+
+		private java.util.List<String> directories = new java.util.ArrayList<>();
+
+		private String source = "filesystem";
+
+		private java.util.List<String> tags = new java.util.ArrayList<>();
+
+		private Duration settleTime = Duration.ofSeconds(2);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public java.util.List<String> getDirectories() {
+			return directories;
+		}
+
+		public void setDirectories(java.util.List<String> directories) {
+			this.directories = directories;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		public void setSource(String source) {
+			this.source = source;
+		}
+
+		public java.util.List<String> getTags() {
+			return tags;
+		}
+
+		public void setTags(java.util.List<String> tags) {
+			this.tags = tags;
+		}
+
+		public Duration getSettleTime() {
+			return settleTime;
+		}
+
+		public void setSettleTime(Duration settleTime) {
+			this.settleTime = settleTime;
+		}
+	}
+
+	/**
+	 * Page-parallel extraction of large PDFs: documents with at least {@code minPages} pages are split into ranges of
+	 * {@code pagesPerTask} pages parsed by {@code parallelism} workers. A parallelism of 1 leaves every PDF to Tika.
+	 */
+	public static class Pdf {
+
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+
+		private int pagesPerTask = 16;
+
+		private int minPages = 32;
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		public int getPagesPerTask() {
+			return pagesPerTask;
+		}
+
+		public void setPagesPerTask(int pagesPerTask) {
+			this.pagesPerTask = pagesPerTask;
+		}
+
+		public int getMinPages() {
+			return minPages;
+		}
+
+		public void setMinPages(int minPages) {
+			this.minPages = minPages;
+		}
+	}
+
+	/**
+	 * Limits of a single parse: it is aborted after {@code timeout} or once it has extracted {@code maxOutputChars}
+	 * characters (before whitespace is collapsed). With {@code FORKED} isolation each parse runs in a child JVM of
+	 * {@code forkMaxHeap} that exits when the timeout is exceeded; PDFs are then never parsed page-parallel. The
+	 * parsers of the allowed content types are warmed up at startup unless {@code warmUp} is disabled.
+	 */
+	public static class ParserSettings {
+
+		private Duration timeout = Duration.ofMinutes(2);
+
+		private long maxOutputChars = 50_000_000;
+
+		private Isolation isolation = Isolation.IN_PROCESS;
+
+		private int forkPoolSize = 4;
+
+		private String forkMaxHeap = "512m";
+
+		private boolean warmUp = true;
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		public long getMaxOutputChars() {
+			return maxOutputChars;
+		}
+
+		public void setMaxOutputChars(long maxOutputChars) {
+			this.maxOutputChars = maxOutputChars;
+		}
+
+		public Isolation getIsolation() {
+			return isolation;
+		}
+
+		public void setIsolation(Isolation isolation) {
+			this.isolation = isolation;
+		}
+
+		public int getForkPoolSize() {
+			return forkPoolSize;
+		}
+
+		public void setForkPoolSize(int forkPoolSize) {
+			this.forkPoolSize = forkPoolSize;
+		}
+
+		public String getForkMaxHeap() {
+			return forkMaxHeap;
+		}
+
+		public void setForkMaxHeap(String forkMaxHeap) {
+			this.forkMaxHeap = forkMaxHeap;
+		}
+
+		public boolean isWarmUp() {
+			return warmUp;
+		}
+
+		public void setWarmUp(boolean warmUp) {
+			this.warmUp = warmUp;
+		}
+	}
+
+	/**
+	 * Disk spilling, which keeps the memory of an ingest independent of {@code maxFileSizeBytes} and
+	 * {@code maxTextLength}: uploads larger than {@code uploadThresholdBytes} are parsed from a temporary file, and the
+	 * chunks an update writes in its final transaction go to a temporary file beyond {@code memoryThresholdBytes}.
+	 */
+	public static class Spill {
+
+		private long uploadThresholdBytes = 8 * 1024 * 1024;
+
+		private long memoryThresholdBytes = 32 * 1024 * 1024;
+
+		public long getUploadThresholdBytes() {
+			return uploadThresholdBytes;
+		}
+
+		public void setUploadThresholdBytes(long uploadThresholdBytes) {
+			this.uploadThresholdBytes = uploadThresholdBytes;
+		}
+
+		public long getMemoryThresholdBytes() {
+			return memoryThresholdBytes;
+		}
+
+		public void setMemoryThresholdBytes(long memoryThresholdBytes) {
+			this.memoryThresholdBytes = memoryThresholdBytes;
+		}
+	}
+
+	/**
+	 * Near-duplicate detection: every chunk gets a SimHash signature, and a chunk whose signature is at most
+	 * {@code maxDistance} bits away from a stored chunk of another document is handled by {@code policy}. Distances
+	 * above 3 are not guaranteed to be found by the band index. Chunks skipped under {@code SKIP} are not re-indexed
+	 * when the document holding the original is deleted.
+	 */
+	public static class NearDuplicates {
+
+		private DuplicatePolicy policy = DuplicatePolicy.OFF;
+
+		private int maxDistance = 3;
+
+		public DuplicatePolicy getPolicy() {
+			return policy;
+		}
+
+		public void setPolicy(DuplicatePolicy policy) {
+			this.policy = policy;
+		}
+
+		public int getMaxDistance() {
+			return maxDistance;
+		}
+
+		public void setMaxDistance(int maxDistance) {
+			this.maxDistance = maxDistance;
+		}
+	}
 }
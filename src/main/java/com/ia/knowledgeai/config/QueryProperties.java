@@ -1,17 +1,40 @@
 package com.ia.knowledgeai.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "query")
 public class QueryProperties {
 
+	/**
+	 * How results are retrieved: by vector similarity, by full-text match, or both fused by reciprocal rank.
+	 */
+	public enum Mode {
+		SEMANTIC, LEXICAL, HYBRID
+	}
+
 	private int topKDefault = 5;
 
 	private int topKMax = 10;
 
 	private double similarityThreshold = 0.6;
 
-	private String mode = "semantic";
+	private Mode mode = Mode.SEMANTIC;
+
+	private String textSearchConfig = "simple";
+
+	private int rrfK = 60;
+
+	private double nearDuplicateWeight = 0.8;
+
+	private int nearDuplicateOverfetch = 2;
+
+	private int searchEffort = 0;
+
+	private final CacheSettings embeddingCache = new CacheSettings(1000, Duration.ofMinutes(30));
+
+	private final CacheSettings resultCache = new CacheSettings(500, Duration.ofMinutes(5));
 
 	public int getTopKDefault() {
 		return topKDefault;
@@ -37,11 +60,118 @@ public class QueryProperties {
 		this.similarityThreshold = similarityThreshold;
 	}
 
-	public String getMode() {
+	public Mode getMode() {
 		return mode;
 	}
 
-	public void setMode(String mode) {
+	public void setMode(Mode mode) {
 		this.mode = mode;
 	}
+
+	/**
+	 * PostgreSQL text search configuration of the full-text index; {@code simple} keeps identifiers and codes as
+	 * written, a language configuration such as {@code spanish} stems words and drops stop words.
+	 */
+	public String getTextSearchConfig() {
+		return textSearchConfig;
+	}
+
+	public void setTextSearchConfig(String textSearchConfig) {
+		this.textSearchConfig = textSearchConfig;
+	}
+
+	/**
+	 * Constant {@code k} of reciprocal rank fusion: a result scores {@code 1 / (k + rank)} in each list it appears in.
+	 */
+	public int getRrfK() {
+		return rrfK;
+	}
+
+	public void setRrfK(int rrfK) {
+		this.rrfK = rrfK;
+	}
+
+	public double getNearDuplicateWeight() {
+		return nearDuplicateWeight;
+	}
+
+	public void setNearDuplicateWeight(double nearDuplicateWeight) {
+		this.nearDuplicateWeight = nearDuplicateWeight;
+	}
+
+	/**
+	 * Rows retrieved per requested result while {@code ingest.near-duplicates.policy} is {@code link} or
+	 * {@code down-weight}, so collapsing the near-duplicates it marks still leaves enough results.
+	 */
+	public int getNearDuplicateOverfetch() {
+		return nearDuplicateOverfetch;
+	}
+
+	public void setNearDuplicateOverfetch(int nearDuplicateOverfetch) {
+		this.nearDuplicateOverfetch = nearDuplicateOverfetch;
+	}
+
+	/**
+	 * Search effort of requests that do not set one; {@code 0} uses {@code vector-store.search-effort}.
+	 */
+	public int getSearchEffort() {
+		return searchEffort;
+	}
+
+	public void setSearchEffort(int searchEffort) {
+		this.searchEffort = searchEffort;
+	}
+
+	/**
+	 * In-process cache of query embeddings, keyed by embedding model and normalized query text.
+	 */
+	public CacheSettings getEmbeddingCache() {
+		return embeddingCache;
+	}
+
+	/**
+	 * In-process cache of retrieval results, keyed by the normalized request and invalidated when the documents in its
+	 * scope change.
+	 */
+	public CacheSettings getResultCache() {
+		return resultCache;
+	}
+
+	public static class CacheSettings {
+
+		private boolean enabled = true;
+
+		private int maxEntries;
+
+		private Duration ttl;
+
+		CacheSettings(int maxEntries, Duration ttl) {
+			this.maxEntries = maxEntries;
+			this.ttl = ttl;
+		}
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+
+		public void setMaxEntries(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+	}
 }
@@ -19,6 +19,8 @@ public class RagProperties {
 
 	private int maxContextDocuments = 8;
 
+	private int searchEffort = 0;
+
 	public String getModel() {
 		return model;
 	}
@@ -74,4 +76,15 @@ public class RagProperties {
 	public void setMaxContextDocuments(int maxContextDocuments) {
 		this.maxContextDocuments = maxContextDocuments;
 	}
+
+	/**
+	 * Search effort of requests that do not set one; {@code 0} uses {@code vector-store.search-effort}.
+	 */
+	public int getSearchEffort() {
+		return searchEffort;
+	}
+
+	public void setSearchEffort(int searchEffort) {
+		this.searchEffort = searchEffort;
+	}
 }
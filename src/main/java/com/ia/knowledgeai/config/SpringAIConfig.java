@@ -4,22 +4,60 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.client.RestClient;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.repository.impl.InMemoryHnswVectorStore;
+import com.ia.knowledgeai.repository.impl.ScopedExactSearch;
+import com.ia.knowledgeai.repository.impl.TunedPgVectorStore;
+import com.ia.knowledgeai.service.support.QueryEmbeddingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
-@EnableConfigurationProperties({ IngestProperties.class, QueryProperties.class, RagProperties.class })
+@EnableConfigurationProperties({ IngestProperties.class, QueryProperties.class, RagProperties.class,
+		VectorStoreProperties.class })
 public class SpringAIConfig {
 
 	@Bean
-	public PgVectorStore pgVectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
-		return PgVectorStore.builder(jdbcTemplate, embeddingModel).build();
+	public PgVectorStore pgVectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel,
+			PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+			VectorStoreProperties vectorStoreProperties, QueryEmbeddingCache queryEmbeddingCache,
+			MeterRegistry meterRegistry, ScopedExactSearch scopedExactSearch) {
+		PgVectorStore.PgVectorStoreBuilder builder = PgVectorStore.builder(jdbcTemplate, embeddingModel)
+			.indexType(vectorStoreProperties.getIndexType())
+			.distanceType(vectorStoreProperties.getDistanceType());
+		if (vectorStoreProperties.getDimensions() > 0) {
+			builder.dimensions(vectorStoreProperties.getDimensions());
+		}
+		return new TunedPgVectorStore(builder, jdbcTemplate, transactionManager, objectMapper, vectorStoreProperties,
+				queryEmbeddingCache::embed, meterRegistry, scopedExactSearch);
+	}
+
+	/**
+	 * Searches served from an HNSW graph in memory with {@code vector-store.engine: in-memory}; the pgvector store
+	 * remains the fallback while the graph loads.
+	 */
+	@Bean
+	@Primary
+	@ConditionalOnProperty(prefix = "vector-store", name = "engine", havingValue = "in-memory")
+	public InMemoryHnswVectorStore inMemoryVectorStore(PgVectorStore pgVectorStore, JdbcTemplate jdbcTemplate,
+			EmbeddingModel embeddingModel, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+			VectorStoreProperties vectorStoreProperties, QueryEmbeddingCache queryEmbeddingCache,
+			MeterRegistry meterRegistry) {
+		return new InMemoryHnswVectorStore(PgVectorStore.builder(jdbcTemplate, embeddingModel), pgVectorStore,
+				jdbcTemplate, transactionManager, objectMapper, vectorStoreProperties, queryEmbeddingCache::embed,
+				meterRegistry);
 	}
 
 	@Bean
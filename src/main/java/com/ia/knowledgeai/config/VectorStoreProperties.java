@@ -0,0 +1,219 @@
+package com.ia.knowledgeai.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "vector-store")
+public class VectorStoreProperties {
+
+	/**
+	 * What the approximate index is built over: the full float32 vectors, a half-precision copy, or a binary copy
+	 * keeping one sign bit per dimension. Quantized searches re-score their candidates with the full vectors.
+	 */
+	public enum Quantization {
+		NONE, HALFVEC, BINARY
+	}
+
+	/**
+	 * Where searches run: pgvector, or an HNSW graph held in memory and loaded from the vector store table.
+	 */
+	public enum Engine {
+		PGVECTOR, IN_MEMORY
+	}
+
+	private Engine engine = Engine.PGVECTOR;
+
+	private Path snapshotPath;
+
+	private Quantization quantization = Quantization.NONE;
+
+	private int rescoreFactor = 4;
+
+	private int dimensions = 0;
+
+	private PgVectorStore.PgIndexType indexType = PgVectorStore.PgIndexType.HNSW;
+
+	private PgVectorStore.PgDistanceType distanceType = PgVectorStore.PgDistanceType.COSINE_DISTANCE;
+
+	private int hnswM = 16;
+
+	private int hnswEfConstruction = 64;
+
+	private int ivfflatLists = 100;
+
+	private int searchEffort = 0;
+
+	private int maxSearchEffort = 1000;
+
+	private Duration filteredSearchBudget = Duration.ofMillis(200);
+
+	private final ExactSearchSettings exactSearch = new ExactSearchSettings();
+
+	public Engine getEngine() {
+		return engine;
+	}
+
+	public void setEngine(Engine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * File the in-memory graph is saved to on shutdown and loaded from on startup; unset rebuilds the graph from the
+	 * table on every start.
+	 */
+	public Path getSnapshotPath() {
+		return snapshotPath;
+	}
+
+	public void setSnapshotPath(Path snapshotPath) {
+		this.snapshotPath = snapshotPath;
+	}
+
+	public Quantization getQuantization() {
+		return quantization;
+	}
+
+	public void setQuantization(Quantization quantization) {
+		this.quantization = quantization;
+	}
+
+	/**
+	 * Candidates fetched through the quantized index per requested result, before re-scoring.
+	 */
+	public int getRescoreFactor() {
+		return rescoreFactor;
+	}
+
+	public void setRescoreFactor(int rescoreFactor) {
+		this.rescoreFactor = rescoreFactor;
+	}
+
+	/**
+	 * Dimensions of the stored vectors; {@code 0} asks the embedding model.
+	 */
+	public int getDimensions() {
+		return dimensions;
+	}
+
+	public void setDimensions(int dimensions) {
+		this.dimensions = dimensions;
+	}
+
+	/**
+	 * Approximate index built at startup; {@code NONE} leaves searches exact. The index is named after the index type
+	 * and quantization, so changing either builds a new one, while changing its build parameters does not.
+	 */
+	public PgVectorStore.PgIndexType getIndexType() {
+		return indexType;
+	}
+
+	public void setIndexType(PgVectorStore.PgIndexType indexType) {
+		this.indexType = indexType;
+	}
+
+	public PgVectorStore.PgDistanceType getDistanceType() {
+		return distanceType;
+	}
+
+	public void setDistanceType(PgVectorStore.PgDistanceType distanceType) {
+		this.distanceType = distanceType;
+	}
+
+	public int getHnswM() {
+		return hnswM;
+	}
+
+	public void setHnswM(int hnswM) {
+		this.hnswM = hnswM;
+	}
+
+	public int getHnswEfConstruction() {
+		return hnswEfConstruction;
+	}
+
+	public void setHnswEfConstruction(int hnswEfConstruction) {
+		this.hnswEfConstruction = hnswEfConstruction;
+	}
+
+	public int getIvfflatLists() {
+		return ivfflatLists;
+	}
+
+	public void setIvfflatLists(int ivfflatLists) {
+		this.ivfflatLists = ivfflatLists;
+	}
+
+	/**
+	 * Default {@code hnsw.ef_search} or {@code ivfflat.probes} of a search; {@code 0} keeps the server setting.
+	 */
+	public int getSearchEffort() {
+		return searchEffort;
+	}
+
+	public void setSearchEffort(int searchEffort) {
+		this.searchEffort = searchEffort;
+	}
+
+	/**
+	 * Upper bound for the effort a request may ask for.
+	 */
+	public int getMaxSearchEffort() {
+		return maxSearchEffort;
+	}
+
+	public void setMaxSearchEffort(int maxSearchEffort) {
+		this.maxSearchEffort = maxSearchEffort;
+	}
+
+	/**
+	 * Time a filtered search that returns fewer than {@code topK} rows may spend on wider rounds; {@code 0} runs a
+	 * single round.
+	 */
+	public Duration getFilteredSearchBudget() {
+		return filteredSearchBudget;
+	}
+
+	public void setFilteredSearchBudget(Duration filteredSearchBudget) {
+		this.filteredSearchBudget = filteredSearchBudget;
+	}
+
+	/**
+	 * Exact scan, in memory, of searches scoped to one document or one source small enough, instead of the
+	 * approximate index.
+	 */
+	public ExactSearchSettings getExactSearch() {
+		return exactSearch;
+	}
+
+	public static class ExactSearchSettings {
+
+		private int maxScopeRows = 5000;
+
+		private int cacheRows = 20_000;
+
+		/**
+		 * Largest scope, in chunks, searched exactly; {@code 0} sends every search to the index.
+		 */
+		public int getMaxScopeRows() {
+			return maxScopeRows;
+		}
+
+		public void setMaxScopeRows(int maxScopeRows) {
+			this.maxScopeRows = maxScopeRows;
+		}
+
+		/**
+		 * Chunks of the scopes kept loaded, least recently searched evicted first.
+		 */
+		public int getCacheRows() {
+			return cacheRows;
+		}
+
+		public void setCacheRows(int cacheRows) {
+			this.cacheRows = cacheRows;
+		}
+	}
+}
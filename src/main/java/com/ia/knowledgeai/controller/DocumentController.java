@@ -1,7 +1,32 @@
 package com.ia.knowledgeai.controller;
 
+import java.util.UUID;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+
+import com.ia.knowledgeai.dto.request.DocumentFilterRequest;
+import com.ia.knowledgeai.dto.request.DocumentUpdateRequest;
+import com.ia.knowledgeai.dto.response.DocumentDeleteResponse;
+import com.ia.knowledgeai.dto.response.DocumentPageResponse;
+import com.ia.knowledgeai.dto.response.DocumentResponse;
+import com.ia.knowledgeai.dto.response.DocumentUpdateResponse;
+
+import jakarta.validation.Valid;
+
 /**
  * Contract for document management endpoints.
  */
+@Validated
 public interface DocumentController {
+
+	ResponseEntity<DocumentPageResponse> list(DocumentFilterRequest filter, int page, int size);
+
+	ResponseEntity<DocumentResponse> get(UUID documentId);
+
+	ResponseEntity<DocumentUpdateResponse> update(UUID documentId, @Valid DocumentUpdateRequest updateRequest);
+
+	ResponseEntity<Void> delete(UUID documentId);
+
+	ResponseEntity<DocumentDeleteResponse> deleteMatching(DocumentFilterRequest filter);
 }
@@ -1,10 +1,12 @@
 package com.ia.knowledgeai.controller;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -38,6 +40,18 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of("error", "Upstream fetch failed"));
 	}
 
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<Map<String, String>> handleRejected(RejectedExecutionException ex) {
+		LOGGER.warn("Request rejected: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", ex.getMessage()));
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<Map<String, String>> handleConflict(OptimisticLockingFailureException ex) {
+		LOGGER.warn("Conflicting update: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<Map<String, String>> handleGeneric(Exception ex) {
 		LOGGER.error("Unexpected error", ex);
@@ -1,9 +1,14 @@
 package com.ia.knowledgeai.controller;
 
+import java.util.UUID;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ia.knowledgeai.dto.request.BulkIngestRequest;
 import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.IngestJobResponse;
 import com.ia.knowledgeai.dto.response.IngestResponse;
 
 import jakarta.validation.Valid;
@@ -15,4 +20,10 @@ import jakarta.validation.Valid;
 public interface IngestController {
 
 	ResponseEntity<IngestResponse> ingest(@Valid IngestRequest ingestRequest);
+
+	ResponseEntity<IngestJobResponse> submit(@Valid IngestRequest ingestRequest);
+
+	ResponseEntity<IngestJobResponse> getJob(UUID jobId);
+
+	ResponseEntity<StreamingResponseBody> bulkIngest(@Valid BulkIngestRequest bulkIngestRequest);
 }
@@ -1,9 +1,96 @@
 package com.ia.knowledgeai.controller.impl;
 
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ia.knowledgeai.controller.DocumentController;
+import com.ia.knowledgeai.dto.request.DocumentFilterRequest;
+import com.ia.knowledgeai.dto.request.DocumentUpdateRequest;
+import com.ia.knowledgeai.dto.response.DocumentDeleteResponse;
+import com.ia.knowledgeai.dto.response.DocumentPageResponse;
+import com.ia.knowledgeai.dto.response.DocumentResponse;
+import com.ia.knowledgeai.dto.response.DocumentUpdateResponse;
+import com.ia.knowledgeai.service.DocumentService;
+import com.ia.knowledgeai.service.IngestService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 
 @RestController
+@RequestMapping
+@Tag(name = "Documents", description = "Endpoints for managing ingested documents")
 public class DocumentControllerImpl implements DocumentController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DocumentControllerImpl.class);
+
+	private static final String DOCUMENTS_PATH = "/api/v1/documents";
+
+	private final DocumentService documentService;
+
+	private final IngestService ingestService;
+
+	public DocumentControllerImpl(DocumentService documentService, IngestService ingestService) {
+		this.documentService = documentService;
+		this.ingestService = ingestService;
+	}
+
+	@Override
+	@GetMapping(path = { DOCUMENTS_PATH, DOCUMENTS_PATH + "/" }, produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "List documents", description = "Pages through documents, newest first, optionally restricted to a source and/or tag")
+	public ResponseEntity<DocumentPageResponse> list(@ModelAttribute DocumentFilterRequest filter,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+		return ResponseEntity.ok(documentService.list(filter, page, size));
+	}
+
+	@Override
+	@GetMapping(path = DOCUMENTS_PATH + "/{documentId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Get a document", description = "Returns the metadata of one document")
+	public ResponseEntity<DocumentResponse> get(@PathVariable UUID documentId) {
+		return documentService.find(documentId)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@Override
+	@PutMapping(path = DOCUMENTS_PATH + "/{documentId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Update a document", description = "Replaces the content of a document, re-embedding only the chunks that changed")
+	public ResponseEntity<DocumentUpdateResponse> update(@PathVariable UUID documentId,
+			@Valid @ModelAttribute DocumentUpdateRequest updateRequest) {
+		LOGGER.info("Received update for document {} with filename={}", documentId,
+				updateRequest.getFile() != null ? updateRequest.getFile().getOriginalFilename() : "none");
+		return ingestService.update(documentId, updateRequest)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@Override
+	@DeleteMapping(path = DOCUMENTS_PATH + "/{documentId}")
+	@Operation(summary = "Delete a document", description = "Removes a document together with its chunks and vectors")
+	public ResponseEntity<Void> delete(@PathVariable UUID documentId) {
+		LOGGER.info("Received delete for document {}", documentId);
+		return documentService.delete(documentId)
+				? ResponseEntity.noContent().build()
+				: ResponseEntity.notFound().build();
+	}
+
+	@Override
+	@DeleteMapping(path = { DOCUMENTS_PATH, DOCUMENTS_PATH + "/" }, produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Delete documents by source or tag", description = "Removes every document of a source and/or tag; at least one of them is required")
+	public ResponseEntity<DocumentDeleteResponse> deleteMatching(@ModelAttribute DocumentFilterRequest filter) {
+		LOGGER.info("Received delete for documents with source={} tag={}", filter.source(), filter.tag());
+		return ResponseEntity.ok(new DocumentDeleteResponse(documentService.deleteMatching(filter)));
+	}
 }
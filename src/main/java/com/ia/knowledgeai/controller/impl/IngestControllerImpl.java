@@ -1,19 +1,32 @@
 package com.ia.knowledgeai.controller.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.Instant;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ia.knowledgeai.controller.IngestController;
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.dto.request.BulkIngestRequest;
 import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.IngestJobResponse;
 import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.mapper.IngestJobMapper;
+import com.ia.knowledgeai.service.BulkIngestService;
 import com.ia.knowledgeai.service.IngestService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,10 +40,22 @@ public class IngestControllerImpl implements IngestController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(IngestControllerImpl.class);
 
+	private static final String JOBS_PATH = "/api/v1/documents/ingest/jobs";
+
 	private final IngestService ingestService;
 
-	public IngestControllerImpl(IngestService ingestService) {
+	private final IngestJobMapper ingestJobMapper;
+
+	private final BulkIngestService bulkIngestService;
+
+	private final ObjectMapper objectMapper;
+
+	public IngestControllerImpl(IngestService ingestService, IngestJobMapper ingestJobMapper,
+			BulkIngestService bulkIngestService, ObjectMapper objectMapper) {
 		this.ingestService = ingestService;
+		this.ingestJobMapper = ingestJobMapper;
+		this.bulkIngestService = bulkIngestService;
+		this.objectMapper = objectMapper;
 	}
 
 	@Override
@@ -43,4 +68,45 @@ public class IngestControllerImpl implements IngestController {
 		IngestResponse response = ingestService.ingest(ingestRequest);
 		return ResponseEntity.ok(response);
 	}
+
+	@Override
+	@PostMapping(path = { JOBS_PATH, JOBS_PATH + "/" }, consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Submit an asynchronous ingest job", description = "Queues a document for staged parse, embed and store processing and returns 202 with the job id")
+	public ResponseEntity<IngestJobResponse> submit(@Valid @ModelAttribute IngestRequest ingestRequest) {
+		LOGGER.info("Received async ingest request for source={} title={} filename={}", ingestRequest.getSource(),
+				ingestRequest.getTitle(), ingestRequest.getFile() != null ? ingestRequest.getFile().getOriginalFilename() : "none");
+		IngestJob job = ingestService.submit(ingestRequest);
+		return ResponseEntity.accepted()
+				.location(URI.create(JOBS_PATH + "/" + job.getId()))
+				.body(ingestJobMapper.toResponse(job));
+	}
+
+	@Override
+	@GetMapping(path = JOBS_PATH + "/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Get ingest job status", description = "Returns the status and per-stage progress of an asynchronous ingest job")
+	public ResponseEntity<IngestJobResponse> getJob(@PathVariable UUID jobId) {
+		return ingestService.findJob(jobId)
+				.map(ingestJobMapper::toResponse)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@Override
+	@PostMapping(path = { "/api/v1/documents/ingest/bulk", "/api/v1/documents/ingest/bulk/" }, consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Ingest many documents", description = "Ingests several files and/or ZIP archives in parallel and streams one NDJSON result line per file as it completes")
+	public ResponseEntity<StreamingResponseBody> bulkIngest(@Valid @ModelAttribute BulkIngestRequest bulkIngestRequest) {
+		LOGGER.info("Received bulk ingest request for source={} with {} files", bulkIngestRequest.getSource(),
+				bulkIngestRequest.getFiles().size());
+		StreamingResponseBody body = outputStream -> bulkIngestService.ingest(bulkIngestRequest, result -> {
+			try {
+				outputStream.write(objectMapper.writeValueAsBytes(result));
+				outputStream.write('\n');
+				outputStream.flush();
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
 }
@@ -0,0 +1,97 @@
+package com.ia.knowledgeai.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Embedding vector previously computed by a given model for a chunk text, keyed by the SHA-256 of that text.
+ */
+@Entity
+@Table(name = "embedding_cache")
+@IdClass(CachedEmbedding.Key.class)
+public class CachedEmbedding {
+
+	@Id
+	@Column(length = 100)
+	private String model;
+
+	@Id
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@JdbcTypeCode(SqlTypes.ARRAY)
+	@Column(nullable = false, columnDefinition = "real[]")
+	private float[] vector;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private Instant createdAt;
+
+	protected CachedEmbedding() {
+		// JPA
+	}
+
+	public CachedEmbedding(String model, String contentHash, float[] vector, Instant createdAt) {
+		this.model = model;
+		this.contentHash = contentHash;
+		this.vector = vector;
+		this.createdAt = createdAt;
+	}
+
+	public String getModel() {
+		return model;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public float[] getVector() {
+		return vector;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public static class Key implements Serializable {
+
+		private String model;
+
+		private String contentHash;
+
+		protected Key() {
+			// JPA
+		}
+
+		public Key(String model, String contentHash) {
+			this.model = model;
+			this.contentHash = contentHash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key key)) {
+				return false;
+			}
+			return Objects.equals(model, key.model) && Objects.equals(contentHash, key.contentHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(model, contentHash);
+		}
+	}
+}
@@ -2,16 +2,26 @@ package com.ia.knowledgeai.domain;
 
 import java.util.UUID;
 
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import com.ia.knowledgeai.domain.support.ContentHash;
+import com.ia.knowledgeai.domain.support.SimHash;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "chunks")
+@Table(name = "chunks", indexes = {
+		@Index(name = "idx_chunks_content_hash", columnList = "content_hash"),
+		@Index(name = "idx_chunks_document_id", columnList = "document_id"),
+		@Index(name = "idx_chunks_duplicate_of", columnList = "duplicate_of") })
 public class Chunk {
 
 	@Id
@@ -27,6 +37,31 @@ public class Chunk {
 	@Column(nullable = false, columnDefinition = "text")
 	private String text;
 
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@Column(name = "page_start")
+	private Integer pageStart;
+
+	@Column(name = "page_end")
+	private Integer pageEnd;
+
+	@Column(name = "simhash")
+	private Long simhash;
+
+	/**
+	 * Bands of {@link #simhash} looked up by near-duplicate detection, under a GIN index.
+	 */
+	@JdbcTypeCode(SqlTypes.ARRAY)
+	@Column(name = "simhash_bands")
+	private int[] simhashBands;
+
+	/**
+	 * Stored chunk of another document this one nearly duplicates, if any.
+	 */
+	@Column(name = "duplicate_of")
+	private UUID duplicateOf;
+
 	protected Chunk() {
 		// JPA
 	}
@@ -36,6 +71,17 @@ public class Chunk {
 		this.document = document;
 		this.index = index;
 		this.text = text;
+		this.contentHash = ContentHash.of(text);
+		this.simhash = SimHash.of(text);
+		this.simhashBands = SimHash.bands(simhash);
+	}
+
+	public Chunk(UUID id, Document document, int index, String text, PageRange pages) {
+		this(id, document, index, text);
+		if (pages != null) {
+			this.pageStart = pages.first();
+			this.pageEnd = pages.last();
+		}
 	}
 
 	public UUID getId() {
@@ -53,4 +99,32 @@ public class Chunk {
 	public String getText() {
 		return text;
 	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public Integer getPageStart() {
+		return pageStart;
+	}
+
+	public Integer getPageEnd() {
+		return pageEnd;
+	}
+
+	public Long getSimhash() {
+		return simhash;
+	}
+
+	public int[] getSimhashBands() {
+		return simhashBands;
+	}
+
+	public UUID getDuplicateOf() {
+		return duplicateOf;
+	}
+
+	public void markDuplicateOf(UUID chunkId) {
+		this.duplicateOf = chunkId;
+	}
 }
@@ -0,0 +1,7 @@
+package com.ia.knowledgeai.domain;
+
+/**
+ * Where a chunk sits in its document: its index and, for paginated documents, the pages it was cut from.
+ */
+public record ChunkPosition(int index, PageRange pages) {
+}
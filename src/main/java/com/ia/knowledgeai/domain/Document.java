@@ -5,18 +5,33 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+		@Index(name = "idx_documents_content_hash", columnList = "content_hash"),
+		@Index(name = "idx_documents_source", columnList = "source") })
 public class Document {
 
+	/**
+	 * {@code INGESTING} until every chunk of the document is stored; documents left in that state by a crash are
+	 * removed on startup.
+	 */
+	public enum Status {
+		INGESTING, READY
+	}
+
 	@Id
 	private UUID id;
 
@@ -27,13 +42,23 @@ public class Document {
 	private String title;
 
 	@ElementCollection
-	@CollectionTable(name = "document_tags", joinColumns = @JoinColumn(name = "document_id"))
+	@CollectionTable(name = "document_tags", joinColumns = @JoinColumn(name = "document_id"), indexes = {
+			@Index(name = "idx_document_tags_document_id", columnList = "document_id"),
+			@Index(name = "idx_document_tags_tag", columnList = "tag") })
+	@BatchSize(size = 100)
 	@Column(name = "tag", length = 50)
 	private List<String> tags = new ArrayList<>();
 
 	@Column(name = "created_at", nullable = false, updatable = false)
 	private Instant createdAt;
 
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@Enumerated(EnumType.STRING)
+	@Column(length = 20)
+	private Status status;
+
 	protected Document() {
 		// JPA
 	}
@@ -46,6 +71,7 @@ public class Document {
 			this.tags = new ArrayList<>(tags);
 		}
 		this.createdAt = createdAt;
+		this.status = Status.INGESTING;
 	}
 
 	public UUID getId() {
@@ -67,4 +93,15 @@ public class Document {
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * SHA-256 of the uploaded bytes; set once the upload has been fully read.
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
 }
@@ -1,4 +1,43 @@
 package com.ia.knowledgeai.domain;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Precomputed embedding of a chunk, ready to be written to the vector store table.
+ */
 public class Embedding {
+
+	private final UUID id;
+
+	private final String content;
+
+	private final Map<String, Object> metadata;
+
+	private final float[] vector;
+
+	public Embedding(UUID id, String content, Map<String, Object> metadata, float[] vector) {
+		this.id = id;
+		this.content = content;
+		this.metadata = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+		this.vector = vector;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public Map<String, Object> getMetadata() {
+		return Collections.unmodifiableMap(metadata);
+	}
+
+	public float[] getVector() {
+		return vector;
+	}
 }
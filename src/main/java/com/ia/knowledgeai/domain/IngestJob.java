@@ -0,0 +1,158 @@
+package com.ia.knowledgeai.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of an asynchronous ingestion run through the staged pipeline.
+ */
+public class IngestJob {
+
+	public enum Status {
+		QUEUED, RUNNING, COMPLETED, FAILED
+	}
+
+	private final UUID id;
+
+	private final Instant submittedAt;
+
+	private final AtomicInteger chunksParsed = new AtomicInteger();
+
+	private final AtomicInteger chunksEmbedded = new AtomicInteger();
+
+	private final AtomicInteger chunksStored = new AtomicInteger();
+
+	private final AtomicLong connectionHoldNanos = new AtomicLong();
+
+	private volatile Status status = Status.QUEUED;
+
+	private volatile UUID documentId;
+
+	private volatile boolean parseCompleted;
+
+	private volatile String error;
+
+	private volatile Instant finishedAt;
+
+	public IngestJob(UUID id, Instant submittedAt) {
+		this.id = id;
+		this.submittedAt = submittedAt;
+	}
+
+	public synchronized void start(UUID documentId) {
+		if (status == Status.QUEUED) {
+			this.documentId = documentId;
+			this.status = Status.RUNNING;
+		}
+	}
+
+	public int recordParsed() {
+		return chunksParsed.incrementAndGet();
+	}
+
+	public void recordEmbedded(int count) {
+		chunksEmbedded.addAndGet(count);
+	}
+
+	public void recordStored(int count) {
+		chunksStored.addAndGet(count);
+	}
+
+	public void recordConnectionHold(Duration held) {
+		connectionHoldNanos.addAndGet(held.toNanos());
+	}
+
+	public synchronized void markParseCompleted() {
+		parseCompleted = true;
+	}
+
+	/**
+	 * Whether parsing has finished and every parsed chunk has been stored.
+	 */
+	public synchronized boolean isDone() {
+		return status == Status.RUNNING && parseCompleted && chunksStored.get() >= chunksParsed.get();
+	}
+
+	/**
+	 * Completes the job once parsing has finished and every parsed chunk has been stored.
+	 */
+	public synchronized boolean completeIfDone() {
+		if (!isDone()) {
+			return false;
+		}
+		status = Status.COMPLETED;
+		finishedAt = Instant.now();
+		return true;
+	}
+
+	/**
+	 * Marks the job as failed; returns {@code false} when it had already finished.
+	 */
+	public synchronized boolean fail(String error) {
+		if (status == Status.COMPLETED || status == Status.FAILED) {
+			return false;
+		}
+		this.status = Status.FAILED;
+		this.error = error;
+		this.finishedAt = Instant.now();
+		return true;
+	}
+
+	public boolean isFailed() {
+		return status == Status.FAILED;
+	}
+
+	public boolean isFinished() {
+		return status == Status.COMPLETED || status == Status.FAILED;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public Instant getSubmittedAt() {
+		return submittedAt;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public UUID getDocumentId() {
+		return documentId;
+	}
+
+	public int getChunksParsed() {
+		return chunksParsed.get();
+	}
+
+	public int getChunksEmbedded() {
+		return chunksEmbedded.get();
+	}
+
+	public int getChunksStored() {
+		return chunksStored.get();
+	}
+
+	public boolean isParseCompleted() {
+		return parseCompleted;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	/**
+	 * Total time this job held a database connection, summed over its transactions.
+	 */
+	public Duration getConnectionHold() {
+		return Duration.ofNanos(connectionHoldNanos.get());
+	}
+}
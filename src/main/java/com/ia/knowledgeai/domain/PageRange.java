@@ -0,0 +1,7 @@
+package com.ia.knowledgeai.domain;
+
+/**
+ * First and last page, 1-based and inclusive, a chunk of a paginated document was cut from.
+ */
+public record PageRange(int first, int last) {
+}
@@ -0,0 +1,74 @@
+package com.ia.knowledgeai.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Manifest entry of the filesystem connector: the state of a watched file when it was last ingested.
+ */
+@Entity
+@Table(name = "watched_files")
+public class WatchedFile {
+
+	@Id
+	@Column(length = 1024)
+	private String path;
+
+	@Column(name = "modified_at", nullable = false)
+	private Instant modifiedAt;
+
+	@Column(nullable = false)
+	private long size;
+
+	@Column(name = "content_hash", nullable = false, length = 64)
+	private String contentHash;
+
+	@Column(name = "document_id", nullable = false)
+	private UUID documentId;
+
+	@Column(name = "synced_at", nullable = false)
+	private Instant syncedAt;
+
+	protected WatchedFile() {
+		// JPA
+	}
+
+	public WatchedFile(String path, Instant modifiedAt, long size, String contentHash, UUID documentId,
+			Instant syncedAt) {
+		this.path = path;
+		this.modifiedAt = modifiedAt;
+		this.size = size;
+		this.contentHash = contentHash;
+		this.documentId = documentId;
+		this.syncedAt = syncedAt;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public Instant getModifiedAt() {
+		return modifiedAt;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public UUID getDocumentId() {
+		return documentId;
+	}
+
+	public Instant getSyncedAt() {
+		return syncedAt;
+	}
+}
@@ -0,0 +1,151 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Writes the XHTML body produced by Tika as blocks separated by a blank line: one block per paragraph, list item,
+ * table row or preformatted section, headings as Markdown {@code #} lines and list items prefixed with {@code -}.
+ * Whitespace inside a block is collapsed, so the blank line is the only layout left in the text.
+ */
+class BlockContentHandler extends DefaultHandler {
+
+	private static final Set<String> BLOCK_ELEMENTS = Set.of("p", "div", "li", "dt", "dd", "pre", "blockquote",
+			"address", "caption", "section", "article", "table", "ul", "ol", "dl", "br", "hr");
+
+	private static final String CELL_SEPARATOR = " | ";
+
+	private final Writer delegate;
+
+	private final StringBuilder block = new StringBuilder();
+
+	private boolean pendingSpace;
+
+	private boolean pendingCell;
+
+	private int headingLevel;
+
+	private boolean listItem;
+
+	private int rowDepth;
+
+	private boolean hasText;
+
+	BlockContentHandler(Writer delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+		String name = localName.toLowerCase();
+		if (name.equals("tr")) {
+			endBlock();
+			rowDepth++;
+			return;
+		}
+		if (rowDepth > 0) {
+			// Cells of a row stay on one line.
+			if (name.equals("td") || name.equals("th")) {
+				pendingCell = !block.isEmpty();
+			}
+			return;
+		}
+		int level = headingLevel(name);
+		if (level > 0 || BLOCK_ELEMENTS.contains(name)) {
+			endBlock();
+		}
+		if (level > 0) {
+			headingLevel = level;
+		}
+		else if (name.equals("li")) {
+			listItem = true;
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		String name = localName.toLowerCase();
+		if (name.equals("tr")) {
+			rowDepth = Math.max(0, rowDepth - 1);
+			endBlock();
+			return;
+		}
+		if (rowDepth == 0 && (headingLevel(name) > 0 || BLOCK_ELEMENTS.contains(name))) {
+			endBlock();
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		for (int i = start; i < start + length; i++) {
+			char c = ch[i];
+			if (Character.isWhitespace(c)) {
+				pendingSpace = !block.isEmpty();
+				continue;
+			}
+			if (pendingCell) {
+				block.append(CELL_SEPARATOR);
+			}
+			else if (pendingSpace) {
+				block.append(' ');
+			}
+			pendingCell = false;
+			pendingSpace = false;
+			block.append(c);
+		}
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) {
+		pendingSpace = !block.isEmpty();
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		endBlock();
+		rowDepth = 0;
+	}
+
+	boolean hasText() {
+		return hasText;
+	}
+
+	private void endBlock() throws SAXException {
+		pendingSpace = false;
+		pendingCell = false;
+		if (block.isEmpty()) {
+			return;
+		}
+		try {
+			if (hasText) {
+				delegate.write(BlockPacker.BLOCK_SEPARATOR);
+			}
+			if (headingLevel > 0) {
+				delegate.write("#".repeat(headingLevel) + " ");
+			}
+			else if (listItem) {
+				delegate.write("- ");
+			}
+			delegate.append(block);
+		}
+		catch (IOException ex) {
+			throw new SAXException(ex);
+		}
+		hasText = true;
+		block.setLength(0);
+		headingLevel = 0;
+		listItem = false;
+	}
+
+	private static int headingLevel(String name) {
+		if (name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6') {
+			return name.charAt(1) - '0';
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,138 @@
+package com.ia.knowledgeai.domain.support;
+
+import com.knuddels.jtokkit.api.Encoding;
+
+/**
+ * Packs whole blocks (paragraphs, list items, table rows, headings), separated by a blank line as written by
+ * {@link DocumentParser#parseBlocks}, into chunks of up to {@code chunkSize} tokens. A heading starts a new chunk.
+ * <p>
+ * Packed chunks do not overlap: only a block too large for one chunk is cut into token windows, and only those windows
+ * share the configured overlap. Headings still waiting for content are carried into the first of them.
+ */
+final class BlockPacker implements ChunkCutter {
+
+	static final String BLOCK_SEPARATOR = "\n\n";
+
+	private static final int SEPARATOR_TOKENS = 1;
+
+	private final Encoding encoding;
+
+	private final TokenWindower windower;
+
+	private final int chunkSize;
+
+	private final int splitAfterChars;
+
+	private final StringBuilder packed = new StringBuilder();
+
+	private int packedTokens;
+
+	private long packedStart;
+
+	private long packedEnd;
+
+	private boolean packedHeadingsOnly = true;
+
+	private boolean splitting;
+
+	BlockPacker(Encoding encoding, TokenWindower windower, int chunkSize, int splitAfterChars) {
+		this.encoding = encoding;
+		this.windower = windower;
+		this.chunkSize = chunkSize;
+		this.splitAfterChars = splitAfterChars;
+	}
+
+	@Override
+	public String cut(String slice, long offset, boolean endOfInput, Emitter emitter) {
+		int start = 0;
+		for (int end = slice.indexOf(BLOCK_SEPARATOR); end >= 0; end = slice.indexOf(BLOCK_SEPARATOR, start)) {
+			block(slice.substring(start, end), offset + start, emitter);
+			start = end + BLOCK_SEPARATOR.length();
+		}
+		String tail = slice.substring(start);
+		if (endOfInput) {
+			block(tail, offset + start, emitter);
+			flush(emitter);
+			return "";
+		}
+		if (splitting) {
+			return windower.cut(tail, offset + start, false, emitter);
+		}
+		if (tail.length() >= splitAfterChars) {
+			// An unfinished block this long cannot fit in one chunk: start windowing it instead of buffering it whole.
+			splitting = true;
+			return split(tail, offset + start, false, emitter);
+		}
+		return tail;
+	}
+
+	private void block(String block, long start, Emitter emitter) {
+		String text = block.strip();
+		if (splitting) {
+			splitting = false;
+			windower.cut(text, start, true, emitter);
+			return;
+		}
+		if (text.isEmpty()) {
+			return;
+		}
+		boolean heading = isHeading(text);
+		if (heading && !packedHeadingsOnly) {
+			flush(emitter);
+		}
+		int tokens = encoding.countTokens(text);
+		if (tokens > chunkSize) {
+			split(text, start, true, emitter);
+			return;
+		}
+		if (!packed.isEmpty() && packedTokens + SEPARATOR_TOKENS + tokens > chunkSize) {
+			flush(emitter);
+		}
+		if (packed.isEmpty()) {
+			packedStart = start;
+		}
+		else {
+			packed.append(BLOCK_SEPARATOR);
+			packedTokens += SEPARATOR_TOKENS;
+		}
+		packed.append(text);
+		packedTokens += tokens;
+		packedEnd = start + block.length();
+		packedHeadingsOnly &= heading;
+	}
+
+	private String split(String text, long start, boolean endOfInput, Emitter emitter) {
+		String windowed = text;
+		long windowedStart = start;
+		if (packedHeadingsOnly && !packed.isEmpty()) {
+			windowed = packed + BLOCK_SEPARATOR + text;
+			windowedStart = packedStart;
+			reset();
+		}
+		else {
+			flush(emitter);
+		}
+		return windower.cut(windowed, windowedStart, endOfInput, emitter);
+	}
+
+	private void flush(Emitter emitter) {
+		if (!packed.isEmpty()) {
+			emitter.emit(packed.toString(), packedStart, packedEnd);
+		}
+		reset();
+	}
+
+	private void reset() {
+		packed.setLength(0);
+		packedTokens = 0;
+		packedHeadingsOnly = true;
+	}
+
+	private static boolean isHeading(String text) {
+		int level = 0;
+		while (level < text.length() && text.charAt(level) == '#') {
+			level++;
+		}
+		return level > 0 && level <= 6 && level < text.length() && text.charAt(level) == ' ';
+	}
+}
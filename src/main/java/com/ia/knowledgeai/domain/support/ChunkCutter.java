@@ -0,0 +1,20 @@
+package com.ia.knowledgeai.domain.support;
+
+/**
+ * Strategy used by {@link ChunkWriter} to turn buffered text into chunks.
+ */
+interface ChunkCutter {
+
+	/**
+	 * Emits every chunk of {@code slice} that is complete and returns the text that still has to be prepended to the
+	 * next slice. With {@code endOfInput} everything left is emitted and the returned text is empty. {@code offset} is
+	 * the position of the slice in the whole text; chunks are emitted with their own range in that text.
+	 */
+	String cut(String slice, long offset, boolean endOfInput, Emitter emitter);
+
+	@FunctionalInterface
+	interface Emitter {
+
+		void emit(String chunk, long start, long end);
+	}
+}
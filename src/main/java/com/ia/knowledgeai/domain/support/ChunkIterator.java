@@ -0,0 +1,83 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pulls token windows out of a {@link CharSequence} on demand. The text is read in slices that end on whitespace, so
+ * only one slice is ever copied and tokenized at a time and no chunk is cut before the caller asks for it.
+ */
+final class ChunkIterator implements Iterator<String> {
+
+	private final CharSequence text;
+
+	private final TokenWindower windower;
+
+	private final int sliceChars;
+
+	private final ArrayDeque<String> ready = new ArrayDeque<>();
+
+	private final StringBuilder slice = new StringBuilder();
+
+	private int offset;
+
+	private String carry = "";
+
+	private boolean finished;
+
+	ChunkIterator(CharSequence text, TokenWindower windower, int sliceChars) {
+		this.text = text;
+		this.windower = windower;
+		this.sliceChars = sliceChars;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (ready.isEmpty() && !finished) {
+			advance();
+		}
+		return !ready.isEmpty();
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return ready.poll();
+	}
+
+	private void advance() {
+		int length = text.length();
+		if (offset >= length) {
+			windower.cut(carry, 0, true, this::collect);
+			carry = "";
+			finished = true;
+			return;
+		}
+		int end = sliceEnd(length);
+		slice.setLength(0);
+		slice.append(carry).append(text, offset, end);
+		offset = end;
+		carry = windower.cut(slice.toString(), 0, false, this::collect);
+	}
+
+	private void collect(String chunk, long start, long end) {
+		ready.add(chunk);
+	}
+
+	private int sliceEnd(int length) {
+		int end = Math.min(length, offset + sliceChars);
+		if (end == length) {
+			return end;
+		}
+		// Never split a word between slices: it would be tokenized differently.
+		for (int i = end - 1; i > offset; i--) {
+			if (Character.isWhitespace(text.charAt(i))) {
+				return i;
+			}
+		}
+		return end;
+	}
+}
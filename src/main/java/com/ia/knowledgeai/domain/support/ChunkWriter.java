@@ -0,0 +1,165 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+import com.ia.knowledgeai.domain.PageRange;
+
+/**
+ * Writer that cuts text into chunks as it arrives and emits them to a consumer.
+ * <p>
+ * Only a bounded tail of the text is buffered: once enough characters are pending to fill several chunks, complete
+ * chunks are cut and handed to the consumer, and only the unfinished remainder is kept. Closing the writer emits the
+ * final chunk.
+ * <p>
+ * When the parser reports page starts, each chunk is also mapped to the pages it was cut from; see
+ * {@link #getChunkPages()}.
+ */
+public class ChunkWriter extends Writer implements PageListener {
+
+	private static final int MIN_SLICE_CHARS = 4096;
+
+	private static final int CHARS_PER_TOKEN_BUDGET = 16;
+
+	private final ChunkCutter cutter;
+
+	private final Consumer<String> chunkConsumer;
+
+	private final int drainThreshold;
+
+	private final StringBuilder pending = new StringBuilder();
+
+	private final ArrayDeque<PageStart> upcomingPages = new ArrayDeque<>();
+
+	private int currentPage;
+
+	private PageRange chunkPages;
+
+	private int nextDrainAt;
+
+	private long characterCount;
+
+	private int chunkCount;
+
+	private boolean closed;
+
+	ChunkWriter(ChunkCutter cutter, int chunkSize, Consumer<String> chunkConsumer) {
+		this.cutter = cutter;
+		this.chunkConsumer = chunkConsumer;
+		this.drainThreshold = sliceChars(chunkSize);
+		this.nextDrainAt = drainThreshold;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Chunk writer already closed");
+		}
+		pending.append(cbuf, off, len);
+		characterCount += len;
+		if (pending.length() >= nextDrainAt) {
+			drain(false);
+			nextDrainAt = pending.length() + drainThreshold;
+		}
+	}
+
+	@Override
+	public void pageStarted(int pageNumber) {
+		upcomingPages.add(new PageStart(characterCount, pageNumber));
+	}
+
+	@Override
+	public void flush() {
+		// Chunks are only cut once enough text is buffered; see close().
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		drain(true);
+	}
+
+	/**
+	 * Characters to tokenize at once: enough for several windows, small enough that a slice is cheap to re-encode.
+	 */
+	static int sliceChars(int chunkSize) {
+		return Math.max(MIN_SLICE_CHARS, chunkSize * CHARS_PER_TOKEN_BUDGET);
+	}
+
+	/**
+	 * Number of characters written so far, including text not yet emitted as a chunk.
+	 */
+	public long getCharacterCount() {
+		return characterCount;
+	}
+
+	/**
+	 * Pages the chunk currently being handed to the consumer spans, or {@code null} when no pages were reported. Only
+	 * meaningful while the consumer runs.
+	 */
+	public PageRange getChunkPages() {
+		return chunkPages;
+	}
+
+	/**
+	 * Number of chunks handed to the consumer so far.
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	private void drain(boolean endOfInput) {
+		int end = endOfInput ? pending.length() : lastWordBoundary();
+		if (end <= 0) {
+			return;
+		}
+		long offset = characterCount - pending.length();
+		String leftover = cutter.cut(pending.substring(0, end), offset, endOfInput, this::emit);
+		pending.replace(0, end, leftover);
+	}
+
+	private int lastWordBoundary() {
+		for (int i = pending.length() - 1; i > 0; i--) {
+			if (Character.isWhitespace(pending.charAt(i))) {
+				return i;
+			}
+		}
+		return pending.length();
+	}
+
+	private void emit(String chunk, long start, long end) {
+		chunkCount++;
+		chunkPages = pagesOf(start, end);
+		chunkConsumer.accept(chunk);
+	}
+
+	private PageRange pagesOf(long start, long end) {
+		// Chunks start in text order, so a page start already passed is never needed again.
+		while (!upcomingPages.isEmpty() && upcomingPages.peek().offset() <= start) {
+			currentPage = upcomingPages.poll().pageNumber();
+		}
+		int first = currentPage;
+		if (first == 0) {
+			if (upcomingPages.isEmpty()) {
+				return null;
+			}
+			first = upcomingPages.peek().pageNumber();
+		}
+		int last = first;
+		for (PageStart page : upcomingPages) {
+			if (page.offset() >= end) {
+				break;
+			}
+			last = page.pageNumber();
+		}
+		return new PageRange(first, last);
+	}
+
+	private record PageStart(long offset, int pageNumber) {
+	}
+}
@@ -0,0 +1,48 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers for document and chunk content hashes, rendered as lowercase hex.
+ */
+public final class ContentHash {
+
+	private static final String ALGORITHM = "SHA-256";
+
+	private ContentHash() {
+	}
+
+	public static String of(String text) {
+		return toHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	public static String of(Path file) throws IOException {
+		MessageDigest digest = newDigest();
+		try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		return toHex(digest.digest());
+	}
+
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ALGORITHM + " is not available", ex);
+		}
+	}
+
+	public static String toHex(byte[] digest) {
+		return HexFormat.of().formatHex(digest);
+	}
+}
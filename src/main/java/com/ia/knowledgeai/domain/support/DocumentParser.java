@@ -1,5 +1,9 @@
 package com.ia.knowledgeai.domain.support;
 
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+
 import com.ia.knowledgeai.domain.ParsedDocument;
 
 /**
@@ -8,4 +12,30 @@ import com.ia.knowledgeai.domain.ParsedDocument;
 public interface DocumentParser {
 
 	ParsedDocument parse(byte[] content, String filename, String contentType);
+
+	/**
+	 * Streams the normalized text of a document into the given sink instead of materializing it.
+	 *
+	 * @return the declared content type, or the detected one when none was declared
+	 */
+	String parse(InputStream content, String filename, String contentType, Writer textSink);
+
+	/**
+	 * Streams the text of a document as blocks instead of a single normalized line: paragraphs, list items and table
+	 * rows separated by a blank line, headings as Markdown {@code #} lines.
+	 *
+	 * @return the declared content type, or the detected one when none was declared
+	 */
+	String parseBlocks(InputStream content, String filename, String contentType, Writer textSink);
+
+	/**
+	 * Same as {@link #parse(InputStream, String, String, Writer)} for a document already on disk: formats that need
+	 * random access, such as PDF, are read from the file in place instead of being buffered first.
+	 */
+	String parse(Path content, String filename, String contentType, Writer textSink);
+
+	/**
+	 * Same as {@link #parseBlocks(InputStream, String, String, Writer)} for a document already on disk.
+	 */
+	String parseBlocks(Path content, String filename, String contentType, Writer textSink);
 }
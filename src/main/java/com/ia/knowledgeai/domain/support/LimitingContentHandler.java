@@ -0,0 +1,66 @@
+package com.ia.knowledgeai.domain.support;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Aborts a parse once it runs past its deadline or has extracted more characters than allowed. The limits are
+ * checked on every SAX event, so they stop any parser that keeps producing output; a parser looping without output is
+ * only stopped by the forked mode.
+ */
+class LimitingContentHandler extends ContentHandlerDecorator {
+
+	private final ParseLimits limits;
+
+	private final long deadline;
+
+	private long characters;
+
+	LimitingContentHandler(ContentHandler handler, ParseLimits limits) {
+		super(handler);
+		this.limits = limits;
+		this.deadline = limits.timeout().isZero() ? 0 : System.nanoTime() + limits.timeout().toNanos();
+	}
+
+	/**
+	 * {@link System#nanoTime()} at which the parse times out, or {@code 0} when it has no timeout.
+	 */
+	long getDeadline() {
+		return deadline;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+		checkDeadline();
+		super.startElement(uri, localName, name, atts);
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		count(length);
+		super.characters(ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		count(length);
+		super.ignorableWhitespace(ch, start, length);
+	}
+
+	private void count(int length) {
+		characters += length;
+		if (limits.maxOutputChars() > 0 && characters > limits.maxOutputChars()) {
+			throw new IllegalArgumentException(
+					"Parsed document exceeds the limit of " + limits.maxOutputChars() + " characters");
+		}
+		checkDeadline();
+	}
+
+	private void checkDeadline() {
+		if (deadline != 0 && System.nanoTime() - deadline > 0) {
+			throw new IllegalArgumentException("Parsing the document took longer than " + limits.timeout());
+		}
+	}
+}
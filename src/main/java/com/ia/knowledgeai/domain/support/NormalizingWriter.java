@@ -0,0 +1,61 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming counterpart of {@code replaceAll("\\s+", " ").trim()}: collapses whitespace runs into a single space and
+ * drops leading and trailing whitespace while forwarding text to the delegate.
+ */
+class NormalizingWriter extends Writer {
+
+	private final Writer delegate;
+
+	private boolean pendingSpace;
+
+	private boolean hasText;
+
+	NormalizingWriter(Writer delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		int runStart = -1;
+		for (int i = off; i < off + len; i++) {
+			if (Character.isWhitespace(cbuf[i])) {
+				if (runStart >= 0) {
+					delegate.write(cbuf, runStart, i - runStart);
+					runStart = -1;
+				}
+				pendingSpace = hasText;
+				continue;
+			}
+			if (runStart < 0) {
+				if (pendingSpace) {
+					delegate.write(' ');
+					pendingSpace = false;
+				}
+				runStart = i;
+			}
+			hasText = true;
+		}
+		if (runStart >= 0) {
+			delegate.write(cbuf, runStart, off + len - runStart);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		delegate.flush();
+	}
+
+	@Override
+	public void close() {
+		// The delegate is owned by the caller.
+	}
+
+	boolean hasText() {
+		return hasText;
+	}
+}
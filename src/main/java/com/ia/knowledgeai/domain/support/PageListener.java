@@ -0,0 +1,12 @@
+package com.ia.knowledgeai.domain.support;
+
+/**
+ * Text sink that wants to know where the pages of a paginated document start.
+ */
+public interface PageListener {
+
+	/**
+	 * Called before the text of page {@code pageNumber} (1-based) is written.
+	 */
+	void pageStarted(int pageNumber);
+}
@@ -0,0 +1,30 @@
+package com.ia.knowledgeai.domain.support;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Reports the {@code <div class="page">} elements Tika emits for paginated formats to a {@link PageListener}. The
+ * event is forwarded first, so text buffered by the delegate up to the page break has already been written.
+ */
+class PageTrackingHandler extends ContentHandlerDecorator {
+
+	private final PageListener pageListener;
+
+	private int pageNumber;
+
+	PageTrackingHandler(ContentHandler handler, PageListener pageListener) {
+		super(handler);
+		this.pageListener = pageListener;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+		super.startElement(uri, localName, name, atts);
+		if ("div".equals(localName) && "page".equals(atts.getValue("class"))) {
+			pageListener.pageStarted(++pageNumber);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.time.Duration;
+
+/**
+ * Bounds applied to every parse: its wall-clock {@code timeout} and the number of characters it may extract. A zero
+ * timeout or a non-positive {@code maxOutputChars} disables that limit.
+ */
+public record ParseLimits(Duration timeout, long maxOutputChars) {
+
+	public static final ParseLimits NONE = new ParseLimits(Duration.ZERO, 0);
+
+	public ParseLimits {
+		timeout = timeout == null ? Duration.ZERO : timeout;
+	}
+}
@@ -0,0 +1,222 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.PagedText;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Extracts the text of large PDFs page range by page range on a fork-join pool and replays it in page order as the
+ * same XHTML events Tika emits: one {@code <div class="page">} per page with one {@code <p>} per paragraph.
+ * <p>
+ * PDFBox documents are not thread-safe, so workers extract from separate copies of the file. At most two ranges per
+ * worker are extracted ahead of the one being written, which bounds the text held in memory.
+ */
+public class PdfPageParser implements AutoCloseable {
+
+	private static final String PARAGRAPH_END = "\u2029";
+
+	private static final String PAGE_END = "\f";
+
+	private final ForkJoinPool pool;
+
+	private final int parallelism;
+
+	private final int pagesPerTask;
+
+	private final int minPages;
+
+	public PdfPageParser(int parallelism, int pagesPerTask, int minPages) {
+		this.parallelism = Math.max(1, parallelism);
+		this.pagesPerTask = Math.max(1, pagesPerTask);
+		this.minPages = minPages;
+		this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+	}
+
+	public boolean isEnabled() {
+		return pool != null;
+	}
+
+	/**
+	 * Parses the PDF at {@code file} into {@code handler}. Returns {@code false} without emitting anything when the
+	 * document is too small to be worth splitting or PDFBox cannot open it on its own, leaving it to Tika. Waiting for
+	 * a range stops at {@code deadline}, a {@link System#nanoTime()} value or {@code 0} for none, after which the
+	 * ranges still extracting are cancelled.
+	 */
+	public boolean parse(Path file, ContentHandler handler, Metadata metadata, long deadline)
+			throws IOException, SAXException {
+		if (!isEnabled()) {
+			return false;
+		}
+		try (DocumentCopies copies = new DocumentCopies(file)) {
+			int pages;
+			try {
+				PDDocument document = copies.take();
+				if (document.isEncrypted()) {
+					return false;
+				}
+				pages = document.getNumberOfPages();
+				copies.release(document);
+			}
+			catch (IOException ex) {
+				return false;
+			}
+			if (pages < minPages) {
+				return false;
+			}
+			emit(copies, pages, new XHTMLContentHandler(handler, metadata), deadline);
+			metadata.set(PagedText.N_PAGES, pages);
+			return true;
+		}
+	}
+
+	private void emit(DocumentCopies copies, int pages, XHTMLContentHandler xhtml, long deadline)
+			throws IOException, SAXException {
+		xhtml.startDocument();
+		ArrayDeque<ForkJoinTask<List<String>>> inFlight = new ArrayDeque<>();
+		try {
+			int nextPage = 1;
+			while (nextPage <= pages || !inFlight.isEmpty()) {
+				while (nextPage <= pages && inFlight.size() < parallelism * 2) {
+					int startPage = nextPage;
+					int endPage = Math.min(pages, startPage + pagesPerTask - 1);
+					inFlight.add(pool.submit(() -> extract(copies, startPage, endPage)));
+					nextPage = endPage + 1;
+				}
+				for (String page : join(inFlight.poll(), deadline)) {
+					writePage(xhtml, page);
+				}
+			}
+			xhtml.endDocument();
+		}
+		finally {
+			inFlight.forEach(task -> task.cancel(true));
+			inFlight.forEach(ForkJoinTask::quietlyJoin);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	private List<String> extract(DocumentCopies copies, int startPage, int endPage) {
+		try {
+			PDDocument document = copies.take();
+			try {
+				PDFTextStripper stripper = new PDFTextStripper();
+				// Tika's default; the PDFBox default compares every glyph with the ones already on the page.
+				stripper.setSuppressDuplicateOverlappingText(false);
+				stripper.setStartPage(startPage);
+				stripper.setEndPage(endPage);
+				stripper.setParagraphEnd(PARAGRAPH_END);
+				stripper.setPageEnd(PAGE_END);
+				String[] pages = stripper.getText(document).split(PAGE_END, -1);
+				return Arrays.asList(pages).subList(0, Math.min(pages.length, endPage - startPage + 1));
+			}
+			finally {
+				copies.release(document);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to extract pages " + startPage + "-" + endPage, ex);
+		}
+	}
+
+	private List<String> join(ForkJoinTask<List<String>> task, long deadline) throws IOException {
+		try {
+			return deadline == 0 ? task.get() : task.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException ex) {
+			task.cancel(true);
+			throw new IllegalArgumentException("Parsing the document took longer than its deadline");
+		}
+		catch (InterruptedException ex) {
+			task.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while extracting PDF pages");
+		}
+		catch (ExecutionException ex) {
+			// The pool may rethrow a copy of the task's exception; the I/O failure is somewhere in its causes.
+			for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException ioException) {
+					throw ioException;
+				}
+			}
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Unable to extract PDF pages", ex.getCause());
+		}
+	}
+
+	private void writePage(XHTMLContentHandler xhtml, String page) throws SAXException {
+		xhtml.startElement("div", "class", "page");
+		for (String paragraph : page.split(PARAGRAPH_END)) {
+			if (!paragraph.isBlank()) {
+				xhtml.startElement("p");
+				xhtml.characters(paragraph);
+				xhtml.endElement("p");
+			}
+		}
+		xhtml.endElement("div");
+	}
+
+	/**
+	 * Loaded copies of the document being parsed, reused by the tasks of that document: loading a copy (and the fonts
+	 * it references) costs far more than extracting a range of pages, so each worker ends up with one copy.
+	 */
+	private static final class DocumentCopies implements AutoCloseable {
+
+		private final Path file;
+
+		private final ConcurrentLinkedQueue<PDDocument> idle = new ConcurrentLinkedQueue<>();
+
+		private final List<PDDocument> loaded = new CopyOnWriteArrayList<>();
+
+		private DocumentCopies(Path file) {
+			this.file = file;
+		}
+
+		private PDDocument take() throws IOException {
+			PDDocument document = idle.poll();
+			if (document == null) {
+				document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupMainMemoryOnly());
+				loaded.add(document);
+			}
+			return document;
+		}
+
+		private void release(PDDocument document) {
+			idle.add(document);
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (PDDocument document : loaded) {
+				document.close();
+			}
+		}
+	}
+}
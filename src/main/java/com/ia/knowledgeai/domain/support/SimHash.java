@@ -0,0 +1,95 @@
+package com.ia.knowledgeai.domain.support;
+
+/**
+ * 64-bit SimHash of a text over its overlapping three-word shingles: texts that share most of their wording get
+ * signatures a few bits apart, so near-duplicates are found by Hamming distance.
+ * <p>
+ * Signatures are indexed by {@link #BANDS} bands of 16 bits. Two signatures at most {@code BANDS - 1} bits apart agree
+ * on at least one whole band, so looking up the bands finds every such near-duplicate.
+ */
+public final class SimHash {
+
+	public static final int BANDS = 4;
+
+	private static final int BAND_BITS = Long.SIZE / BANDS;
+
+	private static final int SHINGLE_WORDS = 3;
+
+	private SimHash() {
+	}
+
+	public static long of(String text) {
+		int[] weights = new int[Long.SIZE];
+		long[] window = new long[SHINGLE_WORDS];
+		int words = 0;
+		int i = 0;
+		while (i < text.length()) {
+			while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+				i++;
+			}
+			if (i == text.length()) {
+				break;
+			}
+			long hash = 0xcbf29ce484222325L;
+			while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+				hash = (hash ^ Character.toLowerCase(text.charAt(i))) * 0x100000001b3L;
+				i++;
+			}
+			window[words % SHINGLE_WORDS] = hash;
+			words++;
+			if (words >= SHINGLE_WORDS) {
+				add(weights, shingle(window, words));
+			}
+		}
+		if (words > 0 && words < SHINGLE_WORDS) {
+			// Too short for a single shingle: the words themselves are the features.
+			for (int w = 0; w < words; w++) {
+				add(weights, mix(window[w]));
+			}
+		}
+		long signature = 0;
+		for (int bit = 0; bit < Long.SIZE; bit++) {
+			if (weights[bit] > 0) {
+				signature |= 1L << bit;
+			}
+		}
+		return signature;
+	}
+
+	public static int distance(long first, long second) {
+		return Long.bitCount(first ^ second);
+	}
+
+	/**
+	 * The bands of {@code signature}, each tagged with its position so equal values in different bands differ.
+	 */
+	public static int[] bands(long signature) {
+		int[] bands = new int[BANDS];
+		for (int band = 0; band < BANDS; band++) {
+			bands[band] = band << BAND_BITS | (int) (signature >>> band * BAND_BITS) & 0xFFFF;
+		}
+		return bands;
+	}
+
+	private static long shingle(long[] window, int words) {
+		long hash = 0;
+		for (int w = 0; w < SHINGLE_WORDS; w++) {
+			// Oldest word first, rotated by its position so word order matters.
+			hash ^= Long.rotateLeft(window[(words + w) % SHINGLE_WORDS], 21 * w);
+		}
+		return mix(hash);
+	}
+
+	private static void add(int[] weights, long feature) {
+		for (int bit = 0; bit < Long.SIZE; bit++) {
+			weights[bit] += (feature >>> bit & 1) != 0 ? 1 : -1;
+		}
+	}
+
+	private static long mix(long value) {
+		long z = value + 0x9e3779b97f4a7c15L;
+		z = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+		return z ^ z >>> 31;
+	}
+}
@@ -1,26 +1,86 @@
 package com.ia.knowledgeai.domain.support;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import org.springframework.ai.document.Document;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.stereotype.Component;
 
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+
 /**
- * Token-based chunker with overlap using Spring AI TokenTextSplitter.
+ * Token-based chunker with overlap.
+ * <p>
+ * The encoding is loaded once and shared by every call. Text is tokenized in bounded slices rather than as a whole, and
+ * chunks are produced either lazily from a {@link CharSequence} ({@link #iterator}, {@link #stream}) or pushed while
+ * text is still being written ({@link #writer}); all of them cut the same windows. {@link #blockWriter} packs the
+ * paragraphs of structured text instead.
  */
 @Component
 public class TextChunker {
 
+	private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+	private final TokenLengths tokenLengths = new TokenLengths(encoding);
+
 	public List<String> chunk(String text, int chunkSize, int overlap) {
 		if (text == null || text.isBlank()) {
 			return List.of();
 		}
+		return stream(text, chunkSize, overlap).toList();
+	}
+
+	/**
+	 * Cuts {@code text} into windows of {@code chunkSize} tokens, consecutive windows sharing {@code overlap} tokens.
+	 * Each window is cut only when the iterator is advanced to it, reading the text in slices without copying it as a
+	 * whole.
+	 */
+	public Iterator<String> iterator(CharSequence text, int chunkSize, int overlap) {
 		int size = Math.max(1, chunkSize);
-		int effectiveOverlap = Math.max(0, Math.min(overlap, size));
-		// chunkSize, minChunkSize, maxChunkSize, overlap, keepSeparator
-		TokenTextSplitter splitter = new TokenTextSplitter(size, size, size, effectiveOverlap, false);
-		List<Document> docs = splitter.split(new Document(text));
-		return docs.stream().map(Document::getText).toList();
+		return new ChunkIterator(text, windower(size, overlap), ChunkWriter.sliceChars(size));
+	}
+
+	/**
+	 * Lazy, sequential stream over the windows of {@link #iterator}.
+	 */
+	public Stream<String> stream(CharSequence text, int chunkSize, int overlap) {
+		Spliterator<String> spliterator = Spliterators.spliteratorUnknownSize(iterator(text, chunkSize, overlap),
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * Opens a streaming chunker: text written to the returned writer is cut into windows of {@code chunkSize} tokens,
+	 * consecutive windows sharing {@code overlap} tokens, and each window is handed to {@code chunkConsumer} as soon as
+	 * it is complete. Closing the writer emits the last window.
+	 */
+	public ChunkWriter writer(int chunkSize, int overlap, Consumer<String> chunkConsumer) {
+		int size = Math.max(1, chunkSize);
+		return new ChunkWriter(windower(size, overlap), size, chunkConsumer);
+	}
+
+	/**
+	 * Opens a structure-aware streaming chunker for text written by {@link DocumentParser#parseBlocks}: whole blocks are
+	 * packed into chunks of up to {@code chunkSize} tokens and a heading starts a new chunk. Only a block too large for
+	 * one chunk is cut into windows sharing {@code overlap} tokens.
+	 */
+	public ChunkWriter blockWriter(int chunkSize, int overlap, Consumer<String> chunkConsumer) {
+		int size = Math.max(1, chunkSize);
+		BlockPacker packer = new BlockPacker(encoding, windower(size, overlap), size, ChunkWriter.sliceChars(size));
+		return new ChunkWriter(packer, size, chunkConsumer);
+	}
+
+	public int countTokens(String text) {
+		return encoding.countTokens(text);
+	}
+
+	private TokenWindower windower(int size, int overlap) {
+		return new TokenWindower(encoding, tokenLengths, size, Math.max(0, Math.min(overlap, size - 1)));
 	}
 }
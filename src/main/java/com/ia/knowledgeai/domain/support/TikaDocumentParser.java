@@ -2,39 +2,60 @@ package com.ia.knowledgeai.domain.support;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
 
 import org.apache.tika.Tika;
+import org.apache.tika.detect.DefaultDetector;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.UnsupportedFormatException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 import com.ia.knowledgeai.domain.ParsedDocument;
 
 /**
- * Apache Tika based parser for PDF/DOCX and other supported formats.
+ * Apache Tika based parser for PDF/DOCX and other supported formats. Which formats is decided by the injected Tika
+ * {@link Parser}, see {@link TikaParsers}; every streamed parse is bounded by the configured {@link ParseLimits}.
  */
 @Component
 public class TikaDocumentParser implements DocumentParser {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(TikaDocumentParser.class);
-	private final Tika tika = new Tika();
+
+	private static final MediaType PDF = MediaType.application("pdf");
+
+	private final Tika tika;
+
+	private final PdfPageParser pdfPageParser;
+
+	private final ParseLimits limits;
+
+	public TikaDocumentParser(Parser parser, PdfPageParser pdfPageParser, ParseLimits limits) {
+		this.tika = new Tika(new DefaultDetector(), parser);
+		this.pdfPageParser = pdfPageParser;
+		this.limits = limits;
+	}
 
 	@Override
 	public ParsedDocument parse(byte[] content, String filename, String contentType) {
 		if (content == null || content.length == 0) {
 			throw new IllegalArgumentException("File content is empty");
 		}
-		Metadata metadata = new Metadata();
-		if (StringUtils.hasText(filename)) {
-			metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, filename);
-		}
-		if (StringUtils.hasText(contentType)) {
-			metadata.set(Metadata.CONTENT_TYPE, contentType);
-		}
+		Metadata metadata = buildMetadata(filename, contentType);
 		try (ByteArrayInputStream inputStream = new ByteArrayInputStream(content)) {
 			String parsedText = tika.parseToString(inputStream);
 			String detectedType = StringUtils.hasText(contentType) ? contentType : tika.detect(content, filename);
@@ -50,10 +71,125 @@ public class TikaDocumentParser implements DocumentParser {
 		}
 	}
 
+	@Override
+	public String parse(InputStream content, String filename, String contentType, Writer textSink) {
+		requireContent(content);
+		return parse(() -> TikaInputStream.get(content), filename, contentType, textSink);
+	}
+
+	@Override
+	public String parseBlocks(InputStream content, String filename, String contentType, Writer textSink) {
+		requireContent(content);
+		return parseBlocks(() -> TikaInputStream.get(content), filename, contentType, textSink);
+	}
+
+	@Override
+	public String parse(Path content, String filename, String contentType, Writer textSink) {
+		requireContent(content);
+		return parse(() -> TikaInputStream.get(content), filename, contentType, textSink);
+	}
+
+	@Override
+	public String parseBlocks(Path content, String filename, String contentType, Writer textSink) {
+		requireContent(content);
+		return parseBlocks(() -> TikaInputStream.get(content), filename, contentType, textSink);
+	}
+
+	private String parse(ContentSource content, String filename, String contentType, Writer textSink) {
+		NormalizingWriter writer = new NormalizingWriter(textSink);
+		return stream(content, filename, contentType, textSink, new BodyContentHandler(writer), writer::hasText);
+	}
+
+	private String parseBlocks(ContentSource content, String filename, String contentType, Writer textSink) {
+		BlockContentHandler handler = new BlockContentHandler(textSink);
+		return stream(content, filename, contentType, textSink, new BodyContentHandler(handler), handler::hasText);
+	}
+
+	/**
+	 * Streams the document through {@code handler}. When the sink listens for pages, page breaks are reported to it as
+	 * they reach the handler.
+	 */
+	private String stream(ContentSource content, String filename, String contentType, Writer textSink,
+			ContentHandler bodyHandler, BooleanSupplier hasText) {
+		LimitingContentHandler handler = new LimitingContentHandler(textSink instanceof PageListener pageListener
+				? new PageTrackingHandler(bodyHandler, pageListener)
+				: bodyHandler, limits);
+		Metadata metadata = buildMetadata(filename, contentType);
+		try (TikaInputStream tikaStream = content.open()) {
+			if (!parsePdfByPage(tikaStream, handler, metadata)) {
+				tika.getParser().parse(tikaStream, handler, metadata, new ParseContext());
+			}
+		}
+		catch (UnsupportedFormatException ex) {
+			throw new IllegalArgumentException(ex.getMessage(), ex);
+		}
+		catch (IOException | SAXException | TikaException ex) {
+			rethrowSinkFailure(ex);
+			throw new IllegalArgumentException("Unable to parse document content", ex);
+		}
+		if (!hasText.getAsBoolean()) {
+			throw new IllegalArgumentException("Parsed document has no extractable text (is it empty or scanned?)");
+		}
+		String detectedType = StringUtils.hasText(contentType) ? contentType : metadata.get(Metadata.CONTENT_TYPE);
+		LOGGER.debug("Streamed file {} with detected content type {}", filename, detectedType);
+		return detectedType;
+	}
+
+	/**
+	 * Large PDFs are extracted page-parallel; returns {@code false} when the document is left to Tika.
+	 */
+	private boolean parsePdfByPage(TikaInputStream tikaStream, LimitingContentHandler handler, Metadata metadata)
+			throws IOException, SAXException {
+		if (!pdfPageParser.isEnabled() || !PDF.equals(tika.getDetector().detect(tikaStream, metadata).getBaseType())) {
+			return false;
+		}
+		if (!pdfPageParser.parse(tikaStream.getPath(), handler, metadata, handler.getDeadline())) {
+			return false;
+		}
+		if (metadata.get(Metadata.CONTENT_TYPE) == null) {
+			metadata.set(Metadata.CONTENT_TYPE, PDF.toString());
+		}
+		return true;
+	}
+
+	private void requireContent(Object content) {
+		if (content == null) {
+			throw new IllegalArgumentException("File content is empty");
+		}
+	}
+
+	private Metadata buildMetadata(String filename, String contentType) {
+		Metadata metadata = new Metadata();
+		if (StringUtils.hasText(filename)) {
+			metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, filename);
+		}
+		if (StringUtils.hasText(contentType)) {
+			metadata.set(Metadata.CONTENT_TYPE, contentType);
+		}
+		return metadata;
+	}
+
+	/**
+	 * Tika wraps exceptions raised by the content handler; surface validation errors from the sink unchanged.
+	 */
+	private void rethrowSinkFailure(Exception ex) {
+		for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+			if (cause instanceof IllegalArgumentException sinkFailure) {
+				throw sinkFailure;
+			}
+		}
+	}
+
 	private String normalize(String parsedText) {
 		if (parsedText == null) {
 			return "";
 		}
 		return parsedText.replaceAll("\\s+", " ").trim();
 	}
+
+	@FunctionalInterface
+	private interface ContentSource {
+
+		TikaInputStream open() throws IOException;
+	}
 }
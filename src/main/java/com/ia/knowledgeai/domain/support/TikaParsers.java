@@ -0,0 +1,92 @@
+package com.ia.knowledgeai.domain.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.tika.detect.DefaultDetector;
+import org.apache.tika.exception.UnsupportedFormatException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.DefaultParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ParserDecorator;
+import org.xml.sax.ContentHandler;
+
+/**
+ * Builds the Tika parsers used for ingestion.
+ */
+public final class TikaParsers {
+
+	private TikaParsers() {
+	}
+
+	/**
+	 * Auto-detecting parser that only knows the parsers of {@code contentTypes}, each limited to those types. Anything
+	 * detected as another type is rejected instead of reaching one of the many other parsers Tika bundles.
+	 */
+	public static Parser restrictedTo(Collection<String> contentTypes) {
+		Set<MediaType> allowed = contentTypes.stream()
+				.map(MediaType::parse)
+				.filter(Objects::nonNull)
+				.map(MediaType::getBaseType)
+				.collect(Collectors.toSet());
+		ParseContext context = new ParseContext();
+		List<Parser> parsers = new ArrayList<>();
+		for (Parser parser : new DefaultParser().getAllComponentParsers()) {
+			Set<MediaType> supported = new HashSet<>(parser.getSupportedTypes(context));
+			supported.retainAll(allowed);
+			if (!supported.isEmpty()) {
+				parsers.add(ParserDecorator.withTypes(parser, supported));
+			}
+		}
+		AutoDetectParser parser = new AutoDetectParser(new DefaultDetector(), parsers.toArray(Parser[]::new));
+		parser.setFallback(new UnsupportedTypeParser());
+		return parser;
+	}
+
+	/**
+	 * Runs {@code parser} in a pool of child JVMs with their own heap limit. A child still parsing after
+	 * {@code parseTimeout} exits, so a pathological file can neither exhaust the service heap nor pin a CPU forever.
+	 */
+	public static ForkParser forked(Parser parser, int poolSize, String maxHeap, Duration parseTimeout) {
+		ForkParser forkParser = new ForkParser(TikaParsers.class.getClassLoader(), parser);
+		forkParser.setPoolSize(poolSize);
+		forkParser.setJavaCommand(List.of(javaExecutable(), "-Xmx" + maxHeap, "-Djava.awt.headless=true"));
+		if (parseTimeout != null && !parseTimeout.isZero()) {
+			forkParser.setServerParseTimeoutMillis(parseTimeout.toMillis());
+		}
+		return forkParser;
+	}
+
+	private static String javaExecutable() {
+		return ProcessHandle.current().info().command().orElse("java");
+	}
+
+	private static final class UnsupportedTypeParser extends AbstractParser {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Set<MediaType> getSupportedTypes(ParseContext context) {
+			return Set.of();
+		}
+
+		@Override
+		public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context)
+				throws IOException, UnsupportedFormatException {
+			throw new UnsupportedFormatException("Unsupported content type " + metadata.get(Metadata.CONTENT_TYPE));
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.ia.knowledgeai.domain.support;
+
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.IntArrayList;
+
+/**
+ * Number of UTF-16 characters each token of an encoding decodes to, counted on its UTF-8 bytes and cached per token
+ * id, so the length of a run of tokens is a sum instead of a decode.
+ * <p>
+ * Safe to share: concurrent callers may compute the same entry twice, always to the same value.
+ */
+final class TokenLengths {
+
+	private static final int CACHED_TOKENS = 1 << 17;
+
+	private final Encoding encoding;
+
+	/**
+	 * Length plus one, so that zero marks an entry not computed yet.
+	 */
+	private final int[] lengths = new int[CACHED_TOKENS];
+
+	TokenLengths(Encoding encoding) {
+		this.encoding = encoding;
+	}
+
+	int of(IntArrayList tokens, int from, int to) {
+		int length = 0;
+		for (int i = from; i < to; i++) {
+			length += of(tokens.get(i));
+		}
+		return length;
+	}
+
+	private int of(int token) {
+		if (token < 0 || token >= CACHED_TOKENS) {
+			return compute(token);
+		}
+		int cached = lengths[token];
+		if (cached == 0) {
+			cached = compute(token) + 1;
+			lengths[token] = cached;
+		}
+		return cached - 1;
+	}
+
+	private int compute(int token) {
+		IntArrayList single = new IntArrayList(1);
+		single.add(token);
+		int length = 0;
+		for (byte b : encoding.decodeBytes(single)) {
+			if ((b & 0xC0) != 0x80) {
+				// Lead byte of a character; four-byte sequences need a surrogate pair.
+				length += (b & 0xF8) == 0xF0 ? 2 : 1;
+			}
+		}
+		return length;
+	}
+}
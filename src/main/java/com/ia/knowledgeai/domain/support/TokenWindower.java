@@ -0,0 +1,142 @@
+package com.ia.knowledgeai.domain.support;
+
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.IntArrayList;
+
+/**
+ * Cuts a slice of text into overlapping token windows. Shared by the push-style {@link ChunkWriter} and the pull-style
+ * {@link ChunkIterator}; both feed it bounded slices so the full document is never tokenized at once.
+ * <p>
+ * Not thread-safe: one instance reuses a single token buffer for every window it decodes.
+ */
+final class TokenWindower implements ChunkCutter {
+
+	private final Encoding encoding;
+
+	private final TokenLengths tokenLengths;
+
+	private final int chunkSize;
+
+	private final int overlap;
+
+	private final IntArrayList window;
+
+	private final IntArrayList single = new IntArrayList(1);
+
+	TokenWindower(Encoding encoding, TokenLengths tokenLengths, int chunkSize, int overlap) {
+		this.encoding = encoding;
+		this.tokenLengths = tokenLengths;
+		this.chunkSize = chunkSize;
+		this.overlap = overlap;
+		this.window = new IntArrayList(chunkSize);
+	}
+
+	/**
+	 * Emits every complete window of {@code slice} and returns the text that still has to be prepended to the next
+	 * slice. Unless {@code endOfInput}, at least one window's worth of tokens is held back so that the next window can
+	 * still pick up its overlap.
+	 */
+	@Override
+	public String cut(String slice, long offset, boolean endOfInput, Emitter emitter) {
+		if (slice.isEmpty()) {
+			return "";
+		}
+		IntArrayList tokens = encoding.encode(slice);
+		int reserve = endOfInput ? 0 : chunkSize;
+		int position = 0;
+		long start = offset;
+		while (tokens.size() - position > reserve) {
+			int windowEnd = Math.min(position + chunkSize, tokens.size());
+			boolean last = windowEnd == tokens.size() && endOfInput;
+			String text = null;
+			int consumed = windowEnd - position;
+			if (!last) {
+				int sentenceEnd = sentenceEnd(tokens, position, windowEnd);
+				if (sentenceEnd > 0) {
+					// The boundary ends a token: cut in token space, no need to re-encode the shortened window.
+					String cut = decode(tokens, position, sentenceEnd);
+					if (cut.length() - 1 > chunkSize) {
+						text = cut;
+						consumed = sentenceEnd - position;
+					}
+				}
+				else if (sentenceEnd < 0) {
+					text = decode(tokens, position, windowEnd);
+					String cut = cutAtSentenceBoundary(text);
+					if (cut.length() < text.length()) {
+						text = cut;
+						consumed = Math.max(1, Math.min(consumed, encoding.countTokens(cut)));
+					}
+				}
+			}
+			if (text == null) {
+				text = decode(tokens, position, windowEnd);
+			}
+			emit(text, start, emitter);
+			if (last) {
+				return "";
+			}
+			int next = position + Math.max(1, consumed - overlap);
+			start += tokenLengths.of(tokens, position, next);
+			position = next;
+		}
+		return position < tokens.size() ? decode(tokens, position, tokens.size()) : "";
+	}
+
+	/**
+	 * Finds the last sentence boundary of the window by looking at the bytes of its tokens from the end. Returns the
+	 * index after the token ending with it, {@code 0} when the window has no boundary, or {@code -1} when the boundary
+	 * falls inside a token and the window has to be cut as text.
+	 */
+	private int sentenceEnd(IntArrayList tokens, int from, int to) {
+		for (int i = to - 1; i >= from; i--) {
+			single.clear();
+			single.add(tokens.get(i));
+			byte[] bytes = encoding.decodeBytes(single);
+			for (int b = bytes.length - 1; b >= 0; b--) {
+				if (isSentenceBoundary(bytes[b])) {
+					return b == bytes.length - 1 ? i + 1 : -1;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private static boolean isSentenceBoundary(byte b) {
+		// ASCII only, so a match can never be part of a multi-byte UTF-8 sequence.
+		return b == '.' || b == '?' || b == '!' || b == '\n';
+	}
+
+	private String cutAtSentenceBoundary(String text) {
+		// Same heuristic as Spring AI's TokenTextSplitter: prefer ending on punctuation when it is far enough in.
+		int boundary = Math.max(Math.max(text.lastIndexOf('.'), text.lastIndexOf('?')),
+				Math.max(text.lastIndexOf('!'), text.lastIndexOf('\n')));
+		if (boundary > chunkSize) {
+			return text.substring(0, boundary + 1);
+		}
+		return text;
+	}
+
+	private String decode(IntArrayList tokens, int from, int to) {
+		window.clear();
+		for (int i = from; i < to; i++) {
+			window.add(tokens.get(i));
+		}
+		return encoding.decode(window);
+	}
+
+	private void emit(String text, long start, Emitter emitter) {
+		// Same as trim(), keeping track of where the trimmed chunk lies.
+		int from = 0;
+		int to = text.length();
+		while (from < to && text.charAt(from) <= ' ') {
+			from++;
+		}
+		while (to > from && text.charAt(to - 1) <= ' ') {
+			to--;
+		}
+		if (from < to) {
+			emitter.emit(text.substring(from, to), start + from, start + to);
+		}
+	}
+}
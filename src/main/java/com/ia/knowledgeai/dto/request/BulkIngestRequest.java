@@ -0,0 +1,71 @@
+package com.ia.knowledgeai.dto.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Request payload for bulk ingestion: many files and/or ZIP archives sharing one source and tag set. Each file or
+ * archive entry becomes its own document, titled after its file name.
+ */
+public class BulkIngestRequest {
+
+	@NotBlank(message = "Source is required")
+	@Size(max = 100, message = "Source too long")
+	private String source;
+
+	private List<@Size(max = 50, message = "Tag too long") String> tags = new ArrayList<>();
+
+	@NotEmpty(message = "At least one file is required")
+	private List<MultipartFile> files = new ArrayList<>();
+
+	public BulkIngestRequest() {
+	}
+
+	public BulkIngestRequest(String source, List<String> tags, List<MultipartFile> files) {
+		this.source = source;
+		if (tags != null) {
+			this.tags = tags;
+		}
+		if (files != null) {
+			this.files = files;
+		}
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	public List<String> getTags() {
+		return tags;
+	}
+
+	public void setTags(List<String> tags) {
+		if (tags == null) {
+			this.tags = new ArrayList<>();
+			return;
+		}
+		this.tags = tags;
+	}
+
+	public List<MultipartFile> getFiles() {
+		return files;
+	}
+
+	public void setFiles(List<MultipartFile> files) {
+		if (files == null) {
+			this.files = new ArrayList<>();
+			return;
+		}
+		this.files = files;
+	}
+}
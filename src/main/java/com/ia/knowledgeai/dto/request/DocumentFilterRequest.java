@@ -1,4 +1,18 @@
 package com.ia.knowledgeai.dto.request;
 
-public record DocumentFilterRequest(String filter) {
+import org.springframework.util.StringUtils;
+
+/**
+ * Optional source and tag a document listing or bulk delete is restricted to; blank values are ignored.
+ */
+public record DocumentFilterRequest(String source, String tag) {
+
+	public DocumentFilterRequest {
+		source = StringUtils.hasText(source) ? source : null;
+		tag = StringUtils.hasText(tag) ? tag : null;
+	}
+
+	public boolean isEmpty() {
+		return source == null && tag == null;
+	}
 }
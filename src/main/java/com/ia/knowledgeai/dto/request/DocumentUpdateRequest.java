@@ -0,0 +1,33 @@
+package com.ia.knowledgeai.dto.request;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Request payload carrying a new revision of an existing document.
+ */
+public class DocumentUpdateRequest {
+
+	@NotNull(message = "File is required")
+	private MultipartFile file;
+
+	public DocumentUpdateRequest() {
+	}
+
+	public DocumentUpdateRequest(MultipartFile file) {
+		this.file = file;
+	}
+
+	public MultipartFile getFile() {
+		return file;
+	}
+
+	public void setFile(MultipartFile file) {
+		this.file = file;
+	}
+
+	public boolean hasFile() {
+		return file != null && !file.isEmpty();
+	}
+}
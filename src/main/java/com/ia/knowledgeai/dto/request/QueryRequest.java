@@ -5,6 +5,7 @@ import java.util.UUID;
 
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -22,5 +23,8 @@ public record QueryRequest(
 		String source,
 		List<@Size(max = 50, message = "Tag too long") String> tags,
 		UUID documentId,
-		Boolean stream) {
+		Boolean stream,
+		@Min(value = 1, message = "searchEffort must be greater than 0")
+		@Max(value = 1000, message = "searchEffort must be at most 1000")
+		Integer searchEffort) {
 }
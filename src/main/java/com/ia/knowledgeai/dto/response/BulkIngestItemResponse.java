@@ -0,0 +1,15 @@
+package com.ia.knowledgeai.dto.response;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one file of a bulk ingest, written as a single NDJSON line as soon as the file is done.
+ */
+public record BulkIngestItemResponse(
+		String filename,
+		String status,
+		UUID documentId,
+		int chunksProcessed,
+		int tokensCount,
+		String error) {
+}
@@ -0,0 +1,7 @@
+package com.ia.knowledgeai.dto.response;
+
+/**
+ * Result of deleting every document of a source and/or tag.
+ */
+public record DocumentDeleteResponse(int documentsDeleted) {
+}
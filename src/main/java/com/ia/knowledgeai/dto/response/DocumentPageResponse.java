@@ -0,0 +1,10 @@
+package com.ia.knowledgeai.dto.response;
+
+import java.util.List;
+
+/**
+ * One page of a document listing.
+ */
+public record DocumentPageResponse(List<DocumentResponse> documents, int page, int size, long totalElements,
+		int totalPages) {
+}
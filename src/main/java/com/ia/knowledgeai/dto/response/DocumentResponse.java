@@ -1,4 +1,15 @@
 package com.ia.knowledgeai.dto.response;
 
-public record DocumentResponse(String id) {
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record DocumentResponse(
+		UUID id,
+		String source,
+		String title,
+		List<String> tags,
+		String status,
+		String contentHash,
+		Instant createdAt) {
 }
@@ -0,0 +1,16 @@
+package com.ia.knowledgeai.dto.response;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a document update: how many chunks the new revision has, how many of them had to be embedded and how
+ * many were kept from the previous revision or dropped.
+ */
+public record DocumentUpdateResponse(
+		UUID documentId,
+		int chunksTotal,
+		int chunksEmbedded,
+		int chunksReused,
+		int chunksDeleted,
+		String status) {
+}
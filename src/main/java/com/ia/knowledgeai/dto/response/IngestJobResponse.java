@@ -0,0 +1,21 @@
+package com.ia.knowledgeai.dto.response;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Status and stage progress of an asynchronous ingest job.
+ */
+public record IngestJobResponse(
+		UUID jobId,
+		String status,
+		UUID documentId,
+		int chunksParsed,
+		int chunksEmbedded,
+		int chunksStored,
+		boolean parseCompleted,
+		long connectionHoldMillis,
+		String error,
+		Instant submittedAt,
+		Instant finishedAt) {
+}
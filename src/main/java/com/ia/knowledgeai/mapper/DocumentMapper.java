@@ -1,4 +1,34 @@
 package com.ia.knowledgeai.mapper;
 
-public interface DocumentMapper {
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.dto.response.DocumentPageResponse;
+import com.ia.knowledgeai.dto.response.DocumentResponse;
+
+@Component
+public class DocumentMapper {
+
+	public DocumentResponse toResponse(Document document) {
+		return new DocumentResponse(
+				document.getId(),
+				document.getSource(),
+				document.getTitle(),
+				List.copyOf(document.getTags()),
+				document.getStatus() != null ? document.getStatus().name() : null,
+				document.getContentHash(),
+				document.getCreatedAt());
+	}
+
+	public DocumentPageResponse toPageResponse(Page<Document> page) {
+		return new DocumentPageResponse(
+				page.getContent().stream().map(this::toResponse).toList(),
+				page.getNumber(),
+				page.getSize(),
+				page.getTotalElements(),
+				page.getTotalPages());
+	}
 }
@@ -0,0 +1,38 @@
+package com.ia.knowledgeai.mapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.Embedding;
+
+/**
+ * Maps persisted chunks to the vector store representation shared by the sync and async ingest paths.
+ */
+@Component
+public class EmbeddingMapper {
+
+	public Map<String, Object> toMetadata(Document document, Chunk chunk) {
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("documentId", document.getId().toString());
+		metadata.put("chunkIndex", chunk.getIndex());
+		metadata.put("source", document.getSource());
+		metadata.put("title", document.getTitle());
+		metadata.put("tags", document.getTags());
+		if (chunk.getPageStart() != null) {
+			metadata.put("pageStart", chunk.getPageStart());
+			metadata.put("pageEnd", chunk.getPageEnd());
+		}
+		if (chunk.getDuplicateOf() != null) {
+			metadata.put("duplicateOf", chunk.getDuplicateOf().toString());
+		}
+		return metadata;
+	}
+
+	public Embedding toEmbedding(Document document, Chunk chunk, float[] vector) {
+		return new Embedding(chunk.getId(), chunk.getText(), toMetadata(document, chunk), vector);
+	}
+}
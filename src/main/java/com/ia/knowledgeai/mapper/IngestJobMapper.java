@@ -0,0 +1,25 @@
+package com.ia.knowledgeai.mapper;
+
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.dto.response.IngestJobResponse;
+
+@Component
+public class IngestJobMapper {
+
+	public IngestJobResponse toResponse(IngestJob job) {
+		return new IngestJobResponse(
+				job.getId(),
+				job.getStatus().name(),
+				job.getDocumentId(),
+				job.getChunksParsed(),
+				job.getChunksEmbedded(),
+				job.getChunksStored(),
+				job.isParseCompleted(),
+				job.getConnectionHold().toMillis(),
+				job.getError(),
+				job.getSubmittedAt(),
+				job.getFinishedAt());
+	}
+}
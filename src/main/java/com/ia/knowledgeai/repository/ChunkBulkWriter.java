@@ -0,0 +1,42 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.ChunkPosition;
+import com.ia.knowledgeai.domain.Embedding;
+
+/**
+ * Set-based writes of chunks together with their vectors, bypassing the per-entity merge of {@code saveAll}. A chunk
+ * and its vector share the same id.
+ */
+public interface ChunkBulkWriter {
+
+	/**
+	 * Inserts the chunks and the embeddings in the current transaction. The document they belong to must already be
+	 * flushed; while it is ingesting, searches skip the rows.
+	 */
+	void write(List<Chunk> chunks, List<Embedding> embeddings);
+
+	/**
+	 * Deletes the chunks and their vectors in the current transaction.
+	 *
+	 * @return the number of chunks deleted
+	 */
+	int delete(Collection<UUID> chunkIds);
+
+	/**
+	 * Turns near-duplicate chunks into regular ones in the current transaction: clears their {@code duplicate_of} and
+	 * replaces their vectors, if they had any, with the embeddings.
+	 */
+	void releaseDuplicates(List<Embedding> embeddings);
+
+	/**
+	 * Moves chunks to new positions in the current transaction, in the chunk rows and in the vector metadata. The
+	 * pages of a position replace the stored ones, also when they are {@code null}.
+	 */
+	void reindex(Map<UUID, ChunkPosition> positions);
+}
@@ -0,0 +1,23 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lookup of stored chunks by SimHash signature, the index behind near-duplicate detection.
+ */
+public interface ChunkSignatureRepository {
+
+	/**
+	 * Stored chunk found for a signature, with its vector when it was requested.
+	 */
+	record Match(UUID chunkId, float[] vector) {
+	}
+
+	/**
+	 * For each signature, the closest stored chunk at most {@code maxDistance} bits away that is not itself a
+	 * near-duplicate and does not belong to the document at the same position in {@code documentIds}; {@code null}
+	 * where there is none. Answered in one statement for the whole list.
+	 */
+	List<Match> findNearest(List<Long> signatures, List<UUID> documentIds, int maxDistance, boolean withVectors);
+}
@@ -1,12 +1,82 @@
 package com.ia.knowledgeai.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ia.knowledgeai.domain.Document;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
+
+	@Transactional
+	@Modifying
+	@Query("update Document d set d.contentHash = :contentHash where d.id = :id")
+	int updateContentHash(@Param("id") UUID id, @Param("contentHash") String contentHash);
+
+	/**
+	 * Returns 0 when the document is gone or already in that status.
+	 */
+	@Transactional
+	@Modifying
+	@Query("update Document d set d.status = :status where d.id = :id and d.status <> :status")
+	int updateStatus(@Param("id") UUID id, @Param("status") Document.Status status);
+
+	/**
+	 * Sets a new content hash only if the document still has {@code expectedHash} and is not being ingested. The
+	 * update also locks the row, so concurrent updates of one document are serialised.
+	 *
+	 * @return {@code 0} when the document changed or disappeared since {@code expectedHash} was read
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = "update documents set content_hash = :contentHash where id = :id"
+			+ " and content_hash is not distinct from cast(:expectedHash as varchar)"
+			+ " and status is distinct from 'INGESTING'", nativeQuery = true)
+	int replaceContentHash(@Param("id") UUID id, @Param("expectedHash") String expectedHash,
+			@Param("contentHash") String contentHash);
+
+	/**
+	 * The document with its tags loaded, so it can be used once the transaction is over.
+	 */
+	@EntityGraph(attributePaths = "tags")
+	@Query("select d from Document d where d.id = :id")
+	Optional<Document> findWithTagsById(@Param("id") UUID id);
+
+	@Query("select d from Document d where (:source is null or d.source = :source)"
+			+ " and (:tag is null or :tag member of d.tags)")
+	Page<Document> findFiltered(@Param("source") String source, @Param("tag") String tag, Pageable pageable);
+
+	@Query("select d.id from Document d where (:source is null or d.source = :source)"
+			+ " and (:tag is null or :tag member of d.tags) order by d.id")
+	List<UUID> findIdsFiltered(@Param("source") String source, @Param("tag") String tag, Pageable pageable);
+
+	@Query("select distinct d.source from Document d where d.id in :documentIds")
+	List<String> findSourcesByIdIn(@Param("documentIds") Collection<UUID> documentIds);
+
+	@Transactional
+	@Modifying
+	@Query(value = "delete from document_tags where document_id in (:documentIds)", nativeQuery = true)
+	int deleteTagsByDocumentIds(@Param("documentIds") Collection<UUID> documentIds);
+
+	@Transactional
+	@Modifying
+	@Query("delete from Document d where d.id in :documentIds")
+	int deleteByIdIn(@Param("documentIds") Collection<UUID> documentIds);
+
+	@Query("select d.id from Document d where d.status = :status and d.createdAt < :createdBefore")
+	List<UUID> findIdsByStatusCreatedBefore(@Param("status") Document.Status status,
+			@Param("createdBefore") Instant createdBefore);
 }
@@ -0,0 +1,15 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ia.knowledgeai.domain.CachedEmbedding;
+
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<CachedEmbedding, CachedEmbedding.Key> {
+
+	List<CachedEmbedding> findByModelAndContentHashIn(String model, Collection<String> contentHashes);
+}
@@ -0,0 +1,16 @@
+package com.ia.knowledgeai.repository;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Set-based writes of cached embedding vectors, one statement per batch instead of one per vector.
+ */
+public interface EmbeddingCacheWriter {
+
+	/**
+	 * Inserts the vectors, keyed by chunk hash, in the current transaction. Concurrent ingests may compute the same
+	 * vector; the first write wins and later ones are ignored.
+	 */
+	void insertIfAbsent(String model, Map<String, float[]> vectors, Instant createdAt);
+}
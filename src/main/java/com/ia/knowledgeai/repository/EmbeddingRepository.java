@@ -0,0 +1,16 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Direct access to the vector store table for embeddings computed outside {@code VectorStore#add}; inserts go through
+ * {@link ChunkBulkWriter}.
+ */
+public interface EmbeddingRepository {
+
+	/**
+	 * Deletes the vectors of the documents in one statement, served by the index on {@code document_id}.
+	 */
+	int deleteByDocumentIds(Collection<UUID> documentIds);
+}
@@ -0,0 +1,20 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * Full-text search over the chunk text in the vector store table, returning documents shaped like those of the vector
+ * search so both can be fused.
+ */
+public interface LexicalSearchRepository {
+
+	/**
+	 * Chunks matching any term of {@code query}, best ranked first, with their rank in {@code [0, 1)} as the
+	 * {@code score}. The optional filters have the same meaning as in a query request.
+	 */
+	List<Document> search(String query, int limit, String source, Collection<String> tags, UUID documentId);
+}
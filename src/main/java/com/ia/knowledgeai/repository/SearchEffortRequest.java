@@ -0,0 +1,21 @@
+package com.ia.knowledgeai.repository;
+
+import org.springframework.ai.vectorstore.SearchRequest;
+
+/**
+ * Search request carrying how hard the approximate index should look: the {@code hnsw.ef_search} or
+ * {@code ivfflat.probes} applied to this search only. {@code null} uses {@code vector-store.search-effort}.
+ */
+public class SearchEffortRequest extends SearchRequest {
+
+	private final Integer searchEffort;
+
+	public SearchEffortRequest(SearchRequest request, Integer searchEffort) {
+		super(request);
+		this.searchEffort = searchEffort;
+	}
+
+	public Integer getSearchEffort() {
+		return searchEffort;
+	}
+}
@@ -0,0 +1,46 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.ia.knowledgeai.domain.ChunkPosition;
+import com.ia.knowledgeai.domain.Embedding;
+
+/**
+ * Published by the repositories that write the vector store table, so copies of it kept in memory can follow. The
+ * rows are only visible to others once the writing transaction commits, so listeners should run after it.
+ * <p>
+ * Rows written for a document that is still being ingested are not announced one batch at a time: searches skip them
+ * until the document is ready, and the event published then names the document with its source.
+ */
+public record VectorStoreChangedEvent(List<Embedding> written, Collection<UUID> deletedIds,
+		Collection<UUID> deletedDocumentIds, Map<UUID, ChunkPosition> reindexed, Map<UUID, String> readyDocuments) {
+
+	public static VectorStoreChangedEvent written(List<Embedding> embeddings) {
+		return new VectorStoreChangedEvent(List.copyOf(embeddings), List.of(), List.of(), Map.of(), Map.of());
+	}
+
+	public static VectorStoreChangedEvent deleted(Collection<UUID> ids) {
+		return new VectorStoreChangedEvent(List.of(), List.copyOf(ids), List.of(), Map.of(), Map.of());
+	}
+
+	public static VectorStoreChangedEvent documentsDeleted(Collection<UUID> documentIds) {
+		return new VectorStoreChangedEvent(List.of(), List.of(), List.copyOf(documentIds), Map.of(), Map.of());
+	}
+
+	public static VectorStoreChangedEvent reindexed(Map<UUID, ChunkPosition> positions) {
+		return new VectorStoreChangedEvent(List.of(), List.of(), List.of(), Map.copyOf(positions), Map.of());
+	}
+
+	/**
+	 * Documents whose rows became searchable, each with its source, which may be {@code null}.
+	 */
+	public static VectorStoreChangedEvent documentsReady(Map<UUID, String> sourcesByDocument) {
+		return new VectorStoreChangedEvent(List.of(), List.of(), List.of(), Map.of(),
+				Collections.unmodifiableMap(new HashMap<>(sourcesByDocument)));
+	}
+}
@@ -1,12 +1,49 @@
 package com.ia.knowledgeai.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ia.knowledgeai.domain.Chunk;
 
 @Repository
 public interface VectorStoreRepository extends JpaRepository<Chunk, UUID> {
+
+	/**
+	 * Position, pages and hash of a stored chunk, without its text.
+	 */
+	interface StoredChunk {
+
+		UUID getId();
+
+		int getChunkIndex();
+
+		Integer getPageStart();
+
+		Integer getPageEnd();
+
+		String getContentHash();
+	}
+
+	@Query("select c.id as id, c.index as chunkIndex, c.pageStart as pageStart, c.pageEnd as pageEnd,"
+			+ " c.contentHash as contentHash from Chunk c where c.document.id = :documentId order by c.index")
+	List<StoredChunk> findStoredChunks(@Param("documentId") UUID documentId);
+
+	/**
+	 * Chunks of other documents marked as near duplicates of chunks of the given documents, with their document and
+	 * its tags, so they can be used once the transaction is over.
+	 */
+	@Query("select c from Chunk c join fetch c.document d left join fetch d.tags where d.id not in :documentIds"
+			+ " and c.duplicateOf in (select o.id from Chunk o where o.document.id in :documentIds)")
+	List<Chunk> findDuplicatesOfDocuments(@Param("documentIds") Collection<UUID> documentIds);
+
+	@Modifying
+	@Query("delete from Chunk c where c.document.id in :documentIds")
+	int deleteByDocumentIds(@Param("documentIds") Collection<UUID> documentIds);
 }
@@ -0,0 +1,14 @@
+package com.ia.knowledgeai.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ia.knowledgeai.domain.WatchedFile;
+
+@Repository
+public interface WatchedFileRepository extends JpaRepository<WatchedFile, String> {
+
+	List<WatchedFile> findByPathStartingWith(String prefix);
+}
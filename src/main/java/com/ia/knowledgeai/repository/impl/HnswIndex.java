@@ -0,0 +1,573 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over vectors kept in one primitive array, addressed by dense node numbers.
+ * <p>
+ * Neighbours are chosen with the heuristic of the HNSW paper, keeping pruned candidates when too few remain, and
+ * layer 0 holds twice as many links per node as the upper layers. Deleted nodes are marked rather than unlinked: they
+ * still route searches but never appear in results. Cosine vectors are normalized on insert, so the distance is a dot
+ * product; distances are computed by {@link VectorScoring}.
+ * <p>
+ * Not thread-safe; concurrent searches are fine as long as no insert or delete runs alongside them.
+ */
+final class HnswIndex {
+
+	/**
+	 * Distances in the same form as pgvector's operators: {@code <=>}, {@code <#>} and {@code <->}.
+	 */
+	enum Metric {
+		COSINE, INNER_PRODUCT, EUCLIDEAN
+	}
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final int dimensions;
+
+	private final Metric metric;
+
+	private final int m;
+
+	private final int efConstruction;
+
+	private final double levelFactor;
+
+	private final SplittableRandom random;
+
+	private float[] vectors;
+
+	/**
+	 * Links of each node by level; element 0 of each list is its length.
+	 */
+	private int[][][] links;
+
+	private final BitSet deleted = new BitSet();
+
+	private int size;
+
+	private int deletedCount;
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	HnswIndex(int dimensions, Metric metric, int m, int efConstruction) {
+		this(dimensions, metric, m, efConstruction, 42);
+	}
+
+	HnswIndex(int dimensions, Metric metric, int m, int efConstruction, long seed) {
+		if (dimensions <= 0 || m < 2) {
+			throw new IllegalArgumentException("Invalid HNSW parameters: dimensions=" + dimensions + ", m=" + m);
+		}
+		this.dimensions = dimensions;
+		this.metric = metric;
+		this.m = m;
+		this.efConstruction = Math.max(efConstruction, m);
+		this.levelFactor = 1 / Math.log(m);
+		this.random = new SplittableRandom(seed);
+		this.vectors = new float[16 * dimensions];
+		this.links = new int[16][][];
+	}
+
+	int dimensions() {
+		return dimensions;
+	}
+
+	Metric metric() {
+		return metric;
+	}
+
+	/**
+	 * Nodes added so far, deleted ones included.
+	 */
+	int size() {
+		return size;
+	}
+
+	int deletedCount() {
+		return deletedCount;
+	}
+
+	boolean isDeleted(int node) {
+		return deleted.get(node);
+	}
+
+	/**
+	 * Adds {@code vector} and links it into the graph; returns its node number.
+	 */
+	int add(float[] vector) {
+		if (vector.length != dimensions) {
+			throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+		}
+		int node = size;
+		ensureCapacity(node + 1);
+		System.arraycopy(prepare(vector), 0, vectors, node * dimensions, dimensions);
+		int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+		links[node] = new int[level + 1][];
+		for (int l = 0; l <= level; l++) {
+			links[node][l] = new int[maxLinks(l) + 1];
+		}
+		size++;
+		if (entryPoint < 0) {
+			entryPoint = node;
+			maxLevel = level;
+			return node;
+		}
+		float[] query = vector(node);
+		int current = entryPoint;
+		for (int l = maxLevel; l > level; l--) {
+			current = greedy(query, current, l);
+		}
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			long[] candidates = searchLayer(query, current, efConstruction, l, null, Integer.MAX_VALUE);
+			int[] selected = selectNeighbors(candidates, maxLinks(l));
+			int[] own = links[node][l];
+			System.arraycopy(selected, 0, own, 1, selected.length);
+			own[0] = selected.length;
+			for (int neighbor : selected) {
+				connect(neighbor, node, l);
+			}
+			current = node(candidates[0]);
+		}
+		if (level > maxLevel) {
+			entryPoint = node;
+			maxLevel = level;
+		}
+		return node;
+	}
+
+	/**
+	 * Stored vector of {@code node}, normalized for cosine.
+	 */
+	float[] vector(int node) {
+		return Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+	}
+
+	/**
+	 * Marks {@code node} deleted; it keeps routing searches.
+	 */
+	void delete(int node) {
+		if (node < size && !deleted.get(node)) {
+			deleted.set(node);
+			deletedCount++;
+		}
+	}
+
+	/**
+	 * Approximate nearest live nodes accepted by {@code accept}, closest first. Returns {@code null} when the search
+	 * visits more than {@code visitLimit} nodes before it settles, which happens when few nodes are accepted; an exact
+	 * scan is the better plan then.
+	 */
+	List<Neighbor> search(float[] query, int k, int ef, IntPredicate accept, int visitLimit) {
+		if (entryPoint < 0) {
+			return List.of();
+		}
+		float[] prepared = prepare(query);
+		int current = entryPoint;
+		for (int l = maxLevel; l > 0; l--) {
+			current = greedy(prepared, current, l);
+		}
+		IntPredicate live = accept != null ? node -> !deleted.get(node) && accept.test(node)
+				: node -> !deleted.get(node);
+		long[] found = searchLayer(prepared, current, Math.max(ef, k), 0, live, visitLimit);
+		if (found == null) {
+			return null;
+		}
+		List<Neighbor> neighbors = new ArrayList<>(Math.min(k, found.length));
+		for (int i = 0; i < found.length && neighbors.size() < k; i++) {
+			neighbors.add(new Neighbor(node(found[i]), distance(found[i])));
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Exact nearest live nodes accepted by {@code accept}, closest first.
+	 */
+	List<Neighbor> exact(float[] query, int k, IntPredicate accept) {
+		float[] prepared = prepare(query);
+		LongHeap closest = new LongHeap(true, k + 1);
+		for (int node = 0; node < size; node++) {
+			if (deleted.get(node) || accept != null && !accept.test(node)) {
+				continue;
+			}
+			closest.push(pack(distance(prepared, node), node));
+			if (closest.size() > k) {
+				closest.pop();
+			}
+		}
+		long[] sorted = closest.drainAscending();
+		List<Neighbor> neighbors = new ArrayList<>(sorted.length);
+		for (long entry : sorted) {
+			neighbors.add(new Neighbor(node(entry), distance(entry)));
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Distance as pgvector reports it: cosine distance, negative inner product, or Euclidean distance. The graph
+	 * compares squared Euclidean distances.
+	 */
+	float reportedDistance(float distance) {
+		return metric == Metric.EUCLIDEAN ? (float) Math.sqrt(distance) : distance;
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(dimensions);
+		out.writeUTF(metric.name());
+		out.writeInt(m);
+		out.writeInt(efConstruction);
+		out.writeInt(size);
+		out.writeInt(entryPoint);
+		out.writeInt(maxLevel);
+		for (int node = 0; node < size; node++) {
+			out.writeBoolean(deleted.get(node));
+			int offset = node * dimensions;
+			for (int i = 0; i < dimensions; i++) {
+				out.writeFloat(vectors[offset + i]);
+			}
+			out.writeByte(links[node].length);
+			for (int[] level : links[node]) {
+				out.writeShort(level[0]);
+				for (int i = 1; i <= level[0]; i++) {
+					out.writeInt(level[i]);
+				}
+			}
+		}
+	}
+
+	static HnswIndex read(DataInputStream in) throws IOException {
+		int version = in.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported HNSW snapshot version " + version);
+		}
+		int dimensions = in.readInt();
+		Metric metric = Metric.valueOf(in.readUTF());
+		int m = in.readInt();
+		HnswIndex index = new HnswIndex(dimensions, metric, m, in.readInt());
+		int size = in.readInt();
+		index.ensureCapacity(size);
+		index.entryPoint = in.readInt();
+		index.maxLevel = in.readInt();
+		for (int node = 0; node < size; node++) {
+			if (in.readBoolean()) {
+				index.deleted.set(node);
+				index.deletedCount++;
+			}
+			int offset = node * dimensions;
+			for (int i = 0; i < dimensions; i++) {
+				index.vectors[offset + i] = in.readFloat();
+			}
+			int levels = in.readUnsignedByte();
+			index.links[node] = new int[levels][];
+			for (int l = 0; l < levels; l++) {
+				int count = in.readUnsignedShort();
+				int[] level = new int[index.maxLinks(l) + 1];
+				level[0] = count;
+				for (int i = 1; i <= count; i++) {
+					level[i] = in.readInt();
+				}
+				index.links[node][l] = level;
+			}
+		}
+		index.size = size;
+		return index;
+	}
+
+	private int maxLinks(int level) {
+		return level == 0 ? 2 * m : m;
+	}
+
+	private int greedy(float[] query, int start, int level) {
+		int current = start;
+		float best = distance(query, current);
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int[] neighbors = links[current][level];
+			for (int i = 1; i <= neighbors[0]; i++) {
+				float distance = distance(query, neighbors[i]);
+				if (distance < best) {
+					best = distance;
+					current = neighbors[i];
+					improved = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Best-first search of one layer; the results, closest first, are the {@code ef} closest nodes that pass
+	 * {@code accept}, all nodes when it is {@code null}. Rejected nodes are still expanded.
+	 */
+	private long[] searchLayer(float[] query, int start, int ef, int level, IntPredicate accept, int visitLimit) {
+		LongHeap candidates = new LongHeap(false, ef * 2);
+		LongHeap results = new LongHeap(true, ef + 1);
+		VisitedSet visited = new VisitedSet(ef * 8);
+		long first = pack(distance(query, start), start);
+		candidates.push(first);
+		visited.add(start);
+		if (accept == null || accept.test(start)) {
+			results.push(first);
+		}
+		while (candidates.size() > 0) {
+			long candidate = candidates.pop();
+			if (results.size() >= ef && distance(candidate) > distance(results.peek())) {
+				break;
+			}
+			int[] neighbors = links[node(candidate)][level];
+			for (int i = 1; i <= neighbors[0]; i++) {
+				int neighbor = neighbors[i];
+				if (!visited.add(neighbor)) {
+					continue;
+				}
+				if (visited.size() > visitLimit) {
+					return null;
+				}
+				float distance = distance(query, neighbor);
+				if (results.size() < ef || distance < distance(results.peek())) {
+					long entry = pack(distance, neighbor);
+					candidates.push(entry);
+					if (accept == null || accept.test(neighbor)) {
+						results.push(entry);
+						if (results.size() > ef) {
+							results.pop();
+						}
+					}
+				}
+			}
+		}
+		return results.drainAscending();
+	}
+
+	/**
+	 * Keeps a candidate only when it is closer to the base node than to every neighbour kept so far, so links spread
+	 * in different directions; fills up with the closest discarded candidates when fewer than {@code max} are kept.
+	 */
+	private int[] selectNeighbors(long[] candidates, int max) {
+		int[] selected = new int[Math.min(max, candidates.length)];
+		int count = 0;
+		boolean[] kept = new boolean[candidates.length];
+		for (int i = 0; i < candidates.length && count < selected.length; i++) {
+			int candidate = node(candidates[i]);
+			float toBase = distance(candidates[i]);
+			boolean diverse = true;
+			for (int j = 0; j < count && diverse; j++) {
+				diverse = distanceBetween(candidate, selected[j]) > toBase;
+			}
+			if (diverse) {
+				selected[count++] = candidate;
+				kept[i] = true;
+			}
+		}
+		for (int i = 0; i < candidates.length && count < selected.length; i++) {
+			if (!kept[i]) {
+				selected[count++] = node(candidates[i]);
+			}
+		}
+		return selected;
+	}
+
+	private void connect(int node, int neighbor, int level) {
+		int[] own = links[node][level];
+		int max = maxLinks(level);
+		if (own[0] < max) {
+			own[++own[0]] = neighbor;
+			return;
+		}
+		long[] candidates = new long[max + 1];
+		int offset = node * dimensions;
+		for (int i = 1; i <= max; i++) {
+			candidates[i - 1] = pack(distance(vectors, offset, own[i]), own[i]);
+		}
+		candidates[max] = pack(distance(vectors, offset, neighbor), neighbor);
+		Arrays.sort(candidates);
+		int[] selected = selectNeighbors(candidates, max);
+		System.arraycopy(selected, 0, own, 1, selected.length);
+		own[0] = selected.length;
+	}
+
+	private float[] prepare(float[] vector) {
+		return metric == Metric.COSINE ? VectorScoring.normalize(vector) : vector;
+	}
+
+	private float distance(float[] query, int node) {
+		return distance(query, 0, node);
+	}
+
+	private float distanceBetween(int a, int b) {
+		return distance(vectors, a * dimensions, b);
+	}
+
+	private float distance(float[] query, int queryOffset, int node) {
+		int offset = node * dimensions;
+		if (metric == Metric.EUCLIDEAN) {
+			return VectorScoring.squaredDistance(query, queryOffset, vectors, offset, dimensions);
+		}
+		float dot = VectorScoring.dot(query, queryOffset, vectors, offset, dimensions);
+		return metric == Metric.COSINE ? 1 - dot : -dot;
+	}
+
+	private void ensureCapacity(int nodes) {
+		if (nodes > links.length) {
+			int capacity = Math.max(nodes, links.length * 2);
+			links = Arrays.copyOf(links, capacity);
+			vectors = Arrays.copyOf(vectors, capacity * dimensions);
+		}
+	}
+
+	/**
+	 * Distance and node in one long that sorts by distance: the float bits are mapped to an int with the same order
+	 * and stored above the node number.
+	 */
+	private static long pack(float distance, int node) {
+		int bits = Float.floatToIntBits(distance);
+		bits ^= (bits >> 31) & 0x7fffffff;
+		return ((long) bits << 32) | node;
+	}
+
+	private static float distance(long entry) {
+		int bits = (int) (entry >> 32);
+		bits ^= (bits >> 31) & 0x7fffffff;
+		return Float.intBitsToFloat(bits);
+	}
+
+	private static int node(long entry) {
+		return (int) entry;
+	}
+
+	record Neighbor(int node, float distance) {
+	}
+
+	/**
+	 * Binary heap of packed entries, smallest or largest on top.
+	 */
+	private static final class LongHeap {
+
+		private final boolean max;
+
+		private long[] heap;
+
+		private int size;
+
+		private LongHeap(boolean max, int capacity) {
+			this.max = max;
+			this.heap = new long[Math.max(capacity, 4)];
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private long peek() {
+			return heap[0];
+		}
+
+		private void push(long value) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!before(value, heap[parent])) {
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = value;
+		}
+
+		private long pop() {
+			long top = heap[0];
+			long last = heap[--size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && before(heap[child + 1], heap[child])) {
+					child++;
+				}
+				if (!before(heap[child], last)) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+			return top;
+		}
+
+		private long[] drainAscending() {
+			long[] values = Arrays.copyOf(heap, size);
+			Arrays.sort(values);
+			size = 0;
+			return values;
+		}
+
+		private boolean before(long a, long b) {
+			return max ? a > b : a < b;
+		}
+	}
+
+	/**
+	 * Open-addressing set of node numbers, sized for one search rather than the whole graph.
+	 */
+	private static final class VisitedSet {
+
+		private int[] slots;
+
+		private int size;
+
+		private VisitedSet(int expected) {
+			slots = new int[Integer.highestOneBit(Math.max(expected, 16) * 2 - 1) << 1];
+			Arrays.fill(slots, -1);
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private boolean add(int node) {
+			if (size * 2 >= slots.length) {
+				grow();
+			}
+			int mask = slots.length - 1;
+			int i = (node * 0x9E3779B9) & mask;
+			while (slots[i] != -1) {
+				if (slots[i] == node) {
+					return false;
+				}
+				i = (i + 1) & mask;
+			}
+			slots[i] = node;
+			size++;
+			return true;
+		}
+
+		private void grow() {
+			int[] old = slots;
+			slots = new int[old.length * 2];
+			Arrays.fill(slots, -1);
+			size = 0;
+			for (int node : old) {
+				if (node != -1) {
+					add(node);
+				}
+			}
+		}
+	}
+}
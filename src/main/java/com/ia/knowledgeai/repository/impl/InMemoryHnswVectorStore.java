@@ -0,0 +1,695 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.VectorStoreProperties;
+import com.ia.knowledgeai.domain.ChunkPosition;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.repository.SearchEffortRequest;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+import com.pgvector.PGvector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * {@link VectorStore} answering searches from an {@link HnswIndex} held in memory, so a search costs no database
+ * round-trip.
+ * <p>
+ * The vector store table stays the source of truth. Once the application is up the graph is loaded in the background,
+ * from the snapshot at {@code vector-store.snapshot-path} when there is one, catching up with the table by id, or by
+ * streaming the whole table otherwise; searches go to {@code fallback} until it is ready. Writes made through the
+ * repositories reach the graph through {@link VectorStoreChangedEvent}s once their transaction commits. Deleted nodes
+ * are only marked; the graph is rebuilt in the background when they outnumber the live ones, with searches on the
+ * fallback meanwhile. The snapshot is written on shutdown.
+ * <p>
+ * Filters are evaluated against the metadata kept with each node while the graph is searched. When the search has to
+ * visit too much of the graph to collect {@code topK} matches, or comes back short, the matching nodes are scanned
+ * exactly. The search effort sets {@code ef_search} as it does for pgvector.
+ */
+public class InMemoryHnswVectorStore extends AbstractObservationVectorStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryHnswVectorStore.class);
+
+	private static final int DEFAULT_EF_SEARCH = 40;
+
+	private static final int LOAD_FETCH_SIZE = 1000;
+
+	private static final int CATCH_UP_BATCH = 1000;
+
+	/**
+	 * Share of the graph a filtered search may visit before an exact scan of the matching nodes is cheaper.
+	 */
+	private static final int VISIT_LIMIT_DIVISOR = 10;
+
+	private static final int SNAPSHOT_MAGIC = 0x4B41494D;
+
+	private static final String LOAD_SQL = "SELECT id, content, metadata, embedding FROM "
+			+ JdbcEmbeddingRepository.VECTOR_TABLE + " WHERE " + JdbcEmbeddingRepository.READY_PREDICATE;
+
+	private static final String LOAD_BY_IDS_SQL = LOAD_SQL + " AND id = ANY (?::uuid[])";
+
+	private static final String LOAD_BY_DOCUMENTS_SQL = LOAD_SQL + " AND document_id = ANY (?::uuid[])";
+
+	private static final String POSITIONS_SQL = "SELECT id, chunk_index, (metadata->>'pageStart')::int AS page_start,"
+			+ " (metadata->>'pageEnd')::int AS page_end FROM " + JdbcEmbeddingRepository.VECTOR_TABLE + " WHERE "
+			+ JdbcEmbeddingRepository.READY_PREDICATE;
+
+	private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+	};
+
+	private final VectorStore fallback;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate loadTransaction;
+
+	private final ObjectMapper objectMapper;
+
+	private final VectorStoreProperties properties;
+
+	private final Function<String, float[]> queryEmbedder;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final Counter graphSearches;
+
+	private final Counter exactSearches;
+
+	private HnswIndex index;
+
+	/**
+	 * Row of each node, {@code null} once deleted.
+	 */
+	private final List<Entry> entries = new ArrayList<>();
+
+	private final Map<String, Integer> nodes = new HashMap<>();
+
+	private final Map<String, List<Integer>> nodesByDocument = new HashMap<>();
+
+	/**
+	 * Ids and documents deleted while the graph loads, so rows read before the delete are not added after it.
+	 */
+	private final Set<String> deletedWhileLoading = new HashSet<>();
+
+	private final Set<String> documentsDeletedWhileLoading = new HashSet<>();
+
+	private boolean loading = true;
+
+	private volatile boolean ready;
+
+	public InMemoryHnswVectorStore(AbstractVectorStoreBuilder<?> builder, VectorStore fallback,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+			VectorStoreProperties properties, Function<String, float[]> queryEmbedder, MeterRegistry meterRegistry) {
+		super(builder);
+		this.fallback = fallback;
+		this.jdbcTemplate = jdbcTemplate;
+		this.loadTransaction = new TransactionTemplate(transactionManager);
+		this.loadTransaction.setReadOnly(true);
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+		this.queryEmbedder = queryEmbedder;
+		this.graphSearches = searchCounter(meterRegistry, "graph");
+		this.exactSearches = searchCounter(meterRegistry, "exact");
+		Gauge.builder("vector.memory.index.size", this, InMemoryHnswVectorStore::size)
+			.description("Live vectors in the in-memory index")
+			.register(meterRegistry);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return nodes.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void doAdd(List<Document> documents) {
+		fallback.add(documents);
+		loadRows(documents.stream().map(Document::getId).toList());
+	}
+
+	@Override
+	public void doDelete(List<String> idList) {
+		fallback.delete(idList);
+		lock.writeLock().lock();
+		try {
+			idList.forEach(this::remove);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		compactIfSparse();
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+		if (!ready) {
+			return fallback.similaritySearch(request);
+		}
+		float[] query = queryEmbedder.apply(request.getQuery());
+		int topK = request.getTopK();
+		lock.readLock().lock();
+		try {
+			if (index == null) {
+				return List.of();
+			}
+			IntPredicate accept = null;
+			if (request.getFilterExpression() != null) {
+				MetadataFilter filter = MetadataFilter.of(request.getFilterExpression());
+				accept = node -> filter.test(entries.get(node).metadata());
+			}
+			int visitLimit = accept != null ? Math.max(index.size() / VISIT_LIMIT_DIVISOR, topK)
+					: Integer.MAX_VALUE;
+			List<HnswIndex.Neighbor> neighbors = index.search(query, topK, efSearch(request), accept, visitLimit);
+			if (neighbors == null || neighbors.size() < Math.min(topK, nodes.size())) {
+				neighbors = index.exact(query, topK, accept);
+				exactSearches.increment();
+			}
+			else {
+				graphSearches.increment();
+			}
+			List<Document> documents = new ArrayList<>(neighbors.size());
+			for (HnswIndex.Neighbor neighbor : neighbors) {
+				Document document = toDocument(neighbor);
+				if (document.getScore() > request.getSimilarityThreshold()) {
+					documents.add(document);
+				}
+			}
+			return documents;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+		return VectorStoreObservationContext.builder("in_memory_hnsw", operationName)
+			.collectionName(PgVectorStore.DEFAULT_TABLE_NAME)
+			.similarityMetric(properties.getDistanceType().name());
+	}
+
+	/**
+	 * Applies a committed change of the vector store table to the graph.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVectorStoreChanged(VectorStoreChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			for (Embedding embedding : event.written()) {
+				put(embedding.getId().toString(), embedding.getContent(), embedding.getMetadata(),
+						embedding.getVector());
+			}
+			event.deletedIds().forEach(id -> remove(id.toString()));
+			for (UUID documentId : event.deletedDocumentIds()) {
+				List<Integer> documentNodes = nodesByDocument.get(documentId.toString());
+				if (documentNodes != null) {
+					List.copyOf(documentNodes).forEach(node -> remove(entries.get(node).id()));
+				}
+				if (loading) {
+					documentsDeletedWhileLoading.add(documentId.toString());
+				}
+			}
+			event.reindexed().forEach((id, position) -> setPosition(id.toString(), position));
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		if (!event.deletedIds().isEmpty() || !event.deletedDocumentIds().isEmpty()) {
+			compactIfSparse();
+		}
+		if (!event.readyDocuments().isEmpty()) {
+			loadDocuments(event.readyDocuments().keySet());
+		}
+	}
+
+	/**
+	 * Starts loading the graph once the application is up, so startup is not held by the size of the table.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void startLoading() {
+		loader.submit(this::load);
+	}
+
+	/**
+	 * Writes the snapshot, when one is configured, and stops the background work.
+	 */
+	@PreDestroy
+	public void close() {
+		loader.shutdownNow();
+		Path path = properties.getSnapshotPath();
+		if (path == null || !ready) {
+			return;
+		}
+		lock.readLock().lock();
+		try {
+			writeSnapshot(path);
+		}
+		catch (IOException ex) {
+			LOGGER.warn("Unable to write vector index snapshot {}: {}", path, ex.getMessage());
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	void load() {
+		long start = System.nanoTime();
+		try {
+			if (readSnapshot()) {
+				catchUp();
+			}
+			else {
+				loadTable();
+			}
+			ready = true;
+			LOGGER.info("In-memory vector index ready with {} vectors in {} ms", size(),
+					(System.nanoTime() - start) / 1_000_000);
+		}
+		catch (DataAccessException | IllegalStateException ex) {
+			LOGGER.warn("Unable to load the in-memory vector index, searches stay on pgvector: {}", ex.getMessage());
+		}
+		finally {
+			lock.writeLock().lock();
+			try {
+				loading = false;
+				deletedWhileLoading.clear();
+				documentsDeletedWhileLoading.clear();
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	private void loadTable() {
+		loadTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+			statement.setFetchSize(LOAD_FETCH_SIZE);
+			return statement;
+		}, (RowCallbackHandler) this::putRow));
+	}
+
+	/**
+	 * Brings a graph restored from a snapshot up to date with the table: rows deleted since are removed, new rows
+	 * loaded, and chunk positions refreshed. Vector rows are otherwise never updated in place.
+	 */
+	private void catchUp() {
+		Map<String, ChunkPosition> positions = new HashMap<>();
+		jdbcTemplate.query(POSITIONS_SQL, (RowCallbackHandler) rows -> positions.put(rows.getString("id"),
+				position(rows)));
+		List<String> missing = new ArrayList<>();
+		lock.writeLock().lock();
+		try {
+			List.copyOf(nodes.keySet()).stream().filter(id -> !positions.containsKey(id)).forEach(this::remove);
+			positions.forEach((id, position) -> {
+				if (!nodes.containsKey(id)) {
+					missing.add(id);
+				}
+				else if (position != null) {
+					setPosition(id, position);
+				}
+			});
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		loadRows(missing);
+	}
+
+	private void loadRows(List<String> ids) {
+		for (int from = 0; from < ids.size(); from += CATCH_UP_BATCH) {
+			List<String> batch = ids.subList(from, Math.min(from + CATCH_UP_BATCH, ids.size()));
+			jdbcTemplate.query(LOAD_BY_IDS_SQL, (RowCallbackHandler) this::putRow,
+					MetadataColumns.toArrayLiteral(batch));
+		}
+	}
+
+	private void loadDocuments(Collection<UUID> documentIds) {
+		jdbcTemplate.query(LOAD_BY_DOCUMENTS_SQL, (RowCallbackHandler) this::putRow,
+				MetadataColumns.toArrayLiteral(documentIds));
+	}
+
+	private void putRow(ResultSet rows) throws SQLException {
+		Map<String, Object> metadata = readMetadata(rows.getString("metadata"));
+		float[] vector = new PGvector(rows.getString("embedding")).toArray();
+		lock.writeLock().lock();
+		try {
+			put(rows.getString("id"), rows.getString("content"), metadata, vector);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a row unless it is already in the graph or was deleted while the graph loaded. Vector rows are written
+	 * once, so a known id is the same row.
+	 */
+	private void put(String id, String content, Map<String, Object> metadata, float[] vector) {
+		String documentId = documentId(metadata);
+		if (nodes.containsKey(id) || loading && (deletedWhileLoading.contains(id)
+				|| documentId != null && documentsDeletedWhileLoading.contains(documentId))) {
+			return;
+		}
+		if (index == null) {
+			index = newIndex(vector.length);
+		}
+		int node = index.add(vector);
+		entries.add(new Entry(id, content, Map.copyOf(withoutNulls(metadata))));
+		nodes.put(id, node);
+		if (documentId != null) {
+			nodesByDocument.computeIfAbsent(documentId, unused -> new ArrayList<>()).add(node);
+		}
+	}
+
+	private void remove(String id) {
+		if (loading) {
+			deletedWhileLoading.add(id);
+		}
+		Integer node = nodes.remove(id);
+		if (node == null) {
+			return;
+		}
+		String documentId = documentId(entries.get(node).metadata());
+		if (documentId != null) {
+			List<Integer> documentNodes = nodesByDocument.get(documentId);
+			documentNodes.remove(node);
+			if (documentNodes.isEmpty()) {
+				nodesByDocument.remove(documentId);
+			}
+		}
+		entries.set(node, null);
+		index.delete(node);
+	}
+
+	/**
+	 * Position of a row of {@link #POSITIONS_SQL}, {@code null} for rows stored without a chunk index.
+	 */
+	private static ChunkPosition position(ResultSet rows) throws SQLException {
+		Integer chunkIndex = (Integer) rows.getObject("chunk_index");
+		if (chunkIndex == null) {
+			return null;
+		}
+		Integer pageStart = (Integer) rows.getObject("page_start");
+		Integer pageEnd = (Integer) rows.getObject("page_end");
+		return new ChunkPosition(chunkIndex, pageStart != null ? new PageRange(pageStart, pageEnd) : null);
+	}
+
+	private void setPosition(String id, ChunkPosition position) {
+		Integer node = nodes.get(id);
+		if (node == null) {
+			return;
+		}
+		Entry entry = entries.get(node);
+		Map<String, Object> metadata = new HashMap<>(entry.metadata());
+		metadata.put("chunkIndex", position.index());
+		metadata.remove("pageStart");
+		metadata.remove("pageEnd");
+		if (position.pages() != null) {
+			metadata.put("pageStart", position.pages().first());
+			metadata.put("pageEnd", position.pages().last());
+		}
+		entries.set(node, new Entry(entry.id(), entry.content(), Map.copyOf(metadata)));
+	}
+
+	/**
+	 * Rebuilds the graph without its deleted nodes once they outnumber the live ones. Searches go to the fallback
+	 * while it runs.
+	 */
+	private void compactIfSparse() {
+		lock.readLock().lock();
+		try {
+			if (!ready || index == null || index.deletedCount() <= nodes.size()) {
+				return;
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		loader.submit(() -> {
+			ready = false;
+			lock.writeLock().lock();
+			try {
+				HnswIndex compacted = newIndex(index.dimensions());
+				List<Entry> live = new ArrayList<>(nodes.size());
+				Map<String, Integer> compactedNodes = new HashMap<>();
+				Map<String, List<Integer>> compactedByDocument = new HashMap<>();
+				for (int node = 0; node < entries.size(); node++) {
+					Entry entry = entries.get(node);
+					if (entry == null) {
+						continue;
+					}
+					int compactedNode = compacted.add(index.vector(node));
+					live.add(entry);
+					compactedNodes.put(entry.id(), compactedNode);
+					String documentId = documentId(entry.metadata());
+					if (documentId != null) {
+						compactedByDocument.computeIfAbsent(documentId, unused -> new ArrayList<>()).add(compactedNode);
+					}
+				}
+				index = compacted;
+				entries.clear();
+				entries.addAll(live);
+				nodes.clear();
+				nodes.putAll(compactedNodes);
+				nodesByDocument.clear();
+				nodesByDocument.putAll(compactedByDocument);
+			}
+			finally {
+				lock.writeLock().unlock();
+				ready = true;
+			}
+		});
+	}
+
+	private boolean readSnapshot() {
+		Path path = properties.getSnapshotPath();
+		if (path == null || !Files.isRegularFile(path)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("not a vector index snapshot");
+			}
+			int count = in.readInt();
+			List<Entry> restored = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				restored.add(in.readBoolean() ? new Entry(in.readUTF(), readString(in), readMetadata(readString(in)))
+						: null);
+			}
+			HnswIndex restoredIndex = HnswIndex.read(in);
+			if (restoredIndex.metric() != metric() || restoredIndex.size() != count) {
+				LOGGER.info("Ignoring vector index snapshot {} built for another configuration", path);
+				return false;
+			}
+			lock.writeLock().lock();
+			try {
+				List<Entry> written = entries.stream().filter(entry -> entry != null).toList();
+				List<float[]> writtenVectors = written.stream()
+					.map(entry -> index.vector(nodes.get(entry.id())))
+					.toList();
+				entries.clear();
+				nodes.clear();
+				nodesByDocument.clear();
+				index = restoredIndex;
+				for (int node = 0; node < count; node++) {
+					Entry entry = restored.get(node);
+					entries.add(entry);
+					if (entry != null) {
+						nodes.put(entry.id(), node);
+						String documentId = documentId(entry.metadata());
+						if (documentId != null) {
+							nodesByDocument.computeIfAbsent(documentId, unused -> new ArrayList<>()).add(node);
+						}
+					}
+				}
+				for (int i = 0; i < written.size(); i++) {
+					Entry entry = written.get(i);
+					put(entry.id(), entry.content(), entry.metadata(), writtenVectors.get(i));
+				}
+				List.copyOf(deletedWhileLoading).forEach(this::remove);
+				for (String documentId : documentsDeletedWhileLoading) {
+					List.copyOf(nodesByDocument.getOrDefault(documentId, List.of()))
+						.forEach(node -> remove(entries.get(node).id()));
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+			return true;
+		}
+		catch (IOException | RuntimeException ex) {
+			LOGGER.warn("Unable to read vector index snapshot {}, loading from the table: {}", path, ex.getMessage());
+			return false;
+		}
+	}
+
+	private void writeSnapshot(Path path) throws IOException {
+		if (index == null) {
+			return;
+		}
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(entries.size());
+			for (Entry entry : entries) {
+				out.writeBoolean(entry != null);
+				if (entry != null) {
+					out.writeUTF(entry.id());
+					writeString(out, entry.content());
+					writeString(out, objectMapper.writeValueAsString(entry.metadata()));
+				}
+			}
+			index.write(out);
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		LOGGER.info("Wrote vector index snapshot {} with {} vectors", path, nodes.size());
+	}
+
+	private HnswIndex newIndex(int dimensions) {
+		return new HnswIndex(dimensions, metric(), properties.getHnswM(), properties.getHnswEfConstruction());
+	}
+
+	private HnswIndex.Metric metric() {
+		return switch (properties.getDistanceType()) {
+			case COSINE_DISTANCE -> HnswIndex.Metric.COSINE;
+			case NEGATIVE_INNER_PRODUCT -> HnswIndex.Metric.INNER_PRODUCT;
+			case EUCLIDEAN_DISTANCE -> HnswIndex.Metric.EUCLIDEAN;
+		};
+	}
+
+	private int efSearch(SearchRequest request) {
+		int effort = properties.getSearchEffort();
+		if (request instanceof SearchEffortRequest effortRequest && effortRequest.getSearchEffort() != null) {
+			effort = Math.min(effortRequest.getSearchEffort(), properties.getMaxSearchEffort());
+		}
+		return Math.max(effort > 0 ? effort : DEFAULT_EF_SEARCH, request.getTopK());
+	}
+
+	/**
+	 * Document with the distance and score {@link TunedPgVectorStore} reports for the same row.
+	 */
+	private Document toDocument(HnswIndex.Neighbor neighbor) {
+		Entry entry = entries.get(neighbor.node());
+		float distance = index.reportedDistance(neighbor.distance());
+		if (index.metric() == HnswIndex.Metric.INNER_PRODUCT) {
+			distance += 1;
+		}
+		Map<String, Object> metadata = new HashMap<>(entry.metadata());
+		metadata.put(DocumentMetadata.DISTANCE.value(), distance);
+		return Document.builder()
+			.id(entry.id())
+			.text(entry.content())
+			.metadata(metadata)
+			.score(1.0 - distance)
+			.build();
+	}
+
+	private Map<String, Object> readMetadata(String json) {
+		if (json == null) {
+			return Map.of();
+		}
+		try {
+			return objectMapper.readValue(json, METADATA_TYPE);
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to read vector store metadata", ex);
+		}
+	}
+
+	private static String documentId(Map<String, Object> metadata) {
+		Object documentId = metadata.get("documentId");
+		return documentId != null ? documentId.toString() : null;
+	}
+
+	private static Map<String, Object> withoutNulls(Map<String, Object> metadata) {
+		Map<String, Object> copy = new HashMap<>(metadata);
+		copy.values().removeIf(value -> value == null);
+		return copy;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Counter searchCounter(MeterRegistry meterRegistry, String plan) {
+		return Counter.builder("vector.memory.search")
+			.description("In-memory vector searches by plan")
+			.tag("plan", plan)
+			.register(meterRegistry);
+	}
+
+	private record Entry(String id, String content, Map<String, Object> metadata) {
+	}
+}
@@ -0,0 +1,385 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.ChunkPosition;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+import com.pgvector.PGvector;
+
+/**
+ * Streams chunk and vector rows with PostgreSQL {@code COPY ... FROM STDIN}, one statement per table regardless of the
+ * number of rows. Connections that are not PostgreSQL fall back to a single JDBC batch per table. Every change to the
+ * vector rows is announced with a {@link VectorStoreChangedEvent}, except rows written for a document that is not
+ * ready yet.
+ */
+@Repository
+public class JdbcChunkBulkWriter implements ChunkBulkWriter {
+
+	static final String CHUNK_COLUMNS = "chunks (id, document_id, chunk_index, text, content_hash, page_start, page_end, "
+			+ "simhash, simhash_bands, duplicate_of)";
+
+	static final String VECTOR_COLUMNS = JdbcEmbeddingRepository.VECTOR_TABLE + " (id, content, metadata, embedding, "
+			+ MetadataColumns.NAMES + ")";
+
+	private static final String DELETE_VECTORS_SQL = "DELETE FROM " + JdbcEmbeddingRepository.VECTOR_TABLE
+			+ " WHERE id = ANY (?)";
+
+	private static final String DELETE_CHUNKS_SQL = "DELETE FROM chunks WHERE id = ANY (?)";
+
+	private static final String CLEAR_DUPLICATE_OF_SQL = "UPDATE chunks SET duplicate_of = NULL WHERE id = ANY (?)";
+
+	private static final String REINDEX_CHUNK_SQL = "UPDATE chunks SET chunk_index = ?, page_start = ?, page_end = ?"
+			+ " WHERE id = ?";
+
+	private static final String REINDEX_VECTOR_SQL = "UPDATE " + JdbcEmbeddingRepository.VECTOR_TABLE
+			+ " SET chunk_index = v.chunk_index, metadata = (metadata - 'pageStart' - 'pageEnd')"
+			+ " || jsonb_strip_nulls(jsonb_build_object('chunkIndex', v.chunk_index, 'pageStart', v.page_start,"
+			+ " 'pageEnd', v.page_end))"
+			+ " FROM (SELECT ?::int AS chunk_index, ?::int AS page_start, ?::int AS page_end) v WHERE id = ?";
+
+	private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	public JdbcChunkBulkWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+			ApplicationEventPublisher eventPublisher) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public void write(List<Chunk> chunks, List<Embedding> embeddings) {
+		if (chunks.isEmpty() && embeddings.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+			insert(connection, chunks, embeddings);
+			return null;
+		});
+		List<Embedding> visible = visible(chunks, embeddings);
+		if (!visible.isEmpty()) {
+			eventPublisher.publishEvent(VectorStoreChangedEvent.written(visible));
+		}
+	}
+
+	@Override
+	public void releaseDuplicates(List<Embedding> embeddings) {
+		if (embeddings.isEmpty()) {
+			return;
+		}
+		List<UUID> chunkIds = embeddings.stream().map(Embedding::getId).toList();
+		jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+			Array ids = connection.createArrayOf("uuid", chunkIds.toArray());
+			try {
+				updateByIds(connection, CLEAR_DUPLICATE_OF_SQL, ids);
+				updateByIds(connection, DELETE_VECTORS_SQL, ids);
+			}
+			finally {
+				ids.free();
+			}
+			insert(connection, List.of(), embeddings);
+			return null;
+		});
+		eventPublisher.publishEvent(VectorStoreChangedEvent.deleted(chunkIds));
+		eventPublisher.publishEvent(VectorStoreChangedEvent.written(embeddings));
+	}
+
+	@Override
+	public int delete(Collection<UUID> chunkIds) {
+		if (chunkIds.isEmpty()) {
+			return 0;
+		}
+		int deleted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+			Array ids = connection.createArrayOf("uuid", chunkIds.toArray());
+			try {
+				updateByIds(connection, DELETE_VECTORS_SQL, ids);
+				return updateByIds(connection, DELETE_CHUNKS_SQL, ids);
+			}
+			finally {
+				ids.free();
+			}
+		});
+		eventPublisher.publishEvent(VectorStoreChangedEvent.deleted(chunkIds));
+		return deleted;
+	}
+
+	@Override
+	public void reindex(Map<UUID, ChunkPosition> positions) {
+		if (positions.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+			reindex(connection, REINDEX_CHUNK_SQL, positions);
+			reindex(connection, REINDEX_VECTOR_SQL, positions);
+			return null;
+		});
+		eventPublisher.publishEvent(VectorStoreChangedEvent.reindexed(positions));
+	}
+
+	/**
+	 * The embeddings searches can see once committed: those of chunks of a document still being ingested are left to
+	 * the event that marks the document ready.
+	 */
+	private static List<Embedding> visible(List<Chunk> chunks, List<Embedding> embeddings) {
+		Set<UUID> pending = new HashSet<>();
+		for (Chunk chunk : chunks) {
+			if (chunk.getDocument().getStatus() != Document.Status.READY) {
+				pending.add(chunk.getId());
+			}
+		}
+		if (pending.isEmpty()) {
+			return embeddings;
+		}
+		return embeddings.stream().filter(embedding -> !pending.contains(embedding.getId())).toList();
+	}
+
+	private void insert(Connection connection, List<Chunk> chunks, List<Embedding> embeddings) throws SQLException {
+		if (connection.isWrapperFor(PGConnection.class)) {
+			copy(connection.unwrap(PGConnection.class).getCopyAPI(), chunks, embeddings);
+		}
+		else {
+			batch(connection, chunks, embeddings);
+		}
+	}
+
+	private int updateByIds(Connection connection, String sql, Array ids) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setArray(1, ids);
+			return statement.executeUpdate();
+		}
+	}
+
+	private void reindex(Connection connection, String sql, Map<UUID, ChunkPosition> positions) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			for (Map.Entry<UUID, ChunkPosition> entry : positions.entrySet()) {
+				PageRange pages = entry.getValue().pages();
+				statement.setInt(1, entry.getValue().index());
+				statement.setObject(2, pages != null ? pages.first() : null, Types.INTEGER);
+				statement.setObject(3, pages != null ? pages.last() : null, Types.INTEGER);
+				statement.setObject(4, entry.getKey());
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	private void copy(CopyManager copyManager, List<Chunk> chunks, List<Embedding> embeddings) throws SQLException {
+		if (!chunks.isEmpty()) {
+			try (CopyRows rows = new CopyRows(copyManager.copyIn("COPY " + CHUNK_COLUMNS + " FROM STDIN"))) {
+				for (Chunk chunk : chunks) {
+					rows.row(chunk.getId(), chunk.getDocument().getId(), chunk.getIndex(), chunk.getText(),
+							chunk.getContentHash(), chunk.getPageStart(), chunk.getPageEnd(), chunk.getSimhash(),
+							toArrayLiteral(chunk.getSimhashBands()), chunk.getDuplicateOf());
+				}
+				rows.end();
+			}
+		}
+		if (!embeddings.isEmpty()) {
+			try (CopyRows rows = new CopyRows(copyManager.copyIn("COPY " + VECTOR_COLUMNS + " FROM STDIN"))) {
+				for (Embedding embedding : embeddings) {
+					Object[] columns = MetadataColumns.values(embedding.getMetadata());
+					rows.row(embedding.getId(), embedding.getContent(), toJson(embedding.getMetadata()),
+							new PGvector(embedding.getVector()).getValue(), columns[0], columns[1], columns[2],
+							columns[3], columns[4] != null ? MetadataColumns.toArrayLiteral((List<?>) columns[4]) : null);
+				}
+				rows.end();
+			}
+		}
+	}
+
+	private void batch(Connection connection, List<Chunk> chunks, List<Embedding> embeddings) throws SQLException {
+		if (!chunks.isEmpty()) {
+			try (PreparedStatement statement = connection
+				.prepareStatement("INSERT INTO " + CHUNK_COLUMNS + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+				for (Chunk chunk : chunks) {
+					statement.setObject(1, chunk.getId());
+					statement.setObject(2, chunk.getDocument().getId());
+					statement.setInt(3, chunk.getIndex());
+					statement.setString(4, withoutNul(chunk.getText()));
+					statement.setString(5, chunk.getContentHash());
+					statement.setObject(6, chunk.getPageStart(), Types.INTEGER);
+					statement.setObject(7, chunk.getPageEnd(), Types.INTEGER);
+					statement.setObject(8, chunk.getSimhash(), Types.BIGINT);
+					statement.setArray(9, chunk.getSimhashBands() != null
+							? connection.createArrayOf("integer", Arrays.stream(chunk.getSimhashBands()).boxed().toArray())
+							: null);
+					statement.setObject(10, chunk.getDuplicateOf());
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+		}
+		if (!embeddings.isEmpty()) {
+			try (PreparedStatement statement = connection
+				.prepareStatement("INSERT INTO " + VECTOR_COLUMNS + " VALUES (?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?)")) {
+				for (Embedding embedding : embeddings) {
+					Object[] columns = MetadataColumns.values(embedding.getMetadata());
+					statement.setObject(1, embedding.getId());
+					statement.setString(2, withoutNul(embedding.getContent()));
+					statement.setString(3, toJson(embedding.getMetadata()));
+					statement.setObject(4, new PGvector(embedding.getVector()));
+					statement.setObject(5, columns[0]);
+					statement.setObject(6, columns[1], Types.INTEGER);
+					statement.setString(7, withoutNul((String) columns[2]));
+					statement.setString(8, withoutNul((String) columns[3]));
+					statement.setArray(9, columns[4] != null
+							? connection.createArrayOf("text", ((List<?>) withoutNul(columns[4])).toArray()) : null);
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+		}
+	}
+
+	private String toJson(Map<String, Object> metadata) {
+		try {
+			return objectMapper.writeValueAsString(withoutNul(metadata));
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to serialize embedding metadata", ex);
+		}
+	}
+
+	private static String toArrayLiteral(int[] values) {
+		if (values == null) {
+			return null;
+		}
+		StringBuilder literal = new StringBuilder("{");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				literal.append(',');
+			}
+			literal.append(values[i]);
+		}
+		return literal.append('}').toString();
+	}
+
+	/**
+	 * Encodes one field of the COPY text format: {@code \N} for null, backslash escapes for the delimiter, row
+	 * terminators and the backslash itself. NUL characters are dropped, since PostgreSQL rejects them in text.
+	 */
+	static void appendField(StringBuilder line, Object value) {
+		if (value == null) {
+			line.append("\\N");
+			return;
+		}
+		String text = value.toString();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '\\' -> line.append("\\\\");
+				case '\t' -> line.append("\\t");
+				case '\n' -> line.append("\\n");
+				case '\r' -> line.append("\\r");
+				case '\0' -> {
+				}
+				default -> line.append(c);
+			}
+		}
+	}
+
+	/**
+	 * {@code value} with NUL characters removed from its strings, those inside lists and maps included: PostgreSQL
+	 * rejects them in {@code text} and {@code jsonb}, and text extracted from binary documents may contain them.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T withoutNul(T value) {
+		if (value instanceof String text) {
+			return text.indexOf('\0') < 0 ? value : (T) text.replace("\0", "");
+		}
+		if (value instanceof Collection<?> values) {
+			return (T) values.stream().map(JdbcChunkBulkWriter::withoutNul).toList();
+		}
+		if (value instanceof Map<?, ?> map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			map.forEach((key, element) -> copy.put(key, withoutNul(element)));
+			return (T) copy;
+		}
+		return value;
+	}
+
+	/**
+	 * Buffers encoded rows and hands them to the server in blocks, so a large document is never encoded in one piece.
+	 * Closing without {@link #end()} cancels the COPY so the connection is usable again.
+	 */
+	private static final class CopyRows implements AutoCloseable {
+
+		private final CopyIn copyIn;
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_BYTES);
+
+		private final StringBuilder line = new StringBuilder();
+
+		private CopyRows(CopyIn copyIn) {
+			this.copyIn = copyIn;
+		}
+
+		private void row(Object... values) throws SQLException {
+			line.setLength(0);
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					line.append('\t');
+				}
+				appendField(line, values[i]);
+			}
+			line.append('\n');
+			buffer.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+			if (buffer.size() >= COPY_BUFFER_BYTES) {
+				send();
+			}
+		}
+
+		private void end() throws SQLException {
+			send();
+			copyIn.endCopy();
+		}
+
+		@Override
+		public void close() throws SQLException {
+			if (copyIn.isActive()) {
+				copyIn.cancelCopy();
+			}
+		}
+
+		private void send() throws SQLException {
+			if (buffer.size() > 0) {
+				copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+				buffer.reset();
+			}
+		}
+	}
+}
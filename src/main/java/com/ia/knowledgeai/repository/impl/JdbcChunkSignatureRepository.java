@@ -0,0 +1,127 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ia.knowledgeai.domain.support.SimHash;
+import com.ia.knowledgeai.repository.ChunkSignatureRepository;
+import com.pgvector.PGvector;
+
+/**
+ * Finds near-duplicates with the GIN index on {@code chunks.simhash_bands}: candidates sharing a band with the
+ * signature are fetched through the index and only those within the distance are kept, all signatures of a batch in a
+ * single lateral join.
+ */
+@Repository
+public class JdbcChunkSignatureRepository implements ChunkSignatureRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcChunkSignatureRepository.class);
+
+	private static final String BANDS_INDEX = "idx_chunks_simhash_bands";
+
+	private static final String CREATE_BANDS_INDEX_SQL = "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + BANDS_INDEX
+			+ " ON chunks USING gin (simhash_bands)";
+
+	private static final String FIND_NEAREST_SQL = """
+			SELECT q.ord, m.id%s
+			FROM unnest(?::bigint[], ?::uuid[], ?::int[], ?::int[], ?::int[], ?::int[])
+				WITH ORDINALITY AS q(simhash, document_id, b0, b1, b2, b3, ord)
+			CROSS JOIN LATERAL (
+				SELECT c.id FROM chunks c
+				WHERE c.simhash_bands && ARRAY[q.b0, q.b1, q.b2, q.b3]
+					AND c.document_id <> q.document_id
+					AND c.duplicate_of IS NULL
+					AND bit_count((c.simhash # q.simhash)::bit(64)) <= ?
+				ORDER BY bit_count((c.simhash # q.simhash)::bit(64))
+				LIMIT 1) m
+			%s""";
+
+	private static final String WITH_VECTORS_SELECT = ", v.embedding::text";
+
+	private static final String WITH_VECTORS_JOIN = "JOIN " + JdbcEmbeddingRepository.VECTOR_TABLE
+			+ " v ON v.id = m.id";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcChunkSignatureRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public List<Match> findNearest(List<Long> signatures, List<UUID> documentIds, int maxDistance,
+			boolean withVectors) {
+		if (signatures.isEmpty()) {
+			return List.of();
+		}
+		String sql = withVectors ? FIND_NEAREST_SQL.formatted(WITH_VECTORS_SELECT, WITH_VECTORS_JOIN)
+				: FIND_NEAREST_SQL.formatted("", "");
+		return jdbcTemplate.execute((ConnectionCallback<List<Match>>) connection -> {
+			Integer[][] bands = new Integer[SimHash.BANDS][signatures.size()];
+			for (int i = 0; i < signatures.size(); i++) {
+				int[] signatureBands = SimHash.bands(signatures.get(i));
+				for (int band = 0; band < SimHash.BANDS; band++) {
+					bands[band][i] = signatureBands[band];
+				}
+			}
+			List<Array> arrays = new ArrayList<>();
+			try (PreparedStatement statement = connection.prepareStatement(sql)) {
+				arrays.add(connection.createArrayOf("bigint", signatures.toArray()));
+				arrays.add(connection.createArrayOf("uuid", documentIds.toArray()));
+				for (Integer[] band : bands) {
+					arrays.add(connection.createArrayOf("integer", band));
+				}
+				for (int i = 0; i < arrays.size(); i++) {
+					statement.setArray(i + 1, arrays.get(i));
+				}
+				statement.setInt(arrays.size() + 1, maxDistance);
+				List<Match> matches = new ArrayList<>(Collections.nCopies(signatures.size(), null));
+				try (ResultSet rows = statement.executeQuery()) {
+					while (rows.next()) {
+						matches.set(rows.getInt(1) - 1, new Match(rows.getObject(2, UUID.class),
+								withVectors ? toVector(rows) : null));
+					}
+				}
+				return matches;
+			}
+			finally {
+				for (Array array : arrays) {
+					array.free();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Creates the GIN index on the signature bands. Like the vector store index it cannot be declared on the entity,
+	 * so it is built concurrently at startup.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void createBandsIndex() {
+		try {
+			jdbcTemplate.execute(CREATE_BANDS_INDEX_SQL);
+		}
+		catch (DataAccessException ex) {
+			LOGGER.warn("Unable to create index {} on chunks, near-duplicate lookups will scan the table: {}",
+					BANDS_INDEX, ex.getMessage());
+		}
+	}
+
+	private float[] toVector(ResultSet rows) throws SQLException {
+		return new PGvector(rows.getString(3)).toArray();
+	}
+}
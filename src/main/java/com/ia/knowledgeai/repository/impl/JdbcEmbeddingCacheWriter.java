@@ -0,0 +1,60 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ia.knowledgeai.repository.EmbeddingCacheWriter;
+
+/**
+ * Writes a batch of cached vectors with a single {@code INSERT ... SELECT FROM unnest(...)}, the hashes and the vectors
+ * bound as two text arrays. Rows are inserted in hash order, so concurrent batches lock keys in the same order.
+ */
+@Repository
+public class JdbcEmbeddingCacheWriter implements EmbeddingCacheWriter {
+
+	static final String INSERT_SQL = "INSERT INTO embedding_cache (model, content_hash, vector, created_at)"
+			+ " SELECT ?, t.content_hash, t.vector::real[], ?"
+			+ " FROM unnest(?::text[], ?::text[]) AS t(content_hash, vector)"
+			+ " ORDER BY t.content_hash ON CONFLICT DO NOTHING";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcEmbeddingCacheWriter(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void insertIfAbsent(String model, Map<String, float[]> vectors, Instant createdAt) {
+		if (vectors.isEmpty()) {
+			return;
+		}
+		Map<String, float[]> sorted = new TreeMap<>(vectors);
+		List<String> literals = new ArrayList<>(sorted.size());
+		for (float[] vector : sorted.values()) {
+			literals.add(toLiteral(vector));
+		}
+		jdbcTemplate.update(INSERT_SQL, model, Timestamp.from(createdAt),
+				MetadataColumns.toArrayLiteral(sorted.keySet()), MetadataColumns.toArrayLiteral(literals));
+	}
+
+	/**
+	 * PostgreSQL array literal of the vector, for a {@code ::real[]} cast.
+	 */
+	static String toLiteral(float[] vector) {
+		StringBuilder literal = new StringBuilder(vector.length * 12).append('{');
+		for (int i = 0; i < vector.length; i++) {
+			if (i > 0) {
+				literal.append(',');
+			}
+			literal.append(vector[i]);
+		}
+		return literal.append('}').toString();
+	}
+}
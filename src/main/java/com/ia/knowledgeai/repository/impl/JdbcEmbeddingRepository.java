@@ -0,0 +1,134 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ia.knowledgeai.repository.EmbeddingRepository;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Works on rows in the same layout as {@link PgVectorStore} so they are searchable through it. Deletes are announced
+ * with a {@link VectorStoreChangedEvent}.
+ */
+@Repository
+public class JdbcEmbeddingRepository implements EmbeddingRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcEmbeddingRepository.class);
+
+	static final String VECTOR_TABLE = PgVectorStore.DEFAULT_SCHEMA_NAME + "." + PgVectorStore.DEFAULT_TABLE_NAME;
+
+	/**
+	 * Keeps searches off the rows of documents that are not ready: an ingest commits its chunks batch by batch and
+	 * marks the document ready at the end. Only a handful of documents are ingesting at any time, so the check is a
+	 * primary key probe that almost never matches. Rows without a document stay visible.
+	 */
+	static final String READY_PREDICATE = "NOT EXISTS (SELECT 1 FROM documents d WHERE d.id = " + VECTOR_TABLE
+			+ ".document_id AND d.status <> 'READY')";
+
+	/**
+	 * Expression index on {@code metadata->>'documentId'} that deletes used before the document id had a column.
+	 */
+	private static final String LEGACY_DOCUMENT_ID_INDEX = "idx_vector_store_document_id";
+
+	/**
+	 * Indexes on the metadata columns by name; a btree for the scalar columns, a GIN index for the tags.
+	 */
+	private static final Map<String, String> METADATA_INDEXES = Map.of("idx_vector_store_document",
+			"(document_id)", "idx_vector_store_source", "(source)", "idx_vector_store_tags", "USING gin (tags)");
+
+	private static final int BACKFILL_BATCH = 5000;
+
+	private static final String DELETE_BY_DOCUMENTS_SQL = "DELETE FROM " + VECTOR_TABLE
+			+ " WHERE document_id = ANY (?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	public JdbcEmbeddingRepository(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public int deleteByDocumentIds(Collection<UUID> documentIds) {
+		if (documentIds.isEmpty()) {
+			return 0;
+		}
+		int deleted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+			Array ids = connection.createArrayOf("uuid", documentIds.toArray());
+			try (PreparedStatement statement = connection.prepareStatement(DELETE_BY_DOCUMENTS_SQL)) {
+				statement.setArray(1, ids);
+				return statement.executeUpdate();
+			}
+			finally {
+				ids.free();
+			}
+		});
+		eventPublisher.publishEvent(VectorStoreChangedEvent.documentsDeleted(documentIds));
+		return deleted;
+	}
+
+	/**
+	 * Adds the typed metadata columns of {@link MetadataColumns} to the vector store table and fills them for rows
+	 * written before they existed, one primary key range per statement so no transaction holds the whole table. Runs
+	 * before the application takes traffic, since filters and deletes read the columns.
+	 */
+	@PostConstruct
+	public void addMetadataColumns() {
+		try {
+			jdbcTemplate.execute(MetadataColumns.ADD_COLUMNS_SQL);
+			String lastId = new UUID(0, 0).toString();
+			while (lastId != null) {
+				lastId = jdbcTemplate.queryForObject(MetadataColumns.BACKFILL_SQL, String.class,
+						UUID.fromString(lastId), BACKFILL_BATCH);
+			}
+		}
+		catch (DataAccessException ex) {
+			LOGGER.warn("Unable to add metadata columns to {}, filters on them will fail: {}", VECTOR_TABLE,
+					ex.getMessage());
+		}
+	}
+
+	/**
+	 * Creates the indexes on the metadata columns that filtered searches and per-document deletes rely on, and drops
+	 * the expression index they replace. The table is owned by the vector store, so the indexes cannot be declared on
+	 * an entity; they are built concurrently to avoid blocking writers on an existing table.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void createMetadataIndexes() {
+		METADATA_INDEXES.forEach((name, definition) -> {
+			try {
+				jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + VECTOR_TABLE + " "
+						+ definition);
+			}
+			catch (DataAccessException ex) {
+				LOGGER.warn("Unable to create index {} on {}, filters on it will scan the table: {}", name,
+						VECTOR_TABLE, ex.getMessage());
+			}
+		});
+		try {
+			jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + PgVectorStore.DEFAULT_SCHEMA_NAME + "."
+					+ LEGACY_DOCUMENT_ID_INDEX);
+		}
+		catch (DataAccessException ex) {
+			LOGGER.warn("Unable to drop index {}: {}", LEGACY_DOCUMENT_ID_INDEX, ex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.QueryProperties;
+import com.ia.knowledgeai.repository.LexicalSearchRepository;
+
+/**
+ * Searches through a GIN expression index on {@code to_tsvector(config, content)} of the vector store table, so no
+ * column has to be added to a table the vector store owns. The query's terms are OR-ed, since questions rarely have
+ * all their words in one chunk, and matches are ranked by cover density. Filters use the typed metadata columns.
+ */
+@Repository
+public class JdbcLexicalSearchRepository implements LexicalSearchRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcLexicalSearchRepository.class);
+
+	private static final String INDEX_PREFIX = "idx_vector_store_content_fts_";
+
+	/**
+	 * {@code plainto_tsquery} joins the lexemes with {@code &}; swapping it for {@code |} turns the query into an OR.
+	 * Normalization 32 maps the rank into {@code [0, 1)}.
+	 */
+	private static final String SEARCH_SQL = """
+			WITH terms AS (SELECT replace(plainto_tsquery('%3$s', ?)::text, ' & ', ' | ')::tsquery AS query)
+			SELECT id, content, metadata, ts_rank_cd(%1$s, terms.query, 32) AS rank
+			FROM %2$s, terms
+			WHERE %1$s @@ terms.query%4$s
+			ORDER BY rank DESC
+			LIMIT ?""";
+
+	private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final QueryProperties queryProperties;
+
+	public JdbcLexicalSearchRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+			QueryProperties queryProperties) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.queryProperties = queryProperties;
+	}
+
+	@Override
+	public List<Document> search(String query, int limit, String source, Collection<String> tags, UUID documentId) {
+		StringBuilder filters = new StringBuilder(" AND ").append(JdbcEmbeddingRepository.READY_PREDICATE);
+		List<Object> args = new ArrayList<>();
+		args.add(query);
+		if (documentId != null) {
+			filters.append(" AND document_id = ?");
+			args.add(documentId);
+		}
+		if (StringUtils.hasText(source)) {
+			filters.append(" AND source = ?");
+			args.add(source);
+		}
+		if (!CollectionUtils.isEmpty(tags)) {
+			filters.append(" AND tags @> ?::text[]");
+			args.add(MetadataColumns.toArrayLiteral(tags));
+		}
+		args.add(limit);
+		String sql = SEARCH_SQL.formatted(textVector(), JdbcEmbeddingRepository.VECTOR_TABLE, config(), filters);
+		return jdbcTemplate.query(sql, (rows, rowNum) -> toDocument(rows), args.toArray());
+	}
+
+	/**
+	 * Creates the full-text index. It is named after the text search configuration, so changing the configuration
+	 * builds a new index rather than using one that no longer matches the queries.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void createTextIndex() {
+		String name = INDEX_PREFIX + config();
+		try {
+			jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON "
+					+ JdbcEmbeddingRepository.VECTOR_TABLE + " USING gin (" + textVector() + ")");
+		}
+		catch (DataAccessException | IllegalStateException ex) {
+			LOGGER.warn("Unable to create index {} on {}, lexical searches will scan the table: {}", name,
+					JdbcEmbeddingRepository.VECTOR_TABLE, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Written exactly as the index expression so the planner uses the index.
+	 */
+	private String textVector() {
+		return "to_tsvector('" + config() + "'::regconfig, content)";
+	}
+
+	/**
+	 * The configuration is part of the index expression and cannot be a bind parameter, so it is checked before it
+	 * is written into the SQL.
+	 */
+	private String config() {
+		String config = queryProperties.getTextSearchConfig();
+		if (config == null || !config.matches("[a-z_]+")) {
+			throw new IllegalStateException("Invalid query.text-search-config: " + config);
+		}
+		return config;
+	}
+
+	private Document toDocument(ResultSet rows) throws SQLException {
+		double rank = rows.getDouble("rank");
+		Map<String, Object> metadata = new HashMap<>(readMetadata(rows.getString("metadata")));
+		metadata.put("score", rank);
+		return Document.builder()
+			.id(rows.getString("id"))
+			.text(rows.getString("content"))
+			.metadata(metadata)
+			.score(rank)
+			.build();
+	}
+
+	private Map<String, Object> readMetadata(String json) {
+		if (json == null) {
+			return Map.of();
+		}
+		try {
+			return objectMapper.readValue(json, METADATA_TYPE);
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to read vector store metadata", ex);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+
+/**
+ * Metadata fields of the vector store table kept in typed columns next to the JSON metadata, so filters on them are
+ * plain column predicates served by btree and GIN indexes. The JSON metadata keeps every field, since search results
+ * are built from it.
+ */
+final class MetadataColumns {
+
+	static final String NAMES = "document_id, chunk_index, source, title, tags";
+
+	static final String ADD_COLUMNS_SQL = "ALTER TABLE " + JdbcEmbeddingRepository.VECTOR_TABLE
+			+ " ADD COLUMN IF NOT EXISTS document_id uuid, ADD COLUMN IF NOT EXISTS chunk_index integer,"
+			+ " ADD COLUMN IF NOT EXISTS source text, ADD COLUMN IF NOT EXISTS title text,"
+			+ " ADD COLUMN IF NOT EXISTS tags text[]";
+
+	/**
+	 * Copies the metadata of rows written before the columns existed, one primary key range per statement; returns the
+	 * last id of the range, {@code null} past the end of the table.
+	 */
+	static final String BACKFILL_SQL = """
+			WITH batch AS (SELECT id FROM %1$s WHERE id > ? ORDER BY id LIMIT ?),
+			updated AS (
+				UPDATE %1$s v SET document_id = (v.metadata->>'documentId')::uuid,
+					chunk_index = (v.metadata->>'chunkIndex')::int,
+					source = v.metadata->>'source',
+					title = v.metadata->>'title',
+					tags = CASE WHEN jsonb_typeof(v.metadata::jsonb->'tags') = 'array'
+						THEN ARRAY(SELECT jsonb_array_elements_text(v.metadata::jsonb->'tags')) END
+				FROM batch WHERE v.id = batch.id AND v.document_id IS NULL
+					AND v.metadata->>'documentId' IS NOT NULL)
+			SELECT max(id::text) FROM batch""".formatted(JdbcEmbeddingRepository.VECTOR_TABLE);
+
+	private static final Map<String, Column> COLUMNS = Map.of("documentId",
+			new Column("document_id", value -> UUID.fromString(value.toString())), "chunkIndex",
+			new Column("chunk_index", MetadataColumns::toInteger), "source", new Column("source", Object::toString),
+			"title", new Column("title", Object::toString), "tags", new Column("tags", Object::toString));
+
+	private MetadataColumns() {
+	}
+
+	/**
+	 * Column values of an embedding's metadata, in the order of {@link #NAMES}; the tags as a list.
+	 */
+	static Object[] values(Map<String, Object> metadata) {
+		Object documentId = metadata.get("documentId");
+		Object chunkIndex = metadata.get("chunkIndex");
+		Object source = metadata.get("source");
+		Object title = metadata.get("title");
+		return new Object[] { documentId != null ? UUID.fromString(documentId.toString()) : null,
+				chunkIndex != null ? toInteger(chunkIndex) : null, source != null ? source.toString() : null,
+				title != null ? title.toString() : null, toStrings(metadata.get("tags")) };
+	}
+
+	/**
+	 * SQL predicate equivalent to {@code expression} with its bind values. Fields kept in columns become column
+	 * predicates, the tags a containment test on the array; anything else is evaluated as a JSON path on the metadata,
+	 * as the vector store does.
+	 */
+	static Predicate toPredicate(Filter.Expression expression, FilterExpressionConverter jsonPath) {
+		List<Object> args = new ArrayList<>();
+		String sql = predicate(expression, jsonPath, args);
+		return new Predicate(sql, args);
+	}
+
+	/**
+	 * PostgreSQL array literal of {@code values}, every element quoted, for a {@code ?::text[]} parameter.
+	 */
+	static String toArrayLiteral(Collection<?> values) {
+		StringBuilder literal = new StringBuilder("{");
+		for (Object value : values) {
+			if (literal.length() > 1) {
+				literal.append(',');
+			}
+			literal.append('"');
+			String text = value.toString();
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '"' || c == '\\') {
+					literal.append('\\');
+				}
+				literal.append(c);
+			}
+			literal.append('"');
+		}
+		return literal.append('}').toString();
+	}
+
+	private static String predicate(Filter.Operand operand, FilterExpressionConverter jsonPath, List<Object> args) {
+		if (operand instanceof Filter.Group group) {
+			return "(" + predicate(group.content(), jsonPath, args) + ")";
+		}
+		Filter.Expression expression = (Filter.Expression) operand;
+		switch (expression.type()) {
+			case AND, OR -> {
+				return "(" + predicate(expression.left(), jsonPath, args) + " " + expression.type() + " "
+						+ predicate(expression.right(), jsonPath, args) + ")";
+			}
+			case NOT -> {
+				return "NOT (" + predicate(expression.left(), jsonPath, args) + ")";
+			}
+			default -> {
+				String columnPredicate = columnPredicate(expression, args);
+				if (columnPredicate != null) {
+					return columnPredicate;
+				}
+				args.add(jsonPath.convertExpression(expression));
+				return "metadata::jsonb @@ ?::jsonpath";
+			}
+		}
+	}
+
+	/**
+	 * Predicate on a column for a comparison, or {@code null} when the field has no column or the operator does not
+	 * apply to it.
+	 */
+	private static String columnPredicate(Filter.Expression expression, List<Object> args) {
+		if (!(expression.left() instanceof Filter.Key key) || !COLUMNS.containsKey(unquote(key.key()))) {
+			return null;
+		}
+		Column column = COLUMNS.get(unquote(key.key()));
+		Object value = expression.right() instanceof Filter.Value operand ? operand.value() : null;
+		boolean tags = column.name().equals("tags");
+		switch (expression.type()) {
+			case ISNULL -> {
+				return column.name() + " IS NULL";
+			}
+			case ISNOTNULL -> {
+				return column.name() + " IS NOT NULL";
+			}
+			case EQ, NE -> {
+				if (value == null) {
+					return null;
+				}
+				String predicate;
+				if (tags) {
+					args.add(toArrayLiteral(List.of(value)));
+					predicate = "tags @> ?::text[]";
+				}
+				else {
+					args.add(column.converter().apply(value));
+					predicate = column.name() + " = ?";
+				}
+				return expression.type() == Filter.ExpressionType.EQ ? predicate : "NOT (" + predicate + ")";
+			}
+			case IN, NIN -> {
+				if (!(value instanceof Collection<?> values)) {
+					return null;
+				}
+				String predicate;
+				if (tags) {
+					args.add(toArrayLiteral(values));
+					predicate = "tags && ?::text[]";
+				}
+				else if (values.isEmpty()) {
+					predicate = "false";
+				}
+				else {
+					List<String> placeholders = new ArrayList<>(values.size());
+					for (Object element : values) {
+						args.add(column.converter().apply(element));
+						placeholders.add("?");
+					}
+					predicate = column.name() + " IN (" + String.join(", ", placeholders) + ")";
+				}
+				return expression.type() == Filter.ExpressionType.IN ? predicate : "NOT (" + predicate + ")";
+			}
+			case GT, GTE, LT, LTE -> {
+				if (tags || value == null) {
+					return null;
+				}
+				args.add(column.converter().apply(value));
+				return column.name() + " " + switch (expression.type()) {
+					case GT -> ">";
+					case GTE -> ">=";
+					case LT -> "<";
+					default -> "<=";
+				} + " ?";
+			}
+			default -> {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Filter key without the quotes the text filter syntax allows around it.
+	 */
+	static String unquote(String key) {
+		boolean quoted = key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\"");
+		if (key.length() > 1 && quoted) {
+			return key.substring(1, key.length() - 1);
+		}
+		return key;
+	}
+
+	private static Integer toInteger(Object value) {
+		return value instanceof Number number ? number.intValue() : Integer.valueOf(value.toString());
+	}
+
+	private static List<String> toStrings(Object value) {
+		if (!(value instanceof Collection<?> values)) {
+			return null;
+		}
+		return values.stream().map(String::valueOf).toList();
+	}
+
+	/**
+	 * SQL fragment and the values of its placeholders, in order.
+	 */
+	record Predicate(String sql, List<Object> args) {
+	}
+
+	private record Column(String name, Function<Object, Object> converter) {
+	}
+}
@@ -0,0 +1,110 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * Evaluates a filter expression against metadata held in memory, with the semantics of the SQL the vector store runs:
+ * a list-valued field such as the tags matches when any element does, and a missing field matches nothing but
+ * {@code ISNULL}.
+ */
+final class MetadataFilter implements Predicate<Map<String, Object>> {
+
+	private final Filter.Operand expression;
+
+	private MetadataFilter(Filter.Operand expression) {
+		this.expression = expression;
+	}
+
+	static MetadataFilter of(Filter.Expression expression) {
+		return new MetadataFilter(expression);
+	}
+
+	@Override
+	public boolean test(Map<String, Object> metadata) {
+		return matches(expression, metadata);
+	}
+
+	private static boolean matches(Filter.Operand operand, Map<String, Object> metadata) {
+		if (operand instanceof Filter.Group group) {
+			return matches(group.content(), metadata);
+		}
+		Filter.Expression expression = (Filter.Expression) operand;
+		switch (expression.type()) {
+			case AND -> {
+				return matches(expression.left(), metadata) && matches(expression.right(), metadata);
+			}
+			case OR -> {
+				return matches(expression.left(), metadata) || matches(expression.right(), metadata);
+			}
+			case NOT -> {
+				return !matches(expression.left(), metadata);
+			}
+			default -> {
+				if (!(expression.left() instanceof Filter.Key key)) {
+					throw new IllegalArgumentException("Unsupported filter expression: " + expression);
+				}
+				Object actual = metadata.get(MetadataColumns.unquote(key.key()));
+				Object expected = expression.right() instanceof Filter.Value value ? value.value() : null;
+				return compare(expression.type(), actual, expected);
+			}
+		}
+	}
+
+	private static boolean compare(Filter.ExpressionType type, Object actual, Object expected) {
+		switch (type) {
+			case ISNULL -> {
+				return actual == null;
+			}
+			case ISNOTNULL -> {
+				return actual != null;
+			}
+			default -> {
+				if (actual == null) {
+					return false;
+				}
+			}
+		}
+		return switch (type) {
+			case EQ -> anyEquals(actual, expected);
+			case NE -> !anyEquals(actual, expected);
+			case IN -> expected instanceof Collection<?> values
+					&& values.stream().anyMatch(value -> anyEquals(actual, value));
+			case NIN -> expected instanceof Collection<?> values
+					&& values.stream().noneMatch(value -> anyEquals(actual, value));
+			case GT -> anyCompares(actual, expected, c -> c > 0);
+			case GTE -> anyCompares(actual, expected, c -> c >= 0);
+			case LT -> anyCompares(actual, expected, c -> c < 0);
+			case LTE -> anyCompares(actual, expected, c -> c <= 0);
+			default -> throw new IllegalArgumentException("Unsupported filter operator: " + type);
+		};
+	}
+
+	private static boolean anyEquals(Object actual, Object expected) {
+		if (actual instanceof Collection<?> values) {
+			return values.stream().anyMatch(value -> anyEquals(value, expected));
+		}
+		if (actual instanceof Number a && expected instanceof Number b) {
+			return Double.compare(a.doubleValue(), b.doubleValue()) == 0;
+		}
+		return Objects.equals(String.valueOf(actual), String.valueOf(expected));
+	}
+
+	private static boolean anyCompares(Object actual, Object expected, IntPredicate accept) {
+		if (actual instanceof Collection<?> values) {
+			return values.stream().anyMatch(value -> anyCompares(value, expected, accept));
+		}
+		if (expected == null) {
+			return false;
+		}
+		if (actual instanceof Number a && expected instanceof Number b) {
+			return accept.test(Double.compare(a.doubleValue(), b.doubleValue()));
+		}
+		return accept.test(String.valueOf(actual).compareTo(String.valueOf(expected)));
+	}
+}
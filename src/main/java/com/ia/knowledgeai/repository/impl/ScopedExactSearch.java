@@ -0,0 +1,378 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.VectorStoreProperties;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+import com.pgvector.PGvector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exact search over the chunks of one document or one source, for scopes of at most
+ * {@code vector-store.exact-search.max-scope-rows} chunks, where an approximate index costs recall and saves little.
+ * <p>
+ * The scope comes from the filter: an equality on {@code documentId}, or else on {@code source}, alone or within a
+ * conjunction. Its size is counted once; a small scope is loaded into a single primitive array, normalized for cosine
+ * distance, and scanned with {@link VectorScoring}, while the rest of the filter is evaluated on the metadata in
+ * memory. Loaded scopes are kept up to {@code cache-rows} chunks, the least recently searched evicted first, together
+ * with the scopes found too large. Both are dropped when a committed change touches them, and a load that overlaps a
+ * change is used once but not kept.
+ */
+@Component
+public class ScopedExactSearch {
+
+	private static final String DOCUMENT = "document_id";
+
+	private static final String SOURCE = "source";
+
+	private static final String COUNT_SQL = "SELECT count(*) FROM (SELECT 1 FROM %s WHERE %s = ? AND "
+			+ JdbcEmbeddingRepository.READY_PREDICATE + " LIMIT ?) scope";
+
+	private static final String LOAD_SQL = "SELECT id, content, metadata, embedding FROM %s WHERE %s = ? AND "
+			+ JdbcEmbeddingRepository.READY_PREDICATE + " LIMIT ?";
+
+	private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final VectorStoreProperties properties;
+
+	private final Map<Scope, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private final Counter searches;
+
+	private long cachedRows;
+
+	public ScopedExactSearch(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, VectorStoreProperties properties,
+			MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+		this.hits = cacheCounter(meterRegistry, "hit");
+		this.misses = cacheCounter(meterRegistry, "miss");
+		this.searches = Counter.builder("vector.search.exact")
+			.description("Vector searches answered by an exact scan of a small scope")
+			.register(meterRegistry);
+		Gauge.builder("vector.search.exact.cache.rows", this, ScopedExactSearch::cachedRows)
+			.description("Chunks of the scopes held in memory for exact search")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * The {@code topK} closest rows of the request's scope matching its filter, closest first and with no threshold
+	 * applied; {@code null} when the request has no scope small enough, for the index to answer it.
+	 */
+	public List<Document> search(SearchRequest request, float[] query) {
+		int maxRows = properties.getExactSearch().getMaxScopeRows();
+		Filter.Expression filter = request.getFilterExpression();
+		Scope scope = maxRows > 0 && filter != null ? scopeOf(filter) : null;
+		if (scope == null) {
+			return null;
+		}
+		Entry entry = entry(scope, maxRows);
+		if (entry.vectors() == null || (entry.rows() > 0 && query.length != entry.dimensions())) {
+			return null;
+		}
+		searches.increment();
+		MetadataFilter residual = filter.type() == Filter.ExpressionType.EQ ? null : MetadataFilter.of(filter);
+		int k = Math.min(request.getTopK(), entry.rows());
+		if (k <= 0) {
+			return List.of();
+		}
+		boolean cosine = properties.getDistanceType() == PgVectorStore.PgDistanceType.COSINE_DISTANCE;
+		float[] prepared = cosine ? VectorScoring.normalize(query) : query;
+		int[] best = new int[k];
+		float[] bestDistances = new float[k];
+		int found = 0;
+		for (int row = 0; row < entry.rows(); row++) {
+			if (residual != null && !residual.test(entry.metadata().get(row))) {
+				continue;
+			}
+			float distance = distance(prepared, entry, row);
+			if (found == k && distance >= bestDistances[k - 1]) {
+				continue;
+			}
+			int position = found < k ? found++ : k - 1;
+			while (position > 0 && bestDistances[position - 1] > distance) {
+				best[position] = best[position - 1];
+				bestDistances[position] = bestDistances[position - 1];
+				position--;
+			}
+			best[position] = row;
+			bestDistances[position] = distance;
+		}
+		List<Document> documents = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			documents.add(toDocument(entry, best[i], bestDistances[i]));
+		}
+		return documents;
+	}
+
+	/**
+	 * Drops the scopes a committed change touches: those written to, and on deletes the scopes holding the deleted
+	 * rows or documents along with every scope cached as too large, since it may no longer be.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVectorStoreChanged(VectorStoreChangedEvent event) {
+		generation.incrementAndGet();
+		Set<Scope> touched = new HashSet<>();
+		for (Embedding embedding : event.written()) {
+			Scope documentScope = documentScope(embedding.getMetadata().get("documentId"));
+			if (documentScope != null) {
+				touched.add(documentScope);
+			}
+			Object source = embedding.getMetadata().get("source");
+			if (source != null) {
+				touched.add(new Scope(SOURCE, source.toString()));
+			}
+		}
+		Set<String> chunkIds = new HashSet<>();
+		event.deletedIds().forEach(id -> chunkIds.add(id.toString()));
+		event.reindexed().keySet().forEach(id -> chunkIds.add(id.toString()));
+		Set<String> documentIds = new HashSet<>();
+		for (UUID documentId : event.deletedDocumentIds()) {
+			documentIds.add(documentId.toString());
+			touched.add(new Scope(DOCUMENT, documentId));
+		}
+		event.readyDocuments().forEach((documentId, source) -> {
+			touched.add(new Scope(DOCUMENT, documentId));
+			if (source != null) {
+				touched.add(new Scope(SOURCE, source));
+			}
+		});
+		boolean deleted = !event.deletedIds().isEmpty() || !documentIds.isEmpty();
+		synchronized (entries) {
+			Iterator<Map.Entry<Scope, Entry>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Scope, Entry> cached = iterator.next();
+				Entry entry = cached.getValue();
+				boolean stale = touched.contains(cached.getKey()) || (entry.vectors() == null ? deleted
+						: entry.ids().stream().anyMatch(chunkIds::contains)
+								|| entry.documentIds().stream().anyMatch(documentIds::contains));
+				if (stale) {
+					cachedRows -= entry.weight();
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	public long cachedRows() {
+		synchronized (entries) {
+			return cachedRows;
+		}
+	}
+
+	/**
+	 * Scope of the filter, preferring a document to a source; {@code null} when the filter does not confine the
+	 * search to one of them.
+	 */
+	static Scope scopeOf(Filter.Operand operand) {
+		if (operand instanceof Filter.Group group) {
+			return scopeOf(group.content());
+		}
+		if (!(operand instanceof Filter.Expression expression)) {
+			return null;
+		}
+		if (expression.type() == Filter.ExpressionType.AND) {
+			Scope left = scopeOf(expression.left());
+			Scope right = scopeOf(expression.right());
+			if (left == null || right == null) {
+				return left != null ? left : right;
+			}
+			return right.column().equals(DOCUMENT) ? right : left;
+		}
+		if (expression.type() != Filter.ExpressionType.EQ || !(expression.left() instanceof Filter.Key key)
+				|| !(expression.right() instanceof Filter.Value value) || value.value() == null) {
+			return null;
+		}
+		return switch (MetadataColumns.unquote(key.key())) {
+			case "documentId" -> documentScope(value.value());
+			case "source" -> new Scope(SOURCE, value.value().toString());
+			default -> null;
+		};
+	}
+
+	private Entry entry(Scope scope, int maxRows) {
+		synchronized (entries) {
+			Entry entry = entries.get(scope);
+			if (entry != null) {
+				hits.increment();
+				return entry;
+			}
+		}
+		misses.increment();
+		long loadGeneration = generation.get();
+		Entry entry = load(scope, maxRows);
+		int cacheRows = properties.getExactSearch().getCacheRows();
+		synchronized (entries) {
+			if (generation.get() == loadGeneration && entry.weight() <= cacheRows) {
+				Entry replaced = entries.put(scope, entry);
+				cachedRows += entry.weight() - (replaced != null ? replaced.weight() : 0);
+				Iterator<Entry> eldest = entries.values().iterator();
+				while (cachedRows > cacheRows && eldest.hasNext()) {
+					cachedRows -= eldest.next().weight();
+					eldest.remove();
+				}
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Counts the scope, stopping past the limit, and reads it when small enough.
+	 */
+	private Entry load(Scope scope, int maxRows) {
+		Long count = jdbcTemplate.queryForObject(COUNT_SQL.formatted(JdbcEmbeddingRepository.VECTOR_TABLE,
+				scope.column()), Long.class, scope.value(), maxRows + 1);
+		if (count == null || count > maxRows) {
+			return Entry.TOO_LARGE;
+		}
+		List<String> ids = new ArrayList<>();
+		List<String> contents = new ArrayList<>();
+		List<Map<String, Object>> metadata = new ArrayList<>();
+		List<float[]> vectors = new ArrayList<>();
+		boolean cosine = properties.getDistanceType() == PgVectorStore.PgDistanceType.COSINE_DISTANCE;
+		jdbcTemplate.query(LOAD_SQL.formatted(JdbcEmbeddingRepository.VECTOR_TABLE, scope.column()), rows -> {
+			ids.add(rows.getString("id"));
+			contents.add(rows.getString("content"));
+			metadata.add(readMetadata(rows.getString("metadata")));
+			float[] vector = new PGvector(rows.getString("embedding")).toArray();
+			vectors.add(cosine ? VectorScoring.normalize(vector) : vector);
+		}, scope.value(), maxRows + 1);
+		if (ids.size() > maxRows) {
+			return Entry.TOO_LARGE;
+		}
+		int dimensions = vectors.isEmpty() ? 0 : vectors.get(0).length;
+		float[] packed = new float[vectors.size() * dimensions];
+		for (int row = 0; row < vectors.size(); row++) {
+			if (vectors.get(row).length != dimensions) {
+				throw new IllegalStateException("Vectors of different dimensions in " + scope);
+			}
+			System.arraycopy(vectors.get(row), 0, packed, row * dimensions, dimensions);
+		}
+		Set<String> documentIds = new HashSet<>();
+		for (Map<String, Object> rowMetadata : metadata) {
+			Object documentId = rowMetadata.get("documentId");
+			if (documentId != null) {
+				documentIds.add(documentId.toString());
+			}
+		}
+		return new Entry(List.copyOf(ids), contents, metadata, packed, dimensions, Set.copyOf(documentIds));
+	}
+
+	/**
+	 * Distance as {@link TunedPgVectorStore} reports it.
+	 */
+	private float distance(float[] query, Entry entry, int row) {
+		int offset = row * entry.dimensions();
+		return switch (properties.getDistanceType()) {
+			case COSINE_DISTANCE, NEGATIVE_INNER_PRODUCT ->
+				1 - VectorScoring.dot(query, 0, entry.vectors(), offset, entry.dimensions());
+			case EUCLIDEAN_DISTANCE ->
+				(float) Math.sqrt(VectorScoring.squaredDistance(query, 0, entry.vectors(), offset, entry.dimensions()));
+		};
+	}
+
+	private static Document toDocument(Entry entry, int row, float distance) {
+		Map<String, Object> metadata = new HashMap<>(entry.metadata().get(row));
+		metadata.put(DocumentMetadata.DISTANCE.value(), distance);
+		return Document.builder()
+			.id(entry.ids().get(row))
+			.text(entry.contents().get(row))
+			.metadata(metadata)
+			.score(1.0 - distance)
+			.build();
+	}
+
+	private Map<String, Object> readMetadata(String json) {
+		if (json == null) {
+			return Map.of();
+		}
+		try {
+			return objectMapper.readValue(json, METADATA_TYPE);
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to read vector store metadata", ex);
+		}
+	}
+
+	private static Scope documentScope(Object documentId) {
+		if (documentId == null) {
+			return null;
+		}
+		try {
+			return new Scope(DOCUMENT, UUID.fromString(documentId.toString()));
+		}
+		catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("vector.search.exact.cache")
+			.description("Scope lookups of the exact search by outcome")
+			.tag("result", result)
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Typed metadata column and the value the search is confined to.
+	 */
+	record Scope(String column, Object value) {
+	}
+
+	/**
+	 * Rows of a scope, their vectors packed one after another; no vectors for a scope too large to load.
+	 */
+	private record Entry(List<String> ids, List<String> contents, List<Map<String, Object>> metadata, float[] vectors,
+			int dimensions, Set<String> documentIds) {
+
+		private static final Entry TOO_LARGE = new Entry(List.of(), List.of(), List.of(), null, 0, Set.of());
+
+		int rows() {
+			return ids.size();
+		}
+
+		/**
+		 * Cache footprint in rows; a scope too large counts as one.
+		 */
+		int weight() {
+			return Math.max(rows(), 1);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.ia.knowledgeai.repository.impl;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorScoring} on the Java Vector API, with the widest vector shape the CPU supports. Only loaded when the
+ * {@code jdk.incubator.vector} module is present.
+ */
+final class SimdVectorScoring {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private SimdVectorScoring() {
+	}
+
+	static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		FloatVector sum = FloatVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector x = FloatVector.fromArray(SPECIES, a, aOffset + i);
+			FloatVector y = FloatVector.fromArray(SPECIES, b, bOffset + i);
+			sum = x.fma(y, sum);
+		}
+		float result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			result += a[aOffset + i] * b[bOffset + i];
+		}
+		return result;
+	}
+
+	static float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		FloatVector sum = FloatVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector difference = FloatVector.fromArray(SPECIES, a, aOffset + i)
+				.sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+			sum = difference.fma(difference, sum);
+		}
+		float result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			float difference = a[aOffset + i] - b[bOffset + i];
+			result += difference * difference;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,359 @@
+package com.ia.knowledgeai.repository.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.VectorStoreProperties;
+import com.ia.knowledgeai.repository.SearchEffortRequest;
+import com.pgvector.PGvector;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link PgVectorStore} searching through the approximate index configured under {@code vector-store}.
+ * <p>
+ * The index is built at startup with its type, distance and build parameters, optionally over a quantized copy of the
+ * embeddings. The copy is an expression index ({@code embedding::halfvec(n)} or
+ * {@code binary_quantize(embedding)::bit(n)}), so the table keeps a single column; the closest
+ * {@code rescoreFactor * topK} candidates by the quantized distance are re-scored with the full-precision vectors,
+ * which decide the final order and the similarity threshold.
+ * <p>
+ * A search effort, from the request or the default, sets {@code hnsw.ef_search} or {@code ivfflat.probes} with
+ * {@code SET LOCAL} semantics in a read-only transaction around the search query, after the query is embedded. HNSW
+ * searches are always given an {@code ef_search} of at least the number of rows they fetch.
+ * <p>
+ * Filters are evaluated in the same query, after the index scan, on the typed metadata columns where the filtered
+ * fields have one (see {@link MetadataColumns}) and on the JSON metadata otherwise. A selective filter can leave fewer
+ * than {@code topK} rows among the candidates the index returns, so filtered searches that come back short are
+ * repeated with twice the search effort, and twice the candidates when quantized, until they return {@code topK} rows,
+ * the effort reaches its limit or {@code filtered-search-budget} runs out. The similarity threshold is applied to the
+ * rows returned, so it never triggers a wider search. The candidates asked of the index over all rounds are recorded
+ * in {@code vector.search.candidates}. Rows of documents that are still being ingested are always left out.
+ * <p>
+ * Searches confined to one document, or to a source of few chunks, skip the index: {@link ScopedExactSearch} scans
+ * them exactly in memory.
+ * <p>
+ * The query text is embedded through {@code queryEmbedder}, which may answer from a cache instead of the model.
+ */
+public class TunedPgVectorStore extends PgVectorStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TunedPgVectorStore.class);
+
+	private static final String INDEX_PREFIX = "idx_vector_store_embedding_";
+
+	/**
+	 * {@code hnsw.ef_search} of a server left at its defaults.
+	 */
+	private static final int DEFAULT_EF_SEARCH = 40;
+
+	private static final int MAX_EF_SEARCH = 1000;
+
+	private static final String SEARCH_SQL = """
+			SELECT id, content, metadata, %s AS distance FROM %s%s
+			ORDER BY distance
+			LIMIT ?""";
+
+	private static final String RESCORE_SQL = """
+			SELECT id, content, metadata, distance FROM (
+				SELECT id, content, metadata, %s AS distance
+				FROM (SELECT id, content, metadata, embedding FROM %s%s ORDER BY %s LIMIT ?) candidates
+			) rescored
+			ORDER BY distance
+			LIMIT ?""";
+
+	private static final String SET_LOCAL_SQL = "SELECT set_config(?, ?, true)";
+
+	private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate searchTransaction;
+
+	private final ObjectMapper objectMapper;
+
+	private final VectorStoreProperties properties;
+
+	private final Function<String, float[]> queryEmbedder;
+
+	private final MeterRegistry meterRegistry;
+
+	private final ScopedExactSearch exactSearch;
+
+	private volatile int dimensions;
+
+	public TunedPgVectorStore(PgVectorStoreBuilder builder, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, ObjectMapper objectMapper, VectorStoreProperties properties,
+			Function<String, float[]> queryEmbedder, MeterRegistry meterRegistry, ScopedExactSearch exactSearch) {
+		super(builder);
+		this.jdbcTemplate = jdbcTemplate;
+		this.searchTransaction = new TransactionTemplate(transactionManager);
+		this.searchTransaction.setReadOnly(true);
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+		this.queryEmbedder = queryEmbedder;
+		this.meterRegistry = meterRegistry;
+		this.exactSearch = exactSearch;
+		this.dimensions = properties.getDimensions();
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+		float[] embedding = queryEmbedder.apply(request.getQuery());
+		List<Document> rows = exactSearch.search(request, embedding);
+		if (rows == null) {
+			rows = indexSearch(request, new PGvector(embedding));
+		}
+		return rows.stream().filter(document -> document.getScore() > request.getSimilarityThreshold()).toList();
+	}
+
+	private List<Document> indexSearch(SearchRequest request, PGvector query) {
+		MetadataColumns.Predicate predicate = request.getFilterExpression() != null
+				? MetadataColumns.toPredicate(request.getFilterExpression(), filterExpressionConverter) : null;
+		String where = " WHERE " + JdbcEmbeddingRepository.READY_PREDICATE
+				+ (predicate != null ? " AND " + predicate.sql() : "");
+		List<Object> filterArgs = predicate != null ? predicate.args() : List.of();
+		int topK = request.getTopK();
+		RowMapper<Document> mapper = (rows, rowNum) -> toDocument(rows);
+		boolean quantized = properties.getQuantization() != VectorStoreProperties.Quantization.NONE;
+		String sql = quantized
+				? RESCORE_SQL.formatted(distance(), JdbcEmbeddingRepository.VECTOR_TABLE, where, quantizedDistance())
+				: SEARCH_SQL.formatted(distance(), JdbcEmbeddingRepository.VECTOR_TABLE, where);
+		int candidates = quantized ? topK * Math.max(1, properties.getRescoreFactor()) : topK;
+		int effort = initialEffort(request, candidates);
+		boolean widen = predicate != null && properties.getIndexType() != PgIndexType.NONE;
+		long deadline = System.nanoTime() + properties.getFilteredSearchBudget().toNanos();
+		long scanned = 0;
+		int rounds = 0;
+		List<Document> rows;
+		while (true) {
+			int limit = candidates;
+			Object[] args = quantized ? args(query, filterArgs, query, limit, topK) : args(query, filterArgs, topK);
+			rows = search(effort, () -> jdbcTemplate.query(sql, mapper, args));
+			scanned += scanned(effort, limit);
+			rounds++;
+			int widerEffort = widerEffort(effort);
+			if (!widen || rows.size() >= topK || widerEffort == effort || System.nanoTime() - deadline >= 0) {
+				break;
+			}
+			effort = widerEffort;
+			candidates = quantized ? candidates * 2 : topK;
+		}
+		recordSearch(predicate != null, scanned, rounds);
+		LOGGER.debug("Vector search returned {} of {} rows, {} candidates in {} rounds", rows.size(), topK, scanned,
+				rounds);
+		return rows;
+	}
+
+	/**
+	 * Creates the approximate index. Like the other indexes on the vector store table it is built concurrently once
+	 * the application is up.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void createEmbeddingIndex() {
+		if (properties.getIndexType() == PgIndexType.NONE) {
+			return;
+		}
+		String name = indexName();
+		try {
+			jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON "
+					+ JdbcEmbeddingRepository.VECTOR_TABLE + " USING " + properties.getIndexType().name().toLowerCase()
+					+ " (" + indexedColumn() + ") WITH (" + indexParameters() + ")");
+		}
+		catch (DataAccessException | IllegalStateException ex) {
+			LOGGER.warn("Unable to create index {} on {}, searches will scan the table: {}", name,
+					JdbcEmbeddingRepository.VECTOR_TABLE, ex.getMessage());
+		}
+	}
+
+	private List<Document> search(int effort, Supplier<List<Document>> query) {
+		String setting = switch (properties.getIndexType()) {
+			case HNSW -> "hnsw.ef_search";
+			case IVFFLAT -> "ivfflat.probes";
+			case NONE -> null;
+		};
+		if (setting == null || effort <= 0) {
+			return query.get();
+		}
+		String value = String.valueOf(effort);
+		return searchTransaction.execute(status -> {
+			jdbcTemplate.queryForObject(SET_LOCAL_SQL, String.class, setting, value);
+			return query.get();
+		});
+	}
+
+	/**
+	 * Query parameters: the query vector, the filter's values, then {@code rest}.
+	 */
+	private static Object[] args(PGvector query, List<Object> filterArgs, Object... rest) {
+		List<Object> args = new ArrayList<>(1 + filterArgs.size() + rest.length);
+		args.add(query);
+		args.addAll(filterArgs);
+		args.addAll(Arrays.asList(rest));
+		return args.toArray();
+	}
+
+	/**
+	 * Effort of the first round; {@code 0} keeps the server setting.
+	 */
+	private int initialEffort(SearchRequest request, int limit) {
+		int effort = searchEffort(request);
+		if (properties.getIndexType() == PgIndexType.HNSW && (effort > 0 || limit > DEFAULT_EF_SEARCH)) {
+			effort = Math.min(Math.max(effort, limit), MAX_EF_SEARCH);
+		}
+		return effort;
+	}
+
+	/**
+	 * Twice the effort, counting from the server default when none was set, within the configured maximum; the same
+	 * effort when it cannot grow.
+	 */
+	private int widerEffort(int effort) {
+		int current = effort > 0 ? effort : properties.getIndexType() == PgIndexType.HNSW ? DEFAULT_EF_SEARCH : 1;
+		int limit = properties.getIndexType() == PgIndexType.HNSW ? MAX_EF_SEARCH : properties.getIvfflatLists();
+		int wider = Math.min(current * 2, Math.min(limit, properties.getMaxSearchEffort()));
+		return wider > current ? wider : effort;
+	}
+
+	/**
+	 * Candidates the index was asked for: {@code ef_search} for HNSW, the candidate limit otherwise.
+	 */
+	private int scanned(int effort, int limit) {
+		if (properties.getIndexType() == PgIndexType.HNSW) {
+			return Math.max(effort > 0 ? effort : DEFAULT_EF_SEARCH, limit);
+		}
+		return limit;
+	}
+
+	private void recordSearch(boolean filtered, long scanned, int rounds) {
+		String tag = String.valueOf(filtered);
+		DistributionSummary.builder("vector.search.candidates")
+			.description("Candidates asked of the vector index per search")
+			.tag("filtered", tag)
+			.register(meterRegistry)
+			.record(scanned);
+		DistributionSummary.builder("vector.search.rounds")
+			.description("Index searches per vector search, more than one when a filtered search was widened")
+			.tag("filtered", tag)
+			.register(meterRegistry)
+			.record(rounds);
+	}
+
+	private int searchEffort(SearchRequest request) {
+		if (request instanceof SearchEffortRequest effortRequest && effortRequest.getSearchEffort() != null) {
+			return Math.min(effortRequest.getSearchEffort(), properties.getMaxSearchEffort());
+		}
+		return properties.getSearchEffort();
+	}
+
+	private String indexName() {
+		String type = properties.getIndexType().name().toLowerCase();
+		return properties.getQuantization() == VectorStoreProperties.Quantization.NONE ? INDEX_PREFIX + type
+				: INDEX_PREFIX + properties.getQuantization().name().toLowerCase() + "_" + type;
+	}
+
+	private String indexedColumn() {
+		return switch (properties.getQuantization()) {
+			case NONE -> "embedding " + getDistanceType().index;
+			case HALFVEC -> "(embedding::halfvec(" + dimensions() + ")) " + halfvecOperatorClass();
+			case BINARY -> "(binary_quantize(embedding)::bit(" + dimensions() + ")) bit_hamming_ops";
+		};
+	}
+
+	private String indexParameters() {
+		if (properties.getIndexType() == PgIndexType.IVFFLAT) {
+			return "lists = " + properties.getIvfflatLists();
+		}
+		return "m = " + properties.getHnswM() + ", ef_construction = " + properties.getHnswEfConstruction();
+	}
+
+	/**
+	 * Full-precision distance, in the same form {@link PgVectorStore} reports it.
+	 */
+	private String distance() {
+		return switch (getDistanceType()) {
+			case EUCLIDEAN_DISTANCE -> "embedding <-> ?";
+			case NEGATIVE_INNER_PRODUCT -> "(1 + (embedding <#> ?))";
+			case COSINE_DISTANCE -> "embedding <=> ?";
+		};
+	}
+
+	/**
+	 * Distance over the quantized copy; written exactly as the index expression so the planner uses the index.
+	 */
+	private String quantizedDistance() {
+		int n = dimensions();
+		if (properties.getQuantization() == VectorStoreProperties.Quantization.BINARY) {
+			return "binary_quantize(embedding)::bit(" + n + ") <~> binary_quantize(?::vector)";
+		}
+		return "embedding::halfvec(" + n + ") " + getDistanceType().operator + " ?::halfvec(" + n + ")";
+	}
+
+	private String halfvecOperatorClass() {
+		return switch (getDistanceType()) {
+			case EUCLIDEAN_DISTANCE -> "halfvec_l2_ops";
+			case NEGATIVE_INNER_PRODUCT -> "halfvec_ip_ops";
+			case COSINE_DISTANCE -> "halfvec_cosine_ops";
+		};
+	}
+
+	private int dimensions() {
+		if (dimensions <= 0) {
+			dimensions = embeddingModel.dimensions();
+			if (dimensions <= 0) {
+				throw new IllegalStateException(
+						"Unable to resolve the embedding dimensions, set vector-store.dimensions");
+			}
+		}
+		return dimensions;
+	}
+
+	private Document toDocument(ResultSet rows) throws SQLException {
+		float distance = rows.getFloat("distance");
+		Map<String, Object> metadata = new HashMap<>(readMetadata(rows.getString("metadata")));
+		metadata.put(DocumentMetadata.DISTANCE.value(), distance);
+		return Document.builder()
+			.id(rows.getString("id"))
+			.text(rows.getString("content"))
+			.metadata(metadata)
+			.score(1.0 - distance)
+			.build();
+	}
+
+	private Map<String, Object> readMetadata(String json) {
+		if (json == null) {
+			return Map.of();
+		}
+		try {
+			return objectMapper.readValue(json, METADATA_TYPE);
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to read vector store metadata", ex);
+		}
+	}
+}
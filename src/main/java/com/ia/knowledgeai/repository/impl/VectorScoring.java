@@ -0,0 +1,55 @@
+package com.ia.knowledgeai.repository.impl;
+
+/**
+ * Dot products and squared Euclidean distances over slices of flat float arrays. They run on the Java Vector API when
+ * the JVM was started with {@code --add-modules jdk.incubator.vector}, and as plain loops otherwise.
+ */
+final class VectorScoring {
+
+	static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private VectorScoring() {
+	}
+
+	static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		return SIMD ? SimdVectorScoring.dot(a, aOffset, b, bOffset, length)
+				: scalarDot(a, aOffset, b, bOffset, length);
+	}
+
+	static float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		return SIMD ? SimdVectorScoring.squaredDistance(a, aOffset, b, bOffset, length)
+				: scalarSquaredDistance(a, aOffset, b, bOffset, length);
+	}
+
+	/**
+	 * {@code vector} scaled to unit length; a zero vector is returned as is.
+	 */
+	static float[] normalize(float[] vector) {
+		float norm = (float) Math.sqrt(dot(vector, 0, vector, 0, vector.length));
+		if (norm == 0) {
+			return vector;
+		}
+		float[] normalized = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] / norm;
+		}
+		return normalized;
+	}
+
+	static float scalarDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		float sum = 0;
+		for (int i = 0; i < length; i++) {
+			sum += a[aOffset + i] * b[bOffset + i];
+		}
+		return sum;
+	}
+
+	static float scalarSquaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		float sum = 0;
+		for (int i = 0; i < length; i++) {
+			float difference = a[aOffset + i] - b[bOffset + i];
+			sum += difference * difference;
+		}
+		return sum;
+	}
+}
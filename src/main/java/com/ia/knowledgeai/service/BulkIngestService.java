@@ -0,0 +1,15 @@
+package com.ia.knowledgeai.service;
+
+import java.util.function.Consumer;
+
+import com.ia.knowledgeai.dto.request.BulkIngestRequest;
+import com.ia.knowledgeai.dto.response.BulkIngestItemResponse;
+
+public interface BulkIngestService {
+
+	/**
+	 * Ingests every file and archive entry of the request, reporting each outcome to {@code results} on the calling
+	 * thread in completion order. Returns once all items are done.
+	 */
+	void ingest(BulkIngestRequest bulkIngestRequest, Consumer<BulkIngestItemResponse> results);
+}
@@ -1,4 +1,42 @@
 package com.ia.knowledgeai.service;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.ia.knowledgeai.dto.request.DocumentFilterRequest;
+import com.ia.knowledgeai.dto.response.DocumentPageResponse;
+import com.ia.knowledgeai.dto.response.DocumentResponse;
+
 public interface DocumentService {
+
+	DocumentPageResponse list(DocumentFilterRequest filter, int page, int size);
+
+	Optional<DocumentResponse> find(UUID documentId);
+
+	/**
+	 * Marks an ingested document ready, which makes its chunks searchable once the transaction commits.
+	 */
+	void markReady(UUID documentId);
+
+	/**
+	 * Removes a document together with its chunks and vectors in one transaction. Near duplicates of its chunks in
+	 * other documents are embedded again after it commits.
+	 *
+	 * @return {@code false} when the document did not exist
+	 */
+	boolean delete(UUID documentId);
+
+	/**
+	 * Same as {@link #delete(UUID)}, reporting how long each of its transactions held a connection.
+	 */
+	boolean delete(UUID documentId, Consumer<Duration> holdListener);
+
+	/**
+	 * Removes every document matching the filter, in batches that each commit on their own.
+	 *
+	 * @return the number of documents deleted
+	 */
+	int deleteMatching(DocumentFilterRequest filter);
 }
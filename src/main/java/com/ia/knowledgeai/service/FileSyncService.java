@@ -0,0 +1,25 @@
+package com.ia.knowledgeai.service;
+
+import java.nio.file.Path;
+
+/**
+ * Keeps documents in sync with files on disk, using a persisted manifest to touch only what changed.
+ */
+public interface FileSyncService {
+
+	enum Outcome {
+		ADDED, UPDATED, REMOVED, UNCHANGED, SKIPPED, FAILED
+	}
+
+	/**
+	 * Ingests a new file, re-ingests a changed one, or removes the documents of a path that no longer exists (for a
+	 * deleted directory, every file below it).
+	 */
+	Outcome sync(Path path);
+
+	/**
+	 * Syncs every file below {@code root} and removes manifest entries whose files are gone. Unchanged files are
+	 * recognised from their size and modification time alone and are not read.
+	 */
+	void reconcile(Path root);
+}
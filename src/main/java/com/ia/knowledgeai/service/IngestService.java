@@ -1,9 +1,26 @@
 package com.ia.knowledgeai.service;
 
+import java.util.Optional;
+import java.util.UUID;
+
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.dto.request.DocumentUpdateRequest;
 import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.DocumentUpdateResponse;
 import com.ia.knowledgeai.dto.response.IngestResponse;
 
 public interface IngestService {
 
 	IngestResponse ingest(IngestRequest ingestRequest);
+
+	IngestJob submit(IngestRequest ingestRequest);
+
+	Optional<IngestJob> findJob(UUID jobId);
+
+	/**
+	 * Replaces the content of an existing document, embedding only the chunks whose text is new.
+	 *
+	 * @return empty when the document does not exist
+	 */
+	Optional<DocumentUpdateResponse> update(UUID documentId, DocumentUpdateRequest updateRequest);
 }
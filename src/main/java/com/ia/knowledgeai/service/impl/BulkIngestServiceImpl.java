@@ -0,0 +1,244 @@
+package com.ia.knowledgeai.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.dto.request.BulkIngestRequest;
+import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.BulkIngestItemResponse;
+import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.service.BulkIngestService;
+import com.ia.knowledgeai.service.IngestService;
+import com.ia.knowledgeai.service.support.SpooledUpload;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fans a bulk upload out to {@link IngestService#ingest} on a bounded worker pool, so every file goes through the
+ * same validation, parsing and chunking as a single upload. ZIP archives are read entry by entry and each entry is
+ * spooled to a temporary file only when a worker slot is about to take it.
+ */
+@Service
+public class BulkIngestServiceImpl implements BulkIngestService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BulkIngestServiceImpl.class);
+	private static final Set<String> ZIP_CONTENT_TYPES = Set.of("application/zip", "application/x-zip-compressed");
+	private static final String STATUS_FAILED = "FAILED";
+	private static final int MAX_TITLE_LENGTH = 255;
+
+	private final IngestService ingestService;
+	private final IngestProperties ingestProperties;
+	private final ExecutorService executor;
+
+	public BulkIngestServiceImpl(IngestService ingestService, IngestProperties ingestProperties) {
+		this.ingestService = ingestService;
+		this.ingestProperties = ingestProperties;
+		this.executor = Executors.newFixedThreadPool(Math.max(1, ingestProperties.getBulk().getWorkers()),
+				Thread.ofPlatform().name("ingest-bulk-", 0).daemon().factory());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Override
+	public void ingest(BulkIngestRequest bulkIngestRequest, Consumer<BulkIngestItemResponse> results) {
+		if (bulkIngestRequest == null || bulkIngestRequest.getFiles().isEmpty()) {
+			throw new IllegalArgumentException("At least one file must be provided for bulk ingestion");
+		}
+		BulkRun run = new BulkRun(bulkIngestRequest, results);
+		for (MultipartFile file : bulkIngestRequest.getFiles()) {
+			if (isArchive(file)) {
+				submitEntries(file, run);
+			}
+			else {
+				run.submit(file, null);
+			}
+		}
+		run.awaitAll();
+	}
+
+	private void submitEntries(MultipartFile archive, BulkRun run) {
+		int maxEntries = ingestProperties.getBulk().getMaxArchiveEntries();
+		int entries = 0;
+		try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (entry.isDirectory() || isHidden(entry.getName())) {
+					continue;
+				}
+				if (++entries > maxEntries) {
+					run.report(failed(archive.getOriginalFilename(),
+							"Archive exceeds maximum of " + maxEntries + " entries; remaining entries skipped"));
+					return;
+				}
+				String filename = fileName(entry.getName());
+				Path spooled = spool(zip);
+				String contentType = MediaTypeFactory.getMediaType(filename).map(MediaType::toString).orElse(null);
+				run.submit(new SpooledUpload("file", filename, contentType, spooled), spooled);
+			}
+		}
+		catch (IOException ex) {
+			run.report(failed(archive.getOriginalFilename(), "Unable to read archive: " + ex.getMessage()));
+		}
+	}
+
+	/**
+	 * Copies at most one byte more than the size limit, which is enough for validation to reject oversized entries
+	 * without writing a decompression bomb to disk.
+	 */
+	private Path spool(InputStream entry) throws IOException {
+		Path target = Files.createTempFile("ingest-bulk-", ".entry");
+		long remaining = ingestProperties.getMaxFileSizeBytes() + 1;
+		byte[] buffer = new byte[8192];
+		try (OutputStream out = Files.newOutputStream(target)) {
+			int read;
+			while (remaining > 0 && (read = entry.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+				out.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+		catch (IOException ex) {
+			deleteQuietly(target);
+			throw ex;
+		}
+		return target;
+	}
+
+	private BulkIngestItemResponse ingestOne(IngestRequest ingestRequest) {
+		String filename = ingestRequest.getFile().getOriginalFilename();
+		try {
+			IngestResponse response = ingestService.ingest(ingestRequest);
+			return new BulkIngestItemResponse(filename, response.status(), response.documentId(),
+					response.chunksProcessed(), response.tokensCount(), null);
+		}
+		catch (RuntimeException ex) {
+			LOGGER.warn("Bulk ingest of {} failed: {}", filename, ex.getMessage());
+			return failed(filename, ex.getMessage());
+		}
+	}
+
+	private BulkIngestItemResponse failed(String filename, String error) {
+		return new BulkIngestItemResponse(filename, STATUS_FAILED, null, 0, 0, error);
+	}
+
+	private boolean isArchive(MultipartFile file) {
+		String filename = file.getOriginalFilename();
+		return (file.getContentType() != null && ZIP_CONTENT_TYPES.contains(file.getContentType()))
+				|| (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".zip"));
+	}
+
+	private boolean isHidden(String entryName) {
+		return entryName.startsWith("__MACOSX/") || fileName(entryName).startsWith(".");
+	}
+
+	private String fileName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	private String titleOf(String filename) {
+		if (filename == null || filename.isBlank()) {
+			return "untitled";
+		}
+		return filename.length() > MAX_TITLE_LENGTH ? filename.substring(0, MAX_TITLE_LENGTH) : filename;
+	}
+
+	private void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		}
+		catch (IOException ex) {
+			LOGGER.warn("Unable to delete temporary upload {}", path, ex);
+		}
+	}
+
+	/**
+	 * Tracks the files of one bulk request. Submission blocks while the request already has two items per worker in
+	 * flight, emitting finished results meanwhile, so a large archive is never spooled to disk far ahead of the
+	 * workers.
+	 */
+	private final class BulkRun {
+
+		private final BulkIngestRequest request;
+
+		private final Consumer<BulkIngestItemResponse> results;
+
+		private final CompletionService<BulkIngestItemResponse> completions = new ExecutorCompletionService<>(executor);
+
+		private final int maxInFlight = Math.max(1, ingestProperties.getBulk().getWorkers()) * 2;
+
+		private int inFlight;
+
+		private BulkRun(BulkIngestRequest request, Consumer<BulkIngestItemResponse> results) {
+			this.request = request;
+			this.results = results;
+		}
+
+		private void submit(MultipartFile file, Path spooled) {
+			while (inFlight >= maxInFlight) {
+				emitNext();
+			}
+			IngestRequest ingestRequest = new IngestRequest(request.getSource(), titleOf(file.getOriginalFilename()),
+					request.getTags(), file);
+			completions.submit(() -> {
+				try {
+					return ingestOne(ingestRequest);
+				}
+				finally {
+					if (spooled != null) {
+						deleteQuietly(spooled);
+					}
+				}
+			});
+			inFlight++;
+		}
+
+		private void report(BulkIngestItemResponse result) {
+			results.accept(result);
+		}
+
+		private void awaitAll() {
+			while (inFlight > 0) {
+				emitNext();
+			}
+		}
+
+		private void emitNext() {
+			try {
+				BulkIngestItemResponse result = completions.take().get();
+				inFlight--;
+				results.accept(result);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for bulk ingest results", ex);
+			}
+			catch (ExecutionException ex) {
+				inFlight--;
+				results.accept(failed(null, ex.getCause().getMessage()));
+			}
+		}
+	}
+}
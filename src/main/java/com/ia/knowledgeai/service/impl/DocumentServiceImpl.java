@@ -1,9 +1,199 @@
 package com.ia.knowledgeai.service.impl;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.dto.request.DocumentFilterRequest;
+import com.ia.knowledgeai.dto.response.DocumentPageResponse;
+import com.ia.knowledgeai.dto.response.DocumentResponse;
+import com.ia.knowledgeai.mapper.DocumentMapper;
+import com.ia.knowledgeai.mapper.EmbeddingMapper;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
+import com.ia.knowledgeai.repository.DocumentRepository;
+import com.ia.knowledgeai.repository.EmbeddingRepository;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+import com.ia.knowledgeai.repository.VectorStoreRepository;
 import com.ia.knowledgeai.service.DocumentService;
+import com.ia.knowledgeai.service.support.EmbeddingBatcher;
+import com.ia.knowledgeai.service.support.IngestTransactions;
+import com.ia.knowledgeai.service.support.RetrievalCache;
 
 @Service
 public class DocumentServiceImpl implements DocumentService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DocumentServiceImpl.class);
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private static final int DELETE_BATCH_SIZE = 500;
+
+	private final DocumentRepository documentRepository;
+	private final VectorStoreRepository vectorStoreRepository;
+	private final EmbeddingRepository embeddingRepository;
+	private final DocumentMapper documentMapper;
+	private final IngestTransactions ingestTransactions;
+	private final RetrievalCache retrievalCache;
+	private final ChunkBulkWriter chunkBulkWriter;
+	private final EmbeddingBatcher embeddingBatcher;
+	private final EmbeddingMapper embeddingMapper;
+	private final ApplicationEventPublisher eventPublisher;
+
+	public DocumentServiceImpl(DocumentRepository documentRepository,
+			VectorStoreRepository vectorStoreRepository,
+			EmbeddingRepository embeddingRepository,
+			DocumentMapper documentMapper,
+			IngestTransactions ingestTransactions,
+			RetrievalCache retrievalCache,
+			ChunkBulkWriter chunkBulkWriter,
+			EmbeddingBatcher embeddingBatcher,
+			EmbeddingMapper embeddingMapper,
+			ApplicationEventPublisher eventPublisher) {
+		this.documentRepository = documentRepository;
+		this.vectorStoreRepository = vectorStoreRepository;
+		this.embeddingRepository = embeddingRepository;
+		this.documentMapper = documentMapper;
+		this.ingestTransactions = ingestTransactions;
+		this.retrievalCache = retrievalCache;
+		this.chunkBulkWriter = chunkBulkWriter;
+		this.embeddingBatcher = embeddingBatcher;
+		this.embeddingMapper = embeddingMapper;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public DocumentPageResponse list(DocumentFilterRequest filter, int page, int size) {
+		if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+		}
+		PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+		return documentMapper.toPageResponse(documentRepository.findFiltered(filter.source(), filter.tag(), pageRequest));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<DocumentResponse> find(UUID documentId) {
+		return documentRepository.findById(documentId).map(documentMapper::toResponse);
+	}
+
+	/**
+	 * Until now searches skipped the document's rows; the event lets in-memory copies of the vector store take them
+	 * and the retrieval cache drop results computed without them.
+	 */
+	@Override
+	@Transactional
+	public void markReady(UUID documentId) {
+		if (documentRepository.updateStatus(documentId, Document.Status.READY) == 0) {
+			return;
+		}
+		List<String> sources = documentRepository.findSourcesByIdIn(List.of(documentId));
+		Map<UUID, String> sourcesByDocument = new HashMap<>();
+		sourcesByDocument.put(documentId, sources.isEmpty() ? null : sources.get(0));
+		retrievalCache.invalidate(sources);
+		eventPublisher.publishEvent(VectorStoreChangedEvent.documentsReady(sourcesByDocument));
+	}
+
+	@Override
+	public boolean delete(UUID documentId) {
+		return delete(documentId, held -> {
+		});
+	}
+
+	@Override
+	public boolean delete(UUID documentId, Consumer<Duration> holdListener) {
+		return deleteDocuments(List.of(documentId), holdListener) > 0;
+	}
+
+	/**
+	 * Deletes {@value #DELETE_BATCH_SIZE} documents per transaction, so locks and undo stay bounded however large the
+	 * source or tag is.
+	 */
+	@Override
+	public int deleteMatching(DocumentFilterRequest filter) {
+		if (filter == null || filter.isEmpty()) {
+			throw new IllegalArgumentException("A source or tag is required to delete documents");
+		}
+		int deleted = 0;
+		List<UUID> documentIds;
+		do {
+			documentIds = documentRepository.findIdsFiltered(filter.source(), filter.tag(),
+					PageRequest.ofSize(DELETE_BATCH_SIZE));
+			if (!documentIds.isEmpty()) {
+				deleted += deleteDocuments(documentIds, held -> {
+				});
+			}
+		}
+		while (documentIds.size() == DELETE_BATCH_SIZE);
+		LOGGER.info("Deleted {} documents for source={} tag={}", deleted, filter.source(), filter.tag());
+		return deleted;
+	}
+
+	/**
+	 * One statement per table for the whole set: vectors through the {@code documentId} metadata index, chunks and
+	 * tags through their {@code document_id} indexes. Chunks of other documents marked as near duplicates of the
+	 * deleted chunks are released once the delete has committed.
+	 */
+	private int deleteDocuments(Collection<UUID> documentIds, Consumer<Duration> holdListener) {
+		List<Chunk> duplicates = new ArrayList<>();
+		int documents = ingestTransactions.execute(holdListener, () -> {
+			duplicates.addAll(vectorStoreRepository.findDuplicatesOfDocuments(documentIds));
+			retrievalCache.invalidate(documentRepository.findSourcesByIdIn(documentIds));
+			int vectors = embeddingRepository.deleteByDocumentIds(documentIds);
+			int chunks = vectorStoreRepository.deleteByDocumentIds(documentIds);
+			documentRepository.deleteTagsByDocumentIds(documentIds);
+			int deleted = documentRepository.deleteByIdIn(documentIds);
+			LOGGER.info("Deleted {} documents with {} chunks and {} vectors", deleted, chunks, vectors);
+			return deleted;
+		});
+		try {
+			releaseDuplicates(duplicates, holdListener);
+		}
+		catch (RuntimeException ex) {
+			LOGGER.warn("Unable to release {} near-duplicate chunks of deleted documents {}", duplicates.size(),
+					documentIds, ex);
+		}
+		return documents;
+	}
+
+	/**
+	 * Indexes the chunks that pointed at a deleted chunk as regular ones. They are embedded again outside of any
+	 * transaction, since chunks the {@code skip} policy left out have no vector and those under {@code link} carry the
+	 * vector of the deleted chunk; vectors computed under {@code down-weight} come back from the embedding cache. The
+	 * vectors are then written in a transaction of their own.
+	 */
+	private void releaseDuplicates(List<Chunk> duplicates, Consumer<Duration> holdListener) {
+		if (duplicates.isEmpty()) {
+			return;
+		}
+		List<float[]> vectors = embeddingBatcher.embed(duplicates.stream().map(Chunk::getText).toList(),
+				holdListener);
+		List<Embedding> embeddings = new ArrayList<>(duplicates.size());
+		for (int i = 0; i < duplicates.size(); i++) {
+			Chunk chunk = duplicates.get(i);
+			chunk.markDuplicateOf(null);
+			embeddings.add(embeddingMapper.toEmbedding(chunk.getDocument(), chunk, vectors.get(i)));
+		}
+		ingestTransactions.executeWithoutResult(holdListener, () -> chunkBulkWriter.releaseDuplicates(embeddings));
+		retrievalCache
+			.invalidate(duplicates.stream().map(chunk -> chunk.getDocument().getSource()).distinct().toList());
+		LOGGER.info("Released {} near-duplicate chunks of deleted documents", duplicates.size());
+	}
 }
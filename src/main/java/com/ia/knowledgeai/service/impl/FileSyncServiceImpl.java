@@ -0,0 +1,178 @@
+package com.ia.knowledgeai.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.WatchedFile;
+import com.ia.knowledgeai.domain.support.ContentHash;
+import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.repository.WatchedFileRepository;
+import com.ia.knowledgeai.service.DocumentService;
+import com.ia.knowledgeai.service.FileSyncService;
+import com.ia.knowledgeai.service.IngestService;
+import com.ia.knowledgeai.service.support.SpooledUpload;
+
+@Service
+public class FileSyncServiceImpl implements FileSyncService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileSyncServiceImpl.class);
+
+	private final WatchedFileRepository watchedFileRepository;
+	private final IngestService ingestService;
+	private final DocumentService documentService;
+	private final IngestProperties ingestProperties;
+
+	public FileSyncServiceImpl(WatchedFileRepository watchedFileRepository,
+			IngestService ingestService,
+			DocumentService documentService,
+			IngestProperties ingestProperties) {
+		this.watchedFileRepository = watchedFileRepository;
+		this.ingestService = ingestService;
+		this.documentService = documentService;
+		this.ingestProperties = ingestProperties;
+	}
+
+	@Override
+	public Outcome sync(Path path) {
+		Path file = path.toAbsolutePath().normalize();
+		if (!Files.exists(file)) {
+			return remove(file);
+		}
+		if (!Files.isRegularFile(file) || isHidden(file)) {
+			return Outcome.SKIPPED;
+		}
+		String contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+				.map(MediaType::toString)
+				.orElse(null);
+		List<String> allowed = ingestProperties.getAllowedContentTypes();
+		if (!allowed.isEmpty() && (contentType == null || !allowed.contains(contentType))) {
+			return Outcome.SKIPPED;
+		}
+		try {
+			return syncFile(file, contentType);
+		}
+		catch (IOException | RuntimeException ex) {
+			LOGGER.warn("Unable to sync {}: {}", file, ex.getMessage());
+			return Outcome.FAILED;
+		}
+	}
+
+	@Override
+	public void reconcile(Path root) {
+		Path directory = root.toAbsolutePath().normalize();
+		Set<String> seen = new HashSet<>();
+		int changed = 0;
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+				seen.add(file.toString());
+				Outcome outcome = sync(file);
+				if (outcome == Outcome.ADDED || outcome == Outcome.UPDATED) {
+					changed++;
+				}
+			}
+		}
+		catch (IOException | UncheckedIOException ex) {
+			LOGGER.warn("Unable to scan {}, deleted files are not reconciled: {}", directory, ex.getMessage());
+			return;
+		}
+		int removed = 0;
+		for (WatchedFile watched : watchedFileRepository.findByPathStartingWith(childPrefix(directory))) {
+			if (!seen.contains(watched.getPath())) {
+				removeEntry(watched);
+				removed++;
+			}
+		}
+		LOGGER.info("Reconciled {}: {} files ingested, {} removed", directory, changed, removed);
+	}
+
+	private Outcome syncFile(Path file, String contentType) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		// The manifest column keeps microseconds, while most file systems report nanoseconds.
+		Instant modifiedAt = attributes.lastModifiedTime().toInstant().truncatedTo(ChronoUnit.MICROS);
+		WatchedFile previous = watchedFileRepository.findById(file.toString()).orElse(null);
+		if (previous != null && previous.getSize() == attributes.size()
+				&& previous.getModifiedAt().truncatedTo(ChronoUnit.MICROS).equals(modifiedAt)) {
+			return Outcome.UNCHANGED;
+		}
+		String contentHash = hash(file);
+		if (previous != null && previous.getContentHash().equals(contentHash)) {
+			// Touched but not modified: remember the new timestamp so the file is not read again.
+			watchedFileRepository.save(new WatchedFile(file.toString(), modifiedAt, attributes.size(), contentHash,
+					previous.getDocumentId(), Instant.now()));
+			return Outcome.UNCHANGED;
+		}
+
+		IngestProperties.Watch watch = ingestProperties.getWatch();
+		String filename = file.getFileName().toString();
+		IngestRequest ingestRequest = new IngestRequest(watch.getSource(), filename, watch.getTags(),
+				new SpooledUpload("file", filename, contentType, file));
+		IngestResponse response = ingestService.ingest(ingestRequest);
+		watchedFileRepository.save(new WatchedFile(file.toString(), modifiedAt, attributes.size(), contentHash,
+				response.documentId(), Instant.now()));
+		if (previous == null) {
+			LOGGER.info("Ingested new file {} as document {}", file, response.documentId());
+			return Outcome.ADDED;
+		}
+		// The new version is committed before the old one is dropped, so the file never disappears from search.
+		documentService.delete(previous.getDocumentId());
+		LOGGER.info("Re-ingested changed file {} as document {}", file, response.documentId());
+		return Outcome.UPDATED;
+	}
+
+	private Outcome remove(Path path) {
+		Outcome outcome = Outcome.UNCHANGED;
+		WatchedFile watched = watchedFileRepository.findById(path.toString()).orElse(null);
+		if (watched != null) {
+			removeEntry(watched);
+			outcome = Outcome.REMOVED;
+		}
+		for (WatchedFile child : watchedFileRepository.findByPathStartingWith(childPrefix(path))) {
+			removeEntry(child);
+			outcome = Outcome.REMOVED;
+		}
+		return outcome;
+	}
+
+	private void removeEntry(WatchedFile watched) {
+		documentService.delete(watched.getDocumentId());
+		watchedFileRepository.delete(watched);
+		LOGGER.info("Removed document {} of deleted file {}", watched.getDocumentId(), watched.getPath());
+	}
+
+	private String hash(Path file) throws IOException {
+		MessageDigest digest = ContentHash.newDigest();
+		try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+			inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+		return ContentHash.toHex(digest.digest());
+	}
+
+	private String childPrefix(Path directory) {
+		return directory + directory.getFileSystem().getSeparator();
+	}
+
+	private boolean isHidden(Path file) {
+		return file.getFileName().toString().startsWith(".");
+	}
+}
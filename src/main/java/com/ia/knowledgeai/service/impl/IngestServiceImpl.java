@@ -1,29 +1,61 @@
 package com.ia.knowledgeai.service.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ia.knowledgeai.config.IngestProperties;
 import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.ChunkPosition;
 import com.ia.knowledgeai.domain.Document;
-import com.ia.knowledgeai.domain.ParsedDocument;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.dto.request.DocumentUpdateRequest;
 import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.DocumentUpdateResponse;
 import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.domain.support.ChunkWriter;
+import com.ia.knowledgeai.domain.support.ContentHash;
 import com.ia.knowledgeai.domain.support.DocumentParser;
+import com.ia.knowledgeai.mapper.EmbeddingMapper;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
 import com.ia.knowledgeai.repository.DocumentRepository;
 import com.ia.knowledgeai.repository.VectorStoreRepository;
+import com.ia.knowledgeai.service.DocumentService;
 import com.ia.knowledgeai.service.IngestService;
+import com.ia.knowledgeai.service.support.ChunkSpool;
+import com.ia.knowledgeai.service.support.EmbeddingBatcher;
+import com.ia.knowledgeai.service.support.IngestPipeline;
+import com.ia.knowledgeai.service.support.IngestTransactions;
+import com.ia.knowledgeai.service.support.NearDuplicateDetector;
+import com.ia.knowledgeai.service.support.RetrievalCache;
+import com.ia.knowledgeai.service.support.SpooledUpload;
 import com.ia.knowledgeai.domain.support.TextChunker;
 
 @Service
@@ -31,43 +63,166 @@ public class IngestServiceImpl implements IngestService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(IngestServiceImpl.class);
 	private static final String STATUS_INGESTED = "INGESTED";
+	private static final String STATUS_UPDATED = "UPDATED";
+	private static final String STATUS_UNCHANGED = "UNCHANGED";
 
 	private final DocumentRepository documentRepository;
 	private final VectorStoreRepository vectorStoreRepository;
-	private final VectorStore vectorStore;
+	private final ChunkBulkWriter chunkBulkWriter;
+	private final EmbeddingBatcher embeddingBatcher;
+	private final NearDuplicateDetector nearDuplicateDetector;
 	private final TextChunker textChunker;
 	private final DocumentParser documentParser;
 	private final IngestProperties ingestProperties;
+	private final EmbeddingMapper embeddingMapper;
+	private final IngestPipeline ingestPipeline;
+	private final IngestTransactions ingestTransactions;
+	private final DocumentService documentService;
+	private final RetrievalCache retrievalCache;
 
 	public IngestServiceImpl(DocumentRepository documentRepository,
 			VectorStoreRepository vectorStoreRepository,
-			VectorStore vectorStore,
+			ChunkBulkWriter chunkBulkWriter,
+			EmbeddingBatcher embeddingBatcher,
+			NearDuplicateDetector nearDuplicateDetector,
 			TextChunker textChunker,
 			DocumentParser documentParser,
-			IngestProperties ingestProperties) {
+			IngestProperties ingestProperties,
+			EmbeddingMapper embeddingMapper,
+			IngestPipeline ingestPipeline,
+			IngestTransactions ingestTransactions,
+			DocumentService documentService,
+			RetrievalCache retrievalCache) {
 		this.documentRepository = documentRepository;
 		this.vectorStoreRepository = vectorStoreRepository;
-		this.vectorStore = vectorStore;
+		this.chunkBulkWriter = chunkBulkWriter;
+		this.embeddingBatcher = embeddingBatcher;
+		this.nearDuplicateDetector = nearDuplicateDetector;
 		this.textChunker = textChunker;
 		this.documentParser = documentParser;
 		this.ingestProperties = ingestProperties;
+		this.embeddingMapper = embeddingMapper;
+		this.ingestPipeline = ingestPipeline;
+		this.ingestTransactions = ingestTransactions;
+		this.documentService = documentService;
+		this.retrievalCache = retrievalCache;
 	}
 
+	/**
+	 * Parses and embeds with no connection held; each batch of chunks is then written in its own short transaction
+	 * and the document is marked ready at the end. If anything fails the partial document is deleted; if the process
+	 * dies instead, {@code IngestRecovery} removes it on the next startup.
+	 */
 	@Override
-	@Transactional
 	public IngestResponse ingest(IngestRequest ingestRequest) {
 		validateRequest(ingestRequest);
-		String content = resolveContent(ingestRequest);
-		validateLength(content);
 
-		Document document = saveDocument(ingestRequest);
-		List<String> chunkTexts = textChunker.chunk(content, ingestProperties.getChunkSize(),
-				ingestProperties.getChunkOverlap());
-		List<Chunk> persistedChunks = persistChunks(document, chunkTexts);
-		storeEmbeddings(document, persistedChunks);
+		LongAdder heldNanos = new LongAdder();
+		Consumer<Duration> holdListener = held -> heldNanos.add(held.toNanos());
+		Document document = ingestTransactions.execute(holdListener,
+				() -> documentRepository.save(newDocument(ingestRequest)));
+		try {
+			ChunkSink sink = new ChunkSink(document, holdListener);
+			StreamedContent content = streamContent(ingestRequest.getFile(), sink.getWriter());
+			sink.flush();
+			ingestTransactions.executeWithoutResult(holdListener, () -> {
+				documentRepository.updateContentHash(document.getId(), content.contentHash());
+				documentService.markReady(document.getId());
+			});
+			if (sink.getChunkCount() == 0) {
+				LOGGER.warn("No chunks generated for document {}", document.getId());
+			}
+			else {
+				LOGGER.info("Stored {} chunks for document {}", sink.getChunkCount(), document.getId());
+			}
+
+			int tokensCount = (int) content.characters();
+			return new IngestResponse(document.getId(), sink.getChunkCount(), tokensCount, STATUS_INGESTED);
+		}
+		catch (RuntimeException ex) {
+			discard(document, holdListener);
+			throw ex;
+		}
+		finally {
+			Duration held = Duration.ofNanos(heldNanos.sum());
+			ingestTransactions.recordHold(IngestTransactions.MODE_SYNC, held);
+			LOGGER.debug("Ingest of document {} held a connection for {} ms", document.getId(), held.toMillis());
+		}
+	}
+
+	@Override
+	public IngestJob submit(IngestRequest ingestRequest) {
+		validateRequest(ingestRequest);
+		return ingestPipeline.submit(ingestRequest);
+	}
+
+	@Override
+	public Optional<IngestJob> findJob(UUID jobId) {
+		return ingestPipeline.findJob(jobId);
+	}
 
-		int tokensCount = content.length();
-		return new IngestResponse(document.getId(), persistedChunks.size(), tokensCount, STATUS_INGESTED);
+	/**
+	 * Parses the new revision and matches its chunks by content hash against the stored ones. Only unmatched chunks
+	 * are embedded, outside of any transaction; a single write transaction then inserts them, moves the kept chunks to
+	 * their new positions and deletes the chunks that no longer occur. The transaction only commits if the document
+	 * still has the content the diff was computed against. Chunks waiting for that transaction spill to disk past
+	 * {@code ingest.spill.memory-threshold-bytes}.
+	 */
+	@Override
+	public Optional<DocumentUpdateResponse> update(UUID documentId, DocumentUpdateRequest updateRequest) {
+		if (updateRequest == null || !updateRequest.hasFile()) {
+			throw new IllegalArgumentException("A file must be provided for the update");
+		}
+		validateFile(updateRequest.getFile());
+		LongAdder heldNanos = new LongAdder();
+		Consumer<Duration> holdListener = held -> heldNanos.add(held.toNanos());
+		Document document = ingestTransactions
+			.execute(holdListener, () -> documentRepository.findWithTagsById(documentId))
+			.orElse(null);
+		if (document == null) {
+			return Optional.empty();
+		}
+		if (document.getStatus() == Document.Status.INGESTING) {
+			throw new OptimisticLockingFailureException("Document " + documentId + " is still being ingested");
+		}
+
+		long memoryThreshold = ingestProperties.getSpill().getMemoryThresholdBytes();
+		try (ChunkSpool added = new ChunkSpool(document, memoryThreshold);
+				ChunkSpool embedded = new ChunkSpool(document, memoryThreshold)) {
+			ChunkDiff diff = new ChunkDiff(document, vectorStoreRepository.findStoredChunks(documentId), added);
+			StreamedContent content = streamContent(updateRequest.getFile(), diff.getWriter());
+			if (content.contentHash().equals(document.getContentHash())) {
+				return Optional.of(new DocumentUpdateResponse(documentId, diff.getChunkCount(), 0,
+						diff.getChunkCount(), 0, STATUS_UNCHANGED));
+			}
+			int batchSize = embeddingFlushSize();
+			added.forEachBatch(batchSize, (chunks, unused) -> {
+				List<float[]> vectors = screenAndEmbed(document, chunks, holdListener);
+				for (int i = 0; i < chunks.size(); i++) {
+					embedded.add(chunks.get(i), vectors.get(i));
+				}
+			});
+			List<UUID> stale = diff.getStale();
+			ingestTransactions.executeWithoutResult(holdListener, () -> {
+				if (documentRepository.replaceContentHash(documentId, document.getContentHash(),
+						content.contentHash()) == 0) {
+					throw new OptimisticLockingFailureException(
+							"Document " + documentId + " was modified while the update was prepared");
+				}
+				chunkBulkWriter.delete(stale);
+				chunkBulkWriter.reindex(diff.getMoved());
+				embedded.forEachBatch(batchSize, (chunks, vectors) -> chunkBulkWriter.write(List.copyOf(chunks),
+						toEmbeddings(document, chunks, vectors)));
+				retrievalCache.invalidate(document.getSource());
+			});
+			LOGGER.info("Updated document {}: {} chunks, {} embedded, {} reused, {} deleted", documentId,
+					diff.getChunkCount(), added.size(), diff.getChunkCount() - added.size(), stale.size());
+			return Optional.of(new DocumentUpdateResponse(documentId, diff.getChunkCount(), added.size(),
+					diff.getChunkCount() - added.size(), stale.size(), STATUS_UPDATED));
+		}
+		finally {
+			ingestTransactions.recordHold(IngestTransactions.MODE_UPDATE, Duration.ofNanos(heldNanos.sum()));
+		}
 	}
 
 	private void validateRequest(IngestRequest ingestRequest) {
@@ -77,7 +232,10 @@ public class IngestServiceImpl implements IngestService {
 		if (!ingestRequest.hasFile()) {
 			throw new IllegalArgumentException("A file must be provided for ingestion");
 		}
-		MultipartFile file = ingestRequest.getFile();
+		validateFile(ingestRequest.getFile());
+	}
+
+	private void validateFile(MultipartFile file) {
 		if (file.getSize() > ingestProperties.getMaxFileSizeBytes()) {
 			throw new IllegalArgumentException("File exceeds maximum size of " + ingestProperties.getMaxFileSizeBytes());
 		}
@@ -88,73 +246,299 @@ public class IngestServiceImpl implements IngestService {
 		}
 	}
 
-	private String resolveContent(IngestRequest ingestRequest) {
-		try {
-			ParsedDocument parsed = documentParser.parse(
-					ingestRequest.getFile().getBytes(),
-					ingestRequest.getFile().getOriginalFilename(),
-					ingestRequest.getFile().getContentType());
-			if (parsed == null || parsed.text() == null) {
-				throw new IllegalArgumentException("Parsed document content is empty or null");
+	/**
+	 * Streams the uploaded file through the parser into the chunker; chunks reach the sink while parsing is still in
+	 * progress, so neither the raw bytes nor the full text are ever held in memory. The document hash is computed
+	 * from the same stream. Uploads already on disk, or larger than {@code ingest.spill.upload-threshold-bytes}, are
+	 * parsed from a file instead, which lets parsers needing random access read it in place rather than buffer it.
+	 */
+	private StreamedContent streamContent(MultipartFile file, ChunkWriter writer) {
+		if (file instanceof SpooledUpload spooled) {
+			return streamFile(spooled.getPath(), file, writer);
+		}
+		if (file.getSize() > ingestProperties.getSpill().getUploadThresholdBytes()) {
+			Path spooled = null;
+			try {
+				spooled = Files.createTempFile("ingest-", ".upload");
+				file.transferTo(spooled);
+				return streamFile(spooled, file, writer);
 			}
-			String text = parsed.text().trim();
-			if (text.isBlank()) {
-				throw new IllegalArgumentException("Parsed document has no extractable text (is it a scanned image or empty PDF?)");
+			catch (IOException ex) {
+				throw new IllegalStateException("Unable to buffer upload " + file.getOriginalFilename(), ex);
 			}
-			return text;
+			finally {
+				deleteQuietly(spooled);
+			}
+		}
+		MessageDigest digest = ContentHash.newDigest();
+		try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest); writer) {
+			parseInto(CloseShieldInputStream.wrap(inputStream), file.getOriginalFilename(), file.getContentType(),
+					writer);
+			// Parsers may stop before the end of the upload; the hash must cover all of it.
+			inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException(
+					"Unable to parse file content for " + file.getOriginalFilename() + ": " + ex.getMessage(), ex);
 		}
-		catch (Exception ex) {
-			String filename = ingestRequest.getFile() != null ? ingestRequest.getFile().getOriginalFilename() : "unknown";
-			throw new IllegalArgumentException("Unable to parse file content for " + filename + ": " + ex.getMessage(), ex);
+		validateLength(writer.getCharacterCount());
+		return new StreamedContent(writer.getCharacterCount(), ContentHash.toHex(digest.digest()));
+	}
+
+	private StreamedContent streamFile(Path content, MultipartFile file, ChunkWriter writer) {
+		try (writer) {
+			parseInto(content, file.getOriginalFilename(), file.getContentType(), writer);
+		}
+		validateLength(writer.getCharacterCount());
+		try {
+			return new StreamedContent(writer.getCharacterCount(), ContentHash.of(content));
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to hash upload " + file.getOriginalFilename(), ex);
 		}
 	}
 
-	private void validateLength(String content) {
-		if (content == null || content.isBlank()) {
-			throw new IllegalArgumentException("Content cannot be empty");
+	/**
+	 * Parses into {@code writer} in the layout the configured chunking expects: flattened text for token windows,
+	 * blocks for structure-aware chunking.
+	 */
+	private void parseInto(InputStream content, String filename, String contentType, ChunkWriter writer) {
+		if (ingestProperties.getChunking() == IngestProperties.Chunking.STRUCTURE) {
+			documentParser.parseBlocks(content, filename, contentType, writer);
+		}
+		else {
+			documentParser.parse(content, filename, contentType, writer);
 		}
-		if (content.length() > ingestProperties.getMaxTextLength()) {
+	}
+
+	private void parseInto(Path content, String filename, String contentType, ChunkWriter writer) {
+		if (ingestProperties.getChunking() == IngestProperties.Chunking.STRUCTURE) {
+			documentParser.parseBlocks(content, filename, contentType, writer);
+		}
+		else {
+			documentParser.parse(content, filename, contentType, writer);
+		}
+	}
+
+	private ChunkWriter openWriter(Consumer<String> chunkConsumer) {
+		int chunkSize = ingestProperties.getChunkSize();
+		int chunkOverlap = ingestProperties.getChunkOverlap();
+		if (ingestProperties.getChunking() == IngestProperties.Chunking.STRUCTURE) {
+			return textChunker.blockWriter(chunkSize, chunkOverlap, chunkConsumer);
+		}
+		return textChunker.writer(chunkSize, chunkOverlap, chunkConsumer);
+	}
+
+	private void validateLength(long length) {
+		if (length > ingestProperties.getMaxTextLength()) {
 			throw new IllegalArgumentException("Content exceeds maximum length of " + ingestProperties.getMaxTextLength());
 		}
 	}
 
-	private Document saveDocument(IngestRequest ingestRequest) {
-		Document document = new Document(UUID.randomUUID(), ingestRequest.getSource(), ingestRequest.getTitle(),
+	private Document newDocument(IngestRequest ingestRequest) {
+		return new Document(UUID.randomUUID(), ingestRequest.getSource(), ingestRequest.getTitle(),
 				ingestRequest.getTags(), Instant.now());
-		return documentRepository.save(document);
 	}
 
-	private List<Chunk> persistChunks(Document document, List<String> chunkTexts) {
-		List<Chunk> chunks = new ArrayList<>();
-		int index = 0;
-		for (String chunkText : chunkTexts) {
-			if (chunkText == null || chunkText.isBlank()) {
-				continue;
-			}
-			chunks.add(new Chunk(UUID.randomUUID(), document, index++, chunkText));
+	/**
+	 * Chunks embedded at once: enough to keep every embedding slot busy.
+	 */
+	private int embeddingFlushSize() {
+		IngestProperties.EmbeddingSettings embedding = ingestProperties.getEmbedding();
+		return Math.max(1, embedding.getBatchSize()) * Math.max(1, embedding.getMaxConcurrency());
+	}
+
+	private void deleteQuietly(Path path) {
+		if (path == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(path);
 		}
-		if (!chunks.isEmpty()) {
-			vectorStoreRepository.saveAll(chunks);
+		catch (IOException ex) {
+			LOGGER.warn("Unable to delete temporary upload {}", path, ex);
 		}
-		return chunks;
 	}
 
-	private void storeEmbeddings(Document document, List<Chunk> chunks) {
+	private void discard(Document document, Consumer<Duration> holdListener) {
+		try {
+			documentService.delete(document.getId(), holdListener);
+		}
+		catch (RuntimeException ex) {
+			LOGGER.error("Unable to discard partial document {}, leaving it to startup recovery", document.getId(), ex);
+		}
+	}
+
+	private void storeChunks(Document document, List<Chunk> chunks, Consumer<Duration> holdListener) {
 		if (chunks.isEmpty()) {
-			LOGGER.warn("No chunks generated for document {}", document.getId());
 			return;
 		}
-		List<org.springframework.ai.document.Document> vectorDocuments = new ArrayList<>();
-		for (Chunk chunk : chunks) {
-			Map<String, Object> metadata = new HashMap<>();
-			metadata.put("documentId", document.getId().toString());
-			metadata.put("chunkIndex", chunk.getIndex());
-			metadata.put("source", document.getSource());
-			metadata.put("title", document.getTitle());
-			metadata.put("tags", document.getTags());
-			vectorDocuments.add(new org.springframework.ai.document.Document(chunk.getText(), metadata));
-		}
-		vectorStore.add(vectorDocuments);
-		LOGGER.info("Stored {} chunks for document {}", chunks.size(), document.getId());
+		List<Embedding> embeddings = toEmbeddings(document, chunks, holdListener);
+		ingestTransactions.executeWithoutResult(holdListener, () -> chunkBulkWriter.write(chunks, embeddings));
+		LOGGER.debug("Stored {} chunks for document {}", chunks.size(), document.getId());
+	}
+
+	private List<Embedding> toEmbeddings(Document document, List<Chunk> chunks, Consumer<Duration> holdListener) {
+		if (chunks.isEmpty()) {
+			return List.of();
+		}
+		return toEmbeddings(document, chunks, screenAndEmbed(document, chunks, holdListener));
+	}
+
+	/**
+	 * Marks the chunks that nearly duplicate stored ones and returns the vector of each chunk, {@code null} for chunks
+	 * the duplicate policy leaves out of the vector store.
+	 */
+	private List<float[]> screenAndEmbed(Document document, List<Chunk> chunks, Consumer<Duration> holdListener) {
+		NearDuplicateDetector.Screening screening = nearDuplicateDetector
+			.screen(chunks.stream().map(Chunk::getSimhash).toList(), document.getId());
+		for (int i = 0; i < chunks.size(); i++) {
+			chunks.get(i).markDuplicateOf(screening.duplicateOf(i));
+		}
+		return screening.vectors(chunks.stream().map(Chunk::getText).toList(),
+				texts -> embeddingBatcher.embed(texts, holdListener));
+	}
+
+	private List<Embedding> toEmbeddings(Document document, List<Chunk> chunks, List<float[]> vectors) {
+		List<Embedding> embeddings = new ArrayList<>(chunks.size());
+		for (int i = 0; i < chunks.size(); i++) {
+			if (vectors.get(i) != null) {
+				embeddings.add(embeddingMapper.toEmbedding(document, chunks.get(i), vectors.get(i)));
+			}
+		}
+		return embeddings;
+	}
+
+	/**
+	 * Receives chunks from the streaming chunker and embeds and persists them in small batches, so only a bounded
+	 * number of chunk texts is held at any time. A batch is sized to keep every embedding slot busy.
+	 */
+	private final class ChunkSink implements Consumer<String> {
+
+		private final Document document;
+
+		private final Consumer<Duration> holdListener;
+
+		private final ChunkWriter writer;
+
+		private final List<Chunk> pending = new ArrayList<>();
+
+		private final int flushSize;
+
+		private int nextIndex;
+
+		private ChunkSink(Document document, Consumer<Duration> holdListener) {
+			this.document = document;
+			this.holdListener = holdListener;
+			this.writer = openWriter(this);
+			this.flushSize = embeddingFlushSize();
+		}
+
+		@Override
+		public void accept(String chunkText) {
+			validateLength(writer.getCharacterCount());
+			if (chunkText == null || chunkText.isBlank()) {
+				return;
+			}
+			pending.add(new Chunk(UUID.randomUUID(), document, nextIndex++, chunkText, writer.getChunkPages()));
+			if (pending.size() >= flushSize) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (pending.isEmpty()) {
+				return;
+			}
+			storeChunks(document, List.copyOf(pending), holdListener);
+			pending.clear();
+		}
+
+		private ChunkWriter getWriter() {
+			return writer;
+		}
+
+		private int getChunkCount() {
+			return nextIndex;
+		}
+	}
+
+	/**
+	 * Receives the chunks of a new revision and matches each one against a stored chunk with the same hash. Only
+	 * unmatched chunks are kept, in a {@link ChunkSpool}; matched chunks keep their row and vector and at most change
+	 * position or pages.
+	 */
+	private final class ChunkDiff implements Consumer<String> {
+
+		private final Document document;
+
+		private final ChunkWriter writer;
+
+		private final Map<String, Deque<VectorStoreRepository.StoredChunk>> stored = new HashMap<>();
+
+		private final ChunkSpool added;
+
+		private final Map<UUID, ChunkPosition> moved = new LinkedHashMap<>();
+
+		private int nextIndex;
+
+		private ChunkDiff(Document document, List<VectorStoreRepository.StoredChunk> storedChunks, ChunkSpool added) {
+			this.document = document;
+			this.added = added;
+			this.writer = openWriter(this);
+			// Chunks stored before hashing was introduced land under a null hash, never match and are replaced.
+			for (VectorStoreRepository.StoredChunk storedChunk : storedChunks) {
+				stored.computeIfAbsent(storedChunk.getContentHash(), hash -> new ArrayDeque<>()).add(storedChunk);
+			}
+		}
+
+		@Override
+		public void accept(String chunkText) {
+			validateLength(writer.getCharacterCount());
+			if (chunkText == null || chunkText.isBlank()) {
+				return;
+			}
+			int index = nextIndex++;
+			PageRange pages = writer.getChunkPages();
+			String hash = ContentHash.of(chunkText);
+			Deque<VectorStoreRepository.StoredChunk> candidates = stored.get(hash);
+			VectorStoreRepository.StoredChunk match = candidates != null ? candidates.poll() : null;
+			if (match == null) {
+				added.add(new Chunk(UUID.randomUUID(), document, index, chunkText, pages), null);
+			}
+			else if (match.getChunkIndex() != index || !Objects.equals(pagesOf(match), pages)) {
+				moved.put(match.getId(), new ChunkPosition(index, pages));
+			}
+		}
+
+		private ChunkWriter getWriter() {
+			return writer;
+		}
+
+		private int getChunkCount() {
+			return nextIndex;
+		}
+
+		private Map<UUID, ChunkPosition> getMoved() {
+			return moved;
+		}
+
+		private static PageRange pagesOf(VectorStoreRepository.StoredChunk storedChunk) {
+			return storedChunk.getPageStart() != null
+					? new PageRange(storedChunk.getPageStart(), storedChunk.getPageEnd()) : null;
+		}
+
+		/**
+		 * Stored chunks no new chunk was matched with.
+		 */
+		private List<UUID> getStale() {
+			return stored.values().stream()
+					.flatMap(Deque::stream)
+					.map(VectorStoreRepository.StoredChunk::getId)
+					.toList();
+		}
+	}
+
+	private record StreamedContent(long characters, String contentHash) {
 	}
 }
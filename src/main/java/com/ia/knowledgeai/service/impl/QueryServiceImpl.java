@@ -3,8 +3,18 @@ package com.ia.knowledgeai.service.impl;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,21 +24,26 @@ import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.rag.Query;
+import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.Filter;
 import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
-import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import com.ia.knowledgeai.config.IngestProperties;
 import com.ia.knowledgeai.config.QueryProperties;
 import com.ia.knowledgeai.config.RagProperties;
 import com.ia.knowledgeai.domain.QueryResult;
 import com.ia.knowledgeai.dto.request.QueryRequest;
 import com.ia.knowledgeai.mapper.QueryMapper;
+import com.ia.knowledgeai.repository.LexicalSearchRepository;
+import com.ia.knowledgeai.repository.SearchEffortRequest;
 import com.ia.knowledgeai.service.QueryService;
+import com.ia.knowledgeai.service.support.RetrievalCache;
+
+import jakarta.annotation.PreDestroy;
 
 import reactor.core.publisher.Flux;
 
@@ -49,14 +64,32 @@ public class QueryServiceImpl implements QueryService {
 
 	private final PromptTemplate ragPromptTemplate;
 
+	private final RetrievalCache retrievalCache;
+
+	private final LexicalSearchRepository lexicalSearchRepository;
+
+	private final IngestProperties ingestProperties;
+
+	private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
 	public QueryServiceImpl(VectorStore vectorStore, QueryProperties queryProperties, RagProperties ragProperties,
-			QueryMapper queryMapper, ChatModel chatModel, PromptTemplate ragPromptTemplate) {
+			QueryMapper queryMapper, ChatModel chatModel, PromptTemplate ragPromptTemplate,
+			RetrievalCache retrievalCache, LexicalSearchRepository lexicalSearchRepository,
+			IngestProperties ingestProperties) {
 		this.vectorStore = vectorStore;
 		this.queryProperties = queryProperties;
 		this.ragProperties = ragProperties;
 		this.queryMapper = queryMapper;
 		this.chatModel = chatModel;
 		this.ragPromptTemplate = ragPromptTemplate;
+		this.retrievalCache = retrievalCache;
+		this.lexicalSearchRepository = lexicalSearchRepository;
+		this.ingestProperties = ingestProperties;
+	}
+
+	@PreDestroy
+	public void close() {
+		searchExecutor.shutdownNow();
 	}
 
 	@Override
@@ -68,7 +101,8 @@ public class QueryServiceImpl implements QueryService {
 
 		long start = Instant.now().toEpochMilli();
 		try {
-			List<Document> retrieved = retrieveDocuments(queryRequest, topK, similarityThreshold);
+			List<Document> retrieved = retrieveDocuments(queryRequest, topK, similarityThreshold,
+					queryProperties.getSearchEffort());
 			List<Document> limited = limitResults(retrieved, topK);
 			long latency = Instant.now().toEpochMilli() - start;
 			LOGGER.info("Retrieved {} results for query (topK={}, source={} tags={})", limited.size(), topK,
@@ -89,7 +123,8 @@ public class QueryServiceImpl implements QueryService {
 				ragProperties.getSimilarityThreshold());
 
 		long start = Instant.now().toEpochMilli();
-		List<Document> documents = retrieveDocuments(queryRequest, topK, similarityThreshold);
+		List<Document> documents = retrieveDocuments(queryRequest, topK, similarityThreshold,
+				ragProperties.getSearchEffort());
 		if (documents.isEmpty()) {
 			long latency = Instant.now().toEpochMilli() - start;
 			LOGGER.info("No context found for query={}, returning empty answer", queryRequest.query());
@@ -116,7 +151,8 @@ public class QueryServiceImpl implements QueryService {
 		int topK = resolveTopK(queryRequest.topK(), ragProperties.getTopKDefault(), ragProperties.getTopKMax());
 		double similarityThreshold = resolveThreshold(queryRequest.similarityThreshold(),
 				ragProperties.getSimilarityThreshold());
-		List<Document> documents = retrieveDocuments(queryRequest, topK, similarityThreshold);
+		List<Document> documents = retrieveDocuments(queryRequest, topK, similarityThreshold,
+				ragProperties.getSearchEffort());
 		if (documents.isEmpty()) {
 			return Flux.empty();
 		}
@@ -153,15 +189,147 @@ public class QueryServiceImpl implements QueryService {
 		return resolved;
 	}
 
-	private List<Document> retrieveDocuments(QueryRequest queryRequest, int topK, double similarityThreshold) {
+	private List<Document> retrieveDocuments(QueryRequest queryRequest, int topK, double similarityThreshold,
+			int defaultSearchEffort) {
+		Integer searchEffort = queryRequest.searchEffort() != null ? queryRequest.searchEffort()
+				: defaultSearchEffort > 0 ? Integer.valueOf(defaultSearchEffort) : null;
+		RetrievalCache.Key key = RetrievalCache.Key.of(queryRequest.query(), topK, similarityThreshold, searchEffort,
+				queryRequest.source(), queryRequest.tags(), queryRequest.documentId());
+		return retrievalCache.get(key, () -> search(queryRequest, topK, similarityThreshold, searchEffort));
+	}
+
+	private List<Document> search(QueryRequest queryRequest, int topK, double similarityThreshold,
+			Integer searchEffort) {
+		int fetchK = fetchK(topK);
+		List<Document> candidates = switch (queryProperties.getMode()) {
+			case SEMANTIC -> vectorSearch(queryRequest, fetchK, similarityThreshold, searchEffort);
+			case LEXICAL -> lexicalSearch(queryRequest, fetchK);
+			case HYBRID -> hybridSearch(queryRequest, fetchK, similarityThreshold, searchEffort);
+		};
+		return collapseNearDuplicates(candidates, topK);
+	}
+
+	/**
+	 * Rows to retrieve for {@code topK} results: more when ingestion marks near-duplicates, so collapsing them still
+	 * leaves {@code topK} distinct results.
+	 */
+	private int fetchK(int topK) {
+		IngestProperties.DuplicatePolicy policy = ingestProperties.getNearDuplicates().getPolicy();
+		boolean marksDuplicates = policy == IngestProperties.DuplicatePolicy.LINK
+				|| policy == IngestProperties.DuplicatePolicy.DOWN_WEIGHT;
+		return marksDuplicates ? topK * Math.max(1, queryProperties.getNearDuplicateOverfetch()) : topK;
+	}
+
+	private List<Document> vectorSearch(QueryRequest queryRequest, int fetchK, double similarityThreshold,
+			Integer searchEffort) {
 		Filter.Expression filterExpression = buildFilterExpression(queryRequest);
-		VectorStoreDocumentRetriever retriever = new VectorStoreDocumentRetriever(vectorStore, similarityThreshold, topK,
-				() -> filterExpression);
-		Query ragQuery = new Query(queryRequest.query());
-		List<Document> retrieved = retriever.retrieve(ragQuery);
-		return applyFilters(retrieved, queryRequest, similarityThreshold);
+		SearchRequest.Builder searchRequest = SearchRequest.builder()
+			.query(queryRequest.query())
+			.topK(fetchK)
+			.similarityThreshold(similarityThreshold);
+		if (filterExpression != null) {
+			searchRequest.filterExpression(filterExpression);
+		}
+		List<Document> retrieved = vectorStore
+			.similaritySearch(new SearchEffortRequest(searchRequest.build(), searchEffort));
+		return retrieved != null ? retrieved : List.of();
+	}
+
+	/**
+	 * Full-text matches carry a text rank rather than a similarity, so the similarity threshold does not apply.
+	 */
+	private List<Document> lexicalSearch(QueryRequest queryRequest, int fetchK) {
+		return lexicalSearchRepository.search(queryRequest.query(), fetchK, queryRequest.source(), queryRequest.tags(),
+				queryRequest.documentId());
+	}
+
+	/**
+	 * Runs the full-text search on its own thread while the query is embedded and searched, then fuses both lists.
+	 */
+	private List<Document> hybridSearch(QueryRequest queryRequest, int fetchK, double similarityThreshold,
+			Integer searchEffort) {
+		Future<List<Document>> lexical = searchExecutor.submit(() -> lexicalSearch(queryRequest, fetchK));
+		List<Document> semantic;
+		try {
+			semantic = vectorSearch(queryRequest, fetchK, similarityThreshold, searchEffort);
+		}
+		catch (RuntimeException ex) {
+			lexical.cancel(true);
+			throw ex;
+		}
+		try {
+			return fuse(List.of(semantic, lexical.get()));
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the lexical search", ex);
+		}
+		catch (ExecutionException ex) {
+			throw new IllegalStateException("Lexical search failed", ex.getCause());
+		}
+	}
+
+	/**
+	 * Reciprocal rank fusion: a result scores {@code 1 / (k + rank)} in every list it appears in, and the sum becomes
+	 * its score. Ranks rather than raw scores are fused, since similarities and text ranks are not comparable.
+	 */
+	private List<Document> fuse(List<List<Document>> rankings) {
+		Map<String, Document> documents = new LinkedHashMap<>();
+		Map<String, Double> scores = new HashMap<>();
+		for (List<Document> ranking : rankings) {
+			for (int rank = 0; rank < ranking.size(); rank++) {
+				Document document = ranking.get(rank);
+				documents.putIfAbsent(document.getId(), document);
+				scores.merge(document.getId(), 1.0 / (queryProperties.getRrfK() + rank + 1), Double::sum);
+			}
+		}
+		List<Document> fused = new ArrayList<>(documents.size());
+		for (Document document : documents.values()) {
+			double score = scores.get(document.getId());
+			Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+			metadata.put("score", score);
+			fused.add(Document.builder().id(document.getId()).text(document.getText()).metadata(metadata).score(score)
+				.build());
+		}
+		fused.sort(Comparator.comparingDouble(Document::getScore).reversed());
+		return fused;
+	}
+
+	/**
+	 * Results stored as near-duplicates of another chunk rank with their score down-weighted, and are dropped when the
+	 * chunk they duplicate, or another duplicate of it, ranks above them.
+	 */
+	private List<Document> collapseNearDuplicates(List<Document> documents, int topK) {
+		List<Document> ranked = documents;
+		if (documents.stream().anyMatch(document -> document.getMetadata().get("duplicateOf") != null)) {
+			ranked = new ArrayList<>(documents);
+			ranked.sort(Comparator.comparingDouble(this::rankingScore).reversed());
+		}
+		Set<String> seen = new HashSet<>();
+		List<Document> collapsed = new ArrayList<>(Math.min(topK, ranked.size()));
+		for (Document document : ranked) {
+			if (collapsed.size() == topK) {
+				break;
+			}
+			Object duplicateOf = document.getMetadata().get("duplicateOf");
+			boolean firstOfGroup = seen.add(duplicateOf != null ? duplicateOf.toString() : document.getId());
+			if (duplicateOf != null && !firstOfGroup) {
+				continue;
+			}
+			collapsed.add(document);
+		}
+		return collapsed;
 	}
 
+	private double rankingScore(Document document) {
+		double score = document.getScore() != null ? document.getScore() : parseScore(document.getMetadata());
+		return document.getMetadata().get("duplicateOf") != null ? score * queryProperties.getNearDuplicateWeight()
+				: score;
+	}
+
+	/**
+	 * Every filter of the request, so the store evaluates them in the search query and returns only matching rows.
+	 */
 	private Filter.Expression buildFilterExpression(QueryRequest queryRequest) {
 		FilterExpressionBuilder builder = new FilterExpressionBuilder();
 		FilterExpressionBuilder.Op filterExpression = null;
@@ -173,42 +341,14 @@ public class QueryServiceImpl implements QueryService {
 			filterExpression = filterExpression != null ? builder.and(filterExpression, sourceExpression) : sourceExpression;
 		}
 		if (!CollectionUtils.isEmpty(queryRequest.tags())) {
-			FilterExpressionBuilder.Op tagsExpression = builder.in("tags", new ArrayList<>(queryRequest.tags()));
-			filterExpression = filterExpression != null ? builder.and(filterExpression, tagsExpression) : tagsExpression;
-		}
-		return filterExpression != null ? filterExpression.build() : null;
-	}
-
-	private List<Document> applyFilters(List<Document> documents, QueryRequest queryRequest, double threshold) {
-		if (documents == null) {
-			return List.of();
-		}
-		List<Document> filtered = new ArrayList<>();
-		for (Document document : documents) {
-			Map<String, Object> metadata = document.getMetadata();
-			if (queryRequest.documentId() != null
-					&& !queryRequest.documentId().toString().equals(String.valueOf(metadata.get("documentId")))) {
-				continue;
-			}
-			if (StringUtils.hasText(queryRequest.source())) {
-				Object source = metadata.get("source");
-				if (source == null || !queryRequest.source().equals(source.toString())) {
-					continue;
-				}
-			}
-			if (queryRequest.tags() != null && !queryRequest.tags().isEmpty()) {
-				Object tagsValue = metadata.get("tags");
-				if (!(tagsValue instanceof List<?> existingTags) || !existingTags.containsAll(queryRequest.tags())) {
-					continue;
-				}
+			// One equality per tag: on an array field each holds when the array contains the tag, so together they
+			// require every requested tag.
+			for (String tag : new LinkedHashSet<>(queryRequest.tags())) {
+				FilterExpressionBuilder.Op tagExpression = builder.eq("tags", tag);
+				filterExpression = filterExpression != null ? builder.and(filterExpression, tagExpression) : tagExpression;
 			}
-			double score = parseScore(metadata);
-			if (score > 0.0 && threshold > 0.0 && score < threshold) {
-				continue;
-			}
-			filtered.add(document);
 		}
-		return filtered;
+		return filterExpression != null ? filterExpression.build() : null;
 	}
 
 	private List<Document> limitResults(List<Document> documents, int topK) {
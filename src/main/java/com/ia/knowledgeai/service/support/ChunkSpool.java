@@ -0,0 +1,182 @@
+package com.ia.knowledgeai.service.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.PageRange;
+
+/**
+ * Chunks of one document, with their vectors once embedded, waiting to be written together. They are held in memory
+ * until they take more than {@code memoryThresholdBytes}; every later chunk is appended to a temporary file and read
+ * back a batch at a time, so the heap used does not grow with the size of the document.
+ */
+public class ChunkSpool implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ChunkSpool.class);
+
+	private static final int NO_PAGE = -1;
+
+	private static final int NO_VECTOR = -1;
+
+	private final Document document;
+
+	private final long memoryThresholdBytes;
+
+	private final List<Chunk> chunks = new ArrayList<>();
+
+	private final List<float[]> vectors = new ArrayList<>();
+
+	private long memoryBytes;
+
+	private Path file;
+
+	private DataOutputStream out;
+
+	private int spilled;
+
+	public ChunkSpool(Document document, long memoryThresholdBytes) {
+		this.document = document;
+		this.memoryThresholdBytes = memoryThresholdBytes;
+	}
+
+	/**
+	 * Adds a chunk; {@code vector} is {@code null} while the chunk is not embedded yet.
+	 */
+	public void add(Chunk chunk, float[] vector) {
+		long bytes = 2L * chunk.getText().length() + (vector != null ? 4L * vector.length : 0);
+		if (out == null && memoryBytes + bytes <= memoryThresholdBytes) {
+			chunks.add(chunk);
+			vectors.add(vector);
+			memoryBytes += bytes;
+			return;
+		}
+		try {
+			if (out == null) {
+				file = Files.createTempFile("ingest-chunks-", ".spool");
+				out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+				LOGGER.debug("Spilling chunks of document {} to {}", document.getId(), file);
+			}
+			write(chunk, vector);
+			spilled++;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to spill chunks of document " + document.getId(), ex);
+		}
+	}
+
+	public int size() {
+		return chunks.size() + spilled;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Hands every chunk and its vector to {@code consumer}, at most {@code batchSize} at a time. The lists passed are
+	 * only valid during the call.
+	 */
+	public void forEachBatch(int batchSize, BiConsumer<List<Chunk>, List<float[]>> consumer) {
+		int size = Math.max(1, batchSize);
+		for (int from = 0; from < chunks.size(); from += size) {
+			int to = Math.min(chunks.size(), from + size);
+			consumer.accept(chunks.subList(from, to), vectors.subList(from, to));
+		}
+		if (out == null) {
+			return;
+		}
+		try {
+			out.flush();
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				List<Chunk> batchChunks = new ArrayList<>(size);
+				List<float[]> batchVectors = new ArrayList<>(size);
+				for (int read = 0; read < spilled; read++) {
+					readInto(in, batchChunks, batchVectors);
+					if (batchChunks.size() == size || read == spilled - 1) {
+						consumer.accept(batchChunks, batchVectors);
+						batchChunks.clear();
+						batchVectors.clear();
+					}
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to read spilled chunks of document " + document.getId(), ex);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (file == null) {
+			return;
+		}
+		try {
+			out.close();
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex) {
+			LOGGER.warn("Unable to delete chunk spool {}", file, ex);
+		}
+	}
+
+	private void write(Chunk chunk, float[] vector) throws IOException {
+		out.writeLong(chunk.getId().getMostSignificantBits());
+		out.writeLong(chunk.getId().getLeastSignificantBits());
+		out.writeInt(chunk.getIndex());
+		byte[] text = chunk.getText().getBytes(StandardCharsets.UTF_8);
+		out.writeInt(text.length);
+		out.write(text);
+		out.writeInt(chunk.getPageStart() != null ? chunk.getPageStart() : NO_PAGE);
+		out.writeInt(chunk.getPageEnd() != null ? chunk.getPageEnd() : NO_PAGE);
+		out.writeBoolean(chunk.getDuplicateOf() != null);
+		if (chunk.getDuplicateOf() != null) {
+			out.writeLong(chunk.getDuplicateOf().getMostSignificantBits());
+			out.writeLong(chunk.getDuplicateOf().getLeastSignificantBits());
+		}
+		out.writeInt(vector != null ? vector.length : NO_VECTOR);
+		if (vector != null) {
+			for (float component : vector) {
+				out.writeFloat(component);
+			}
+		}
+	}
+
+	private void readInto(DataInputStream in, List<Chunk> batchChunks, List<float[]> batchVectors)
+			throws IOException {
+		UUID id = new UUID(in.readLong(), in.readLong());
+		int index = in.readInt();
+		String text = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+		int pageStart = in.readInt();
+		int pageEnd = in.readInt();
+		PageRange pages = pageStart == NO_PAGE ? null : new PageRange(pageStart, pageEnd);
+		UUID duplicateOf = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+		int dimensions = in.readInt();
+		float[] vector = null;
+		if (dimensions != NO_VECTOR) {
+			vector = new float[dimensions];
+			for (int i = 0; i < dimensions; i++) {
+				vector[i] = in.readFloat();
+			}
+		}
+		Chunk chunk = new Chunk(id, document, index, text, pages);
+		chunk.markDuplicateOf(duplicateOf);
+		batchChunks.add(chunk);
+		batchVectors.add(vector);
+	}
+}
@@ -0,0 +1,177 @@
+package com.ia.knowledgeai.service.support;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.service.FileSyncService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Watches the configured directories and hands changed paths to {@link FileSyncService}.
+ * <p>
+ * On start every directory is reconciled against the manifest, which catches changes made while the application was
+ * down. Afterwards only paths reported by the {@link WatchService} are synced, each once it has settled. An event
+ * overflow falls back to reconciling the affected directory.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ingest.watch", name = "enabled", havingValue = "true")
+public class DirectoryWatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+	private static final long POLL_INTERVAL_MILLIS = 500;
+
+	private final FileSyncService fileSyncService;
+
+	private final IngestProperties.Watch watch;
+
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+
+	private final Map<Path, Instant> pending = new LinkedHashMap<>();
+
+	private WatchService watchService;
+
+	private Thread worker;
+
+	public DirectoryWatcher(FileSyncService fileSyncService, IngestProperties ingestProperties) {
+		this.fileSyncService = fileSyncService;
+		this.watch = ingestProperties.getWatch();
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		watchService = FileSystems.getDefault().newWatchService();
+		worker = Thread.ofPlatform().name("ingest-watch").daemon().start(this::run);
+	}
+
+	@PreDestroy
+	public void stop() throws IOException {
+		if (worker != null) {
+			worker.interrupt();
+		}
+		if (watchService != null) {
+			watchService.close();
+		}
+	}
+
+	private void run() {
+		List<Path> roots = new ArrayList<>();
+		for (String directory : watch.getDirectories()) {
+			Path root = Paths.get(directory).toAbsolutePath().normalize();
+			if (!Files.isDirectory(root)) {
+				LOGGER.warn("Watched directory {} does not exist, skipping", root);
+				continue;
+			}
+			roots.add(root);
+			registerTree(root);
+		}
+		// Registering before reconciling means nothing changed during the initial scan is missed.
+		roots.forEach(fileSyncService::reconcile);
+		LOGGER.info("Watching {} for changes", roots);
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (key != null) {
+					collect(key);
+				}
+				syncSettled();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ClosedWatchServiceException ex) {
+			// Shutting down.
+		}
+	}
+
+	private void collect(WatchKey key) {
+		Path directory = directories.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (directory == null) {
+				continue;
+			}
+			if (event.kind() == OVERFLOW) {
+				LOGGER.warn("Missed file events in {}, reconciling it", directory);
+				fileSyncService.reconcile(directory);
+				continue;
+			}
+			Path path = directory.resolve((Path) event.context());
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+				registerTree(path);
+				fileSyncService.reconcile(path);
+				continue;
+			}
+			pending.put(path, Instant.now());
+		}
+		if (!key.reset()) {
+			directories.remove(key);
+		}
+	}
+
+	private void syncSettled() {
+		Instant settledBefore = Instant.now().minus(settleTime());
+		Iterator<Map.Entry<Path, Instant>> iterator = pending.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Path, Instant> entry = iterator.next();
+			if (entry.getValue().isAfter(settledBefore)) {
+				continue;
+			}
+			iterator.remove();
+			FileSyncService.Outcome outcome = fileSyncService.sync(entry.getKey());
+			LOGGER.debug("Synced {}: {}", entry.getKey(), outcome);
+		}
+	}
+
+	private void registerTree(Path root) {
+		try (Stream<Path> tree = Files.walk(root)) {
+			tree.filter(Files::isDirectory).forEach(directory -> {
+				try {
+					directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+							directory);
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (IOException | UncheckedIOException ex) {
+			LOGGER.warn("Unable to watch {}: {}", root, ex.getMessage());
+		}
+	}
+
+	private Duration settleTime() {
+		return watch.getSettleTime() != null ? watch.getSettleTime() : Duration.ZERO;
+	}
+}
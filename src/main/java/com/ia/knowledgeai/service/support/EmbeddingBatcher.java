@@ -0,0 +1,200 @@
+package com.ia.knowledgeai.service.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.support.ContentHash;
+import com.ia.knowledgeai.domain.support.TextChunker;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Splits texts into embedding requests bounded by chunk count and token budget and runs them concurrently.
+ * <p>
+ * Texts whose hash is already in the {@link EmbeddingCache} are not sent to the model, and duplicates within one call
+ * are embedded once.
+ * <p>
+ * The concurrency limit is shared by every caller, so the sync ingest path and the async pipeline together never
+ * have more than {@code ingest.embedding.max-concurrency} requests in flight against the embedding backend.
+ * <p>
+ * Each model request is timed as {@code ingest.embedding.batch} and its tokens recorded as
+ * {@code ingest.embedding.batch.tokens}, both tagged with the number of chunks in the batch.
+ */
+@Component
+public class EmbeddingBatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddingBatcher.class);
+
+	private final EmbeddingModel embeddingModel;
+
+	private final TextChunker textChunker;
+
+	private final EmbeddingCache embeddingCache;
+
+	private final IngestProperties.EmbeddingSettings settings;
+
+	private final Semaphore permits;
+
+	private final MeterRegistry meterRegistry;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public EmbeddingBatcher(EmbeddingModel embeddingModel, TextChunker textChunker, EmbeddingCache embeddingCache,
+			IngestProperties ingestProperties, MeterRegistry meterRegistry) {
+		this.embeddingModel = embeddingModel;
+		this.textChunker = textChunker;
+		this.embeddingCache = embeddingCache;
+		this.settings = ingestProperties.getEmbedding();
+		this.meterRegistry = meterRegistry;
+		this.permits = new Semaphore(Math.max(1, settings.getMaxConcurrency()));
+	}
+
+	@PreDestroy
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Embeds the texts and returns one vector per text, in input order. The connection hold of the cache write is
+	 * reported to {@code holdListener}.
+	 */
+	public List<float[]> embed(List<String> texts, Consumer<Duration> holdListener) {
+		if (texts.isEmpty()) {
+			return List.of();
+		}
+		List<String> hashes = texts.stream().map(ContentHash::of).toList();
+		Map<String, float[]> vectors = new HashMap<>(embeddingCache.findAll(hashes));
+		Map<String, String> misses = new LinkedHashMap<>();
+		for (int i = 0; i < texts.size(); i++) {
+			if (!vectors.containsKey(hashes.get(i))) {
+				misses.putIfAbsent(hashes.get(i), texts.get(i));
+			}
+		}
+		if (!misses.isEmpty()) {
+			List<float[]> computed = embedUncached(new ArrayList<>(misses.values()));
+			Map<String, float[]> fresh = new LinkedHashMap<>();
+			int index = 0;
+			for (String hash : misses.keySet()) {
+				fresh.put(hash, computed.get(index++));
+			}
+			embeddingCache.putAll(fresh, holdListener);
+			vectors.putAll(fresh);
+		}
+		LOGGER.debug("Embedded {} chunks, {} of them sent to the model", texts.size(), misses.size());
+		return hashes.stream().map(vectors::get).toList();
+	}
+
+	private List<float[]> embedUncached(List<String> texts) {
+		List<Batch> batches = partition(texts);
+		if (batches.size() == 1) {
+			try {
+				return embedBatch(batches.get(0));
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for an embedding slot", ex);
+			}
+		}
+		List<Future<List<float[]>>> futures = new ArrayList<>(batches.size());
+		for (Batch batch : batches) {
+			futures.add(executor.submit(() -> embedBatch(batch)));
+		}
+		List<float[]> vectors = new ArrayList<>(texts.size());
+		try {
+			for (Future<List<float[]>> future : futures) {
+				vectors.addAll(future.get());
+			}
+		}
+		catch (InterruptedException ex) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while embedding " + texts.size() + " chunks", ex);
+		}
+		catch (ExecutionException ex) {
+			futures.forEach(future -> future.cancel(true));
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Embedding request failed: " + ex.getCause().getMessage(), ex.getCause());
+		}
+		return vectors;
+	}
+
+	List<Batch> partition(List<String> texts) {
+		int maxSize = Math.max(1, settings.getBatchSize());
+		int maxTokens = Math.max(1, settings.getMaxBatchTokens());
+		List<Batch> batches = new ArrayList<>();
+		List<String> current = new ArrayList<>();
+		int currentTokens = 0;
+		for (String text : texts) {
+			int tokens = textChunker.countTokens(text);
+			if (!current.isEmpty() && (current.size() >= maxSize || currentTokens + tokens > maxTokens)) {
+				batches.add(new Batch(current, currentTokens));
+				current = new ArrayList<>();
+				currentTokens = 0;
+			}
+			current.add(text);
+			currentTokens += tokens;
+		}
+		batches.add(new Batch(current, currentTokens));
+		return batches;
+	}
+
+	private List<float[]> embedBatch(Batch batch) throws InterruptedException {
+		permits.acquire();
+		long started = System.nanoTime();
+		try {
+			List<float[]> vectors = embeddingModel.embed(batch.texts());
+			if (vectors.size() != batch.texts().size()) {
+				throw new IllegalStateException("Embedding model returned " + vectors.size() + " vectors for "
+						+ batch.texts().size() + " texts");
+			}
+			return vectors;
+		}
+		finally {
+			permits.release();
+			long elapsed = System.nanoTime() - started;
+			recordBatch(batch, elapsed);
+			LOGGER.debug("Embedding batch of {} chunks ({} tokens) took {} ms", batch.texts().size(), batch.tokens(),
+					TimeUnit.NANOSECONDS.toMillis(elapsed));
+		}
+	}
+
+	private void recordBatch(Batch batch, long elapsedNanos) {
+		// Batches hold at most ingest.embedding.batch-size chunks, which bounds the tag's cardinality.
+		String size = String.valueOf(batch.texts().size());
+		Timer.builder("ingest.embedding.batch")
+			.description("Time one embedding request took, waiting for a concurrency slot excluded")
+			.tag("size", size)
+			.register(meterRegistry)
+			.record(elapsedNanos, TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("ingest.embedding.batch.tokens")
+			.description("Tokens sent to the embedding model per request")
+			.tag("size", size)
+			.register(meterRegistry)
+			.record(batch.tokens());
+	}
+
+	record Batch(List<String> texts, int tokens) {
+	}
+}
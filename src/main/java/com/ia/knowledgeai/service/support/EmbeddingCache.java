@@ -0,0 +1,66 @@
+package com.ia.knowledgeai.service.support;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.CachedEmbedding;
+import com.ia.knowledgeai.repository.EmbeddingCacheRepository;
+import com.ia.knowledgeai.repository.EmbeddingCacheWriter;
+
+/**
+ * Persistent lookup of vectors by (embedding model, chunk hash), so identical chunks are embedded only once.
+ */
+@Component
+public class EmbeddingCache {
+
+	private final EmbeddingCacheRepository embeddingCacheRepository;
+
+	private final EmbeddingCacheWriter embeddingCacheWriter;
+
+	private final IngestTransactions ingestTransactions;
+
+	private final IngestProperties.EmbeddingSettings settings;
+
+	public EmbeddingCache(EmbeddingCacheRepository embeddingCacheRepository, EmbeddingCacheWriter embeddingCacheWriter,
+			IngestTransactions ingestTransactions, IngestProperties ingestProperties) {
+		this.embeddingCacheRepository = embeddingCacheRepository;
+		this.embeddingCacheWriter = embeddingCacheWriter;
+		this.ingestTransactions = ingestTransactions;
+		this.settings = ingestProperties.getEmbedding();
+	}
+
+	/**
+	 * Returns the cached vectors for the given hashes; hashes without a cached vector are absent from the result.
+	 */
+	public Map<String, float[]> findAll(Collection<String> contentHashes) {
+		Map<String, float[]> vectors = new HashMap<>();
+		if (!settings.isCacheEnabled() || contentHashes.isEmpty()) {
+			return vectors;
+		}
+		for (CachedEmbedding cached : embeddingCacheRepository.findByModelAndContentHashIn(settings.getModel(),
+				contentHashes)) {
+			vectors.put(cached.getContentHash(), cached.getVector());
+		}
+		return vectors;
+	}
+
+	/**
+	 * Stores the vectors, keyed by chunk hash, in one statement and one transaction whose connection hold is reported
+	 * to {@code holdListener}.
+	 */
+	public void putAll(Map<String, float[]> vectors, Consumer<Duration> holdListener) {
+		if (!settings.isCacheEnabled() || vectors.isEmpty()) {
+			return;
+		}
+		Instant now = Instant.now();
+		ingestTransactions.executeWithoutResult(holdListener,
+				() -> embeddingCacheWriter.insertIfAbsent(settings.getModel(), vectors, now));
+	}
+}
@@ -0,0 +1,449 @@
+package com.ia.knowledgeai.service.support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.domain.support.ChunkWriter;
+import com.ia.knowledgeai.domain.support.ContentHash;
+import com.ia.knowledgeai.domain.support.DocumentParser;
+import com.ia.knowledgeai.domain.support.SimHash;
+import com.ia.knowledgeai.domain.support.TextChunker;
+import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.mapper.EmbeddingMapper;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
+import com.ia.knowledgeai.repository.DocumentRepository;
+import com.ia.knowledgeai.service.DocumentService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Staged ingestion pipeline: parse &rarr; embed &rarr; store.
+ * <p>
+ * Each stage is served by its own pool of workers and hands work to the next one through a bounded queue, so a slow
+ * stage blocks the stage in front of it instead of letting chunks pile up in memory. Work from different jobs is
+ * interleaved freely; every job tracks its own progress and is completed once all parsed chunks are stored.
+ */
+@Component
+public class IngestPipeline {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IngestPipeline.class);
+
+	private final DocumentRepository documentRepository;
+
+	private final DocumentService documentService;
+
+	private final ChunkBulkWriter chunkBulkWriter;
+
+	private final EmbeddingBatcher embeddingBatcher;
+
+	private final NearDuplicateDetector nearDuplicateDetector;
+
+	private final DocumentParser documentParser;
+
+	private final TextChunker textChunker;
+
+	private final EmbeddingMapper embeddingMapper;
+
+	private final IngestTransactions ingestTransactions;
+
+	private final IngestProperties ingestProperties;
+
+	private final BlockingQueue<Submission> submissions;
+
+	private final BlockingQueue<PendingChunk> parsedChunks;
+
+	private final BlockingQueue<EmbeddedChunk> embeddedChunks;
+
+	private final Map<UUID, IngestJob> jobs = new ConcurrentHashMap<>();
+
+	private final List<Thread> workers = new ArrayList<>();
+
+	public IngestPipeline(DocumentRepository documentRepository,
+			DocumentService documentService,
+			ChunkBulkWriter chunkBulkWriter,
+			EmbeddingBatcher embeddingBatcher,
+			NearDuplicateDetector nearDuplicateDetector,
+			DocumentParser documentParser,
+			TextChunker textChunker,
+			EmbeddingMapper embeddingMapper,
+			IngestTransactions ingestTransactions,
+			IngestProperties ingestProperties) {
+		this.documentRepository = documentRepository;
+		this.documentService = documentService;
+		this.chunkBulkWriter = chunkBulkWriter;
+		this.embeddingBatcher = embeddingBatcher;
+		this.nearDuplicateDetector = nearDuplicateDetector;
+		this.documentParser = documentParser;
+		this.textChunker = textChunker;
+		this.embeddingMapper = embeddingMapper;
+		this.ingestTransactions = ingestTransactions;
+		this.ingestProperties = ingestProperties;
+		IngestProperties.Async async = ingestProperties.getAsync();
+		this.submissions = new ArrayBlockingQueue<>(Math.max(1, async.getMaxQueuedJobs()));
+		this.parsedChunks = new ArrayBlockingQueue<>(Math.max(1, async.getQueueCapacity()));
+		this.embeddedChunks = new ArrayBlockingQueue<>(Math.max(1, async.getQueueCapacity()));
+	}
+
+	@PostConstruct
+	public void start() {
+		IngestProperties.Async async = ingestProperties.getAsync();
+		startWorkers("ingest-parse-", async.getParseWorkers(), this::runParseWorker);
+		startWorkers("ingest-embed-", async.getEmbedWorkers(), this::runEmbedWorker);
+		startWorkers("ingest-store-", async.getStoreWorkers(), this::runStoreWorker);
+		LOGGER.info("Started ingest pipeline with {} parse, {} embed and {} store workers", async.getParseWorkers(),
+				async.getEmbedWorkers(), async.getStoreWorkers());
+	}
+
+	@PreDestroy
+	public void stop() {
+		workers.forEach(Thread::interrupt);
+		workers.clear();
+	}
+
+	/**
+	 * Copies the upload to a temporary file and queues it; the request thread returns as soon as the job is queued.
+	 *
+	 * @throws RejectedExecutionException when the job queue is full
+	 */
+	public IngestJob submit(IngestRequest ingestRequest) {
+		evictFinishedJobs();
+		MultipartFile file = ingestRequest.getFile();
+		IngestJob job = new IngestJob(UUID.randomUUID(), Instant.now());
+		Path content = copyToTempFile(file);
+		Submission submission = new Submission(job, content, file.getOriginalFilename(), file.getContentType(),
+				ingestRequest.getSource(), ingestRequest.getTitle(), List.copyOf(ingestRequest.getTags()));
+		jobs.put(job.getId(), job);
+		if (!submissions.offer(submission)) {
+			jobs.remove(job.getId());
+			deleteQuietly(content);
+			throw new RejectedExecutionException("Ingest queue is full, retry later");
+		}
+		LOGGER.info("Queued ingest job {} for {}", job.getId(), file.getOriginalFilename());
+		return job;
+	}
+
+	public Optional<IngestJob> findJob(UUID jobId) {
+		return Optional.ofNullable(jobs.get(jobId));
+	}
+
+	private void startWorkers(String prefix, int count, Runnable loop) {
+		for (int i = 0; i < Math.max(1, count); i++) {
+			workers.add(Thread.ofPlatform().name(prefix + i).daemon().start(loop));
+		}
+	}
+
+	private void runParseWorker() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				parse(submissions.take());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void runEmbedWorker() {
+		int batchSize = Math.max(1, ingestProperties.getAsync().getStageBatchSize());
+		List<PendingChunk> batch = new ArrayList<>(batchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				batch.add(parsedChunks.take());
+				parsedChunks.drainTo(batch, batchSize - 1);
+				embed(batch);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void runStoreWorker() {
+		int batchSize = Math.max(1, ingestProperties.getAsync().getStageBatchSize());
+		List<EmbeddedChunk> batch = new ArrayList<>(batchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				batch.add(embeddedChunks.take());
+				embeddedChunks.drainTo(batch, batchSize - 1);
+				store(batch);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void parse(Submission submission) {
+		IngestJob job = submission.job();
+		try {
+			Document document = ingestTransactions.execute(job::recordConnectionHold,
+					() -> documentRepository.save(new Document(UUID.randomUUID(), submission.source(),
+							submission.title(), submission.tags(), Instant.now())));
+			job.start(document.getId());
+			ChunkFeeder feeder = new ChunkFeeder(job, document);
+			// Parsed from the spooled file, so parsers needing random access read it in place.
+			try (ChunkWriter writer = feeder.getWriter()) {
+				parseInto(submission.content(), submission.filename(), submission.contentType(), writer);
+			}
+			feeder.validateLength();
+			String contentHash = ContentHash.of(submission.content());
+			ingestTransactions.executeWithoutResult(job::recordConnectionHold,
+					() -> documentRepository.updateContentHash(document.getId(), contentHash));
+			job.markParseCompleted();
+			completeIfDone(job);
+		}
+		catch (IOException | RuntimeException ex) {
+			fail(job, ex);
+		}
+		finally {
+			deleteQuietly(submission.content());
+		}
+	}
+
+	private void parseInto(Path content, String filename, String contentType, ChunkWriter writer) {
+		if (ingestProperties.getChunking() == IngestProperties.Chunking.STRUCTURE) {
+			documentParser.parseBlocks(content, filename, contentType, writer);
+		}
+		else {
+			documentParser.parse(content, filename, contentType, writer);
+		}
+	}
+
+	private ChunkWriter openWriter(Consumer<String> chunkConsumer) {
+		int chunkSize = ingestProperties.getChunkSize();
+		int chunkOverlap = ingestProperties.getChunkOverlap();
+		if (ingestProperties.getChunking() == IngestProperties.Chunking.STRUCTURE) {
+			return textChunker.blockWriter(chunkSize, chunkOverlap, chunkConsumer);
+		}
+		return textChunker.writer(chunkSize, chunkOverlap, chunkConsumer);
+	}
+
+	private void embed(List<PendingChunk> batch) throws InterruptedException {
+		List<PendingChunk> live = batch.stream().filter(chunk -> !chunk.job().isFailed()).toList();
+		if (live.isEmpty()) {
+			return;
+		}
+		NearDuplicateDetector.Screening screening;
+		List<float[]> vectors;
+		try {
+			screening = nearDuplicateDetector.screen(live.stream().map(chunk -> SimHash.of(chunk.text())).toList(),
+					live.stream().map(chunk -> chunk.document().getId()).toList());
+			List<IngestJob> jobs = live.stream().map(PendingChunk::job).distinct().toList();
+			// The cache write serves every job in the batch, so each one is charged its share of the hold.
+			Consumer<Duration> holdListener = held -> jobs
+				.forEach(job -> job.recordConnectionHold(held.dividedBy(jobs.size())));
+			vectors = screening.vectors(live.stream().map(PendingChunk::text).toList(),
+					texts -> embeddingBatcher.embed(texts, holdListener));
+		}
+		catch (RuntimeException ex) {
+			live.stream().map(PendingChunk::job).distinct().forEach(job -> fail(job, ex));
+			return;
+		}
+		for (int i = 0; i < live.size(); i++) {
+			PendingChunk chunk = live.get(i);
+			chunk.job().recordEmbedded(1);
+			embeddedChunks.put(new EmbeddedChunk(chunk, vectors.get(i), screening.duplicateOf(i)));
+		}
+	}
+
+	private void store(List<EmbeddedChunk> batch) {
+		Map<IngestJob, List<EmbeddedChunk>> byJob = new LinkedHashMap<>();
+		for (EmbeddedChunk chunk : batch) {
+			byJob.computeIfAbsent(chunk.pending().job(), key -> new ArrayList<>()).add(chunk);
+		}
+		byJob.forEach((job, chunks) -> {
+			try {
+				// Holding the job monitor while writing keeps fail() from discarding rows mid-write.
+				synchronized (job) {
+					if (job.isFailed()) {
+						return;
+					}
+					ingestTransactions.executeWithoutResult(job::recordConnectionHold, () -> write(chunks));
+				}
+				job.recordStored(chunks.size());
+				completeIfDone(job);
+			}
+			catch (RuntimeException ex) {
+				fail(job, ex);
+			}
+		});
+	}
+
+	private void write(List<EmbeddedChunk> chunks) {
+		List<Chunk> entities = new ArrayList<>(chunks.size());
+		List<Embedding> embeddings = new ArrayList<>(chunks.size());
+		for (EmbeddedChunk embedded : chunks) {
+			PendingChunk pending = embedded.pending();
+			Chunk chunk = new Chunk(UUID.randomUUID(), pending.document(), pending.index(), pending.text(),
+					pending.pages());
+			chunk.markDuplicateOf(embedded.duplicateOf());
+			entities.add(chunk);
+			if (embedded.vector() != null) {
+				embeddings.add(embeddingMapper.toEmbedding(pending.document(), chunk, embedded.vector()));
+			}
+		}
+		chunkBulkWriter.write(entities, embeddings);
+	}
+
+	/**
+	 * Marks the document ready once its last chunk is stored, then completes the job. Both the parse and the store
+	 * stage may get here for the same job; marking ready twice is harmless and only one of them completes the job.
+	 */
+	private void completeIfDone(IngestJob job) {
+		if (!job.isDone()) {
+			return;
+		}
+		ingestTransactions.executeWithoutResult(job::recordConnectionHold,
+				() -> documentService.markReady(job.getDocumentId()));
+		if (job.completeIfDone()) {
+			ingestTransactions.recordHold(IngestTransactions.MODE_ASYNC, job.getConnectionHold());
+			LOGGER.info("Ingest job {} completed with {} chunks for document {}, connection held {} ms", job.getId(),
+					job.getChunksStored(), job.getDocumentId(), job.getConnectionHold().toMillis());
+		}
+	}
+
+	private void fail(IngestJob job, Exception ex) {
+		synchronized (job) {
+			if (!job.fail(ex.getMessage())) {
+				return;
+			}
+		}
+		LOGGER.error("Ingest job {} failed: {}", job.getId(), ex.getMessage(), ex);
+		discard(job);
+		ingestTransactions.recordHold(IngestTransactions.MODE_ASYNC, job.getConnectionHold());
+	}
+
+	/**
+	 * Removes whatever a failed job already committed so a failure never leaves a partially indexed document.
+	 */
+	private void discard(IngestJob job) {
+		UUID documentId = job.getDocumentId();
+		if (documentId == null) {
+			return;
+		}
+		try {
+			documentService.delete(documentId, job::recordConnectionHold);
+		}
+		catch (RuntimeException ex) {
+			LOGGER.error("Unable to discard partial data of document {} for job {}", documentId, job.getId(), ex);
+		}
+	}
+
+	private void evictFinishedJobs() {
+		Instant cutoff = Instant.now().minus(ingestProperties.getAsync().getJobRetention());
+		jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+	}
+
+	private Path copyToTempFile(MultipartFile file) {
+		try {
+			Path target = Files.createTempFile("ingest-", ".upload");
+			file.transferTo(target);
+			return target;
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to buffer upload " + file.getOriginalFilename(), ex);
+		}
+	}
+
+	private void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		}
+		catch (IOException ex) {
+			LOGGER.warn("Unable to delete temporary upload {}", path, ex);
+		}
+	}
+
+	/**
+	 * Feeds chunks from the streaming chunker into the parsed-chunk queue, blocking when the embed stage lags.
+	 */
+	private final class ChunkFeeder implements Consumer<String> {
+
+		private final IngestJob job;
+
+		private final Document document;
+
+		private final ChunkWriter writer;
+
+		private ChunkFeeder(IngestJob job, Document document) {
+			this.job = job;
+			this.document = document;
+			this.writer = openWriter(this);
+		}
+
+		@Override
+		public void accept(String text) {
+			validateLength();
+			if (job.isFailed()) {
+				throw new IllegalArgumentException("Ingest job " + job.getId() + " was aborted");
+			}
+			if (text == null || text.isBlank()) {
+				return;
+			}
+			int index = job.recordParsed() - 1;
+			try {
+				parsedChunks.put(new PendingChunk(job, document, index, text, writer.getChunkPages()));
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while queueing chunks for job " + job.getId(), ex);
+			}
+		}
+
+		private void validateLength() {
+			if (writer.getCharacterCount() > ingestProperties.getMaxTextLength()) {
+				throw new IllegalArgumentException(
+						"Content exceeds maximum length of " + ingestProperties.getMaxTextLength());
+			}
+		}
+
+		private ChunkWriter getWriter() {
+			return writer;
+		}
+	}
+
+	private record Submission(IngestJob job, Path content, String filename, String contentType, String source,
+			String title, List<String> tags) {
+	}
+
+	private record PendingChunk(IngestJob job, Document document, int index, String text, PageRange pages) {
+	}
+
+	/**
+	 * A chunk ready to be stored; {@code vector} is {@code null} when the duplicate policy leaves it unindexed.
+	 */
+	private record EmbeddedChunk(PendingChunk pending, float[] vector, UUID duplicateOf) {
+	}
+}
@@ -0,0 +1,60 @@
+package com.ia.knowledgeai.service.support;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.repository.DocumentRepository;
+import com.ia.knowledgeai.service.DocumentService;
+
+/**
+ * Cleans up after ingests that died mid-way.
+ * <p>
+ * An ingest commits its chunks in several short transactions and only marks the document {@code READY} at the end. A
+ * failure inside the application discards the partial document right away; a crash leaves it {@code INGESTING}, and
+ * those documents are deleted here once they are older than {@code ingest.stale-ingest-after}. The sweep runs at
+ * startup and then every {@code ingest.stale-ingest-sweep-interval}, so an instance that outlives a crashed peer
+ * still cleans up after it.
+ */
+@Component
+public class IngestRecovery {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IngestRecovery.class);
+
+	private final DocumentRepository documentRepository;
+
+	private final DocumentService documentService;
+
+	private final IngestProperties ingestProperties;
+
+	public IngestRecovery(DocumentRepository documentRepository, DocumentService documentService,
+			IngestProperties ingestProperties) {
+		this.documentRepository = documentRepository;
+		this.documentService = documentService;
+		this.ingestProperties = ingestProperties;
+	}
+
+	@Scheduled(fixedDelayString = "${ingest.stale-ingest-sweep-interval:10m}")
+	public void discardAbandonedIngests() {
+		Instant cutoff = Instant.now().minus(ingestProperties.getStaleIngestAfter());
+		List<UUID> abandoned = documentRepository.findIdsByStatusCreatedBefore(Document.Status.INGESTING, cutoff);
+		for (UUID documentId : abandoned) {
+			try {
+				documentService.delete(documentId);
+			}
+			catch (RuntimeException ex) {
+				LOGGER.error("Unable to discard abandoned ingest of document {}", documentId, ex);
+			}
+		}
+		if (!abandoned.isEmpty()) {
+			LOGGER.warn("Discarded {} documents left incomplete by an interrupted ingest", abandoned.size());
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.ia.knowledgeai.service.support;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs the short write transactions of an ingest and measures how long each one holds its connection.
+ * <p>
+ * Parsing and embedding happen outside of these transactions, so the time reported here is the only time an ingest
+ * occupies a pooled connection. Each ingest reports its total through {@link #recordHold}, published as the
+ * {@code ingest.connection.hold} timer tagged with the ingest mode.
+ */
+@Component
+public class IngestTransactions {
+
+	public static final String MODE_SYNC = "sync";
+
+	public static final String MODE_ASYNC = "async";
+
+	public static final String MODE_UPDATE = "update";
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final MeterRegistry meterRegistry;
+
+	public IngestTransactions(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.meterRegistry = meterRegistry;
+	}
+
+	public <T> T execute(Consumer<Duration> holdListener, Supplier<T> action) {
+		long started = System.nanoTime();
+		try {
+			return transactionTemplate.execute(status -> action.get());
+		}
+		finally {
+			holdListener.accept(Duration.ofNanos(System.nanoTime() - started));
+		}
+	}
+
+	public void executeWithoutResult(Consumer<Duration> holdListener, Runnable action) {
+		execute(holdListener, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	public void recordHold(String mode, Duration held) {
+		Timer.builder("ingest.connection.hold")
+			.description("Time one ingest held a database connection, summed over its transactions")
+			.tag("mode", mode)
+			.register(meterRegistry)
+			.record(held);
+	}
+}
@@ -0,0 +1,101 @@
+package com.ia.knowledgeai.service.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.repository.ChunkSignatureRepository;
+
+/**
+ * Applies {@code ingest.near-duplicates} to a batch of chunks about to be embedded: finds, in one lookup, the stored
+ * chunks of other documents they nearly duplicate and decides which of them still need an embedding.
+ */
+@Component
+public class NearDuplicateDetector {
+
+	private final ChunkSignatureRepository chunkSignatureRepository;
+
+	private final IngestProperties.NearDuplicates settings;
+
+	public NearDuplicateDetector(ChunkSignatureRepository chunkSignatureRepository,
+			IngestProperties ingestProperties) {
+		this.chunkSignatureRepository = chunkSignatureRepository;
+		this.settings = ingestProperties.getNearDuplicates();
+	}
+
+	/**
+	 * Screens chunks whose signatures and documents are given position by position.
+	 */
+	public Screening screen(List<Long> signatures, List<UUID> documentIds) {
+		IngestProperties.DuplicatePolicy policy = settings.getPolicy();
+		if (policy == IngestProperties.DuplicatePolicy.OFF || signatures.isEmpty()) {
+			return new Screening(policy, Collections.nCopies(signatures.size(), null));
+		}
+		boolean withVectors = policy == IngestProperties.DuplicatePolicy.LINK;
+		return new Screening(policy, chunkSignatureRepository.findNearest(signatures, documentIds,
+				settings.getMaxDistance(), withVectors));
+	}
+
+	/**
+	 * Screens chunks that all belong to one document.
+	 */
+	public Screening screen(List<Long> signatures, UUID documentId) {
+		return screen(signatures, Collections.nCopies(signatures.size(), documentId));
+	}
+
+	/**
+	 * Outcome of a screening, position by position.
+	 */
+	public static final class Screening {
+
+		private final IngestProperties.DuplicatePolicy policy;
+
+		private final List<ChunkSignatureRepository.Match> matches;
+
+		private Screening(IngestProperties.DuplicatePolicy policy, List<ChunkSignatureRepository.Match> matches) {
+			this.policy = policy;
+			this.matches = matches;
+		}
+
+		/**
+		 * The stored chunk the chunk at {@code position} nearly duplicates, or {@code null}.
+		 */
+		public UUID duplicateOf(int position) {
+			ChunkSignatureRepository.Match match = matches.get(position);
+			return match != null ? match.chunkId() : null;
+		}
+
+		/**
+		 * The vector of every chunk: reused from the duplicated chunk under {@code LINK}, {@code null} for chunks that
+		 * are not indexed under {@code SKIP}, otherwise embedded with a single call to {@code embedder}.
+		 */
+		public List<float[]> vectors(List<String> texts, Function<List<String>, List<float[]>> embedder) {
+			float[][] vectors = new float[texts.size()][];
+			List<Integer> positions = new ArrayList<>(texts.size());
+			List<String> toEmbed = new ArrayList<>(texts.size());
+			for (int i = 0; i < texts.size(); i++) {
+				ChunkSignatureRepository.Match match = matches.get(i);
+				if (match == null || policy == IngestProperties.DuplicatePolicy.DOWN_WEIGHT) {
+					positions.add(i);
+					toEmbed.add(texts.get(i));
+				}
+				else if (policy == IngestProperties.DuplicatePolicy.LINK) {
+					vectors[i] = match.vector();
+				}
+			}
+			if (!toEmbed.isEmpty()) {
+				List<float[]> embedded = embedder.apply(toEmbed);
+				for (int i = 0; i < positions.size(); i++) {
+					vectors[positions.get(i)] = embedded.get(i);
+				}
+			}
+			return Arrays.asList(vectors);
+		}
+	}
+}
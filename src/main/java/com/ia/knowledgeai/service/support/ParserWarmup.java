@@ -0,0 +1,99 @@
+package com.ia.knowledgeai.service.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.support.DocumentParser;
+
+/**
+ * Parses a tiny generated document of each allowed content type at startup, so the class loading and initialisation
+ * of the Tika parsers (and the child JVMs of the forked mode) is not paid by the first upload.
+ */
+@Component
+public class ParserWarmup {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParserWarmup.class);
+
+	private static final String SAMPLE_TEXT = "Knowledge AI parser warm-up";
+
+	private final DocumentParser documentParser;
+
+	private final IngestProperties ingestProperties;
+
+	public ParserWarmup(DocumentParser documentParser, IngestProperties ingestProperties) {
+		this.documentParser = documentParser;
+		this.ingestProperties = ingestProperties;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		if (!ingestProperties.getParser().isWarmUp()) {
+			return;
+		}
+		for (String contentType : ingestProperties.getAllowedContentTypes()) {
+			long started = System.nanoTime();
+			try {
+				Optional<byte[]> sample = sample(contentType);
+				if (sample.isEmpty()) {
+					LOGGER.debug("No warm-up sample for content type {}", contentType);
+					continue;
+				}
+				documentParser.parse(new ByteArrayInputStream(sample.get()), "warm-up", contentType,
+						Writer.nullWriter());
+				LOGGER.info("Warmed up parser for {} in {} ms", contentType, (System.nanoTime() - started) / 1_000_000);
+			}
+			catch (IOException | RuntimeException ex) {
+				LOGGER.warn("Unable to warm up parser for {}", contentType, ex);
+			}
+		}
+	}
+
+	static Optional<byte[]> sample(String contentType) throws IOException {
+		return switch (contentType) {
+			case "application/pdf" -> Optional.of(pdf());
+			case "application/vnd.openxmlformats-officedocument.wordprocessingml.document" -> Optional.of(docx());
+			case "text/plain" -> Optional.of(SAMPLE_TEXT.getBytes(StandardCharsets.UTF_8));
+			default -> Optional.empty();
+		};
+	}
+
+	private static byte[] pdf() throws IOException {
+		try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			PDPage page = new PDPage();
+			document.addPage(page);
+			try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+				content.beginText();
+				content.setFont(PDType1Font.HELVETICA, 12);
+				content.newLineAtOffset(72, 700);
+				content.showText(SAMPLE_TEXT);
+				content.endText();
+			}
+			document.save(out);
+			return out.toByteArray();
+		}
+	}
+
+	private static byte[] docx() throws IOException {
+		try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			document.createParagraph().createRun().setText(SAMPLE_TEXT);
+			document.write(out);
+			return out.toByteArray();
+		}
+	}
+}
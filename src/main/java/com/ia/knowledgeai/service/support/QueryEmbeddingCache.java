@@ -0,0 +1,104 @@
+package com.ia.knowledgeai.service.support;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.config.QueryProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-process cache of query embeddings keyed by embedding model and normalized query text, so repeated questions skip
+ * the embedding round-trip. Entries expire after {@code query.embedding-cache.ttl} and the least recently used entry is
+ * evicted beyond {@code max-entries}. Concurrent misses on the same text may each embed it once. Callers get their own
+ * copy of the vector, so the cached one cannot be altered through them.
+ */
+@Component
+public class QueryEmbeddingCache {
+
+	private final EmbeddingModel embeddingModel;
+
+	private final QueryProperties.CacheSettings settings;
+
+	private final String model;
+
+	private final Map<String, Entry> entries;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	public QueryEmbeddingCache(EmbeddingModel embeddingModel, QueryProperties queryProperties,
+			IngestProperties ingestProperties, MeterRegistry meterRegistry) {
+		this.embeddingModel = embeddingModel;
+		this.settings = queryProperties.getEmbeddingCache();
+		this.model = ingestProperties.getEmbedding().getModel();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > settings.getMaxEntries();
+			}
+		};
+		this.hits = counter(meterRegistry, "hit");
+		this.misses = counter(meterRegistry, "miss");
+		Gauge.builder("query.embedding.cache.size", this, QueryEmbeddingCache::size)
+			.description("Query embeddings held in memory")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Returns the embedding of {@code query}, from the cache when a live entry exists.
+	 */
+	public float[] embed(String query) {
+		if (!settings.isEnabled() || settings.getMaxEntries() <= 0) {
+			return embeddingModel.embed(query);
+		}
+		String key = model + '\n' + normalize(query);
+		long now = System.nanoTime();
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && now - entry.expiresAt() < 0) {
+				hits.increment();
+				return entry.vector().clone();
+			}
+		}
+		misses.increment();
+		float[] vector = embeddingModel.embed(query);
+		synchronized (entries) {
+			entries.put(key, new Entry(vector.clone(), now + settings.getTtl().toNanos()));
+		}
+		return vector;
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * NFKC-normalized text with runs of whitespace collapsed, so questions differing only in spacing or Unicode form
+	 * share an entry. Case is kept: the model embeds acronyms, identifiers and names differently by case.
+	 */
+	static String normalize(String query) {
+		return Normalizer.normalize(query, Normalizer.Form.NFKC).strip().replaceAll("\\s+", " ");
+	}
+
+	private static Counter counter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("query.embedding.cache")
+			.description("Query embedding lookups by outcome")
+			.tag("result", result)
+			.register(meterRegistry);
+	}
+
+	private record Entry(float[] vector, long expiresAt) {
+	}
+}
@@ -0,0 +1,161 @@
+package com.ia.knowledgeai.service.support;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.ia.knowledgeai.config.QueryProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-process cache of retrieval results keyed by the normalized request.
+ * <p>
+ * Every source has a generation counter, and so has the whole store. An entry records the generation of its scope,
+ * read before the search ran: the source's when the request names one, the store's otherwise. Writes bump the
+ * generation of the source they touch and the store's once their transaction commits, so an entry computed before a
+ * commit never matches the generation after it. The TTL bounds staleness from writes made outside the application.
+ */
+@Component
+public class RetrievalCache {
+
+	private final QueryProperties.CacheSettings settings;
+
+	private final AtomicLong storeGeneration = new AtomicLong();
+
+	private final Map<String, AtomicLong> sourceGenerations = new ConcurrentHashMap<>();
+
+	private final Map<Key, Entry> entries;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	public RetrievalCache(QueryProperties queryProperties, MeterRegistry meterRegistry) {
+		this.settings = queryProperties.getResultCache();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > settings.getMaxEntries();
+			}
+		};
+		this.hits = counter(meterRegistry, "hit");
+		this.misses = counter(meterRegistry, "miss");
+		Gauge.builder("query.retrieval.cache.size", this, RetrievalCache::size)
+			.description("Retrieval results held in memory")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Returns the cached results of {@code key} when they are still current, or runs {@code search} and caches its
+	 * results.
+	 */
+	public List<Document> get(Key key, Supplier<List<Document>> search) {
+		if (!settings.isEnabled() || settings.getMaxEntries() <= 0) {
+			return search.get();
+		}
+		long generation = generation(key.source());
+		long now = System.nanoTime();
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.generation() == generation && now - entry.expiresAt() < 0) {
+				hits.increment();
+				return entry.documents();
+			}
+		}
+		misses.increment();
+		List<Document> documents = List.copyOf(search.get());
+		synchronized (entries) {
+			entries.put(key, new Entry(documents, generation, now + settings.getTtl().toNanos()));
+		}
+		return documents;
+	}
+
+	/**
+	 * Invalidates the results over {@code source}, and those of unscoped requests, after the current transaction
+	 * commits, or right away outside a transaction.
+	 */
+	public void invalidate(String source) {
+		afterCommit(() -> {
+			generationOf(source).incrementAndGet();
+			storeGeneration.incrementAndGet();
+		});
+	}
+
+	/**
+	 * Invalidates the results over each of {@code sources}; see {@link #invalidate(String)}.
+	 */
+	public void invalidate(Collection<String> sources) {
+		sources.forEach(this::invalidate);
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private long generation(String source) {
+		return source != null ? generationOf(source).get() : storeGeneration.get();
+	}
+
+	private AtomicLong generationOf(String source) {
+		return sourceGenerations.computeIfAbsent(source != null ? source : "", unused -> new AtomicLong());
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private static Counter counter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("query.retrieval.cache")
+			.description("Retrieval result lookups by outcome")
+			.tag("result", result)
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Retrieval request after defaults and limits are applied; build it with {@link #of}.
+	 */
+	public record Key(String query, int topK, double similarityThreshold, Integer searchEffort, String source,
+			List<String> tags, UUID documentId) {
+
+		/**
+		 * Key with the query text normalized like {@link QueryEmbeddingCache} does and the tags sorted, so requests
+		 * that retrieve the same documents share an entry.
+		 */
+		public static Key of(String query, int topK, double similarityThreshold, Integer searchEffort, String source,
+				Collection<String> tags, UUID documentId) {
+			List<String> sortedTags = tags != null ? tags.stream().distinct().sorted().toList() : List.of();
+			return new Key(QueryEmbeddingCache.normalize(query), topK, similarityThreshold, searchEffort,
+					StringUtils.hasText(source) ? source : null, sortedTags, documentId);
+		}
+	}
+
+	private record Entry(List<Document> documents, long generation, long expiresAt) {
+	}
+}
@@ -0,0 +1,86 @@
+package com.ia.knowledgeai.service.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * {@link MultipartFile} backed by a file on disk, used for uploads that do not arrive as multipart parts such as
+ * entries of an archive or files of a watched directory. The caller owns the file.
+ */
+public class SpooledUpload implements MultipartFile {
+
+	private final String name;
+
+	private final String originalFilename;
+
+	private final String contentType;
+
+	private final Path path;
+
+	public SpooledUpload(String name, String originalFilename, String contentType, Path path) {
+		this.name = name;
+		this.originalFilename = originalFilename;
+		this.contentType = contentType;
+		this.path = path;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getOriginalFilename() {
+		return originalFilename;
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	@Override
+	public long getSize() {
+		try {
+			return Files.size(path);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to read size of " + originalFilename, ex);
+		}
+	}
+
+	@Override
+	public byte[] getBytes() throws IOException {
+		return Files.readAllBytes(path);
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return Files.newInputStream(path);
+	}
+
+	@Override
+	public void transferTo(File dest) throws IOException {
+		transferTo(dest.toPath());
+	}
+
+	@Override
+	public void transferTo(Path dest) throws IOException {
+		Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+}
@@ -0,0 +1,129 @@
+package com.ia.knowledgeai.controller;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ia.knowledgeai.controller.impl.DocumentControllerImpl;
+import com.ia.knowledgeai.dto.request.DocumentFilterRequest;
+import com.ia.knowledgeai.dto.response.DocumentPageResponse;
+import com.ia.knowledgeai.dto.response.DocumentResponse;
+import com.ia.knowledgeai.dto.response.DocumentUpdateResponse;
+import com.ia.knowledgeai.service.DocumentService;
+import com.ia.knowledgeai.service.IngestService;
+
+@WebMvcTest(controllers = DocumentControllerImpl.class)
+@Import(GlobalExceptionHandler.class)
+class DocumentControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private DocumentService documentService;
+
+	@MockBean
+	private IngestService ingestService;
+
+	private final MockMultipartFile file = new MockMultipartFile("file", "manual.pdf", "application/pdf",
+			"revision".getBytes());
+
+	@Test
+	void shouldListDocumentsFilteredBySource() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		DocumentResponse document = new DocumentResponse(documentId, "wiki", "Title", List.of("tag"), "READY", null,
+				Instant.now());
+		when(documentService.list(new DocumentFilterRequest("wiki", null), 0, 20))
+				.thenReturn(new DocumentPageResponse(List.of(document), 0, 20, 1, 1));
+
+		mockMvc.perform(get("/api/v1/documents").param("source", "wiki"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.documents[0].id").value(documentId.toString()))
+				.andExpect(jsonPath("$.totalElements", is(1)));
+	}
+
+	@Test
+	void shouldReturnNotFoundForUnknownDocumentOnGet() throws Exception {
+		when(documentService.find(any())).thenReturn(Optional.empty());
+
+		mockMvc.perform(get("/api/v1/documents/" + UUID.randomUUID()))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void shouldDeleteDocument() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		when(documentService.delete(documentId)).thenReturn(true);
+
+		mockMvc.perform(delete("/api/v1/documents/" + documentId))
+				.andExpect(status().isNoContent());
+	}
+
+	@Test
+	void shouldDeleteDocumentsOfTag() throws Exception {
+		when(documentService.deleteMatching(new DocumentFilterRequest(null, "obsolete"))).thenReturn(1200);
+
+		mockMvc.perform(delete("/api/v1/documents").param("tag", "obsolete"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.documentsDeleted", is(1200)));
+	}
+
+	@Test
+	void shouldRejectBulkDeleteWithoutFilter() throws Exception {
+		when(documentService.deleteMatching(new DocumentFilterRequest(null, null)))
+				.thenThrow(new IllegalArgumentException("A source or tag is required to delete documents"));
+
+		mockMvc.perform(delete("/api/v1/documents"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void shouldUpdateDocument() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		when(ingestService.update(eq(documentId), any()))
+				.thenReturn(Optional.of(new DocumentUpdateResponse(documentId, 120, 3, 117, 2, "UPDATED")));
+
+		mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/documents/" + documentId).file(file))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.documentId").value(documentId.toString()))
+				.andExpect(jsonPath("$.chunksEmbedded", is(3)))
+				.andExpect(jsonPath("$.status", is("UPDATED")));
+	}
+
+	@Test
+	void shouldReturnNotFoundForUnknownDocument() throws Exception {
+		when(ingestService.update(any(), any())).thenReturn(Optional.empty());
+
+		mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/documents/" + UUID.randomUUID()).file(file))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void shouldReturnConflictWhenDocumentChangedConcurrently() throws Exception {
+		when(ingestService.update(any(), any())).thenThrow(new OptimisticLockingFailureException("modified"));
+
+		mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/documents/" + UUID.randomUUID()).file(file))
+				.andExpect(status().isConflict());
+	}
+}
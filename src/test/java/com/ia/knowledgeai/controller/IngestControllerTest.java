@@ -1,13 +1,25 @@
 package com.ia.knowledgeai.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,14 +28,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 
 import com.ia.knowledgeai.controller.impl.IngestControllerImpl;
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.dto.response.BulkIngestItemResponse;
 import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.mapper.IngestJobMapper;
+import com.ia.knowledgeai.service.BulkIngestService;
 import com.ia.knowledgeai.service.IngestService;
 
 @WebMvcTest(controllers = IngestControllerImpl.class)
-@Import(GlobalExceptionHandler.class)
+@Import({ IngestJobMapper.class, GlobalExceptionHandler.class })
 class IngestControllerTest {
 
 	@Autowired
@@ -32,6 +51,9 @@ class IngestControllerTest {
 	@MockBean
 	private IngestService ingestService;
 
+	@MockBean
+	private BulkIngestService bulkIngestService;
+
 	@BeforeEach
 	void setup() {
 		org.mockito.MockitoAnnotations.openMocks(this);
@@ -73,4 +95,89 @@ class IngestControllerTest {
 				.param("title", "title"))
 				.andExpect(status().isBadRequest());
 	}
+
+	@Test
+	void shouldAcceptAsyncJob() throws Exception {
+		IngestJob job = new IngestJob(UUID.randomUUID(), Instant.now());
+		when(ingestService.submit(any())).thenReturn(job);
+
+		MockMultipartFile file = new MockMultipartFile(
+				"file",
+				"sample.pdf",
+				"application/pdf",
+				"dummy content".getBytes());
+
+		mockMvc.perform(multipart("/api/v1/documents/ingest/jobs")
+				.file(file)
+				.param("source", "source")
+				.param("title", "title"))
+				.andExpect(status().isAccepted())
+				.andExpect(header().string("Location", "/api/v1/documents/ingest/jobs/" + job.getId()))
+				.andExpect(jsonPath("$.jobId").value(job.getId().toString()))
+				.andExpect(jsonPath("$.status", is("QUEUED")));
+	}
+
+	@Test
+	void shouldReturnNotFoundForUnknownJob() throws Exception {
+		when(ingestService.findJob(any())).thenReturn(Optional.empty());
+
+		mockMvc.perform(get("/api/v1/documents/ingest/jobs/" + UUID.randomUUID()))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void shouldStreamBulkResultsAsNdjson() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		doAnswer(invocation -> {
+			Consumer<BulkIngestItemResponse> results = invocation.getArgument(1);
+			results.accept(new BulkIngestItemResponse("a.pdf", "INGESTED", documentId, 2, 20, null));
+			results.accept(new BulkIngestItemResponse("b.txt", "FAILED", null, 0, 0, "Unsupported content type"));
+			return null;
+		}).when(bulkIngestService).ingest(any(), any());
+
+		MvcResult result = mockMvc.perform(multipart("/api/v1/documents/ingest/bulk")
+				.file(new MockMultipartFile("files", "a.pdf", "application/pdf", "a".getBytes()))
+				.file(new MockMultipartFile("files", "b.txt", "text/plain", "b".getBytes()))
+				.param("source", "source"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/x-ndjson"))
+				.andExpect(content().string(
+						"{\"filename\":\"a.pdf\",\"status\":\"INGESTED\",\"documentId\":\"" + documentId
+								+ "\",\"chunksProcessed\":2,\"tokensCount\":20,\"error\":null}\n"
+								+ "{\"filename\":\"b.txt\",\"status\":\"FAILED\",\"documentId\":null,"
+								+ "\"chunksProcessed\":0,\"tokensCount\":0,\"error\":\"Unsupported content type\"}\n"));
+	}
+
+	@Test
+	void shouldKeepStreamingBulkResultsPastTheContainerAsyncTimeout() throws Exception {
+		long containerTimeout = new MockAsyncContext(new MockHttpServletRequest(), null).getTimeout();
+		doAnswer(invocation -> {
+			Consumer<BulkIngestItemResponse> results = invocation.getArgument(1);
+			Thread.sleep(containerTimeout + 500);
+			results.accept(new BulkIngestItemResponse("a.pdf", "INGESTED", UUID.randomUUID(), 2, 20, null));
+			return null;
+		}).when(bulkIngestService).ingest(any(), any());
+
+		MvcResult result = mockMvc.perform(multipart("/api/v1/documents/ingest/bulk")
+				.file(new MockMultipartFile("files", "a.pdf", "application/pdf", "a".getBytes()))
+				.param("source", "source"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(2).toMillis());
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("\"filename\":\"a.pdf\"")));
+	}
+
+	@Test
+	void shouldRejectBulkRequestWithoutFiles() throws Exception {
+		mockMvc.perform(multipart("/api/v1/documents/ingest/bulk")
+				.param("source", "source"))
+				.andExpect(status().isBadRequest());
+	}
 }
@@ -35,8 +35,13 @@ import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.mockito.Mockito;
+import com.ia.knowledgeai.config.IngestProperties;
 import com.ia.knowledgeai.config.QueryProperties;
 import com.ia.knowledgeai.config.RagProperties;
+import com.ia.knowledgeai.repository.LexicalSearchRepository;
+import com.ia.knowledgeai.service.support.RetrievalCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @WebMvcTest(controllers = QueryControllerImpl.class)
 @Import({ QueryMapper.class, QueryServiceImpl.class, GlobalExceptionHandler.class })
@@ -63,7 +68,7 @@ class QueryControllerIntegrationTest {
 				"score", 0.75));
 		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(doc));
 
-		QueryRequest request = new QueryRequest("query content", 2, 0.5, "wiki", List.of("tag1"), null, null);
+		QueryRequest request = new QueryRequest("query content", 2, 0.5, "wiki", List.of("tag1"), null, null, null);
 
 		mockMvc.perform(post("/api/v1/query")
 				.contentType(MediaType.APPLICATION_JSON)
@@ -78,7 +83,7 @@ class QueryControllerIntegrationTest {
 	void shouldHandleNoResultsGracefully() throws Exception {
 		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
 
-		QueryRequest request = new QueryRequest("no match", null, null, null, null, null, null);
+		QueryRequest request = new QueryRequest("no match", null, null, null, null, null, null, null);
 
 		mockMvc.perform(post("/api/v1/query")
 				.contentType(MediaType.APPLICATION_JSON)
@@ -95,11 +100,26 @@ class QueryControllerIntegrationTest {
 			return Mockito.mock(VectorStore.class);
 		}
 
+		@Bean
+		IngestProperties ingestProperties() {
+			return new IngestProperties();
+		}
+
 		@Bean
 		QueryProperties queryProperties() {
 			return new QueryProperties();
 		}
 
+		@Bean
+		RetrievalCache retrievalCache(QueryProperties queryProperties) {
+			return new RetrievalCache(queryProperties, new SimpleMeterRegistry());
+		}
+
+		@Bean
+		LexicalSearchRepository lexicalSearchRepository() {
+			return Mockito.mock(LexicalSearchRepository.class);
+		}
+
 		@Bean
 		RagProperties ragProperties() {
 			return new RagProperties();
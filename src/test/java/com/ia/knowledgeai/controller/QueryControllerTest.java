@@ -50,7 +50,7 @@ class QueryControllerTest {
 				20L);
 		when(queryService.query(any(QueryRequest.class))).thenReturn(result);
 
-		QueryRequest request = new QueryRequest("how to", 3, 0.5, "wiki", List.of("tag1"), null, null);
+		QueryRequest request = new QueryRequest("how to", 3, 0.5, "wiki", List.of("tag1"), null, null, null);
 
 		mockMvc.perform(post("/api/v1/query")
 				.contentType(MediaType.APPLICATION_JSON)
@@ -74,7 +74,7 @@ class QueryControllerTest {
 				5);
 		when(queryService.answer(any(QueryRequest.class))).thenReturn(result);
 
-		QueryRequest request = new QueryRequest("how to", 3, 0.5, "wiki", List.of("tag1"), null, false);
+		QueryRequest request = new QueryRequest("how to", 3, 0.5, "wiki", List.of("tag1"), null, false, null);
 
 		mockMvc.perform(post("/api/v1/query/answer")
 				.contentType(MediaType.APPLICATION_JSON)
@@ -87,7 +87,7 @@ class QueryControllerTest {
 
 	@Test
 	void shouldReturnBadRequestWhenMissingQuery() throws Exception {
-		QueryRequest request = new QueryRequest(" ", null, null, null, null, null, null);
+		QueryRequest request = new QueryRequest(" ", null, null, null, null, null, null, null);
 
 		mockMvc.perform(post("/api/v1/query")
 				.contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,41 @@
+package com.ia.knowledgeai.domain.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SimHashTest {
+
+	private static final String DISCLAIMER = "This document is confidential and intended solely for the use of the "
+			+ "individual or entity to whom it is addressed. If you have received it in error please notify the "
+			+ "sender immediately and delete it from your system. Any unauthorised copying, disclosure or "
+			+ "distribution of the material in this document is strictly forbidden.";
+
+	@Test
+	void shouldGiveNearIdenticalTextsCloseSignatures() {
+		long original = SimHash.of(DISCLAIMER);
+		long edited = SimHash.of(DISCLAIMER.replace("strictly forbidden", "forbidden").toUpperCase());
+
+		assertThat(SimHash.distance(original, edited)).isLessThanOrEqualTo(SimHash.BANDS - 1);
+	}
+
+	@Test
+	void shouldGiveUnrelatedTextsDistantSignatures() {
+		long disclaimer = SimHash.of(DISCLAIMER);
+		long other = SimHash.of("Quarterly revenue grew by twelve percent driven by strong demand for the new "
+				+ "storage product line, while operating costs remained flat compared with the previous year.");
+
+		assertThat(SimHash.distance(disclaimer, other)).isGreaterThan(10);
+	}
+
+	@Test
+	void shouldShareABandWhenFewBitsDiffer() {
+		long signature = SimHash.of(DISCLAIMER);
+		int[] bands = SimHash.bands(signature);
+		int[] flipped = SimHash.bands(signature ^ 1L ^ 1L << 20 ^ 1L << 40);
+
+		assertThat(bands).hasSize(SimHash.BANDS);
+		assertThat(bands[3]).isEqualTo(flipped[3]);
+		assertThat(bands[0]).isNotEqualTo(flipped[0]);
+	}
+}
@@ -3,13 +3,36 @@ package com.ia.knowledgeai.domain.support;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ia.knowledgeai.domain.ParsedDocument;
 
 class TikaDocumentParserTest {
 
-	private final TikaDocumentParser parser = new TikaDocumentParser();
+	private static final Parser TIKA_PARSER = TikaParsers.restrictedTo(
+			List.of("text/plain", "text/html", "application/pdf"));
+
+	private final TikaDocumentParser parser = new TikaDocumentParser(TIKA_PARSER, new PdfPageParser(1, 16, 32),
+			ParseLimits.NONE);
 
 	@Test
 	void shouldParsePlainText() {
@@ -26,4 +49,141 @@ class TikaDocumentParserTest {
 		assertThatThrownBy(() -> parser.parse(new byte[0], "empty.pdf", "application/pdf"))
 				.isInstanceOf(IllegalArgumentException.class);
 	}
+
+	@Test
+	void shouldStreamNormalizedTextIntoSink() {
+		StringWriter sink = new StringWriter();
+
+		String contentType = parser.parse(new ByteArrayInputStream("  Hello\nWorld   via \t Tika  ".getBytes()),
+				"sample.txt", "text/plain", sink);
+
+		assertThat(sink.toString()).isEqualTo("Hello World via Tika");
+		assertThat(contentType).contains("text");
+	}
+
+	@Test
+	void shouldStreamTextFromFile(@TempDir Path directory) throws IOException {
+		Path file = Files.writeString(directory.resolve("sample.txt"), "  Hello\nWorld   from \t disk  ");
+		StringWriter sink = new StringWriter();
+
+		parser.parse(file, "sample.txt", "text/plain", sink);
+
+		assertThat(sink.toString()).isEqualTo("Hello World from disk");
+	}
+
+	@Test
+	void shouldFailOnEmptyStream() {
+		assertThatThrownBy(() -> parser.parse(new ByteArrayInputStream(new byte[0]), "empty.txt", "text/plain",
+				new StringWriter()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldStreamBlocksWithHeadingsListsAndTableRows() {
+		String html = "<html><body><h1>Guide</h1><p>First   paragraph\nwraps.</p><ul><li>one</li><li>two</li></ul>"
+				+ "<h2>Table</h2><table><tr><td>a</td><td>b</td></tr></table></body></html>";
+		StringWriter sink = new StringWriter();
+
+		parser.parseBlocks(new ByteArrayInputStream(html.getBytes()), "guide.html", "text/html", sink);
+
+		assertThat(sink.toString())
+				.isEqualTo("# Guide\n\nFirst paragraph wraps.\n\n- one\n\n- two\n\n## Table\n\na | b");
+	}
+
+	@Test
+	void shouldRejectContentTypesThatAreNotAllowed() {
+		TikaDocumentParser pdfOnly = new TikaDocumentParser(TikaParsers.restrictedTo(List.of("application/pdf")),
+				new PdfPageParser(1, 16, 32), ParseLimits.NONE);
+
+		assertThatThrownBy(() -> pdfOnly.parse(new ByteArrayInputStream("<p>hello</p>".getBytes()), "page.html",
+				"text/html", new StringWriter()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Unsupported content type");
+	}
+
+	@Test
+	void shouldAbortParseThatExceedsOutputLimit() {
+		TikaDocumentParser limited = new TikaDocumentParser(TIKA_PARSER, new PdfPageParser(1, 16, 32),
+				new ParseLimits(Duration.ZERO, 10));
+
+		assertThatThrownBy(() -> limited.parse(new ByteArrayInputStream("far more than ten characters".getBytes()),
+				"sample.txt", "text/plain", new StringWriter()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("limit of 10 characters");
+	}
+
+	@Test
+	void shouldAbortParseThatExceedsTimeout() {
+		TikaDocumentParser limited = new TikaDocumentParser(TIKA_PARSER, new PdfPageParser(1, 16, 32),
+				new ParseLimits(Duration.ofNanos(1), 0));
+
+		assertThatThrownBy(() -> limited.parse(new ByteArrayInputStream("Hello World".getBytes()), "sample.txt",
+				"text/plain", new StringWriter()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("took longer than");
+	}
+
+	@Test
+	void shouldParseLargePdfPageParallelAndReportPagesInOrder() throws Exception {
+		byte[] pdf = pdf(10);
+		PagedSink sequential = new PagedSink();
+		PagedSink parallel = new PagedSink();
+
+		parser.parse(new ByteArrayInputStream(pdf), "manual.pdf", "application/pdf", sequential);
+		try (PdfPageParser pdfPageParser = new PdfPageParser(3, 2, 4)) {
+			new TikaDocumentParser(TIKA_PARSER, pdfPageParser, ParseLimits.NONE).parse(new ByteArrayInputStream(pdf), "manual.pdf",
+					"application/pdf", parallel);
+		}
+
+		assertThat(parallel.toString()).startsWith("Page 1 body").endsWith("Page 10 body");
+		assertThat(parallel.toString()).isEqualTo(sequential.toString());
+		assertThat(parallel.pages).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+		assertThat(parallel.pageOffsets).isEqualTo(sequential.pageOffsets);
+	}
+
+	@Test
+	void shouldStopWaitingForPageRangesPastTheDeadline(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("manual.pdf");
+		Files.write(file, pdf(40));
+		StringWriter text = new StringWriter();
+
+		try (PdfPageParser pdfPageParser = new PdfPageParser(2, 20, 4)) {
+			assertThatThrownBy(() -> pdfPageParser.parse(file, new BodyContentHandler(text), new Metadata(),
+					System.nanoTime()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("took longer than");
+		}
+		assertThat(text.toString()).isBlank();
+	}
+
+	private static byte[] pdf(int pages) throws IOException {
+		try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			for (int i = 1; i <= pages; i++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 12);
+					content.newLineAtOffset(72, 700);
+					content.showText("Page " + i + " body");
+					content.endText();
+				}
+			}
+			document.save(out);
+			return out.toByteArray();
+		}
+	}
+
+	private static final class PagedSink extends StringWriter implements PageListener {
+
+		private final List<Integer> pages = new ArrayList<>();
+
+		private final List<Integer> pageOffsets = new ArrayList<>();
+
+		@Override
+		public void pageStarted(int pageNumber) {
+			pages.add(pageNumber);
+			pageOffsets.add(getBuffer().length());
+		}
+	}
 }
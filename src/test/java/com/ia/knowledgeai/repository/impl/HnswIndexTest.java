@@ -0,0 +1,113 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTest {
+
+	private static final int DIMENSIONS = 32;
+
+	@Test
+	void shouldFindMostOfTheExactNeighbours() {
+		Random random = new Random(7);
+		HnswIndex index = new HnswIndex(DIMENSIONS, HnswIndex.Metric.COSINE, 16, 64);
+		for (int i = 0; i < 3000; i++) {
+			index.add(randomVector(random));
+		}
+
+		int found = 0;
+		for (int q = 0; q < 50; q++) {
+			float[] query = randomVector(random);
+			List<Integer> exact = nodes(index.exact(query, 10, null));
+			found += (int) nodes(index.search(query, 10, 64, null, Integer.MAX_VALUE)).stream()
+				.filter(exact::contains)
+				.count();
+		}
+
+		assertThat(found / 500.0).isGreaterThan(0.9);
+	}
+
+	@Test
+	void shouldReturnTheClosestVectorFirstWithItsDistance() {
+		HnswIndex index = new HnswIndex(2, HnswIndex.Metric.EUCLIDEAN, 4, 16);
+		index.add(new float[] { 0f, 0f });
+		index.add(new float[] { 3f, 4f });
+		index.add(new float[] { 10f, 10f });
+
+		List<HnswIndex.Neighbor> neighbors = index.search(new float[] { 3f, 4f }, 2, 10, null, Integer.MAX_VALUE);
+
+		assertThat(nodes(neighbors)).containsExactly(1, 0);
+		assertThat(index.reportedDistance(neighbors.get(1).distance())).isEqualTo(5f);
+	}
+
+	@Test
+	void shouldSkipDeletedAndRejectedNodes() {
+		Random random = new Random(11);
+		HnswIndex index = new HnswIndex(DIMENSIONS, HnswIndex.Metric.INNER_PRODUCT, 8, 32);
+		for (int i = 0; i < 500; i++) {
+			index.add(randomVector(random));
+		}
+		for (int node = 0; node < 500; node += 2) {
+			index.delete(node);
+		}
+
+		List<HnswIndex.Neighbor> neighbors = index.search(randomVector(random), 20, 40, node -> node % 3 == 0,
+				Integer.MAX_VALUE);
+
+		assertThat(neighbors).hasSize(20)
+			.allSatisfy(neighbor -> assertThat(neighbor.node() % 6).isEqualTo(3));
+		assertThat(index.deletedCount()).isEqualTo(250);
+	}
+
+	@Test
+	void shouldGiveUpOnFilteredSearchesThatVisitTooMuch() {
+		Random random = new Random(13);
+		HnswIndex index = new HnswIndex(DIMENSIONS, HnswIndex.Metric.COSINE, 8, 32);
+		for (int i = 0; i < 1000; i++) {
+			index.add(randomVector(random));
+		}
+
+		assertThat(index.search(randomVector(random), 5, 10, node -> node == 999, 100)).isNull();
+		assertThat(nodes(index.exact(randomVector(random), 5, node -> node == 999))).containsExactly(999);
+	}
+
+	@Test
+	void shouldRestoreTheSameGraphFromItsSnapshot() throws Exception {
+		Random random = new Random(17);
+		HnswIndex index = new HnswIndex(DIMENSIONS, HnswIndex.Metric.COSINE, 8, 32);
+		for (int i = 0; i < 300; i++) {
+			index.add(randomVector(random));
+		}
+		index.delete(5);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		index.write(new DataOutputStream(bytes));
+
+		HnswIndex restored = HnswIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		float[] query = randomVector(random);
+		assertThat(restored.size()).isEqualTo(300);
+		assertThat(restored.isDeleted(5)).isTrue();
+		assertThat(restored.search(query, 10, 40, null, Integer.MAX_VALUE))
+			.isEqualTo(index.search(query, 10, 40, null, Integer.MAX_VALUE));
+	}
+
+	private static float[] randomVector(Random random) {
+		float[] vector = new float[DIMENSIONS];
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static List<Integer> nodes(List<HnswIndex.Neighbor> neighbors) {
+		return neighbors.stream().map(HnswIndex.Neighbor::node).toList();
+	}
+}
@@ -0,0 +1,208 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.VectorStoreProperties;
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.ChunkPosition;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryHnswVectorStoreTest {
+
+	private static final Map<String, float[]> QUERIES = Map.of("north", new float[] { 0f, 1f }, "east",
+			new float[] { 1f, 0f });
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private EmbeddingModel embeddingModel;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private VectorStore fallback;
+
+	private final UUID firstDocument = UUID.randomUUID();
+
+	private final UUID secondDocument = UUID.randomUUID();
+
+	@Test
+	void shouldSearchThroughFallbackUntilLoaded() {
+		InMemoryHnswVectorStore store = store(new VectorStoreProperties());
+		SearchRequest request = SearchRequest.builder().query("north").build();
+		when(fallback.similaritySearch(request)).thenReturn(List.of());
+
+		store.doSimilaritySearch(request);
+
+		verify(fallback).similaritySearch(request);
+	}
+
+	@Test
+	void shouldSearchCommittedChangesInMemory() {
+		InMemoryHnswVectorStore store = loadedStore(new VectorStoreProperties());
+		UUID up = UUID.randomUUID();
+		UUID right = UUID.randomUUID();
+
+		store.onVectorStoreChanged(VectorStoreChangedEvent.written(List.of(
+				embedding(up, firstDocument, "wiki", new float[] { 0.1f, 1f }),
+				embedding(right, secondDocument, "faq", new float[] { 1f, 0.1f }))));
+
+		List<Document> documents = store.doSimilaritySearch(SearchRequest.builder().query("north").topK(2).build());
+		assertThat(documents).extracting(Document::getId).containsExactly(up.toString(), right.toString());
+		assertThat(documents.get(0).getScore()).isGreaterThan(0.99);
+		assertThat(documents.get(0).getMetadata()).containsEntry("source", "wiki").containsKey("distance");
+
+		assertThat(store.doSimilaritySearch(SearchRequest.builder()
+			.query("north")
+			.topK(2)
+			.filterExpression(new FilterExpressionBuilder().eq("source", "faq").build())
+			.build())).extracting(Document::getId).containsExactly(right.toString());
+
+		store.onVectorStoreChanged(VectorStoreChangedEvent.documentsDeleted(List.of(firstDocument)));
+
+		assertThat(store.doSimilaritySearch(SearchRequest.builder().query("north").topK(2).build()))
+			.extracting(Document::getId)
+			.containsExactly(right.toString());
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldApplySimilarityThresholdAndReindexing() {
+		InMemoryHnswVectorStore store = loadedStore(new VectorStoreProperties());
+		UUID up = UUID.randomUUID();
+		UUID right = UUID.randomUUID();
+		store.onVectorStoreChanged(VectorStoreChangedEvent.written(List.of(
+				embedding(up, firstDocument, "wiki", new float[] { 0f, 1f }),
+				embedding(right, firstDocument, "wiki", new float[] { 1f, 0f }))));
+
+		store.onVectorStoreChanged(
+				VectorStoreChangedEvent.reindexed(Map.of(up, new ChunkPosition(7, new PageRange(4, 5)))));
+
+		List<Document> documents = store
+			.doSimilaritySearch(SearchRequest.builder().query("north").topK(2).similarityThreshold(0.5).build());
+		assertThat(documents).hasSize(1);
+		assertThat(documents.get(0).getMetadata()).containsEntry("chunkIndex", 7)
+			.containsEntry("pageStart", 4)
+			.containsEntry("pageEnd", 5);
+	}
+
+	@Test
+	void shouldRestoreFromSnapshotAndCatchUpWithTheTable(@TempDir Path directory) throws Exception {
+		VectorStoreProperties properties = new VectorStoreProperties();
+		properties.setSnapshotPath(directory.resolve("vectors.snapshot"));
+		InMemoryHnswVectorStore store = loadedStore(properties);
+		UUID kept = UUID.randomUUID();
+		UUID deleted = UUID.randomUUID();
+		store.onVectorStoreChanged(VectorStoreChangedEvent.written(List.of(
+				embedding(kept, firstDocument, "wiki", new float[] { 0f, 1f }),
+				embedding(deleted, secondDocument, "wiki", new float[] { 1f, 0f }))));
+		store.close();
+		ResultSet row = mock(ResultSet.class);
+		when(row.getString("id")).thenReturn(kept.toString());
+		when(row.getObject("chunk_index")).thenReturn(3);
+		when(row.getObject("page_start")).thenReturn(2);
+		when(row.getObject("page_end")).thenReturn(2);
+		doAnswer(invocation -> {
+			invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+			return null;
+		}).when(jdbcTemplate)
+			.query(startsWith("SELECT id, chunk_index, (metadata->>'pageStart')::int"), any(RowCallbackHandler.class));
+
+		InMemoryHnswVectorStore restored = store(properties);
+		restored.load();
+
+		assertThat(restored.isReady()).isTrue();
+		List<Document> documents = restored.doSimilaritySearch(SearchRequest.builder().query("north").topK(2).build());
+		assertThat(documents).extracting(Document::getId).containsExactly(kept.toString());
+		assertThat(documents.get(0).getMetadata()).containsEntry("chunkIndex", 3).containsEntry("pageStart", 2);
+	}
+
+	@Test
+	void shouldFindNothingOfAnIngestingDocumentUntilItIsReady() throws Exception {
+		InMemoryHnswVectorStore store = loadedStore(new VectorStoreProperties());
+		Chunk chunk = new Chunk(UUID.randomUUID(), new com.ia.knowledgeai.domain.Document(firstDocument, "wiki", "Wiki",
+				List.of(), Instant.now()), 0, "text");
+		SearchRequest request = SearchRequest.builder().query("north").topK(2).build();
+
+		new JdbcChunkBulkWriter(jdbcTemplate, new ObjectMapper(),
+				event -> store.onVectorStoreChanged((VectorStoreChangedEvent) event))
+			.write(List.of(chunk), List.of(embedding(chunk.getId(), firstDocument, "wiki", new float[] { 0f, 1f })));
+
+		assertThat(store.doSimilaritySearch(request)).isEmpty();
+
+		ResultSet row = mock(ResultSet.class);
+		when(row.getString("id")).thenReturn(chunk.getId().toString());
+		when(row.getString("content")).thenReturn("text");
+		when(row.getString("metadata")).thenReturn("{\"documentId\":\"" + firstDocument + "\",\"source\":\"wiki\"}");
+		when(row.getString("embedding")).thenReturn("[0,1]");
+		doAnswer(invocation -> {
+			invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+			return null;
+		}).when(jdbcTemplate)
+			.query(contains("document_id = ANY"), any(RowCallbackHandler.class), eq("{\"" + firstDocument + "\"}"));
+
+		store.onVectorStoreChanged(VectorStoreChangedEvent.documentsReady(Map.of(firstDocument, "wiki")));
+
+		assertThat(store.doSimilaritySearch(request)).extracting(Document::getId)
+			.containsExactly(chunk.getId().toString());
+	}
+
+	private InMemoryHnswVectorStore loadedStore(VectorStoreProperties properties) {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		InMemoryHnswVectorStore store = store(properties);
+		store.load();
+		verify(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+		assertThat(store.isReady()).isTrue();
+		return store;
+	}
+
+	private InMemoryHnswVectorStore store(VectorStoreProperties properties) {
+		return new InMemoryHnswVectorStore(PgVectorStore.builder(jdbcTemplate, embeddingModel), fallback, jdbcTemplate,
+				transactionManager, new ObjectMapper(), properties, QUERIES::get, new SimpleMeterRegistry());
+	}
+
+	private static Embedding embedding(UUID id, UUID documentId, String source, float[] vector) {
+		return new Embedding(id, "text " + id, Map.of("documentId", documentId.toString(), "source", source,
+				"chunkIndex", 0), vector);
+	}
+}
@@ -0,0 +1,132 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcChunkBulkWriterTest {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private Connection connection;
+
+	@Mock
+	private PreparedStatement chunkStatement;
+
+	@Mock
+	private PreparedStatement vectorStatement;
+
+	@Test
+	void shouldEscapeCopyTextFormatFields() {
+		StringBuilder line = new StringBuilder();
+
+		JdbcChunkBulkWriter.appendField(line, "a\tb\nc\\d\re");
+		line.append('|');
+		JdbcChunkBulkWriter.appendField(line, null);
+
+		assertThat(line).hasToString("a\\tb\\nc\\\\d\\re|\\N");
+	}
+
+	@Test
+	void shouldDropNulCharacters() {
+		StringBuilder line = new StringBuilder();
+
+		JdbcChunkBulkWriter.appendField(line, "a\u0000b\u0000");
+
+		assertThat(line).hasToString("ab");
+		assertThat(JdbcChunkBulkWriter.withoutNul(Map.of("title", "x\u0000y", "tags", List.of("\u0000t"))))
+			.isEqualTo(Map.of("title", "xy", "tags", List.of("t")));
+	}
+
+	@Test
+	void shouldFallBackToOneJdbcBatchPerTableWithoutPostgresConnection() throws Exception {
+		when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+				.thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+		when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+		when(connection.prepareStatement(startsWith("INSERT INTO chunks"))).thenReturn(chunkStatement);
+		when(connection.prepareStatement(startsWith("INSERT INTO public.vector_store"))).thenReturn(vectorStatement);
+		Document document = new Document(UUID.randomUUID(), "source", "title", List.of(), Instant.now());
+		List<Chunk> chunks = List.of(new Chunk(UUID.randomUUID(), document, 0, "first"),
+				new Chunk(UUID.randomUUID(), document, 1, "second"));
+		List<Embedding> embeddings = chunks.stream()
+				.map(chunk -> new Embedding(chunk.getId(), chunk.getText(),
+						new TreeMap<String, Object>(Map.of("chunkIndex", chunk.getIndex(), "source", "source")),
+						new float[] { 1f, 2f }))
+				.toList();
+
+		new JdbcChunkBulkWriter(jdbcTemplate, new ObjectMapper(), event -> {
+		}).write(chunks, embeddings);
+
+		verify(chunkStatement, times(2)).addBatch();
+		verify(chunkStatement).executeBatch();
+		verify(vectorStatement, times(2)).addBatch();
+		verify(vectorStatement).executeBatch();
+		verify(vectorStatement).setString(3, "{\"chunkIndex\":0,\"source\":\"source\"}");
+		verify(vectorStatement).setObject(6, 1, Types.INTEGER);
+		verify(vectorStatement, times(2)).setString(7, "source");
+	}
+
+	@Test
+	void shouldClearDuplicateOfAndReplaceVectorsWhenReleasingDuplicates() throws Exception {
+		when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+				.thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+		when(connection.createArrayOf(eq("uuid"), any())).thenReturn(mock(Array.class));
+		when(connection.prepareStatement(anyString())).thenReturn(chunkStatement);
+		when(connection.prepareStatement(startsWith("INSERT INTO public.vector_store"))).thenReturn(vectorStatement);
+		when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+		Embedding embedding = new Embedding(UUID.randomUUID(), "text", Map.of("source", "faq"), new float[] { 1f });
+		List<Object> events = new ArrayList<>();
+
+		new JdbcChunkBulkWriter(jdbcTemplate, new ObjectMapper(), events::add).releaseDuplicates(List.of(embedding));
+
+		verify(connection).prepareStatement("UPDATE chunks SET duplicate_of = NULL WHERE id = ANY (?)");
+		verify(connection).prepareStatement("DELETE FROM public.vector_store WHERE id = ANY (?)");
+		verify(chunkStatement, times(2)).executeUpdate();
+		verify(vectorStatement).executeBatch();
+		assertThat(events).containsExactly(VectorStoreChangedEvent.deleted(List.of(embedding.getId())),
+				VectorStoreChangedEvent.written(List.of(embedding)));
+	}
+
+	@Test
+	void shouldSkipDatabaseWhenNothingToWrite() {
+		new JdbcChunkBulkWriter(jdbcTemplate, new ObjectMapper(), event -> {
+		}).write(List.of(), List.of());
+
+		verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+	}
+}
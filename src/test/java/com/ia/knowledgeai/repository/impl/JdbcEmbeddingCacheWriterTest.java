@@ -0,0 +1,42 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcEmbeddingCacheWriterTest {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldWriteTheWholeBatchInOneStatementInHashOrder() {
+		Map<String, float[]> vectors = new LinkedHashMap<>();
+		vectors.put("b", new float[] { 0.5f, -1f });
+		vectors.put("a", new float[] { 1f, 2.5E-7f });
+		Instant now = Instant.now();
+
+		new JdbcEmbeddingCacheWriter(jdbcTemplate).insertIfAbsent("model", vectors, now);
+
+		verify(jdbcTemplate).update(JdbcEmbeddingCacheWriter.INSERT_SQL, "model", Timestamp.from(now), "{\"a\",\"b\"}",
+				"{\"{1.0,2.5E-7}\",\"{0.5,-1.0}\"}");
+	}
+
+	@Test
+	void shouldSkipDatabaseWhenNothingToWrite() {
+		new JdbcEmbeddingCacheWriter(jdbcTemplate).insertIfAbsent("model", Map.of(), Instant.now());
+
+		verifyNoInteractions(jdbcTemplate);
+	}
+}
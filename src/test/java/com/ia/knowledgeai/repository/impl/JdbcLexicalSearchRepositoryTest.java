@@ -0,0 +1,87 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.QueryProperties;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcLexicalSearchRepositoryTest {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldSearchThroughTheTextIndexWithFilters() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<RowMapper<Document>> mapper = rowMapperCaptor();
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		when(jdbcTemplate.query(sql.capture(), mapper.capture(), args.capture())).thenReturn(List.of());
+
+		repository(new QueryProperties()).search("error E-1042", 10, "wiki", List.of("ops"), documentId);
+
+		assertThat(sql.getValue())
+			.contains("replace(plainto_tsquery('simple', ?)::text, ' & ', ' | ')::tsquery AS query")
+			.contains("WHERE to_tsvector('simple'::regconfig, content) @@ terms.query")
+			.contains("AND " + JdbcEmbeddingRepository.READY_PREDICATE)
+			.contains("AND document_id = ? AND source = ? AND tags @> ?::text[]")
+			.contains("ORDER BY rank DESC");
+		assertThat(args.getValue()).containsExactly("error E-1042", documentId, "wiki", "{\"ops\"}", 10);
+
+		ResultSet row = mock(ResultSet.class);
+		when(row.getString("id")).thenReturn("chunk-1");
+		when(row.getString("content")).thenReturn("text");
+		when(row.getString("metadata")).thenReturn("{\"documentId\":\"doc-1\"}");
+		when(row.getDouble("rank")).thenReturn(0.4);
+		Document document = mapper.getValue().mapRow(row, 0);
+		assertThat(document.getScore()).isEqualTo(0.4);
+		assertThat(document.getMetadata()).containsEntry("documentId", "doc-1").containsEntry("score", 0.4);
+	}
+
+	@Test
+	void shouldCreateTextIndexNamedAfterTheConfiguration() {
+		QueryProperties properties = new QueryProperties();
+		properties.setTextSearchConfig("spanish");
+
+		repository(properties).createTextIndex();
+
+		verify(jdbcTemplate).execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vector_store_content_fts_spanish ON "
+				+ JdbcEmbeddingRepository.VECTOR_TABLE + " USING gin (to_tsvector('spanish'::regconfig, content))");
+	}
+
+	@Test
+	void shouldRejectConfigurationsThatAreNotIdentifiers() {
+		QueryProperties properties = new QueryProperties();
+		properties.setTextSearchConfig("simple'; drop table chunks; --");
+
+		assertThatThrownBy(() -> repository(properties).search("query", 5, null, null, null))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	private JdbcLexicalSearchRepository repository(QueryProperties properties) {
+		return new JdbcLexicalSearchRepository(jdbcTemplate, new ObjectMapper(), properties);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ArgumentCaptor<RowMapper<Document>> rowMapperCaptor() {
+		return (ArgumentCaptor) ArgumentCaptor.forClass(RowMapper.class);
+	}
+}
@@ -0,0 +1,57 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+
+class MetadataColumnsTest {
+
+	private final FilterExpressionBuilder builder = new FilterExpressionBuilder();
+
+	@Test
+	void shouldTranslateFiltersOnColumnsToColumnPredicates() {
+		UUID documentId = UUID.randomUUID();
+
+		MetadataColumns.Predicate predicate = MetadataColumns.toPredicate(builder
+			.and(builder.and(builder.eq("documentId", documentId.toString()), builder.in("source", "wiki", "faq")),
+					builder.and(builder.eq("tags", "ops"), builder.gte("chunkIndex", 2)))
+			.build(), new PgVectorFilterExpressionConverter());
+
+		assertThat(predicate.sql())
+			.isEqualTo("((document_id = ? AND source IN (?, ?)) AND (tags @> ?::text[] AND chunk_index >= ?))");
+		assertThat(predicate.args()).containsExactly(documentId, "wiki", "faq", "{\"ops\"}", 2);
+	}
+
+	@Test
+	void shouldNegateTagFiltersAndFallBackToJsonPathForOtherFields() {
+		MetadataColumns.Predicate predicate = MetadataColumns.toPredicate(
+				builder.or(builder.nin("tags", "draft", "old"), builder.eq("author", "ana")).build(),
+				new PgVectorFilterExpressionConverter());
+
+		assertThat(predicate.sql())
+			.isEqualTo("(NOT (tags && ?::text[]) OR metadata::jsonb @@ ?::jsonpath)");
+		assertThat(predicate.args()).containsExactly("{\"draft\",\"old\"}", "$.author == \"ana\"");
+	}
+
+	@Test
+	void shouldQuoteArrayLiteralElements() {
+		assertThat(MetadataColumns.toArrayLiteral(List.of("a,b", "say \"hi\"", "back\\slash")))
+			.isEqualTo("{\"a,b\",\"say \\\"hi\\\"\",\"back\\\\slash\"}");
+	}
+
+	@Test
+	void shouldReadColumnValuesFromMetadata() {
+		UUID documentId = UUID.randomUUID();
+
+		Object[] values = MetadataColumns.values(Map.of("documentId", documentId.toString(), "chunkIndex", 3,
+				"source", "wiki", "tags", List.of("ops")));
+
+		assertThat(values).containsExactly(documentId, 3, "wiki", null, List.of("ops"));
+	}
+}
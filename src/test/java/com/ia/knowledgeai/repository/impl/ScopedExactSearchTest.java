@@ -0,0 +1,166 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.VectorStoreProperties;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ScopedExactSearchTest {
+
+	private static final String COUNT_SQL = "SELECT count(*) FROM (SELECT 1 FROM public.vector_store "
+			+ "WHERE document_id = ? AND " + JdbcEmbeddingRepository.READY_PREDICATE + " LIMIT ?) scope";
+
+	private static final float[] NORTH = { 0f, 1f };
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	private final UUID documentId = UUID.randomUUID();
+
+	private final FilterExpressionBuilder filters = new FilterExpressionBuilder();
+
+	@Test
+	void shouldScanSmallScopeExactlyAndKeepItLoaded() throws Exception {
+		ScopedExactSearch search = search(new VectorStoreProperties());
+		UUID up = UUID.randomUUID();
+		UUID diagonal = UUID.randomUUID();
+		UUID right = UUID.randomUUID();
+		stubScope(3, row(up, "[0,2]", "[\"a\"]"), row(diagonal, "[1,1]", "[\"b\"]"), row(right, "[1,0]", "[\"a\"]"));
+
+		List<Document> documents = search.search(request(filters.eq("documentId", documentId.toString()).build(), 2),
+				NORTH);
+
+		assertThat(documents).extracting(Document::getId).containsExactly(up.toString(), diagonal.toString());
+		assertThat(documents.get(0).getScore()).isEqualTo(1.0, within(1e-6));
+		assertThat(documents.get(0).getText()).isEqualTo("chunk " + up);
+		assertThat(documents.get(0).getMetadata()).containsEntry("source", "wiki").containsKey("distance");
+
+		List<Document> tagged = search.search(request(filters
+			.and(filters.eq("documentId", documentId.toString()), filters.eq("tags", "a"))
+			.build(), 5), NORTH);
+
+		assertThat(tagged).extracting(Document::getId).containsExactly(up.toString(), right.toString());
+		verify(jdbcTemplate).queryForObject(eq(COUNT_SQL), eq(Long.class), any(), any());
+		assertThat(search.cachedRows()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldLeaveLargeScopesToTheIndex() {
+		VectorStoreProperties properties = new VectorStoreProperties();
+		properties.getExactSearch().setMaxScopeRows(2);
+		ScopedExactSearch search = search(properties);
+		when(jdbcTemplate.queryForObject(COUNT_SQL, Long.class, documentId, 3)).thenReturn(3L);
+		SearchRequest request = request(filters.eq("documentId", documentId.toString()).build(), 2);
+
+		assertThat(search.search(request, NORTH)).isNull();
+		assertThat(search.search(request, NORTH)).isNull();
+
+		verify(jdbcTemplate).queryForObject(COUNT_SQL, Long.class, documentId, 3);
+	}
+
+	@Test
+	void shouldLeaveUnscopedSearchesToTheIndex() {
+		ScopedExactSearch search = search(new VectorStoreProperties());
+
+		assertThat(search.search(request(null, 2), NORTH)).isNull();
+		assertThat(search.search(request(filters.eq("tags", "a").build(), 2), NORTH)).isNull();
+		assertThat(search.search(request(filters
+			.or(filters.eq("source", "wiki"), filters.eq("source", "faq"))
+			.build(), 2), NORTH)).isNull();
+
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void shouldReloadScopeAfterCommittedWrite() throws Exception {
+		ScopedExactSearch search = search(new VectorStoreProperties());
+		UUID up = UUID.randomUUID();
+		stubScope(1, row(up, "[0,1]", "[]"));
+		SearchRequest request = request(filters.eq("documentId", documentId.toString()).build(), 2);
+		search.search(request, NORTH);
+
+		search.onVectorStoreChanged(VectorStoreChangedEvent.written(List.of(new Embedding(UUID.randomUUID(), "new",
+				Map.of("documentId", documentId.toString(), "source", "wiki"), new float[] { 1f, 0f }))));
+		search.search(request, NORTH);
+
+		verify(jdbcTemplate, times(2)).queryForObject(eq(COUNT_SQL), eq(Long.class), any(), any());
+		assertThat(search.cachedRows()).isEqualTo(1);
+
+		search.onVectorStoreChanged(VectorStoreChangedEvent.deleted(List.of(up)));
+
+		assertThat(search.cachedRows()).isZero();
+	}
+
+	@Test
+	void shouldPreferDocumentScopeToSource() {
+		ScopedExactSearch.Scope scope = ScopedExactSearch.scopeOf(filters
+			.and(filters.eq("source", "wiki"), filters.eq("documentId", documentId.toString()))
+			.build());
+
+		assertThat(scope).isEqualTo(new ScopedExactSearch.Scope("document_id", documentId));
+		assertThat(ScopedExactSearch.scopeOf(filters.eq("documentId", "not-a-uuid").build())).isNull();
+	}
+
+	private void stubScope(long count, ResultSet... rows) {
+		when(jdbcTemplate.queryForObject(eq(COUNT_SQL), eq(Long.class), any(), any())).thenReturn(count);
+		doAnswer(invocation -> {
+			for (ResultSet row : rows) {
+				invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+			}
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any());
+	}
+
+	private ResultSet row(UUID id, String embedding, String tags) throws Exception {
+		ResultSet row = mock(ResultSet.class);
+		when(row.getString("id")).thenReturn(id.toString());
+		when(row.getString("content")).thenReturn("chunk " + id);
+		when(row.getString("metadata")).thenReturn("{\"documentId\":\"" + documentId
+				+ "\",\"source\":\"wiki\",\"tags\":" + tags + "}");
+		when(row.getString("embedding")).thenReturn(embedding);
+		return row;
+	}
+
+	private ScopedExactSearch search(VectorStoreProperties properties) {
+		return new ScopedExactSearch(jdbcTemplate, new ObjectMapper(), properties, new SimpleMeterRegistry());
+	}
+
+	private static SearchRequest request(Filter.Expression filter, int topK) {
+		SearchRequest.Builder builder = SearchRequest.builder().query("north").topK(topK);
+		if (filter != null) {
+			builder.filterExpression(filter);
+		}
+		return builder.build();
+	}
+}
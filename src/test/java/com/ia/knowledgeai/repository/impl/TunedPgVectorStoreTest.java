@@ -0,0 +1,273 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.atIndex;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ia.knowledgeai.config.VectorStoreProperties;
+import com.ia.knowledgeai.repository.SearchEffortRequest;
+import com.pgvector.PGvector;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class TunedPgVectorStoreTest {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private EmbeddingModel embeddingModel;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void shouldFetchCandidatesThroughHalfvecIndexAndRescore() throws Exception {
+		TunedPgVectorStore store = store(VectorStoreProperties.Quantization.HALFVEC);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<RowMapper<Document>> mapper = rowMapperCaptor();
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		when(jdbcTemplate.query(sql.capture(), mapper.capture(), args.capture())).thenReturn(List.of());
+
+		store.doSimilaritySearch(SearchRequest.builder()
+			.query("query")
+			.topK(5)
+			.similarityThreshold(0.6)
+			.filterExpression(new FilterExpressionBuilder().eq("source", "wiki").build())
+			.build());
+
+		assertThat(sql.getValue()).contains("ORDER BY embedding::halfvec(3) <=> ?::halfvec(3) LIMIT ?")
+			.contains("embedding <=> ? AS distance")
+			.contains("FROM public.vector_store WHERE " + JdbcEmbeddingRepository.READY_PREDICATE
+					+ " AND source = ? ORDER BY");
+		assertThat(args.getValue()).hasSize(5).contains("wiki", atIndex(1)).endsWith(20, 5);
+
+		ResultSet row = mock(ResultSet.class);
+		when(row.getString("id")).thenReturn("chunk-1");
+		when(row.getString("content")).thenReturn("text");
+		when(row.getString("metadata")).thenReturn("{\"documentId\":\"doc-1\"}");
+		when(row.getFloat("distance")).thenReturn(0.25f);
+		Document document = mapper.getValue().mapRow(row, 0);
+		assertThat(document.getId()).isEqualTo("chunk-1");
+		assertThat(document.getScore()).isEqualTo(0.75);
+		assertThat(document.getMetadata()).containsEntry("documentId", "doc-1").containsEntry("distance", 0.25f);
+	}
+
+	@Test
+	void shouldSearchSmallScopeExactlyInsteadOfTheIndex() {
+		VectorStoreProperties properties = properties(VectorStoreProperties.Quantization.NONE);
+		properties.getExactSearch().setMaxScopeRows(5000);
+		TunedPgVectorStore store = store(properties);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("wiki"), eq(5001))).thenReturn(0L);
+
+		List<Document> documents = store.doSimilaritySearch(SearchRequest.builder()
+			.query("query")
+			.topK(5)
+			.filterExpression(new FilterExpressionBuilder().eq("source", "wiki").build())
+			.build());
+
+		assertThat(documents).isEmpty();
+		verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+	}
+
+	@Test
+	void shouldFetchCandidatesThroughBinaryIndex() {
+		TunedPgVectorStore store = store(VectorStoreProperties.Quantization.BINARY);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+
+		store.doSimilaritySearch(SearchRequest.builder().query("query").topK(2).build());
+
+		verify(jdbcTemplate).query(eq("""
+				SELECT id, content, metadata, distance FROM (
+					SELECT id, content, metadata, embedding <=> ? AS distance
+					FROM (SELECT id, content, metadata, embedding FROM public.vector_store WHERE %s ORDER BY \
+				binary_quantize(embedding)::bit(3) <~> binary_quantize(?::vector) LIMIT ?) candidates
+				) rescored
+				ORDER BY distance
+				LIMIT ?""".formatted(JdbcEmbeddingRepository.READY_PREDICATE)), any(RowMapper.class),
+				any(Object[].class));
+	}
+
+	@Test
+	void shouldSearchFullVectorsWithoutQuantization() {
+		TunedPgVectorStore store = store(VectorStoreProperties.Quantization.NONE);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+
+		store.doSimilaritySearch(SearchRequest.builder().query("query").topK(4).similarityThreshold(0.5).build());
+
+		verify(jdbcTemplate).query(eq("""
+				SELECT id, content, metadata, embedding <=> ? AS distance FROM public.vector_store WHERE %s
+				ORDER BY distance
+				LIMIT ?""".formatted(JdbcEmbeddingRepository.READY_PREDICATE)), any(RowMapper.class),
+				any(PGvector.class), eq(4));
+		verifyNoInteractions(transactionManager);
+	}
+
+	@Test
+	void shouldWidenFilteredSearchUntilTopKRowsAreFound() {
+		VectorStoreProperties properties = properties(VectorStoreProperties.Quantization.NONE);
+		properties.setFilteredSearchBudget(Duration.ofSeconds(10));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		TunedPgVectorStore store = store(properties, meterRegistry);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		Document first = Document.builder().id("chunk-1").text("a").score(0.9).build();
+		Document second = Document.builder().id("chunk-2").text("b").score(0.8).build();
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(PGvector.class), eq("wiki"), eq(2)))
+			.thenReturn(List.of(first), List.of(first, second));
+
+		List<Document> documents = store.doSimilaritySearch(SearchRequest.builder()
+			.query("query")
+			.topK(2)
+			.filterExpression(new FilterExpressionBuilder().eq("source", "wiki").build())
+			.build());
+
+		assertThat(documents).containsExactly(first, second);
+		verify(jdbcTemplate).queryForObject("SELECT set_config(?, ?, true)", String.class, "hnsw.ef_search", "80");
+		assertThat(meterRegistry.get("vector.search.rounds").tag("filtered", "true").summary().totalAmount())
+			.isEqualTo(2);
+		assertThat(meterRegistry.get("vector.search.candidates").tag("filtered", "true").summary().totalAmount())
+			.isEqualTo(40 + 80);
+	}
+
+	@Test
+	void shouldNotWidenUnfilteredSearch() {
+		VectorStoreProperties properties = properties(VectorStoreProperties.Quantization.NONE);
+		properties.setFilteredSearchBudget(Duration.ofSeconds(10));
+		TunedPgVectorStore store = store(properties);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+
+		store.doSimilaritySearch(SearchRequest.builder().query("query").topK(3).build());
+
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), any(PGvector.class), eq(3));
+	}
+
+	@Test
+	void shouldApplySimilarityThresholdToReturnedRows() {
+		TunedPgVectorStore store = store(VectorStoreProperties.Quantization.NONE);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+		Document close = Document.builder().id("chunk-1").text("a").score(0.9).build();
+		Document far = Document.builder().id("chunk-2").text("b").score(0.4).build();
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(PGvector.class), eq(2)))
+			.thenReturn(List.of(close, far));
+
+		assertThat(store.doSimilaritySearch(
+				SearchRequest.builder().query("query").topK(2).similarityThreshold(0.5).build()))
+			.containsExactly(close);
+	}
+
+	@Test
+	void shouldApplyRequestedSearchEffortInsideTransaction() {
+		TunedPgVectorStore store = store(VectorStoreProperties.Quantization.NONE);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		store.doSimilaritySearch(new SearchEffortRequest(SearchRequest.builder().query("query").topK(4).build(), 200));
+
+		verify(jdbcTemplate).queryForObject("SELECT set_config(?, ?, true)", String.class, "hnsw.ef_search", "200");
+		verify(transactionManager).commit(any());
+	}
+
+	@Test
+	void shouldRaiseEfSearchToCandidateCount() {
+		TunedPgVectorStore store = store(VectorStoreProperties.Quantization.HALFVEC);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f, 0.2f, 0.3f });
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		store.doSimilaritySearch(new SearchEffortRequest(SearchRequest.builder().query("query").topK(20).build(), 10));
+
+		verify(jdbcTemplate).queryForObject("SELECT set_config(?, ?, true)", String.class, "hnsw.ef_search", "80");
+	}
+
+	@Test
+	void shouldCreateQuantizedIndexOnStartup() {
+		store(VectorStoreProperties.Quantization.HALFVEC).createEmbeddingIndex();
+
+		verify(jdbcTemplate).execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vector_store_embedding_halfvec_hnsw "
+				+ "ON public.vector_store USING hnsw ((embedding::halfvec(3)) halfvec_cosine_ops) "
+				+ "WITH (m = 16, ef_construction = 64)");
+	}
+
+	@Test
+	void shouldCreateConfiguredIvfflatIndex() {
+		VectorStoreProperties properties = properties(VectorStoreProperties.Quantization.NONE);
+		properties.setIndexType(PgVectorStore.PgIndexType.IVFFLAT);
+		properties.setIvfflatLists(50);
+
+		store(properties).createEmbeddingIndex();
+
+		verify(jdbcTemplate).execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vector_store_embedding_ivfflat "
+				+ "ON public.vector_store USING ivfflat (embedding vector_cosine_ops) WITH (lists = 50)");
+	}
+
+	@Test
+	void shouldNotCreateIndexWhenDisabled() {
+		VectorStoreProperties properties = properties(VectorStoreProperties.Quantization.NONE);
+		properties.setIndexType(PgVectorStore.PgIndexType.NONE);
+
+		store(properties).createEmbeddingIndex();
+
+		verify(jdbcTemplate, never()).execute(anyString());
+	}
+
+	private TunedPgVectorStore store(VectorStoreProperties.Quantization quantization) {
+		return store(properties(quantization));
+	}
+
+	private TunedPgVectorStore store(VectorStoreProperties properties) {
+		return store(properties, new SimpleMeterRegistry());
+	}
+
+	private TunedPgVectorStore store(VectorStoreProperties properties, SimpleMeterRegistry meterRegistry) {
+		return new TunedPgVectorStore(PgVectorStore.builder(jdbcTemplate, embeddingModel)
+			.indexType(properties.getIndexType())
+			.distanceType(properties.getDistanceType()), jdbcTemplate, transactionManager, new ObjectMapper(),
+				properties, embeddingModel::embed, meterRegistry,
+				new ScopedExactSearch(jdbcTemplate, new ObjectMapper(), properties, meterRegistry));
+	}
+
+	private static VectorStoreProperties properties(VectorStoreProperties.Quantization quantization) {
+		VectorStoreProperties properties = new VectorStoreProperties();
+		properties.setQuantization(quantization);
+		properties.setDimensions(3);
+		properties.setFilteredSearchBudget(Duration.ZERO);
+		properties.getExactSearch().setMaxScopeRows(0);
+		return properties;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ArgumentCaptor<RowMapper<Document>> rowMapperCaptor() {
+		return (ArgumentCaptor) ArgumentCaptor.forClass(RowMapper.class);
+	}
+}
@@ -0,0 +1,46 @@
+package com.ia.knowledgeai.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class VectorScoringTest {
+
+	@Test
+	void shouldRunOnTheVectorApiInTests() {
+		assertThat(VectorScoring.SIMD).isTrue();
+	}
+
+	@Test
+	void shouldMatchScalarLoopsIncludingTheTail() {
+		SplittableRandom random = new SplittableRandom(7);
+		for (int length : new int[] { 0, 1, 7, 16, 33, 768 }) {
+			float[] a = random(random, length + 3);
+			float[] b = random(random, length + 5);
+
+			assertThat(VectorScoring.dot(a, 3, b, 5, length))
+				.isCloseTo(VectorScoring.scalarDot(a, 3, b, 5, length), within(1e-3f));
+			assertThat(VectorScoring.squaredDistance(a, 3, b, 5, length))
+				.isCloseTo(VectorScoring.scalarSquaredDistance(a, 3, b, 5, length), within(1e-3f));
+		}
+	}
+
+	@Test
+	void shouldNormalizeToUnitLength() {
+		float[] normalized = VectorScoring.normalize(new float[] { 3f, 4f });
+
+		assertThat(normalized).containsExactly(new float[] { 0.6f, 0.8f }, within(1e-6f));
+		assertThat(VectorScoring.normalize(new float[] { 0f, 0f })).containsExactly(0f, 0f);
+	}
+
+	private static float[] random(SplittableRandom random, int length) {
+		float[] vector = new float[length];
+		for (int i = 0; i < length; i++) {
+			vector[i] = (float) (random.nextDouble() * 2 - 1);
+		}
+		return vector;
+	}
+}
@@ -2,10 +2,14 @@ package com.ia.knowledgeai.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.domain.support.ChunkWriter;
 import com.ia.knowledgeai.domain.support.TextChunker;
 
 class TextChunkerTest {
@@ -17,9 +21,7 @@ class TextChunkerTest {
 		String content = "one two three four five six";
 		List<String> chunks = textChunker.chunk(content, 3, 1);
 
-		assertThat(chunks).hasSize(2);
-		assertThat(chunks.get(0)).isEqualTo("one two three");
-		assertThat(chunks.get(1)).isEqualTo("four five six");
+		assertThat(chunks).containsExactly("one two three", "three four five", "five six");
 	}
 
 	@Test
@@ -27,4 +29,112 @@ class TextChunkerTest {
 		List<String> chunks = textChunker.chunk("   ", 10, 2);
 		assertThat(chunks).isEmpty();
 	}
+
+	@Test
+	void shouldStreamOverlappingWindowsFromWriter() throws Exception {
+		List<String> chunks = new ArrayList<>();
+		try (ChunkWriter writer = textChunker.writer(3, 1, chunks::add)) {
+			writer.write("one two ");
+			writer.write("three four five six");
+		}
+
+		assertThat(chunks).containsExactly("one two three", "three four five", "five six");
+	}
+
+	@Test
+	void shouldEmitChunksBeforeWriterIsClosed() throws Exception {
+		List<String> chunks = new ArrayList<>();
+		ChunkWriter writer = textChunker.writer(16, 0, chunks::add);
+		for (int i = 0; i < 2000; i++) {
+			writer.write("word" + i + " ");
+		}
+
+		assertThat(chunks).isNotEmpty();
+		int emittedBeforeClose = chunks.size();
+		writer.close();
+		assertThat(chunks.size()).isGreaterThan(emittedBeforeClose);
+		assertThat(String.join(" ", chunks)).startsWith("word0 word1").endsWith("word1999");
+		assertThat(writer.getChunkCount()).isEqualTo(chunks.size());
+	}
+
+	@Test
+	void shouldCutTheSameWindowsLazilyAsTheWriter() throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			content.append("word").append(i).append(i % 17 == 0 ? ". " : " ");
+		}
+		List<String> written = new ArrayList<>();
+		try (ChunkWriter writer = textChunker.writer(32, 4, written::add)) {
+			writer.append(content);
+		}
+
+		Iterator<String> iterator = textChunker.iterator(content, 32, 4);
+		assertThat(iterator.next()).isEqualTo(written.get(0));
+		List<String> pulled = new ArrayList<>(List.of(written.get(0)));
+		iterator.forEachRemaining(pulled::add);
+
+		assertThat(written.size()).isGreaterThan(100);
+		assertThat(pulled).isEqualTo(written);
+		assertThat(textChunker.stream(content, 32, 4).limit(3).toList()).isEqualTo(written.subList(0, 3));
+	}
+
+	@Test
+	void shouldPackWholeBlocksAndStartANewChunkAtHeadings() throws Exception {
+		List<String> chunks = new ArrayList<>();
+		try (ChunkWriter writer = textChunker.blockWriter(12, 4, chunks::add)) {
+			writer.write("# Intro\n\nFirst paragraph here.\n\nSecond one.\n\n");
+			writer.write("Third paragraph is longer.\n\n## Details\n\n- a list item");
+		}
+
+		assertThat(chunks).containsExactly(
+				"# Intro\n\nFirst paragraph here.\n\nSecond one.",
+				"Third paragraph is longer.",
+				"## Details\n\n- a list item");
+	}
+
+	@Test
+	void shouldOverlapOnlyWithinABlockTooLargeForOneChunk() throws Exception {
+		List<String> chunks = new ArrayList<>();
+		try (ChunkWriter writer = textChunker.blockWriter(8, 2, chunks::add)) {
+			writer.write("Short.\n\n# Long\n\none two three four five six seven eight nine ten eleven\n\nTail.");
+		}
+
+		assertThat(chunks).containsExactly("Short.", "# Long\n\none two three four five",
+				"four five six seven eight nine ten eleven", "Tail.");
+	}
+
+	@Test
+	void shouldWindowABlockThatNeverEnds() throws Exception {
+		List<String> chunks = new ArrayList<>();
+		ChunkWriter writer = textChunker.blockWriter(16, 0, chunks::add);
+		for (int i = 0; i < 5000; i++) {
+			writer.write("word" + i + " ");
+		}
+
+		assertThat(chunks).isNotEmpty();
+		writer.close();
+		assertThat(String.join(" ", chunks)).startsWith("word0 word1").endsWith("word4999");
+	}
+
+	@Test
+	void shouldMapEachChunkToThePagesItWasCutFrom() throws Exception {
+		List<String> chunks = new ArrayList<>();
+		List<PageRange> pages = new ArrayList<>();
+		ChunkWriter[] holder = new ChunkWriter[1];
+		try (ChunkWriter writer = textChunker.writer(4, 0, chunk -> {
+			chunks.add(chunk);
+			pages.add(holder[0].getChunkPages());
+		})) {
+			holder[0] = writer;
+			writer.pageStarted(1);
+			writer.write("one two three four five six ");
+			writer.pageStarted(2);
+			writer.write("seven eight ");
+			writer.pageStarted(3);
+			writer.write("nine ten eleven twelve");
+		}
+
+		assertThat(chunks).containsExactly("one two three four", "five six seven eight", "nine ten eleven twelve");
+		assertThat(pages).containsExactly(new PageRange(1, 1), new PageRange(1, 2), new PageRange(3, 3));
+	}
 }
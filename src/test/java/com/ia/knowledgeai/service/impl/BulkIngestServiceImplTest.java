@@ -0,0 +1,120 @@
+package com.ia.knowledgeai.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.dto.request.BulkIngestRequest;
+import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.BulkIngestItemResponse;
+import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.service.IngestService;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIngestServiceImplTest {
+
+	@Mock
+	private IngestService ingestService;
+
+	private BulkIngestServiceImpl bulkIngestService;
+
+	@BeforeEach
+	void setUp() {
+		IngestProperties properties = new IngestProperties();
+		properties.getBulk().setWorkers(2);
+		bulkIngestService = new BulkIngestServiceImpl(ingestService, properties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		bulkIngestService.shutdown();
+	}
+
+	@Test
+	void shouldIngestFilesAndArchiveEntriesAndReportEachResult() throws Exception {
+		List<String> titles = Collections.synchronizedList(new ArrayList<>());
+		when(ingestService.ingest(any())).thenAnswer(invocation -> {
+			IngestRequest request = invocation.getArgument(0);
+			titles.add(request.getTitle());
+			if ("broken.pdf".equals(request.getTitle())) {
+				throw new IllegalArgumentException("Unable to parse file content for broken.pdf");
+			}
+			assertThat(request.getFile().getInputStream().readAllBytes()).isNotEmpty();
+			return new IngestResponse(UUID.randomUUID(), 1, 10, "INGESTED");
+		});
+		MultipartFile archive = new MockMultipartFile("files", "library.zip", "application/zip",
+				zip("docs/a.pdf", "docs/b.txt", "docs/broken.pdf", "__MACOSX/docs/._a.pdf"));
+		MultipartFile single = new MockMultipartFile("files", "single.pdf", "application/pdf", "pdf".getBytes());
+		List<BulkIngestItemResponse> results = new ArrayList<>();
+
+		bulkIngestService.ingest(new BulkIngestRequest("source", List.of("tag"), List.of(archive, single)), results::add);
+
+		assertThat(titles).containsExactlyInAnyOrder("a.pdf", "b.txt", "broken.pdf", "single.pdf");
+		assertThat(results).hasSize(4);
+		assertThat(results).filteredOn(result -> "INGESTED".equals(result.status()))
+				.extracting(BulkIngestItemResponse::filename)
+				.containsExactlyInAnyOrder("a.pdf", "b.txt", "single.pdf");
+		assertThat(results).filteredOn(result -> "FAILED".equals(result.status()))
+				.singleElement()
+				.satisfies(result -> assertThat(result.error()).contains("broken.pdf"));
+	}
+
+	@Test
+	void shouldDetectContentTypeOfArchiveEntriesFromName() throws Exception {
+		List<String> contentTypes = Collections.synchronizedList(new ArrayList<>());
+		when(ingestService.ingest(any())).thenAnswer(invocation -> {
+			IngestRequest request = invocation.getArgument(0);
+			contentTypes.add(request.getFile().getContentType());
+			return new IngestResponse(UUID.randomUUID(), 1, 10, "INGESTED");
+		});
+		MultipartFile archive = new MockMultipartFile("files", "library.zip", "application/octet-stream",
+				zip("a.pdf", "b.txt"));
+
+		bulkIngestService.ingest(new BulkIngestRequest("source", List.of(), List.of(archive)), result -> {
+		});
+
+		assertThat(contentTypes).containsExactlyInAnyOrder("application/pdf", "text/plain");
+	}
+
+	@Test
+	void shouldRejectRequestWithoutFiles() {
+		assertThatThrownBy(() -> bulkIngestService.ingest(new BulkIngestRequest("source", List.of(), List.of()),
+				result -> {
+				}))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("At least one file");
+	}
+
+	private byte[] zip(String... names) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for (String name : names) {
+				zip.putNextEntry(new ZipEntry(name));
+				zip.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
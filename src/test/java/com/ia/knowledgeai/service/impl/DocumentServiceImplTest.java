@@ -0,0 +1,165 @@
+package com.ia.knowledgeai.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.Embedding;
+import com.ia.knowledgeai.dto.request.DocumentFilterRequest;
+import com.ia.knowledgeai.mapper.DocumentMapper;
+import com.ia.knowledgeai.mapper.EmbeddingMapper;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
+import com.ia.knowledgeai.repository.DocumentRepository;
+import com.ia.knowledgeai.repository.EmbeddingRepository;
+import com.ia.knowledgeai.repository.VectorStoreChangedEvent;
+import com.ia.knowledgeai.repository.VectorStoreRepository;
+import com.ia.knowledgeai.service.support.EmbeddingBatcher;
+import com.ia.knowledgeai.service.support.IngestTransactions;
+import com.ia.knowledgeai.service.support.RetrievalCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentServiceImplTest {
+
+	@Mock
+	private DocumentRepository documentRepository;
+
+	@Mock
+	private VectorStoreRepository vectorStoreRepository;
+
+	@Mock
+	private EmbeddingRepository embeddingRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private RetrievalCache retrievalCache;
+
+	@Mock
+	private ChunkBulkWriter chunkBulkWriter;
+
+	@Mock
+	private EmbeddingBatcher embeddingBatcher;
+
+	private final List<Object> events = new ArrayList<>();
+
+	private DocumentServiceImpl documentService;
+
+	@BeforeEach
+	void setUp() {
+		documentService = new DocumentServiceImpl(documentRepository, vectorStoreRepository, embeddingRepository,
+				new DocumentMapper(), new IngestTransactions(transactionManager, new SimpleMeterRegistry()),
+				retrievalCache, chunkBulkWriter, embeddingBatcher, new EmbeddingMapper(), events::add);
+	}
+
+	@Test
+	void shouldPublishReadyDocumentOnceAndInvalidateItsSource() {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.updateStatus(documentId, Document.Status.READY)).thenReturn(1, 0);
+		when(documentRepository.findSourcesByIdIn(List.of(documentId))).thenReturn(List.of("wiki"));
+
+		documentService.markReady(documentId);
+		documentService.markReady(documentId);
+
+		assertThat(events).containsExactly(VectorStoreChangedEvent.documentsReady(Map.of(documentId, "wiki")));
+		verify(retrievalCache).invalidate(List.of("wiki"));
+	}
+
+	@Test
+	void shouldDeleteDocumentWithOneStatementPerTable() {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.deleteByIdIn(List.of(documentId))).thenReturn(1);
+		when(documentRepository.findSourcesByIdIn(List.of(documentId))).thenReturn(List.of("wiki"));
+
+		assertThat(documentService.delete(documentId)).isTrue();
+		verify(embeddingRepository).deleteByDocumentIds(List.of(documentId));
+		verify(vectorStoreRepository).deleteByDocumentIds(List.of(documentId));
+		verify(documentRepository).deleteTagsByDocumentIds(List.of(documentId));
+		verify(retrievalCache).invalidate(List.of("wiki"));
+		verify(chunkBulkWriter, never()).releaseDuplicates(any());
+	}
+
+	@Test
+	void shouldReindexNearDuplicatesOfDeletedDocuments() {
+		UUID documentId = UUID.randomUUID();
+		Document other = new Document(UUID.randomUUID(), "faq", "FAQ", List.of("a"), Instant.now());
+		Chunk duplicate = new Chunk(UUID.randomUUID(), other, 3, "same paragraph");
+		duplicate.markDuplicateOf(UUID.randomUUID());
+		when(vectorStoreRepository.findDuplicatesOfDocuments(List.of(documentId))).thenReturn(List.of(duplicate));
+		when(embeddingBatcher.embed(eq(List.of("same paragraph")), any())).thenReturn(List.of(new float[] { 1f }));
+
+		documentService.delete(documentId);
+
+		InOrder order = inOrder(transactionManager, embeddingBatcher, chunkBulkWriter);
+		order.verify(transactionManager).commit(any());
+		order.verify(embeddingBatcher).embed(eq(List.of("same paragraph")), any());
+		order.verify(transactionManager).getTransaction(any());
+		ArgumentCaptor<List<Embedding>> released = ArgumentCaptor.captor();
+		order.verify(chunkBulkWriter).releaseDuplicates(released.capture());
+		order.verify(transactionManager).commit(any());
+		assertThat(released.getValue()).singleElement().satisfies(embedding -> {
+			assertThat(embedding.getId()).isEqualTo(duplicate.getId());
+			assertThat(embedding.getVector()).containsExactly(1f);
+			assertThat(embedding.getMetadata()).containsEntry("documentId", other.getId().toString())
+				.containsEntry("chunkIndex", 3)
+				.doesNotContainKey("duplicateOf");
+		});
+		assertThat(duplicate.getDuplicateOf()).isNull();
+		verify(retrievalCache).invalidate(List.of("faq"));
+	}
+
+	@Test
+	void shouldReportMissingDocument() {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.deleteByIdIn(List.of(documentId))).thenReturn(0);
+
+		assertThat(documentService.delete(documentId)).isFalse();
+	}
+
+	@Test
+	void shouldDeleteMatchingDocumentsInBoundedBatches() {
+		List<UUID> fullBatch = IntStream.range(0, 500).mapToObj(i -> UUID.randomUUID()).toList();
+		List<UUID> lastBatch = List.of(UUID.randomUUID(), UUID.randomUUID());
+		when(documentRepository.findIdsFiltered(eq("wiki"), eq(null), any()))
+				.thenReturn(fullBatch, lastBatch);
+		when(documentRepository.deleteByIdIn(fullBatch)).thenReturn(fullBatch.size());
+		when(documentRepository.deleteByIdIn(lastBatch)).thenReturn(lastBatch.size());
+
+		assertThat(documentService.deleteMatching(new DocumentFilterRequest("wiki", " "))).isEqualTo(502);
+		verify(embeddingRepository).deleteByDocumentIds(fullBatch);
+		verify(embeddingRepository).deleteByDocumentIds(lastBatch);
+	}
+
+	@Test
+	void shouldRequireSourceOrTagForBulkDelete() {
+		assertThatThrownBy(() -> documentService.deleteMatching(new DocumentFilterRequest(null, "")))
+				.isInstanceOf(IllegalArgumentException.class);
+		verifyNoInteractions(documentRepository, embeddingRepository, vectorStoreRepository);
+	}
+}
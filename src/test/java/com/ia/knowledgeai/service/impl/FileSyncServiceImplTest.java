@@ -0,0 +1,182 @@
+package com.ia.knowledgeai.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.WatchedFile;
+import com.ia.knowledgeai.domain.support.ContentHash;
+import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.repository.WatchedFileRepository;
+import com.ia.knowledgeai.service.DocumentService;
+import com.ia.knowledgeai.service.FileSyncService.Outcome;
+import com.ia.knowledgeai.service.IngestService;
+
+@ExtendWith(MockitoExtension.class)
+class FileSyncServiceImplTest {
+
+	@Mock
+	private WatchedFileRepository watchedFileRepository;
+
+	@Mock
+	private IngestService ingestService;
+
+	@Mock
+	private DocumentService documentService;
+
+	@TempDir
+	private Path directory;
+
+	private FileSyncServiceImpl fileSyncService;
+
+	@BeforeEach
+	void setUp() {
+		IngestProperties properties = new IngestProperties();
+		properties.getWatch().setSource("shared-drive");
+		fileSyncService = new FileSyncServiceImpl(watchedFileRepository, ingestService, documentService, properties);
+	}
+
+	@Test
+	void shouldIngestNewFileAndRecordItInManifest() throws IOException {
+		Path file = Files.writeString(directory.resolve("policy.pdf"), "v1");
+		UUID documentId = UUID.randomUUID();
+		when(watchedFileRepository.findById(file.toString())).thenReturn(Optional.empty());
+		when(ingestService.ingest(argThat(request -> "shared-drive".equals(request.getSource())
+				&& "policy.pdf".equals(request.getTitle())
+				&& "application/pdf".equals(request.getFile().getContentType()))))
+				.thenReturn(new IngestResponse(documentId, 1, 2, "INGESTED"));
+
+		assertThat(fileSyncService.sync(file)).isEqualTo(Outcome.ADDED);
+		verify(watchedFileRepository).save(argThat(watched -> watched.getDocumentId().equals(documentId)
+				&& watched.getContentHash().equals(ContentHash.of("v1"))));
+	}
+
+	@Test
+	void shouldNotReadFileWhoseSizeAndTimestampMatchManifest() throws IOException {
+		Path file = Files.writeString(directory.resolve("policy.pdf"), "v1");
+		Instant modifiedAt = Files.getLastModifiedTime(file).toInstant();
+		when(watchedFileRepository.findById(file.toString())).thenReturn(Optional.of(
+				new WatchedFile(file.toString(), modifiedAt, 2, "stale-hash", UUID.randomUUID(), Instant.now())));
+
+		assertThat(fileSyncService.sync(file)).isEqualTo(Outcome.UNCHANGED);
+		verifyNoInteractions(ingestService, documentService);
+	}
+
+	@Test
+	void shouldMatchNanosecondTimestampAfterManifestRoundTrip() throws IOException {
+		Path file = Files.writeString(directory.resolve("policy.pdf"), "v1");
+		Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(1_700_000_000L, 123_456_789)));
+		when(watchedFileRepository.findById(file.toString())).thenReturn(Optional.empty());
+		when(ingestService.ingest(any())).thenReturn(new IngestResponse(UUID.randomUUID(), 1, 2, "INGESTED"));
+		ArgumentCaptor<WatchedFile> saved = ArgumentCaptor.forClass(WatchedFile.class);
+
+		fileSyncService.sync(file);
+
+		verify(watchedFileRepository).save(saved.capture());
+		WatchedFile stored = saved.getValue();
+		// What the microsecond timestamp column gives back.
+		when(watchedFileRepository.findById(file.toString())).thenReturn(Optional.of(new WatchedFile(stored.getPath(),
+				stored.getModifiedAt().truncatedTo(ChronoUnit.MICROS), stored.getSize(), stored.getContentHash(),
+				stored.getDocumentId(), stored.getSyncedAt())));
+
+		assertThat(fileSyncService.sync(file)).isEqualTo(Outcome.UNCHANGED);
+		verify(ingestService).ingest(any());
+		verify(watchedFileRepository).save(any());
+	}
+
+	@Test
+	void shouldOnlyTouchManifestWhenContentIsUnchanged() throws IOException {
+		Path file = Files.writeString(directory.resolve("policy.pdf"), "v1");
+		UUID documentId = UUID.randomUUID();
+		when(watchedFileRepository.findById(file.toString())).thenReturn(Optional.of(new WatchedFile(file.toString(),
+				Instant.EPOCH, 2, ContentHash.of("v1"), documentId, Instant.now())));
+
+		assertThat(fileSyncService.sync(file)).isEqualTo(Outcome.UNCHANGED);
+		verify(watchedFileRepository).save(argThat(watched -> watched.getDocumentId().equals(documentId)
+				&& !watched.getModifiedAt().equals(Instant.EPOCH)));
+		verifyNoInteractions(ingestService, documentService);
+	}
+
+	@Test
+	void shouldReingestChangedFileAndDeleteThePreviousDocument() throws IOException {
+		Path file = Files.writeString(directory.resolve("policy.pdf"), "v2");
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+		UUID previousId = UUID.randomUUID();
+		UUID documentId = UUID.randomUUID();
+		when(watchedFileRepository.findById(file.toString())).thenReturn(Optional.of(new WatchedFile(file.toString(),
+				Instant.EPOCH, 2, ContentHash.of("v1"), previousId, Instant.now())));
+		when(ingestService.ingest(any())).thenReturn(new IngestResponse(documentId, 1, 2, "INGESTED"));
+
+		assertThat(fileSyncService.sync(file)).isEqualTo(Outcome.UPDATED);
+		verify(watchedFileRepository).save(argThat(watched -> watched.getDocumentId().equals(documentId)));
+		verify(documentService).delete(previousId);
+	}
+
+	@Test
+	void shouldRemoveDocumentsOfDeletedDirectory() {
+		Path deleted = directory.resolve("archive");
+		WatchedFile first = new WatchedFile(deleted.resolve("a.pdf").toString(), Instant.EPOCH, 1, "h1",
+				UUID.randomUUID(), Instant.now());
+		WatchedFile second = new WatchedFile(deleted.resolve("b.pdf").toString(), Instant.EPOCH, 1, "h2",
+				UUID.randomUUID(), Instant.now());
+		when(watchedFileRepository.findById(deleted.toString())).thenReturn(Optional.empty());
+		when(watchedFileRepository.findByPathStartingWith(deleted + "/")).thenReturn(List.of(first, second));
+
+		assertThat(fileSyncService.sync(deleted)).isEqualTo(Outcome.REMOVED);
+		verify(documentService).delete(first.getDocumentId());
+		verify(documentService).delete(second.getDocumentId());
+		verify(watchedFileRepository).delete(first);
+		verify(watchedFileRepository).delete(second);
+	}
+
+	@Test
+	void shouldSkipFilesWithUnsupportedContentType() throws IOException {
+		Path file = Files.writeString(directory.resolve("notes.txt"), "text");
+
+		assertThat(fileSyncService.sync(file)).isEqualTo(Outcome.SKIPPED);
+		verify(watchedFileRepository, never()).save(any());
+		verifyNoInteractions(ingestService);
+	}
+
+	@Test
+	void shouldRemoveManifestEntriesOfFilesDeletedWhileStopped() throws IOException {
+		Path kept = Files.writeString(directory.resolve("kept.pdf"), "k");
+		Instant modifiedAt = Files.getLastModifiedTime(kept).toInstant();
+		WatchedFile keptEntry = new WatchedFile(kept.toString(), modifiedAt, 1, "hk", UUID.randomUUID(),
+				Instant.now());
+		WatchedFile goneEntry = new WatchedFile(directory.resolve("gone.pdf").toString(), Instant.EPOCH, 1, "hg",
+				UUID.randomUUID(), Instant.now());
+		when(watchedFileRepository.findById(kept.toString())).thenReturn(Optional.of(keptEntry));
+		when(watchedFileRepository.findByPathStartingWith(directory.toAbsolutePath().normalize() + "/"))
+				.thenReturn(List.of(keptEntry, goneEntry));
+
+		fileSyncService.reconcile(directory);
+
+		verify(documentService).delete(goneEntry.getDocumentId());
+		verify(documentService, never()).delete(keptEntry.getDocumentId());
+		verifyNoInteractions(ingestService);
+	}
+}
@@ -3,11 +3,26 @@ package com.ia.knowledgeai.service.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -15,18 +30,38 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.config.QueryProperties;
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.ChunkPosition;
 import com.ia.knowledgeai.domain.Document;
-import com.ia.knowledgeai.domain.ParsedDocument;
+import com.ia.knowledgeai.domain.PageRange;
+import com.ia.knowledgeai.domain.support.ChunkWriter;
+import com.ia.knowledgeai.dto.request.DocumentUpdateRequest;
 import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.dto.response.DocumentUpdateResponse;
 import com.ia.knowledgeai.dto.response.IngestResponse;
+import com.ia.knowledgeai.domain.support.ContentHash;
 import com.ia.knowledgeai.domain.support.DocumentParser;
+import com.ia.knowledgeai.mapper.EmbeddingMapper;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
+import com.ia.knowledgeai.repository.ChunkSignatureRepository;
 import com.ia.knowledgeai.repository.DocumentRepository;
 import com.ia.knowledgeai.repository.VectorStoreRepository;
 import com.ia.knowledgeai.domain.support.TextChunker;
+import com.ia.knowledgeai.service.DocumentService;
+import com.ia.knowledgeai.service.support.EmbeddingBatcher;
+import com.ia.knowledgeai.service.support.IngestPipeline;
+import com.ia.knowledgeai.service.support.IngestTransactions;
+import com.ia.knowledgeai.service.support.NearDuplicateDetector;
+import com.ia.knowledgeai.service.support.RetrievalCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class IngestServiceImplTest {
@@ -38,24 +73,44 @@ class IngestServiceImplTest {
 	private VectorStoreRepository vectorStoreRepository;
 
 	@Mock
-	private VectorStore vectorStore;
+	private ChunkBulkWriter chunkBulkWriter;
+
+	@Mock
+	private EmbeddingBatcher embeddingBatcher;
 
 	@Mock
 	private DocumentParser documentParser;
 
+	@Mock
+	private ChunkSignatureRepository chunkSignatureRepository;
+
+	@Mock
+	private IngestPipeline ingestPipeline;
+
+	@Mock
+	private DocumentService documentService;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
 	private TextChunker textChunker = new TextChunker();
 
+	private IngestProperties properties;
+
 	private IngestServiceImpl ingestService;
 
 	@BeforeEach
 	void setUp() {
-		IngestProperties properties = new IngestProperties();
+		properties = new IngestProperties();
 		properties.setChunkSize(8);
 		properties.setChunkOverlap(2);
 		properties.setMaxTextLength(5000);
 
-		ingestService = new IngestServiceImpl(documentRepository, vectorStoreRepository, vectorStore, textChunker,
-				documentParser, properties);
+		IngestTransactions ingestTransactions = new IngestTransactions(transactionManager, new SimpleMeterRegistry());
+		ingestService = new IngestServiceImpl(documentRepository, vectorStoreRepository, chunkBulkWriter,
+				embeddingBatcher, new NearDuplicateDetector(chunkSignatureRepository, properties), textChunker,
+				documentParser, properties, new EmbeddingMapper(), ingestPipeline, ingestTransactions, documentService,
+				new RetrievalCache(new QueryProperties(), new SimpleMeterRegistry()));
 	}
 
 	@Test
@@ -63,8 +118,12 @@ class IngestServiceImplTest {
 		UUID documentId = UUID.randomUUID();
 		when(documentRepository.save(any()))
 				.thenReturn(new Document(documentId, "source", "title", List.of("tag"), Instant.now()));
-		when(documentParser.parse(any(), any(), any()))
-				.thenReturn(new ParsedDocument("sample text content", "application/pdf"));
+		when(documentParser.parse(any(InputStream.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			Writer sink = invocation.getArgument(3);
+			sink.write("sample text content");
+			return "application/pdf";
+		});
+		when(embeddingBatcher.embed(anyList(), any())).thenReturn(List.of(new float[] { 1f, 0f }));
 
 		MockMultipartFile file = new MockMultipartFile("file", "sample.pdf", "application/pdf", "pdf-content".getBytes());
 		IngestRequest request = new IngestRequest("source", "title", List.of("tag1"), file);
@@ -72,9 +131,89 @@ class IngestServiceImplTest {
 
 		assertThat(response.documentId()).isEqualTo(documentId);
 		assertThat(response.status()).isEqualTo("INGESTED");
+		assertThat(response.chunksProcessed()).isEqualTo(1);
+		assertThat(response.tokensCount()).isEqualTo("sample text content".length());
 		verify(documentRepository).save(any());
-		verify(vectorStoreRepository).saveAll(any());
-		verify(vectorStore).add(any());
+		verify(embeddingBatcher).embed(eq(List.of("sample text content")), any());
+		verify(chunkBulkWriter).write(argThat(chunks -> chunks.size() == 1),
+				argThat(embeddings -> embeddings.size() == 1));
+		verify(documentRepository).updateContentHash(documentId, ContentHash.of("pdf-content"));
+		verify(documentService).markReady(documentId);
+	}
+
+	@Test
+	void shouldReuseVectorOfNearDuplicateChunkWhenLinking() {
+		properties.getNearDuplicates().setPolicy(IngestProperties.DuplicatePolicy.LINK);
+		properties.setChunkSize(4);
+		properties.setChunkOverlap(0);
+		UUID documentId = UUID.randomUUID();
+		UUID originalId = UUID.randomUUID();
+		float[] originalVector = { 0f, 1f };
+		when(documentRepository.save(any()))
+				.thenReturn(new Document(documentId, "source", "title", List.of("tag"), Instant.now()));
+		when(documentParser.parse(any(InputStream.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			Writer sink = invocation.getArgument(3);
+			sink.write("one two three four five six seven eight");
+			return "application/pdf";
+		});
+		when(chunkSignatureRepository.findNearest(anyList(), anyList(), eq(3), eq(true)))
+				.thenReturn(Arrays.asList(new ChunkSignatureRepository.Match(originalId, originalVector), null));
+		when(embeddingBatcher.embed(anyList(), any())).thenReturn(List.of(new float[] { 1f, 0f }));
+
+		MockMultipartFile file = new MockMultipartFile("file", "sample.pdf", "application/pdf", "content".getBytes());
+		IngestResponse response = ingestService.ingest(new IngestRequest("source", "title", List.of("tag1"), file));
+
+		assertThat(response.chunksProcessed()).isEqualTo(2);
+		verify(embeddingBatcher).embed(eq(List.of("five six seven eight")), any());
+		verify(chunkBulkWriter).write(
+				argThat(chunks -> originalId.equals(chunks.get(0).getDuplicateOf())
+						&& chunks.get(1).getDuplicateOf() == null),
+				argThat(embeddings -> embeddings.size() == 2 && embeddings.get(0).getVector() == originalVector
+						&& originalId.toString().equals(embeddings.get(0).getMetadata().get("duplicateOf"))));
+	}
+
+	@Test
+	void shouldParseLargeUploadFromSpooledFile() {
+		properties.getSpill().setUploadThresholdBytes(4);
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.save(any()))
+				.thenReturn(new Document(documentId, "source", "title", List.of("tag"), Instant.now()));
+		when(documentParser.parse(any(Path.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			assertThat(Files.readString(invocation.<Path>getArgument(0))).isEqualTo("pdf-content");
+			Writer sink = invocation.getArgument(3);
+			sink.write("sample text content");
+			return "application/pdf";
+		});
+		when(embeddingBatcher.embed(anyList(), any())).thenReturn(List.of(new float[] { 1f, 0f }));
+
+		MockMultipartFile file = new MockMultipartFile("file", "sample.pdf", "application/pdf", "pdf-content".getBytes());
+		IngestResponse response = ingestService.ingest(new IngestRequest("source", "title", List.of("tag1"), file));
+
+		assertThat(response.chunksProcessed()).isEqualTo(1);
+		verify(documentParser, never()).parse(any(InputStream.class), any(), any(), any(Writer.class));
+		verify(documentRepository).updateContentHash(documentId, ContentHash.of("pdf-content"));
+	}
+
+	@Test
+	void shouldDiscardPartialDocumentWhenEmbeddingFails() {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.save(any()))
+				.thenReturn(new Document(documentId, "source", "title", List.of("tag"), Instant.now()));
+		when(documentParser.parse(any(InputStream.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			Writer sink = invocation.getArgument(3);
+			sink.write("sample text content");
+			return "application/pdf";
+		});
+		when(embeddingBatcher.embed(anyList(), any())).thenThrow(new IllegalStateException("embedding backend down"));
+
+		MockMultipartFile file = new MockMultipartFile("file", "sample.pdf", "application/pdf", "pdf-content".getBytes());
+		IngestRequest request = new IngestRequest("source", "title", List.of("tag1"), file);
+
+		assertThatThrownBy(() -> ingestService.ingest(request))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("embedding backend down");
+		verify(documentService).delete(eq(documentId), any());
+		verifyNoInteractions(chunkBulkWriter);
 	}
 
 	@Test
@@ -85,4 +224,202 @@ class IngestServiceImplTest {
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("file must be provided for ingestion");
 	}
+
+	@Test
+	void shouldRejectContentLongerThanMaxTextLength() {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.save(any()))
+				.thenReturn(new Document(documentId, "source", "title", List.of("tag"), Instant.now()));
+		when(documentParser.parse(any(InputStream.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			Writer sink = invocation.getArgument(3);
+			sink.write("word ".repeat(2000));
+			return "application/pdf";
+		});
+
+		MockMultipartFile file = new MockMultipartFile("file", "sample.pdf", "application/pdf", "pdf-content".getBytes());
+		IngestRequest request = new IngestRequest("source", "title", List.of("tag1"), file);
+
+		assertThatThrownBy(() -> ingestService.ingest(request))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("maximum length");
+	}
+
+	@Test
+	void shouldValidateBeforeSubmittingAsyncJob() {
+		MockMultipartFile file = new MockMultipartFile("file", "notes.txt", "text/plain", "text".getBytes());
+		IngestRequest request = new IngestRequest("source", "title", List.of(), file);
+
+		assertThatThrownBy(() -> ingestService.submit(request))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Unsupported content type");
+		verifyNoInteractions(ingestPipeline);
+	}
+
+	@Test
+	void shouldEmbedOnlyChangedChunksOnUpdate() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		Document document = readyDocument(documentId);
+		String previousText = "one two three four five six seven eight nine ten eleven twelve thirteen fourteen";
+		String revisedText = "one two three four five six seven eight nine ten eleven twelve changed lines here";
+		List<String> previousChunks = chunk(previousText);
+		List<String> revisedChunks = chunk(revisedText);
+		List<VectorStoreRepository.StoredChunk> stored = new ArrayList<>();
+		for (int i = 0; i < previousChunks.size(); i++) {
+			stored.add(new StoredRow(UUID.randomUUID(), i, ContentHash.of(previousChunks.get(i))));
+		}
+		Set<String> previousHashes = new HashSet<>(previousChunks.stream().map(ContentHash::of).toList());
+		List<String> expectedEmbedded = revisedChunks.stream()
+				.filter(text -> !previousHashes.contains(ContentHash.of(text)))
+				.toList();
+		when(documentRepository.findWithTagsById(documentId)).thenReturn(Optional.of(document));
+		when(vectorStoreRepository.findStoredChunks(documentId)).thenReturn(stored);
+		stubParsedText(revisedText);
+		when(embeddingBatcher.embed(anyList(), any())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+				.stream()
+				.map(text -> new float[] { 1f })
+				.toList());
+		when(documentRepository.replaceContentHash(documentId, null, ContentHash.of("revision"))).thenReturn(1);
+
+		DocumentUpdateResponse response = ingestService.update(documentId, updateRequest("revision")).orElseThrow();
+
+		assertThat(expectedEmbedded).isNotEmpty().hasSizeLessThan(revisedChunks.size());
+		assertThat(response.status()).isEqualTo("UPDATED");
+		assertThat(response.chunksTotal()).isEqualTo(revisedChunks.size());
+		assertThat(response.chunksEmbedded()).isEqualTo(expectedEmbedded.size());
+		assertThat(response.chunksReused()).isEqualTo(revisedChunks.size() - expectedEmbedded.size());
+		verify(embeddingBatcher).embed(eq(expectedEmbedded), any());
+		verify(chunkBulkWriter).write(argThat(chunks -> chunks.stream().map(Chunk::getText).toList()
+				.equals(expectedEmbedded)), argThat(embeddings -> embeddings.size() == expectedEmbedded.size()));
+		verify(chunkBulkWriter).delete(argThat(ids -> ids.size() == response.chunksDeleted()));
+		verify(chunkBulkWriter).reindex(Map.of());
+	}
+
+	@Test
+	void shouldMoveReusedChunksToTheirNewPages() throws Exception {
+		properties.setChunkSize(4);
+		properties.setChunkOverlap(0);
+		UUID documentId = UUID.randomUUID();
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		when(documentRepository.findWithTagsById(documentId)).thenReturn(Optional.of(readyDocument(documentId)));
+		when(vectorStoreRepository.findStoredChunks(documentId)).thenReturn(List.of(
+				new StoredRow(first, 0, new PageRange(1, 1), ContentHash.of("one two three four")),
+				new StoredRow(second, 1, new PageRange(1, 1), ContentHash.of("five six seven eight"))));
+		when(documentParser.parse(any(InputStream.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			ChunkWriter sink = invocation.getArgument(3);
+			sink.pageStarted(1);
+			sink.write("one two three four ");
+			sink.pageStarted(2);
+			sink.write("five six seven eight");
+			return "application/pdf";
+		});
+		when(documentRepository.replaceContentHash(documentId, null, ContentHash.of("revision"))).thenReturn(1);
+
+		DocumentUpdateResponse response = ingestService.update(documentId, updateRequest("revision")).orElseThrow();
+
+		assertThat(response.chunksReused()).isEqualTo(2);
+		verify(chunkBulkWriter).reindex(Map.of(second, new ChunkPosition(1, new PageRange(2, 2))));
+		verifyNoInteractions(embeddingBatcher);
+	}
+
+	@Test
+	void shouldNotTouchStoredChunksWhenRevisionIsIdentical() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		Document document = readyDocument(documentId);
+		ReflectionTestUtils.setField(document, "contentHash", ContentHash.of("revision"));
+		when(documentRepository.findWithTagsById(documentId)).thenReturn(Optional.of(document));
+		when(vectorStoreRepository.findStoredChunks(documentId))
+				.thenReturn(List.of(new StoredRow(UUID.randomUUID(), 0, ContentHash.of("sample text content"))));
+		stubParsedText("sample text content");
+
+		DocumentUpdateResponse response = ingestService.update(documentId, updateRequest("revision")).orElseThrow();
+
+		assertThat(response.status()).isEqualTo("UNCHANGED");
+		assertThat(response.chunksReused()).isEqualTo(1);
+		verifyNoInteractions(embeddingBatcher, chunkBulkWriter);
+		verify(documentRepository, never()).replaceContentHash(any(), any(), any());
+	}
+
+	@Test
+	void shouldRejectUpdateWhenDocumentChangedConcurrently() throws Exception {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.findWithTagsById(documentId)).thenReturn(Optional.of(readyDocument(documentId)));
+		when(vectorStoreRepository.findStoredChunks(documentId)).thenReturn(List.of());
+		stubParsedText("sample text content");
+		when(embeddingBatcher.embed(anyList(), any())).thenReturn(List.<float[]>of(new float[] { 1f }));
+		when(documentRepository.replaceContentHash(eq(documentId), any(), any())).thenReturn(0);
+
+		assertThatThrownBy(() -> ingestService.update(documentId, updateRequest("revision")))
+				.isInstanceOf(OptimisticLockingFailureException.class);
+		verifyNoInteractions(chunkBulkWriter);
+	}
+
+	@Test
+	void shouldReturnEmptyWhenUpdatingUnknownDocument() {
+		UUID documentId = UUID.randomUUID();
+		when(documentRepository.findWithTagsById(documentId)).thenReturn(Optional.empty());
+
+		assertThat(ingestService.update(documentId, updateRequest("revision"))).isEmpty();
+		verifyNoInteractions(documentParser);
+	}
+
+	private Document readyDocument(UUID documentId) {
+		Document document = new Document(documentId, "source", "title", List.of("tag"), Instant.now());
+		ReflectionTestUtils.setField(document, "status", Document.Status.READY);
+		return document;
+	}
+
+	private void stubParsedText(String text) {
+		when(documentParser.parse(any(InputStream.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			Writer sink = invocation.getArgument(3);
+			sink.write(text);
+			return "application/pdf";
+		});
+	}
+
+	private DocumentUpdateRequest updateRequest(String content) {
+		return new DocumentUpdateRequest(
+				new MockMultipartFile("file", "sample.pdf", "application/pdf", content.getBytes()));
+	}
+
+	private List<String> chunk(String text) throws Exception {
+		List<String> chunks = new ArrayList<>();
+		try (ChunkWriter writer = textChunker.writer(8, 2, chunks::add)) {
+			writer.write(text);
+		}
+		return chunks;
+	}
+
+	private record StoredRow(UUID id, int index, PageRange pages, String hash)
+			implements VectorStoreRepository.StoredChunk {
+
+		private StoredRow(UUID id, int index, String hash) {
+			this(id, index, null, hash);
+		}
+
+		@Override
+		public UUID getId() {
+			return id;
+		}
+
+		@Override
+		public int getChunkIndex() {
+			return index;
+		}
+
+		@Override
+		public Integer getPageStart() {
+			return pages != null ? pages.first() : null;
+		}
+
+		@Override
+		public Integer getPageEnd() {
+			return pages != null ? pages.last() : null;
+		}
+
+		@Override
+		public String getContentHash() {
+			return hash;
+		}
+	}
 }
@@ -3,6 +3,7 @@ package com.ia.knowledgeai.service.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,6 +16,7 @@ import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.messages.AssistantMessage;
@@ -26,11 +28,19 @@ import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 
+import com.ia.knowledgeai.config.IngestProperties;
 import com.ia.knowledgeai.config.QueryProperties;
 import com.ia.knowledgeai.config.RagProperties;
 import com.ia.knowledgeai.domain.QueryResult;
+import com.ia.knowledgeai.domain.Source;
 import com.ia.knowledgeai.mapper.QueryMapper;
+import com.ia.knowledgeai.repository.LexicalSearchRepository;
+import com.ia.knowledgeai.repository.SearchEffortRequest;
+import com.ia.knowledgeai.service.support.RetrievalCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class QueryServiceImplTest {
@@ -44,11 +54,19 @@ class QueryServiceImplTest {
 	@Mock
 	private PromptTemplate promptTemplate;
 
+	@Mock
+	private LexicalSearchRepository lexicalSearchRepository;
+
+	private QueryProperties queryProperties;
+
+	private IngestProperties ingestProperties;
+
 	private QueryServiceImpl queryService;
 
 	@BeforeEach
 	void setUp() {
-		QueryProperties queryProperties = new QueryProperties();
+		ingestProperties = new IngestProperties();
+		queryProperties = new QueryProperties();
 		queryProperties.setTopKDefault(3);
 		queryProperties.setTopKMax(5);
 		queryProperties.setSimilarityThreshold(0.5);
@@ -59,7 +77,8 @@ class QueryServiceImplTest {
 		ragProperties.setSimilarityThreshold(0.4);
 
 		queryService = new QueryServiceImpl(vectorStore, queryProperties, ragProperties, new QueryMapper(), chatModel,
-				promptTemplate);
+				promptTemplate, new RetrievalCache(queryProperties, new SimpleMeterRegistry()), lexicalSearchRepository,
+				ingestProperties);
 	}
 
 	@Test
@@ -72,7 +91,7 @@ class QueryServiceImplTest {
 		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(docs);
 
 		com.ia.knowledgeai.dto.request.QueryRequest request = new com.ia.knowledgeai.dto.request.QueryRequest(
-				"test query", 10, 0.7, "wiki", List.of("tag1"), null, null);
+				"test query", 10, 0.7, "wiki", List.of("tag1"), null, null, null);
 
 		QueryResult result = queryService.query(request);
 
@@ -83,21 +102,139 @@ class QueryServiceImplTest {
 		verify(vectorStore, times(1)).similaritySearch(any(SearchRequest.class));
 	}
 
+	@Test
+	void shouldCollapseNearDuplicatesAndDownWeightThem() {
+		String originalId = UUID.randomUUID().toString();
+		Document original = new Document(originalId, "original", Map.of("documentId", UUID.randomUUID().toString(),
+				"score", 0.9));
+		Document duplicate = new Document(UUID.randomUUID().toString(), "duplicate",
+				Map.of("documentId", UUID.randomUUID().toString(), "score", 0.88, "duplicateOf", originalId));
+		Document orphanDuplicate = new Document(UUID.randomUUID().toString(), "orphan duplicate",
+				Map.of("documentId", UUID.randomUUID().toString(), "score", 0.8, "duplicateOf",
+						UUID.randomUUID().toString()));
+		Document distinct = new Document(UUID.randomUUID().toString(), "distinct",
+				Map.of("documentId", UUID.randomUUID().toString(), "score", 0.7));
+		when(vectorStore.similaritySearch(any(SearchRequest.class)))
+			.thenReturn(List.of(original, duplicate, orphanDuplicate, distinct));
+
+		com.ia.knowledgeai.dto.request.QueryRequest request = new com.ia.knowledgeai.dto.request.QueryRequest(
+				"test query", 3, 0.5, null, null, null, null, null);
+
+		QueryResult result = queryService.query(request);
+
+		assertThat(result.getResults()).extracting(Source::getScore).containsExactly(0.9, 0.7, 0.8);
+	}
+
+	@Test
+	void shouldPassRequestedSearchEffortToVectorStore() {
+		ingestProperties.getNearDuplicates().setPolicy(IngestProperties.DuplicatePolicy.LINK);
+		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+		com.ia.knowledgeai.dto.request.QueryRequest request = new com.ia.knowledgeai.dto.request.QueryRequest(
+				"tuned query", 2, null, null, null, null, null, 120);
+
+		queryService.query(request);
+
+		ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+		verify(vectorStore).similaritySearch(searchRequest.capture());
+		assertThat(searchRequest.getValue()).isInstanceOfSatisfying(SearchEffortRequest.class, tuned -> {
+			assertThat(tuned.getSearchEffort()).isEqualTo(120);
+			assertThat(tuned.getTopK()).isEqualTo(4);
+		});
+	}
+
+	@Test
+	void shouldFetchOnlyTopKWhenNearDuplicatesAreNotMarked() {
+		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+
+		queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest("query", 2, null, null, null, null, null,
+				null));
+
+		ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+		verify(vectorStore).similaritySearch(searchRequest.capture());
+		assertThat(searchRequest.getValue().getTopK()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldPushEveryFilterIntoTheSearchRequiringAllTags() {
+		UUID documentId = UUID.randomUUID();
+		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+
+		queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest("query", 3, null, "wiki",
+				List.of("a", "b", "a"), documentId, null, null));
+
+		ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+		verify(vectorStore).similaritySearch(searchRequest.capture());
+		FilterExpressionBuilder builder = new FilterExpressionBuilder();
+		assertThat(searchRequest.getValue().getFilterExpression()).isEqualTo(builder
+			.and(builder.and(builder.and(builder.eq("documentId", documentId.toString()), builder.eq("source", "wiki")),
+					builder.eq("tags", "a")), builder.eq("tags", "b"))
+			.build());
+	}
+
 	@Test
 	void shouldReturnEmptyResultsWhenRetrieverReturnsNone() {
 		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
 		com.ia.knowledgeai.dto.request.QueryRequest request = new com.ia.knowledgeai.dto.request.QueryRequest(
-				"empty query", null, null, null, List.of(), null, null);
+				"empty query", null, null, null, List.of(), null, null, null);
 
 		QueryResult result = queryService.query(request);
 
 		assertThat(result.getResults()).isEmpty();
 	}
 
+	@Test
+	void shouldServeRepeatedQueriesFromTheResultCache() {
+		Document document = new Document("content",
+				Map.of("documentId", UUID.randomUUID().toString(), "source", "wiki", "tags", List.of("a", "b"),
+						"score", 0.9));
+		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(document));
+
+		QueryResult first = queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest(" test  query", 3, 0.5,
+				"wiki", List.of("a", "b"), null, null, null));
+		QueryResult second = queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest("test query", 3, 0.5,
+				"wiki", List.of("b", "a"), null, null, null));
+		queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest("test query", 2, 0.5, "wiki",
+				List.of("a", "b"), null, null, null));
+
+		assertThat(second.getResults()).hasSize(1);
+		assertThat(second.getResults().get(0).getDocumentId()).isEqualTo(first.getResults().get(0).getDocumentId());
+		verify(vectorStore, times(2)).similaritySearch(any(SearchRequest.class));
+	}
+
+	@Test
+	void shouldFuseVectorAndLexicalResultsByReciprocalRank() {
+		queryProperties.setMode(QueryProperties.Mode.HYBRID);
+		Document semanticOnly = new Document("semantic-only", "semantic", Map.of("documentId", "doc-1"));
+		Document both = new Document("both", "both", Map.of("documentId", "doc-2"));
+		Document lexicalOnly = new Document("lexical-only", "E-1042", Map.of("documentId", "doc-3", "score", 0.3));
+		when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(semanticOnly, both));
+		when(lexicalSearchRepository.search("E-1042", 3, null, null, null)).thenReturn(List.of(both, lexicalOnly));
+
+		QueryResult result = queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest("E-1042", 3, null,
+				null, null, null, null, null));
+
+		assertThat(result.getResults()).extracting(Source::getScore)
+			.containsExactly(1.0 / 61 + 1.0 / 62, 1.0 / 61, 1.0 / 62);
+	}
+
+	@Test
+	void shouldSkipTheVectorSearchInLexicalMode() {
+		queryProperties.setMode(QueryProperties.Mode.LEXICAL);
+		Document match = new Document("match", "E-1042", Map.of("documentId", UUID.randomUUID().toString(),
+				"source", "wiki", "score", 0.2));
+		when(lexicalSearchRepository.search("E-1042", 3, "wiki", null, null)).thenReturn(List.of(match));
+
+		QueryResult result = queryService.query(new com.ia.knowledgeai.dto.request.QueryRequest("E-1042", 3, 0.9,
+				"wiki", null, null, null, null));
+
+		assertThat(result.getResults()).extracting(Source::getScore).containsExactly(0.2);
+		verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+	}
+
 	@Test
 	void shouldValidateBlankQuery() {
 		com.ia.knowledgeai.dto.request.QueryRequest request = new com.ia.knowledgeai.dto.request.QueryRequest(
-				" ", null, null, null, null, null, null);
+				" ", null, null, null, null, null, null, null);
 		assertThatThrownBy(() -> queryService.query(request))
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("Query must not be empty");
@@ -114,7 +251,7 @@ class QueryServiceImplTest {
 		when(chatModel.call(any(Prompt.class))).thenReturn(chatResponse);
 
 		com.ia.knowledgeai.dto.request.QueryRequest request = new com.ia.knowledgeai.dto.request.QueryRequest(
-				"query", null, null, null, null, null, false);
+				"query", null, null, null, null, null, false, null);
 
 		QueryResult result = queryService.answer(request);
 
@@ -0,0 +1,54 @@
+package com.ia.knowledgeai.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.ia.knowledgeai.domain.Chunk;
+import com.ia.knowledgeai.domain.Document;
+import com.ia.knowledgeai.domain.PageRange;
+
+class ChunkSpoolTest {
+
+	private final Document document = new Document(UUID.randomUUID(), "source", "title", List.of(), Instant.now());
+
+	@Test
+	void shouldReadBackSpilledChunksInBatches() {
+		List<Chunk> chunks = new ArrayList<>();
+		List<float[]> batchSizes = new ArrayList<>();
+		List<Chunk> read = new ArrayList<>();
+		List<float[]> readVectors = new ArrayList<>();
+		try (ChunkSpool spool = new ChunkSpool(document, 40)) {
+			for (int i = 0; i < 5; i++) {
+				Chunk chunk = new Chunk(UUID.randomUUID(), document, i, "chunk número " + i,
+						i % 2 == 0 ? new PageRange(i + 1, i + 2) : null);
+				chunks.add(chunk);
+				spool.add(chunk, i == 3 ? null : new float[] { i, -i });
+			}
+
+			spool.forEachBatch(2, (batch, vectors) -> {
+				batchSizes.add(new float[batch.size()]);
+				read.addAll(batch);
+				readVectors.addAll(vectors);
+			});
+
+			assertThat(spool.size()).isEqualTo(5);
+		}
+
+		assertThat(batchSizes).extracting(sizes -> sizes.length).containsExactly(1, 2, 2);
+		assertThat(read).extracting(Chunk::getId).containsExactlyElementsOf(chunks.stream().map(Chunk::getId).toList());
+		assertThat(read).extracting(Chunk::getIndex).containsExactly(0, 1, 2, 3, 4);
+		assertThat(read).extracting(Chunk::getText).containsExactlyElementsOf(chunks.stream().map(Chunk::getText).toList());
+		assertThat(read).extracting(Chunk::getContentHash)
+				.containsExactlyElementsOf(chunks.stream().map(Chunk::getContentHash).toList());
+		assertThat(read).extracting(Chunk::getPageStart).containsExactly(1, null, 3, null, 5);
+		assertThat(read).extracting(Chunk::getPageEnd).containsExactly(2, null, 4, null, 6);
+		assertThat(readVectors.get(3)).isNull();
+		assertThat(readVectors.get(4)).containsExactly(4f, -4f);
+	}
+}
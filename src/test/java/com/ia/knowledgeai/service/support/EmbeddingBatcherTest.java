@@ -0,0 +1,144 @@
+package com.ia.knowledgeai.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.support.ContentHash;
+import com.ia.knowledgeai.domain.support.TextChunker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddingBatcherTest {
+
+	@Mock
+	private EmbeddingModel embeddingModel;
+
+	@Mock
+	private EmbeddingCache embeddingCache;
+
+	private IngestProperties properties;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private EmbeddingBatcher batcher;
+
+	@BeforeEach
+	void setUp() {
+		properties = new IngestProperties();
+		properties.getEmbedding().setBatchSize(3);
+		properties.getEmbedding().setMaxBatchTokens(6);
+		properties.getEmbedding().setMaxConcurrency(2);
+		meterRegistry = new SimpleMeterRegistry();
+		batcher = new EmbeddingBatcher(embeddingModel, new TextChunker(), embeddingCache, properties, meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		batcher.close();
+	}
+
+	@Test
+	void shouldCloseBatchesOnChunkCountAndTokenBudget() {
+		List<EmbeddingBatcher.Batch> batches = batcher.partition(
+				List.of("one", "two", "three", "four", "one two three four five six seven", "five"));
+
+		assertThat(batches).extracting(EmbeddingBatcher.Batch::texts)
+				.containsExactly(List.of("one", "two", "three"), List.of("four"),
+						List.of("one two three four five six seven"), List.of("five"));
+	}
+
+	@Test
+	void shouldReturnVectorsInInputOrderWithBoundedConcurrency() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+				List<String> texts = invocation.getArgument(0);
+				List<float[]> vectors = new ArrayList<>();
+				texts.forEach(text -> vectors.add(new float[] { Float.parseFloat(text) }));
+				return vectors;
+			}
+			finally {
+				inFlight.decrementAndGet();
+			}
+		});
+		List<String> texts = IntStream.range(0, 20).mapToObj(String::valueOf).toList();
+
+		List<float[]> vectors = batcher.embed(texts, held -> {
+		});
+
+		assertThat(vectors).extracting(vector -> (int) vector[0])
+				.containsExactlyElementsOf(IntStream.range(0, 20).boxed().toList());
+		assertThat(maxInFlight.get()).isBetween(1, 2);
+	}
+
+	@Test
+	void shouldOnlyEmbedTextsMissingFromCacheAndDeduplicateThem() {
+		float[] cached = { 9f };
+		when(embeddingCache.findAll(anyList())).thenReturn(Map.of(ContentHash.of("known"), cached));
+		when(embeddingModel.embed(List.of("fresh"))).thenReturn(List.of(new float[] { 1f }));
+
+		List<float[]> vectors = batcher.embed(List.of("known", "fresh", "fresh"), held -> {
+		});
+
+		assertThat(vectors).hasSize(3);
+		assertThat(vectors.get(0)).isSameAs(cached);
+		assertThat(vectors.get(1)).containsExactly(1f);
+		assertThat(vectors.get(2)).isSameAs(vectors.get(1));
+		verify(embeddingCache).putAll(eq(Map.of(ContentHash.of("fresh"), vectors.get(1))), any());
+	}
+
+	@Test
+	void shouldRecordLatencyAndTokensPerBatchTaggedBySize() {
+		List<String> texts = List.of("one", "two", "three", "four");
+		when(embeddingModel.embed(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+			.stream()
+			.map(text -> new float[] { 1f })
+			.toList());
+
+		batcher.embed(texts, held -> {
+		});
+
+		List<EmbeddingBatcher.Batch> batches = batcher.partition(texts);
+		assertThat(batches).extracting(batch -> batch.texts().size()).containsExactly(3, 1);
+		assertThat(meterRegistry.get("ingest.embedding.batch").tag("size", "3").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ingest.embedding.batch").tag("size", "1").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ingest.embedding.batch.tokens").tag("size", "3").summary().totalAmount())
+			.isEqualTo(batches.get(0).tokens());
+		assertThat(meterRegistry.get("ingest.embedding.batch.tokens").tag("size", "1").summary().totalAmount())
+			.isEqualTo(batches.get(1).tokens());
+	}
+
+	@Test
+	void shouldPropagateEmbeddingFailures() {
+		when(embeddingModel.embed(anyList())).thenThrow(new IllegalStateException("embedding backend down"));
+
+		assertThatThrownBy(() -> batcher.embed(List.of("a", "b", "c", "d"), held -> {
+		}))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("embedding backend down");
+	}
+}
@@ -0,0 +1,151 @@
+package com.ia.knowledgeai.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.domain.IngestJob;
+import com.ia.knowledgeai.domain.support.DocumentParser;
+import com.ia.knowledgeai.domain.support.TextChunker;
+import com.ia.knowledgeai.dto.request.IngestRequest;
+import com.ia.knowledgeai.mapper.EmbeddingMapper;
+import com.ia.knowledgeai.repository.ChunkBulkWriter;
+import com.ia.knowledgeai.repository.DocumentRepository;
+import com.ia.knowledgeai.service.DocumentService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class IngestPipelineTest {
+
+	@Mock
+	private DocumentRepository documentRepository;
+
+	@Mock
+	private DocumentService documentService;
+
+	@Mock
+	private ChunkBulkWriter chunkBulkWriter;
+
+	@Mock
+	private EmbeddingModel embeddingModel;
+
+	@Mock
+	private EmbeddingCache embeddingCache;
+
+	@Mock
+	private DocumentParser documentParser;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private IngestPipeline pipeline;
+
+	@BeforeEach
+	void setUp() {
+		IngestProperties properties = new IngestProperties();
+		properties.setChunkSize(4);
+		properties.setChunkOverlap(0);
+		properties.setMaxTextLength(5000);
+		properties.getAsync().setQueueCapacity(2);
+		properties.getAsync().setStageBatchSize(2);
+
+		TextChunker textChunker = new TextChunker();
+		EmbeddingBatcher embeddingBatcher = new EmbeddingBatcher(embeddingModel, textChunker, embeddingCache, properties,
+				new SimpleMeterRegistry());
+		IngestTransactions ingestTransactions = new IngestTransactions(transactionManager, new SimpleMeterRegistry());
+		pipeline = new IngestPipeline(documentRepository, documentService, chunkBulkWriter, embeddingBatcher,
+				new NearDuplicateDetector(null, properties), documentParser, textChunker, new EmbeddingMapper(),
+				ingestTransactions, properties);
+		pipeline.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		pipeline.stop();
+	}
+
+	@Test
+	void shouldRunJobThroughAllStages() throws Exception {
+		stubParsing();
+		when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+			List<String> texts = invocation.getArgument(0);
+			List<float[]> vectors = new ArrayList<>();
+			texts.forEach(text -> vectors.add(new float[] { 1f, 0f }));
+			return vectors;
+		});
+
+		IngestJob job = pipeline.submit(request());
+		awaitFinished(job);
+
+		assertThat(job.getStatus()).isEqualTo(IngestJob.Status.COMPLETED);
+		assertThat(job.getChunksParsed()).isGreaterThan(1);
+		assertThat(job.getChunksEmbedded()).isEqualTo(job.getChunksParsed());
+		assertThat(job.getChunksStored()).isEqualTo(job.getChunksParsed());
+		assertThat(pipeline.findJob(job.getId())).containsSame(job);
+		verify(chunkBulkWriter, atLeastOnce()).write(anyList(), anyList());
+		verify(documentService).markReady(job.getDocumentId());
+	}
+
+	@Test
+	void shouldFailJobAndDiscardPartialDataWhenEmbeddingFails() throws Exception {
+		stubParsing();
+		when(embeddingModel.embed(anyList())).thenThrow(new IllegalStateException("embedding backend down"));
+
+		IngestJob job = pipeline.submit(request());
+		awaitFinished(job);
+
+		assertThat(job.getStatus()).isEqualTo(IngestJob.Status.FAILED);
+		assertThat(job.getError()).contains("embedding backend down");
+		verify(documentService, timeout(2000)).delete(eq(job.getDocumentId()), any());
+	}
+
+	@Test
+	void shouldReportUnknownJob() {
+		assertThat(pipeline.findJob(UUID.randomUUID())).isEmpty();
+	}
+
+	private void stubParsing() {
+		when(documentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(documentParser.parse(any(Path.class), any(), any(), any(Writer.class))).thenAnswer(invocation -> {
+			Writer sink = invocation.getArgument(3);
+			sink.write("alpha beta gamma delta epsilon zeta eta theta iota kappa lambda mu");
+			return "application/pdf";
+		});
+	}
+
+	private IngestRequest request() {
+		MockMultipartFile file = new MockMultipartFile("file", "sample.pdf", "application/pdf", "pdf".getBytes());
+		return new IngestRequest("source", "title", List.of("tag"), file);
+	}
+
+	private void awaitFinished(IngestJob job) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(job.isFinished()).as("job finished").isTrue();
+	}
+}
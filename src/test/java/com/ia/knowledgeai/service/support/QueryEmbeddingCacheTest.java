@@ -0,0 +1,127 @@
+package com.ia.knowledgeai.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import com.ia.knowledgeai.config.IngestProperties;
+import com.ia.knowledgeai.config.QueryProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class QueryEmbeddingCacheTest {
+
+	@Mock
+	private EmbeddingModel embeddingModel;
+
+	private QueryProperties queryProperties;
+
+	private IngestProperties ingestProperties;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		queryProperties = new QueryProperties();
+		ingestProperties = new IngestProperties();
+		ingestProperties.getEmbedding().setModel("nomic-embed-text");
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void servesRepeatedQueriesFromTheCacheWhateverTheirSpacing() {
+		float[] vector = { 0.1f, 0.2f };
+		when(embeddingModel.embed("What is RAG?")).thenReturn(vector);
+		QueryEmbeddingCache cache = cache();
+
+		assertThat(cache.embed("What is RAG?")).containsExactly(vector);
+		assertThat(cache.embed("  What   is\u00A0RAG? ")).containsExactly(vector);
+
+		verify(embeddingModel, times(1)).embed(anyString());
+		assertThat(meterRegistry.get("query.embedding.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("query.embedding.cache").tag("result", "miss").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("query.embedding.cache.size").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void keepsCaseDistinctQueriesApart() {
+		when(embeddingModel.embed(anyString())).thenReturn(new float[] { 0.1f });
+		QueryEmbeddingCache cache = cache();
+
+		cache.embed("RAG");
+		cache.embed("rag");
+
+		verify(embeddingModel).embed("RAG");
+		verify(embeddingModel).embed("rag");
+	}
+
+	@Test
+	void returnsCopiesThatCannotAlterTheCachedVector() {
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f });
+		QueryEmbeddingCache cache = cache();
+
+		cache.embed("query")[0] = 9f;
+		cache.embed("query")[0] = 9f;
+
+		assertThat(cache.embed("query")).containsExactly(0.1f);
+	}
+
+	@Test
+	void embedsAgainOnceTheEntryExpires() {
+		queryProperties.getEmbeddingCache().setTtl(Duration.ZERO);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f });
+		QueryEmbeddingCache cache = cache();
+
+		cache.embed("query");
+		cache.embed("query");
+
+		verify(embeddingModel, times(2)).embed("query");
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntryBeyondMaxEntries() {
+		queryProperties.getEmbeddingCache().setMaxEntries(2);
+		when(embeddingModel.embed(anyString())).thenReturn(new float[] { 0.1f });
+		QueryEmbeddingCache cache = cache();
+
+		cache.embed("a");
+		cache.embed("b");
+		cache.embed("a");
+		cache.embed("c");
+		cache.embed("a");
+
+		assertThat(cache.size()).isEqualTo(2);
+		verify(embeddingModel, times(1)).embed("a");
+		verify(embeddingModel, times(1)).embed("b");
+		verify(embeddingModel, times(1)).embed("c");
+	}
+
+	@Test
+	void bypassesTheCacheWhenDisabled() {
+		queryProperties.getEmbeddingCache().setEnabled(false);
+		when(embeddingModel.embed("query")).thenReturn(new float[] { 0.1f });
+		QueryEmbeddingCache cache = cache();
+
+		cache.embed("query");
+		cache.embed("query");
+
+		verify(embeddingModel, times(2)).embed("query");
+		assertThat(cache.size()).isZero();
+	}
+
+	private QueryEmbeddingCache cache() {
+		return new QueryEmbeddingCache(embeddingModel, queryProperties, ingestProperties, meterRegistry);
+	}
+}
@@ -0,0 +1,124 @@
+package com.ia.knowledgeai.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ia.knowledgeai.config.QueryProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RetrievalCacheTest {
+
+	private QueryProperties properties;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private AtomicInteger searches;
+
+	@BeforeEach
+	void setUp() {
+		properties = new QueryProperties();
+		meterRegistry = new SimpleMeterRegistry();
+		searches = new AtomicInteger();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void servesEquivalentRequestsFromOneEntry() {
+		RetrievalCache cache = cache();
+
+		cache.get(key(" What  is RAG?", "wiki", List.of("b", "a")), search());
+		List<Document> cached = cache.get(key("What is RAG?", "wiki", List.of("a", "b", "a")), search());
+
+		assertThat(cached).hasSize(1);
+		assertThat(searches).hasValue(1);
+		assertThat(meterRegistry.get("query.retrieval.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("query.retrieval.cache").tag("result", "miss").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void invalidatesTheSourceAndUnscopedRequestsOnly() {
+		RetrievalCache cache = cache();
+		cache.get(key("query", "wiki", null), search());
+		cache.get(key("query", "blog", null), search());
+		cache.get(key("query", null, null), search());
+
+		cache.invalidate("wiki");
+		cache.get(key("query", "wiki", null), search());
+		cache.get(key("query", "blog", null), search());
+		cache.get(key("query", null, null), search());
+
+		assertThat(searches).hasValue(5);
+	}
+
+	@Test
+	void invalidatesOnlyOnceTheTransactionCommits() {
+		RetrievalCache cache = cache();
+		cache.get(key("query", "wiki", null), search());
+		TransactionSynchronizationManager.initSynchronization();
+
+		cache.invalidate("wiki");
+		cache.get(key("query", "wiki", null), search());
+		assertThat(searches).hasValue(1);
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		cache.get(key("query", "wiki", null), search());
+		assertThat(searches).hasValue(2);
+	}
+
+	@Test
+	void expiresEntriesAfterTheTtl() {
+		properties.getResultCache().setTtl(Duration.ZERO);
+		RetrievalCache cache = cache();
+
+		cache.get(key("query", null, null), search());
+		cache.get(key("query", null, null), search());
+
+		assertThat(searches).hasValue(2);
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntryBeyondMaxEntries() {
+		properties.getResultCache().setMaxEntries(1);
+		RetrievalCache cache = cache();
+
+		cache.get(key("a", null, null), search());
+		cache.get(key("b", null, null), search());
+		cache.get(key("a", null, null), search());
+
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(searches).hasValue(3);
+	}
+
+	private RetrievalCache cache() {
+		return new RetrievalCache(properties, meterRegistry);
+	}
+
+	private Supplier<List<Document>> search() {
+		return () -> {
+			searches.incrementAndGet();
+			return List.of(new Document("content"));
+		};
+	}
+
+	private static RetrievalCache.Key key(String query, String source, List<String> tags) {
+		return RetrievalCache.Key.of(query, 5, 0.6, null, source, tags, null);
+	}
+}